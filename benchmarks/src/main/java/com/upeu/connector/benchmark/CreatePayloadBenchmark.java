@@ -0,0 +1,53 @@
+package com.upeu.connector.benchmark;
+
+import com.upeu.connector.DSpaceClient;
+import com.upeu.connector.handler.EPersonHandler;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link EPersonHandler#create}: attribute validation, request body building
+ * and parsing of the (stubbed) server answer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreatePayloadBenchmark {
+
+    private static final String CREATED = "{\"id\":\"a1a67162-6756-4dcc-98a6-33bcaa4d1be6\"}";
+
+    private ExecutorService executor;
+    private EPersonHandler handler;
+    private Set<Attribute> attributes;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        DSpaceClient client = new DSpaceClient(new StubAuthManager(url -> "{}", payload -> CREATED));
+        handler = new EPersonHandler(client, executor);
+        attributes = Set.of(
+                AttributeBuilder.build("email", "ana.quispe@upeu.edu.pe"),
+                AttributeBuilder.build("firstname", "Ana"),
+                AttributeBuilder.build("lastname", "Quispe"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Uid create() {
+        return handler.create(attributes);
+    }
+}
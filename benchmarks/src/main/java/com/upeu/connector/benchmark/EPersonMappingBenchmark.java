@@ -0,0 +1,47 @@
+package com.upeu.connector.benchmark;
+
+import com.upeu.connector.handler.EPerson;
+import com.upeu.connector.mock.EPersonDataset;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of {@link EPerson} from parsed JSON and its
+ * conversion to a ConnId {@code ConnectorObject}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EPersonMappingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int records;
+
+    private List<JSONObject> epersons;
+
+    @Setup
+    public void setUp() {
+        epersons = EPersonDataset.generate(records).epersons();
+    }
+
+    @Benchmark
+    public void construct(Blackhole blackhole) {
+        for (JSONObject json : epersons) {
+            blackhole.consume(new EPerson(json));
+        }
+    }
+
+    @Benchmark
+    public void toConnectorObject(Blackhole blackhole) {
+        for (JSONObject json : epersons) {
+            blackhole.consume(new EPerson(json).toConnectorObject());
+        }
+    }
+}
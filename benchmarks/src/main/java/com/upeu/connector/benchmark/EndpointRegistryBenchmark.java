@@ -0,0 +1,48 @@
+package com.upeu.connector.benchmark;
+
+import com.upeu.connector.util.EndpointRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building request URLs from the endpoint templates, which happens on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndpointRegistryBenchmark {
+
+    private EndpointRegistry registry;
+    private Map<String, String> searchParams;
+
+    @Setup
+    public void setUp() {
+        registry = new EndpointRegistry("http://localhost:8080/");
+        searchParams = new LinkedHashMap<>();
+        searchParams.put("query", "María Quispe & co");
+        searchParams.put("page", "3");
+        searchParams.put("size", "100");
+    }
+
+    @Benchmark
+    public String epersons() {
+        return registry.getEndpoint("epersons");
+    }
+
+    @Benchmark
+    public URI resource() {
+        return registry.resource("epersons", "1b7c5c1e-3f7a-4c55-9a5e-2f4f0b1d8a10");
+    }
+
+    @Benchmark
+    public URI searchByMetadata() {
+        return registry.collection("epersons.search.byMetadata", searchParams);
+    }
+}
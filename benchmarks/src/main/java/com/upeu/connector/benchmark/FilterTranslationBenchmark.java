@@ -0,0 +1,69 @@
+package com.upeu.connector.benchmark;
+
+import com.upeu.connector.filter.EPersonFilterTranslator;
+import com.upeu.connector.filter.EPersonQuery;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link EPersonFilterTranslator#translate} on filter trees midPoint actually sends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterTranslationBenchmark {
+
+    @Param({"uidEquals", "nameEquals", "andOrSubstring", "orOfUids", "notFallback"})
+    public String shape;
+
+    private final EPersonFilterTranslator translator = new EPersonFilterTranslator();
+    private Filter filter;
+
+    @Setup
+    public void setUp() {
+        switch (shape) {
+            case "uidEquals":
+                filter = FilterBuilder.equalTo(new Uid(UUID.randomUUID().toString()));
+                break;
+            case "nameEquals":
+                filter = FilterBuilder.equalTo(new Name("ana.quispe@upeu.edu.pe"));
+                break;
+            case "andOrSubstring":
+                filter = FilterBuilder.and(
+                        FilterBuilder.or(
+                                FilterBuilder.contains(AttributeBuilder.build("firstname", "Ana")),
+                                FilterBuilder.startsWith(AttributeBuilder.build("lastname", "Quis"))),
+                        FilterBuilder.equalTo(AttributeBuilder.build("canLogIn", true)));
+                break;
+            case "orOfUids":
+                List<Filter> uids = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    uids.add(FilterBuilder.equalTo(new Uid(UUID.randomUUID().toString())));
+                }
+                filter = FilterBuilder.or(uids);
+                break;
+            case "notFallback":
+                filter = FilterBuilder.not(FilterBuilder.equalTo(AttributeBuilder.build("netid", "alumno")));
+                break;
+            default:
+                throw new IllegalArgumentException("Forma de filtro desconocida: " + shape);
+        }
+    }
+
+    @Benchmark
+    public List<EPersonQuery> translate() {
+        return translator.translate(filter);
+    }
+}
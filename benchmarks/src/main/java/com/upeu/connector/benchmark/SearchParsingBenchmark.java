@@ -0,0 +1,46 @@
+package com.upeu.connector.benchmark;
+
+import com.upeu.connector.DSpaceClient;
+import com.upeu.connector.mock.EPersonDataset;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DSpaceClient#search(String, Map)}: URL building, JSON parsing of a
+ * HAL page and extraction of the embedded epersons. The whole dataset is served
+ * as a single page so the cost scales with the number of records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchParsingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int records;
+
+    private DSpaceClient client;
+
+    @Setup
+    public void setUp() {
+        EPersonDataset dataset = EPersonDataset.generate(records);
+        String body = dataset.halPage(0, records);
+        client = new DSpaceClient(new StubAuthManager(url -> body, payload -> "{}"));
+    }
+
+    @Benchmark
+    public List<JSONObject> searchAll() {
+        return client.search("epersons", Map.of());
+    }
+
+    @Benchmark
+    public List<JSONObject> searchByMetadata() {
+        return client.search("epersons.search.byMetadata", Map.of("query", "quispe"));
+    }
+}
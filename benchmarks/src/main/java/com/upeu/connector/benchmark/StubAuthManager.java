@@ -0,0 +1,58 @@
+package com.upeu.connector.benchmark;
+
+import com.upeu.connector.auth.AuthManager;
+
+import java.net.URI;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * AuthManager that answers from memory instead of calling DSpace.
+ * Lets the benchmarks measure the connector's own CPU cost (URL building,
+ * JSON parsing, mapping) without any network or authentication.
+ */
+public class StubAuthManager extends AuthManager {
+
+    private final Function<String, String> getResponder;
+    private final Function<String, String> writeResponder;
+
+    /**
+     * @param getResponder   Builds the body returned for a GET, given the URL.
+     * @param writeResponder Builds the body returned for a POST, PUT or PATCH, given the payload.
+     */
+    public StubAuthManager(Function<String, String> getResponder, Function<String, String> writeResponder) {
+        super("http://localhost:8080/", "benchmark@upeu.edu.pe", "benchmark");
+        this.getResponder = getResponder;
+        this.writeResponder = writeResponder;
+    }
+
+    @Override
+    public String get(String endpointKey, URI url) {
+        return getResponder.apply(url.toString());
+    }
+
+    @Override
+    public String post(String endpointKey, URI url, String payload) {
+        return writeResponder.apply(payload);
+    }
+
+    @Override
+    public String put(String endpointKey, URI url, String payload) {
+        return writeResponder.apply(payload);
+    }
+
+    @Override
+    public String patch(String endpointKey, URI url, String payload) {
+        return writeResponder.apply(payload);
+    }
+
+    @Override
+    public String postUriList(String endpointKey, URI url, List<String> uris) {
+        return "";
+    }
+
+    @Override
+    public void delete(String endpointKey, URI url) {
+        // Nada que hacer: no hay servidor.
+    }
+}
@@ -0,0 +1,97 @@
+package com.upeu.connector.benchmark.load;
+
+import com.upeu.connector.DSpaceConfiguration;
+import com.upeu.connector.DSpaceConnector;
+import com.upeu.connector.bulk.DeleteSummary;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+import org.identityconnectors.framework.common.exceptions.UnknownUidException;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compares deleting epersons one by one through {@link DSpaceConnector#delete} with
+ * {@link DSpaceConnector#deleteEPersons} against the {@link MockDSpaceServer}.
+ * <p>
+ * The dataset is split in two halves, one for each path, and {@code missing} random UUIDs are
+ * added to each half to exercise the 404-as-success handling.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar com.upeu.connector.benchmark.load.DeleteHarness
+ * epersons=4000 missing=100 concurrency=16 latency=5}
+ */
+public final class DeleteHarness {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+
+    private DeleteHarness() {
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = new HashMap<>();
+        for (String arg : argv) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                args.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        int epersons = Integer.parseInt(args.getOrDefault("epersons", "4000"));
+        int missing = Integer.parseInt(args.getOrDefault("missing", "100"));
+        int concurrency = Integer.parseInt(args.getOrDefault("concurrency", "16"));
+
+        EPersonDataset dataset = EPersonDataset.generate(epersons, 42L);
+        List<String> sequentialIds = new ArrayList<>();
+        List<String> bulkIds = new ArrayList<>();
+        for (int i = 0; i < dataset.size(); i++) {
+            JSONObject eperson = dataset.get(i);
+            (i % 2 == 0 ? sequentialIds : bulkIds).add(eperson.getString("id"));
+        }
+        for (int i = 0; i < missing; i++) {
+            sequentialIds.add(UUID.randomUUID().toString());
+            bulkIds.add(UUID.randomUUID().toString());
+        }
+
+        try (MockDSpaceServer server = new MockDSpaceServer(dataset, USER, PASSWORD).start()) {
+            server.setLatencyMillis(Integer.parseInt(args.getOrDefault("latency", "5")));
+
+            DSpaceConfiguration configuration = new DSpaceConfiguration();
+            configuration.setBaseUrl(server.getBaseUrl());
+            configuration.setUsername(USER);
+            configuration.setPassword(PASSWORD);
+            configuration.setMaxConcurrentRequests(concurrency);
+            DSpaceConnector connector = new DSpaceConnector();
+            connector.init(configuration);
+            try {
+                long start = System.nanoTime();
+                long notFound = 0;
+                for (String id : sequentialIds) {
+                    try {
+                        connector.delete(ObjectClass.ACCOUNT, new Uid(id), null);
+                    } catch (UnknownUidException e) {
+                        notFound++;
+                    }
+                }
+                double sequentialSeconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf(Locale.ROOT, "sequential: %d epersons (%d not found) in %.1f s (%.0f/s)%n",
+                        sequentialIds.size(), notFound, sequentialSeconds, sequentialIds.size() / sequentialSeconds);
+
+                DeleteSummary summary = connector.deleteEPersons(bulkIds);
+                double bulkSeconds = summary.getElapsedNanos() / 1e9;
+                System.out.println("bulk:       " + summary);
+                System.out.printf(Locale.ROOT, "speed-up=%.1fx remaining on server=%d%n",
+                        (bulkIds.size() / bulkSeconds) / (sequentialIds.size() / sequentialSeconds),
+                        server.getEPersonCount());
+            } finally {
+                connector.dispose();
+            }
+        }
+    }
+}
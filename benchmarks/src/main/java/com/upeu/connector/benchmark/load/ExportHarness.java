@@ -0,0 +1,62 @@
+package com.upeu.connector.benchmark.load;
+
+import com.upeu.connector.DSpaceClient;
+import com.upeu.connector.auth.AuthManager;
+import com.upeu.connector.bulk.EPersonExporter;
+import com.upeu.connector.bulk.ExportSummary;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Exports the whole {@link MockDSpaceServer} directory with {@link EPersonExporter} and reports
+ * the throughput against the 5k epersons/s target.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar com.upeu.connector.benchmark.load.ExportHarness
+ * records=50000 latency=2 pageSize=100 gzip=false}
+ */
+public final class ExportHarness {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+    private static final double TARGET_PER_SECOND = 5_000;
+
+    private ExportHarness() {
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = new HashMap<>();
+        for (String arg : argv) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                args.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        int records = Integer.parseInt(args.getOrDefault("records", "50000"));
+        int pageSize = Integer.parseInt(args.getOrDefault("pageSize", "100"));
+        boolean gzip = Boolean.parseBoolean(args.getOrDefault("gzip", "false"));
+
+        EPersonDataset dataset = EPersonDataset.generate(records);
+        Path target = Files.createTempFile("epersons-", gzip ? ".ndjson.gz" : ".ndjson");
+        try (MockDSpaceServer server = new MockDSpaceServer(dataset, USER, PASSWORD).start()) {
+            server.setLatencyMillis(Integer.parseInt(args.getOrDefault("latency", "0")));
+            server.setMaxPageSize(Math.max(pageSize, 1000));
+
+            DSpaceClient client = new DSpaceClient(new AuthManager(server.getBaseUrl(), USER, PASSWORD));
+            ExportSummary summary = new EPersonExporter(client, pageSize).export(target, gzip);
+
+            double perSecond = summary.getRecords() / (summary.getElapsedNanos() / 1e9);
+            System.out.println(summary);
+            System.out.printf(Locale.ROOT, "throughput=%.0f epersons/s (target %.0f) %s%n",
+                    perSecond, TARGET_PER_SECOND, perSecond >= TARGET_PER_SECOND ? "OK" : "BELOW TARGET");
+            System.out.printf(Locale.ROOT, "server requests=%d%n", server.getRequestCount());
+        } finally {
+            Files.deleteIfExists(target);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.upeu.connector.benchmark.load;
+
+import com.upeu.connector.DSpaceConfiguration;
+import com.upeu.connector.DSpaceConnector;
+import com.upeu.connector.bulk.ImportSummary;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports an NDJSON file into the {@link MockDSpaceServer} through
+ * {@link DSpaceConnector#importEPersons} and reports the throughput.
+ * <p>
+ * The file holds {@code records} new epersons plus {@code existing} epersons already on the
+ * server, so {@code upsert=true} exercises both the create and the update path.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar com.upeu.connector.benchmark.load.ImportHarness
+ * records=10000 existing=1000 concurrency=16 latency=2 upsert=true}
+ */
+public final class ImportHarness {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+
+    private ImportHarness() {
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = new HashMap<>();
+        for (String arg : argv) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                args.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        int records = Integer.parseInt(args.getOrDefault("records", "10000"));
+        int existing = Integer.parseInt(args.getOrDefault("existing", "1000"));
+        int concurrency = Integer.parseInt(args.getOrDefault("concurrency", "16"));
+        boolean upsert = Boolean.parseBoolean(args.getOrDefault("upsert", "true"));
+
+        EPersonDataset onServer = EPersonDataset.generate(existing, 42L);
+        Path source = Files.createTempFile("import-", ".ndjson");
+        Path results = Files.createTempFile("import-results-", ".ndjson");
+        try (MockDSpaceServer server = new MockDSpaceServer(onServer, USER, PASSWORD).start()) {
+            server.setLatencyMillis(Integer.parseInt(args.getOrDefault("latency", "0")));
+            writeSource(source, onServer, records);
+
+            DSpaceConfiguration configuration = new DSpaceConfiguration();
+            configuration.setBaseUrl(server.getBaseUrl());
+            configuration.setUsername(USER);
+            configuration.setPassword(PASSWORD);
+            configuration.setMaxConcurrentRequests(concurrency);
+            DSpaceConnector connector = new DSpaceConnector();
+            connector.init(configuration);
+            try {
+                ImportSummary summary = connector.importEPersons(source, results, upsert);
+                System.out.println(summary);
+                System.out.printf(Locale.ROOT, "server requests=%d%n", server.getRequestCount());
+            } finally {
+                connector.dispose();
+            }
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(results);
+        }
+    }
+
+    /**
+     * Writes the existing epersons in export format followed by new, flat records.
+     */
+    private static void writeSource(Path source, EPersonDataset onServer, int records) throws Exception {
+        try (BufferedWriter writer = Files.newBufferedWriter(source, StandardCharsets.UTF_8)) {
+            for (JSONObject eperson : onServer.epersons()) {
+                writer.write(eperson.toString());
+                writer.newLine();
+            }
+            for (int i = 0; i < records; i++) {
+                writer.write(new JSONObject()
+                        .put("email", "import." + i + "@upeu.edu.pe")
+                        .put("firstname", "Importado")
+                        .put("lastname", "Número " + i)
+                        .put("canLogIn", true)
+                        .toString());
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.upeu.connector.benchmark.load;
+
+import com.upeu.connector.DSpaceConfiguration;
+import com.upeu.connector.DSpaceConnector;
+import com.upeu.connector.filter.EPersonFilterTranslator;
+import com.upeu.connector.filter.EPersonQuery;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end load test: starts a {@link MockDSpaceServer}, points a real
+ * {@link DSpaceConnector} at it and drives one operation at a fixed concurrency,
+ * then reports throughput and p50/p99 latency.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar com.upeu.connector.benchmark.load.LoadHarness
+ * operation=get concurrency=16 duration=30 records=10000 latency=5 jitter=5 errorRate=0 pageSize=100}
+ * <p>
+ * Operations: {@code get} (UID read), {@code searchEmail}, {@code searchMetadata},
+ * {@code page} (one paged list request), {@code fullScan} (every eperson; {@code scanWorkers=N}
+ * shards it across N workers), {@code create}, {@code update}, {@code delete}.
+ * <p>
+ * Tail latency: {@code stallRate=0.01 stall=2000} stalls 1% of the server responses for 2 s;
+ * {@code hedge=true} (with {@code hedgeDelay} and {@code hedgeBudget}) enables hedged GETs;
+ * {@code timeout=500} aborts operations after 500 ms (they count as errors).
+ */
+public final class LoadHarness {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+    private static final ObjectClass EPERSON = new ObjectClass("eperson");
+
+    private final Map<String, String> args;
+    private final EPersonDataset dataset;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private LoadHarness(Map<String, String> args) {
+        this.args = args;
+        this.dataset = EPersonDataset.generate(intArg("records", 10_000));
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = new HashMap<>();
+        for (String arg : argv) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                args.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        new LoadHarness(args).run();
+    }
+
+    private void run() throws Exception {
+        String operation = args.getOrDefault("operation", "get");
+        int concurrency = intArg("concurrency", 8);
+        int durationSeconds = intArg("duration", 20);
+
+        try (MockDSpaceServer server = new MockDSpaceServer(dataset, USER, PASSWORD).start()) {
+            server.setLatencyMillis(intArg("latency", 0));
+            server.setLatencyJitterMillis(intArg("jitter", 0));
+            server.setErrorRate(Double.parseDouble(args.getOrDefault("errorRate", "0")));
+            server.setMaxPageSize(intArg("maxPageSize", 1000));
+            server.setStall(Double.parseDouble(args.getOrDefault("stallRate", "0")), intArg("stall", 2000));
+
+            DSpaceConnector connector = new DSpaceConnector();
+            connector.init(configuration(server.getBaseUrl(), concurrency));
+            try {
+                LatencyRecorder merged = drive(connector, operation, concurrency, durationSeconds);
+                report(operation, concurrency, durationSeconds, merged, server);
+                Map<String, Long> hedges = connector.getHedgeCounts();
+                if (!hedges.isEmpty()) {
+                    System.out.printf(Locale.ROOT, "hedges: hedgeable=%d sent=%d won=%d denied=%d%n",
+                            hedges.get("hedgeable"), hedges.get("sent"), hedges.get("won"), hedges.get("denied"));
+                }
+            } finally {
+                connector.dispose();
+            }
+        }
+    }
+
+    private LatencyRecorder drive(DSpaceConnector connector, String operation, int concurrency, int durationSeconds)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + durationSeconds * 1_000_000_000L;
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int i = 0; i < concurrency; i++) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            recorders.add(recorder);
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            execute(connector, operation);
+                            recorder.record(System.nanoTime() - start);
+                        } catch (RuntimeException e) {
+                            recorder.recordError();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-worker-" + i);
+            worker.start();
+        }
+        done.await();
+        return LatencyRecorder.merge(recorders);
+    }
+
+    private void execute(DSpaceConnector connector, String operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case "get":
+                search(connector, FilterBuilder.equalTo(new Uid(randomId(random))), null);
+                break;
+            case "searchEmail":
+                search(connector, FilterBuilder.equalTo(new Name(randomEmail(random))), null);
+                break;
+            case "searchMetadata":
+                search(connector, FilterBuilder.contains(AttributeBuilder.build("lastname", "Quispe")),
+                        new OperationOptionsBuilder().setPageSize(intArg("pageSize", 100)).build());
+                break;
+            case "page":
+                int pageSize = intArg("pageSize", 100);
+                int offset = 1 + random.nextInt(Math.max(1, dataset.size() - pageSize));
+                search(connector, null, new OperationOptionsBuilder()
+                        .setPageSize(pageSize)
+                        .setPagedResultsOffset(offset)
+                        .build());
+                break;
+            case "fullScan":
+                search(connector, null, null);
+                break;
+            case "create":
+                connector.create(ObjectClass.ACCOUNT, Set.of(
+                        AttributeBuilder.build("email", "load." + sequence.incrementAndGet() + "@upeu.edu.pe"),
+                        AttributeBuilder.build("firstname", "Carga"),
+                        AttributeBuilder.build("lastname", "Prueba")), null);
+                break;
+            case "update":
+                connector.update(ObjectClass.ACCOUNT, new Uid(randomId(random)), Set.of(
+                        AttributeBuilder.build("lastname", "Actualizado " + random.nextInt(1000))), null);
+                break;
+            case "delete":
+                int index = sequence.getAndIncrement();
+                if (index < dataset.size()) {
+                    connector.delete(ObjectClass.ACCOUNT, new Uid(dataset.get(index).getString("id")), null);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Operación desconocida: " + operation);
+        }
+    }
+
+    private void search(DSpaceConnector connector, Filter filter, OperationOptions options) {
+        EPersonFilterTranslator translator = new EPersonFilterTranslator();
+        List<EPersonQuery> queries = translator.translate(filter);
+        EPersonQuery query = queries.isEmpty() ? null : queries.get(0);
+        connector.executeQuery(EPERSON, query, object -> true, options);
+    }
+
+    private String randomId(ThreadLocalRandom random) {
+        return dataset.get(random.nextInt(dataset.size())).getString("id");
+    }
+
+    private String randomEmail(ThreadLocalRandom random) {
+        return dataset.get(random.nextInt(dataset.size())).getString("email");
+    }
+
+    private DSpaceConfiguration configuration(String baseUrl, int concurrency) {
+        DSpaceConfiguration configuration = new DSpaceConfiguration();
+        configuration.setBaseUrl(baseUrl);
+        configuration.setUsername(USER);
+        configuration.setPassword(PASSWORD);
+        configuration.setMaxConcurrentRequests(Math.max(concurrency, intArg("maxConcurrentRequests", concurrency)));
+        configuration.setFullScanWorkers(intArg("scanWorkers", 1));
+        configuration.setFullScanPagesPerShard(intArg("pagesPerShard", 10));
+        configuration.setHedgeReads(Boolean.parseBoolean(args.getOrDefault("hedge", "false")));
+        configuration.setHedgeDelayMillis(intArg("hedgeDelay", 0));
+        configuration.setHedgeBudgetPercent(intArg("hedgeBudget", 5));
+        configuration.setOperationTimeoutMillis(intArg("timeout", 0));
+        return configuration;
+    }
+
+    private void report(String operation, int concurrency, int durationSeconds, LatencyRecorder merged,
+                        MockDSpaceServer server) {
+        double throughput = merged.getCount() / (double) durationSeconds;
+        System.out.printf(Locale.ROOT, "operation=%s concurrency=%d records=%d%n", operation, concurrency, dataset.size());
+        System.out.printf(Locale.ROOT, "ops=%d errors=%d throughput=%.1f ops/s%n",
+                merged.getCount(), merged.getErrors(), throughput);
+        System.out.printf(Locale.ROOT, "p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                merged.percentileMillis(50), merged.percentileMillis(99), merged.percentileMillis(100));
+        System.out.printf(Locale.ROOT, "server requests=%d logins=%d%n", server.getRequestCount(), server.getLoginCount());
+    }
+
+    private int intArg(String name, int defaultValue) {
+        String value = args.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -0,0 +1,100 @@
+package com.upeu.connector.benchmark.load;
+
+import com.upeu.connector.DSpaceConfiguration;
+import com.upeu.connector.DSpaceConnector;
+import com.upeu.connector.filter.EPersonQuery;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures the time to the first operation of a fresh {@link DSpaceConnector} against the
+ * {@link MockDSpaceServer}: {@code init} plus one UID read, repeated for several connectors.
+ * <p>
+ * {@code idle} is the pause between {@code init} and the first operation, as when the
+ * framework creates the connector some time before using it; background login and warm-up
+ * only pay off when it is longer than a round trip.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar com.upeu.connector.benchmark.load.StartupHarness
+ * startup=lazy warmUp=0 idle=0 runs=50 latency=20}
+ */
+public final class StartupHarness {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+    private static final ObjectClass EPERSON = new ObjectClass("eperson");
+
+    private StartupHarness() {
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = new HashMap<>();
+        for (String arg : argv) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                args.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        String startup = args.getOrDefault("startup", "lazy");
+        int warmUp = Integer.parseInt(args.getOrDefault("warmUp", "0"));
+        int idleMillis = Integer.parseInt(args.getOrDefault("idle", "0"));
+        int runs = Integer.parseInt(args.getOrDefault("runs", "50"));
+
+        EPersonDataset dataset = EPersonDataset.generate(1000, 42L);
+        LatencyRecorder init = new LatencyRecorder();
+        LatencyRecorder firstOperation = new LatencyRecorder();
+        LatencyRecorder total = new LatencyRecorder();
+
+        try (MockDSpaceServer server = new MockDSpaceServer(dataset, USER, PASSWORD).start()) {
+            server.setLatencyMillis(Integer.parseInt(args.getOrDefault("latency", "20")));
+
+            for (int run = 0; run < runs; run++) {
+                DSpaceConfiguration configuration = new DSpaceConfiguration();
+                configuration.setBaseUrl(server.getBaseUrl());
+                configuration.setUsername(USER);
+                configuration.setPassword(PASSWORD);
+                configuration.setMaxConcurrentRequests(Math.max(4, warmUp));
+                configuration.setMetricsJmxEnabled(false);
+                configuration.setStartupAuthentication(startup);
+                configuration.setWarmUpConnections(warmUp);
+                configuration.validate();
+
+                long start = System.nanoTime();
+                DSpaceConnector connector = new DSpaceConnector();
+                connector.init(configuration);
+                long initialized = System.nanoTime();
+                try {
+                    if (idleMillis > 0) {
+                        Thread.sleep(idleMillis);
+                    }
+                    long firstStart = System.nanoTime();
+                    String id = dataset.get(run % dataset.size()).getString("id");
+                    connector.executeQuery(EPERSON, EPersonQuery.byUid(id, null), object -> true, null);
+                    long end = System.nanoTime();
+
+                    init.record(initialized - start);
+                    firstOperation.record(end - firstStart);
+                    total.record(end - start - (firstStart - initialized));
+                } finally {
+                    connector.dispose();
+                }
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "startup=%s warmUp=%d idle=%d ms runs=%d%n", startup, warmUp, idleMillis, runs);
+        print("init", init);
+        print("first operation", firstOperation);
+        print("init + first operation", total);
+    }
+
+    private static void print(String label, LatencyRecorder recorder) {
+        LatencyRecorder sorted = LatencyRecorder.merge(List.of(recorder));
+        System.out.printf(Locale.ROOT, "%-24s p50=%.1f ms p99=%.1f ms max=%.1f ms%n", label,
+                sorted.percentileMillis(50), sorted.percentileMillis(99), sorted.percentileMillis(100));
+    }
+}
@@ -1,16 +1,23 @@
 package com.upeu.connector;
 
 import com.upeu.connector.auth.AuthManager;
+import com.upeu.connector.auth.HttpStatusException;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.metrics.TracePhase;
 import com.upeu.connector.util.EndpointRegistry;
 import com.upeu.connector.util.ValidationJsonUtil;
-import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * Handles API communication with DSpace-CRIS.
@@ -19,6 +26,9 @@ public class DSpaceClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(DSpaceClient.class);
 
+    // Tamaño de página usado al recorrer colecciones HAL
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final AuthManager authManager;
 
     /**
@@ -41,6 +51,20 @@ public class DSpaceClient {
         return this.authManager;
     }
 
+    /**
+     * Returns the endpoints of the configured server.
+     */
+    public EndpointRegistry getEndpoints() {
+        return authManager.getEndpoints();
+    }
+
+    /**
+     * Returns the slow-operation tracer fed by the requests of this client.
+     */
+    public OperationTracer getTracer() {
+        return authManager.getMetrics().getTracer();
+    }
+
     /**
      * Searches for resources using a specific endpoint and query.
      *
@@ -49,38 +73,212 @@ public class DSpaceClient {
      * @return List of results as JSON objects.
      */
     public List<JSONObject> search(String endpointKey, String query) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (query != null && !query.isEmpty()) {
+            params.put("query", query);
+        }
+        return search(endpointKey, params);
+    }
+
+    /**
+     * Searches for resources using a specific endpoint and query parameters,
+     * following the HAL pagination until the last page.
+     *
+     * @param endpointKey The endpoint key (e.g., "epersons.search.byMetadata").
+     * @param params      Query parameters, not encoded.
+     * @return List of results as JSON objects.
+     */
+    public List<JSONObject> search(String endpointKey, Map<String, String> params) {
+        List<JSONObject> results = new ArrayList<>();
+        searchPages(endpointKey, params, page -> {
+            results.addAll(page);
+            return true;
+        });
+        return results;
+    }
+
+    /**
+     * Streams the pages of a search to a consumer as they are received.
+     * Stops requesting pages as soon as the consumer returns false.
+     *
+     * @param endpointKey  The endpoint key (e.g., "epersons.search.byMetadata").
+     * @param params       Query parameters, not encoded.
+     * @param pageConsumer Receives the objects of each page; returns false to stop.
+     * @return true if every page was consumed, false if the consumer stopped early.
+     */
+    public boolean searchPages(String endpointKey, Map<String, String> params, Predicate<List<JSONObject>> pageConsumer) {
         ValidationJsonUtil.validateNotEmpty(endpointKey, "El endpointKey no puede ser nulo ni vacío.");
-        LOG.debug("Recuperando endpoint para la clave: {}", endpointKey);
+        ValidationJsonUtil.validateNotNull(pageConsumer, "El consumidor de páginas no puede ser nulo.");
+        return readPages(endpointKey, endpointKey, null, null, params, pageConsumer);
+    }
 
-        String endpoint = EndpointRegistry.getEndpoint(endpointKey);
-        LOG.debug("Endpoint recuperado: {}", endpoint);
+    /**
+     * Streams the pages of a linked collection of a resource ({@code <endpoint>/<id>/<relation>},
+     * e.g. the members of a group). Metrics are recorded under {@code <endpointKey>.<relation>}.
+     *
+     * @param endpointKey  The endpoint key of the owning collection (e.g., "groups").
+     * @param id           Identifier of the owning resource.
+     * @param relation     Name of the linked collection (e.g., "epersons").
+     * @param pageConsumer Receives the objects of each page; returns false to stop.
+     * @return true if every page was consumed, false if the consumer stopped early.
+     */
+    public boolean searchLinkedPages(String endpointKey, String id, String relation,
+                                     Predicate<List<JSONObject>> pageConsumer) {
+        ValidationJsonUtil.validateNotEmpty(id, "El ID no puede ser nulo ni vacío.");
+        ValidationJsonUtil.validateNotEmpty(relation, "La relación no puede ser nula ni vacía.");
+        ValidationJsonUtil.validateNotNull(pageConsumer, "El consumidor de páginas no puede ser nulo.");
+        return readPages(endpointKey + "." + relation, endpointKey, id, relation, Map.of(), pageConsumer);
+    }
 
-        String url = authManager.buildEndpoint(endpoint);
-        if (query != null && !query.isEmpty()) {
-            url += "?query=" + query;
-        }
+    private boolean readPages(String metricKey, String endpointKey, String id, String relation,
+                              Map<String, String> params, Predicate<List<JSONObject>> pageConsumer) {
+        int page = 0;
+        int totalPages;
+        do {
+            JSONObject jsonResponse = getPage(metricKey, endpointKey, id, relation, params, page, DEFAULT_PAGE_SIZE);
+
+            if (!pageConsumer.test(ValidationJsonUtil.extractEmbeddedObjects(jsonResponse, null))) {
+                return false;
+            }
+
+            JSONObject pageInfo = jsonResponse.optJSONObject("page");
+            totalPages = pageInfo != null ? pageInfo.optInt("totalPages", 0) : 0;
+            page++;
+        } while (page < totalPages);
+
+        return true;
+    }
+
+    /**
+     * Retrieves one HAL page of a search, including its {@code page} metadata.
+     *
+     * @param endpointKey The endpoint key (e.g., "epersons").
+     * @param params      Query parameters, not encoded.
+     * @param page        Zero-based page index.
+     * @param size        Page size.
+     * @return The raw response; an empty object if DSpace returned no content.
+     */
+    public JSONObject fetchPage(String endpointKey, Map<String, String> params, int page, int size) {
+        ValidationJsonUtil.validateNotEmpty(endpointKey, "El endpointKey no puede ser nulo ni vacío.");
+        return getPage(endpointKey, endpointKey, null, null, params, page, size);
+    }
+
+    private JSONObject getPage(String metricKey, String endpointKey, String id, String relation,
+                               Map<String, String> params, int page, int size) {
+        Map<String, String> pageParams = params != null ? new LinkedHashMap<>(params) : new LinkedHashMap<>();
+        pageParams.put("page", String.valueOf(page));
+        pageParams.put("size", String.valueOf(size));
+        URI url = getEndpoints().expand(endpointKey, id, relation, null, pageParams);
 
         LOG.info("Realizando búsqueda en URL: {}", url);
 
         try {
-            String response = authManager.get(url);
-            JSONObject jsonResponse = ValidationJsonUtil.toJsonObject(response);
-
-            // Validación centralizada de la respuesta
-            ValidationJsonUtil.validateJsonArray(jsonResponse, "results");
-
-            // Procesamiento de los resultados
-            return jsonResponse.getJSONArray("results")
-                    .toList()
-                    .stream()
-                    .map(obj -> new JSONObject((Map<?, ?>) obj))
-                    .collect(Collectors.toList());
+            String response = authManager.get(metricKey, url);
+            return response == null || response.isBlank()
+                    ? new JSONObject()
+                    : decode(response);
         } catch (Exception e) {
             LOG.error("Error mientras se buscaba en el endpoint: {}", url, e);
             throw new RuntimeException("No se pudo realizar la búsqueda en el endpoint: " + url, e);
         }
     }
 
+    /**
+     * Reads a single resource by its identifier ({@code GET <endpoint>/<id>}).
+     *
+     * @param endpointKey The endpoint key of the collection (e.g., "epersons").
+     * @param id          The resource identifier.
+     * @return The resource, or empty if DSpace answers 404.
+     */
+    public Optional<JSONObject> getById(String endpointKey, String id) {
+        ValidationJsonUtil.validateNotEmpty(endpointKey, "El endpointKey no puede ser nulo ni vacío.");
+        ValidationJsonUtil.validateNotEmpty(id, "El ID no puede ser nulo ni vacío.");
+
+        URI url = getEndpoints().resource(endpointKey, id);
+        LOG.debug("Realizando lectura directa en URL: {}", url);
+
+        try {
+            String response = authManager.get(endpointKey, url);
+            if (response == null || response.isBlank()) {
+                return Optional.empty();
+            }
+            return Optional.of(decode(response));
+        } catch (Exception e) {
+            HttpStatusException status = HttpStatusException.find(e);
+            if (status != null && status.isNotFound()) {
+                LOG.debug("Recurso no encontrado: {}", url);
+                return Optional.empty();
+            }
+            LOG.error("Error en la lectura directa del endpoint: {}", url, e);
+            throw new RuntimeException("No se pudo leer el recurso: " + url, e);
+        }
+    }
+
+    /**
+     * Applies a JSON Patch to a single resource ({@code PATCH <endpoint>/<id>}).
+     *
+     * @param endpointKey The endpoint key of the collection (e.g., "groups").
+     * @param id          The resource identifier.
+     * @param operations  JSON Patch operations.
+     * @return The updated resource; an empty object if DSpace returned no content.
+     */
+    public JSONObject patchById(String endpointKey, String id, String operations) throws Exception {
+        ValidationJsonUtil.validateNotEmpty(id, "El ID no puede ser nulo ni vacío.");
+        URI url = getEndpoints().resource(endpointKey, id);
+        LOG.info("Realizando operación PATCH en: {}", url);
+        String response = authManager.patch(endpointKey, url, operations);
+        return response == null || response.isBlank() ? new JSONObject() : decode(response);
+    }
+
+    /**
+     * Deletes a single resource ({@code DELETE <endpoint>/<id>}).
+     */
+    public void deleteById(String endpointKey, String id) throws Exception {
+        ValidationJsonUtil.validateNotEmpty(id, "El ID no puede ser nulo ni vacío.");
+        URI url = getEndpoints().resource(endpointKey, id);
+        LOG.info("Realizando operación DELETE en: {}", url);
+        authManager.delete(endpointKey, url);
+    }
+
+    /**
+     * Links several resources to a resource in one request
+     * ({@code POST <endpoint>/<id>/<relation>} with a {@code text/uri-list} body).
+     *
+     * @param endpointKey  The endpoint key of the owning collection (e.g., "groups").
+     * @param id           Identifier of the owning resource.
+     * @param relation     Name of the linked collection (e.g., "epersons").
+     * @param targetKey    Endpoint key of the linked resources (e.g., "epersons").
+     * @param targetIds    Identifiers of the resources to link.
+     */
+    public void addLinks(String endpointKey, String id, String relation, String targetKey,
+                         Collection<String> targetIds) throws Exception {
+        if (targetIds == null || targetIds.isEmpty()) {
+            return;
+        }
+        List<String> uris = new ArrayList<>(targetIds.size());
+        for (String targetId : targetIds) {
+            uris.add(getEndpoints().resource(targetKey, targetId).toString());
+        }
+        URI url = getEndpoints().link(endpointKey, id, relation, null);
+        LOG.info("Vinculando {} recurso(s) en: {}", uris.size(), url);
+        authManager.postUriList(endpointKey + "." + relation, url, uris);
+    }
+
+    /**
+     * Unlinks one resource ({@code DELETE <endpoint>/<id>/<relation>/<targetId>});
+     * DSpace has no bulk variant of this operation.
+     */
+    public void removeLink(String endpointKey, String id, String relation, String targetId) throws Exception {
+        ValidationJsonUtil.validateNotEmpty(targetId, "El ID del recurso vinculado no puede ser nulo ni vacío.");
+        URI url = getEndpoints().link(endpointKey, id, relation, targetId);
+        LOG.debug("Desvinculando recurso en: {}", url);
+        authManager.delete(endpointKey + "." + relation, url);
+    }
+
+    private JSONObject decode(String response) {
+        return getTracer().time(TracePhase.JSON_DECODE, () -> ValidationJsonUtil.toJsonObject(response));
+    }
+
     /**
      * Performs a GET request to the specified endpoint.
      *
@@ -91,11 +289,11 @@ public class DSpaceClient {
         ValidationJsonUtil.validateNotEmpty(endpointKey, "El endpoint no puede ser nulo ni vacío.");
         LOG.debug("Recuperando endpoint para operación GET con clave: {}", endpointKey);
 
-        String endpoint = EndpointRegistry.getEndpoint(endpointKey);
+        URI endpoint = getEndpoints().collection(endpointKey, null);
         LOG.info("Realizando operación GET en el endpoint: {}", endpoint);
 
         try {
-            return authManager.get(authManager.buildEndpoint(endpoint));
+            return authManager.get(endpointKey, endpoint);
         } catch (Exception e) {
             LOG.error("Error en la operación GET para el endpoint: {}", endpoint, e);
             throw e;
@@ -115,11 +313,11 @@ public class DSpaceClient {
 
         LOG.debug("Recuperando endpoint para operación POST con clave: {}", endpointKey);
 
-        String endpoint = EndpointRegistry.getEndpoint(endpointKey);
+        URI endpoint = getEndpoints().collection(endpointKey, null);
         LOG.info("Realizando operación POST en el endpoint: {}", endpoint);
 
         try {
-            return authManager.post(authManager.buildEndpoint(endpoint), body);
+            return authManager.post(endpointKey, endpoint, body);
         } catch (Exception e) {
             LOG.error("Error en la operación POST para el endpoint: {}", endpoint, e);
             throw e;
@@ -139,11 +337,11 @@ public class DSpaceClient {
 
         LOG.debug("Recuperando endpoint para operación PUT con clave: {}", endpointKey);
 
-        String endpoint = EndpointRegistry.getEndpoint(endpointKey);
+        URI endpoint = getEndpoints().collection(endpointKey, null);
         LOG.info("Realizando operación PUT en el endpoint: {}", endpoint);
 
         try {
-            return authManager.put(authManager.buildEndpoint(endpoint), body);
+            return authManager.put(endpointKey, endpoint, body);
         } catch (Exception e) {
             LOG.error("Error en la operación PUT para el endpoint: {}", endpoint, e);
             throw e;
@@ -159,11 +357,11 @@ public class DSpaceClient {
         ValidationJsonUtil.validateNotEmpty(endpointKey, "El endpoint no puede ser nulo ni vacío.");
         LOG.debug("Recuperando endpoint para operación DELETE con clave: {}", endpointKey);
 
-        String endpoint = EndpointRegistry.getEndpoint(endpointKey);
+        URI endpoint = getEndpoints().collection(endpointKey, null);
         LOG.info("Realizando operación DELETE en el endpoint: {}", endpoint);
 
         try {
-            authManager.delete(authManager.buildEndpoint(endpoint));
+            authManager.delete(endpointKey, endpoint);
         } catch (Exception e) {
             LOG.error("Error en la operación DELETE para el endpoint: {}", endpoint, e);
             throw e;
@@ -5,6 +5,8 @@ import org.identityconnectors.framework.spi.ConfigurationProperty;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 
 /**
  * Configuration class for the DSpace Connector.
@@ -23,6 +25,60 @@ public class DSpaceConfiguration extends AbstractConfiguration {
     private int connectTimeout = 10000; // Default: 10 seconds
     private int readTimeout = 30000;    // Default: 30 seconds
 
+    // Concurrency settings
+    private int maxConcurrentRequests = 4;
+
+    // Metrics settings
+    private boolean metricsJmxEnabled = true;
+
+    // Slow operation tracing (0 = disabled)
+    private long slowOperationThresholdMillis = 0;
+    private int slowOperationBufferSize = 50;
+
+    // Group membership cache
+    private int membershipCacheTtlSeconds = 300;
+
+    // Dynamic schema
+    private String[] metadataSchemas = {"eperson"};
+    private int schemaCacheTtlSeconds = 3600;
+
+    // Sharded full scans (1 worker = sequential scan)
+    private int fullScanWorkers = 1;
+    private int fullScanPagesPerShard = 10;
+    private String scanCheckpointDirectory;
+
+    // Update coalescing window (0 = disabled)
+    private long updateCoalescingWindowMillis = 0;
+
+    // Eperson state cache TTL in seconds (0 = disabled)
+    private int epersonStateCacheTtlSeconds = 0;
+
+    // Return the existing eperson instead of failing when a create hits a taken email
+    private boolean returnExistingOnCreate = false;
+
+    // Hedged GET requests
+    private boolean hedgeReads = false;
+    private int hedgeDelayMillis = 0;
+    private int hedgeBudgetPercent = 5;
+
+    // Additional DSpace REST nodes for reads
+    private String[] replicaBaseUrls = {};
+    private boolean sharedJwtSecret = true;
+    private int healthCheckIntervalSeconds = 10;
+
+    // Startup: when to log in and how many connections to open in advance
+    private String startupAuthentication = "lazy";
+    private int warmUpConnections = 0;
+
+    // On-disk JWT cache directory (empty = disabled)
+    private String tokenCacheDirectory;
+
+    // Deadline of each connector operation (0 = none)
+    private long operationTimeoutMillis = 0;
+
+    // Authenticate requests with the Authorization header only, without cookies
+    private boolean statelessSession = true;
+
     /**
      * Gets the base URL for the DSpace-CRIS API.
      *
@@ -134,6 +190,552 @@ public class DSpaceConfiguration extends AbstractConfiguration {
         this.readTimeout = readTimeout;
     }
 
+    /**
+     * Gets the maximum number of concurrent requests sent to DSpace by one connector instance.
+     *
+     * @return The concurrency limit.
+     */
+    @ConfigurationProperty(order = 6, displayMessageKey = "Max Concurrent Requests",
+            helpMessageKey = "Maximum number of concurrent requests to the DSpace-CRIS API (default: 4).",
+            required = false)
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Sets the maximum number of concurrent requests.
+     *
+     * @param maxConcurrentRequests The concurrency limit.
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("Max concurrent requests must be greater than 0.");
+        }
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * Checks whether request metrics are published as JMX MBeans.
+     *
+     * @return true if the MBeans are registered.
+     */
+    @ConfigurationProperty(order = 7, displayMessageKey = "JMX Metrics",
+            helpMessageKey = "Publish per-endpoint request metrics as JMX MBeans (default: true).",
+            required = false)
+    public boolean isMetricsJmxEnabled() {
+        return metricsJmxEnabled;
+    }
+
+    /**
+     * Enables or disables the JMX metrics MBeans.
+     *
+     * @param metricsJmxEnabled true to register the MBeans.
+     */
+    public void setMetricsJmxEnabled(boolean metricsJmxEnabled) {
+        this.metricsJmxEnabled = metricsJmxEnabled;
+    }
+
+    /**
+     * Gets the duration above which an operation is logged with its phase breakdown.
+     *
+     * @return The threshold in milliseconds; 0 disables tracing.
+     */
+    @ConfigurationProperty(order = 8, displayMessageKey = "Slow Operation Threshold",
+            helpMessageKey = "Operations slower than this many milliseconds are logged with a per-phase breakdown (default: 0, disabled).",
+            required = false)
+    public long getSlowOperationThresholdMillis() {
+        return slowOperationThresholdMillis;
+    }
+
+    /**
+     * Sets the slow operation threshold in milliseconds.
+     *
+     * @param slowOperationThresholdMillis The threshold; 0 disables tracing.
+     */
+    public void setSlowOperationThresholdMillis(long slowOperationThresholdMillis) {
+        if (slowOperationThresholdMillis < 0) {
+            throw new IllegalArgumentException("Slow operation threshold cannot be negative.");
+        }
+        this.slowOperationThresholdMillis = slowOperationThresholdMillis;
+    }
+
+    /**
+     * Gets the number of slow operation traces kept in memory.
+     *
+     * @return The buffer size.
+     */
+    @ConfigurationProperty(order = 9, displayMessageKey = "Slow Operation Buffer Size",
+            helpMessageKey = "Number of recent slow operation traces kept for diagnostics (default: 50).",
+            required = false)
+    public int getSlowOperationBufferSize() {
+        return slowOperationBufferSize;
+    }
+
+    /**
+     * Sets the number of slow operation traces kept in memory.
+     *
+     * @param slowOperationBufferSize The buffer size.
+     */
+    public void setSlowOperationBufferSize(int slowOperationBufferSize) {
+        if (slowOperationBufferSize <= 0) {
+            throw new IllegalArgumentException("Slow operation buffer size must be greater than 0.");
+        }
+        this.slowOperationBufferSize = slowOperationBufferSize;
+    }
+
+    /**
+     * Gets how long group members and subgroups are cached.
+     *
+     * @return The cache TTL in seconds; 0 disables the cache.
+     */
+    @ConfigurationProperty(order = 10, displayMessageKey = "Membership Cache TTL",
+            helpMessageKey = "Seconds that group members and subgroups are cached between searches (default: 300, 0 disables).",
+            required = false)
+    public int getMembershipCacheTtlSeconds() {
+        return membershipCacheTtlSeconds;
+    }
+
+    /**
+     * Sets how long group members and subgroups are cached.
+     *
+     * @param membershipCacheTtlSeconds The cache TTL in seconds; 0 disables the cache.
+     */
+    public void setMembershipCacheTtlSeconds(int membershipCacheTtlSeconds) {
+        if (membershipCacheTtlSeconds < 0) {
+            throw new IllegalArgumentException("Membership cache TTL cannot be negative.");
+        }
+        this.membershipCacheTtlSeconds = membershipCacheTtlSeconds;
+    }
+
+    /**
+     * Gets the prefixes of the metadata schemas whose fields are exposed as eperson attributes.
+     *
+     * @return The metadata schema prefixes.
+     */
+    @ConfigurationProperty(order = 11, displayMessageKey = "Metadata Schemas",
+            helpMessageKey = "Metadata schemas whose fields become eperson attributes (default: eperson).",
+            required = false)
+    public String[] getMetadataSchemas() {
+        return metadataSchemas.clone();
+    }
+
+    /**
+     * Sets the prefixes of the metadata schemas exposed as eperson attributes.
+     *
+     * @param metadataSchemas The metadata schema prefixes.
+     */
+    public void setMetadataSchemas(String[] metadataSchemas) {
+        this.metadataSchemas = metadataSchemas != null ? metadataSchemas.clone() : new String[0];
+    }
+
+    /**
+     * Gets how long the schema built from the metadata registry is cached.
+     *
+     * @return The cache TTL in seconds.
+     */
+    @ConfigurationProperty(order = 12, displayMessageKey = "Schema Cache TTL",
+            helpMessageKey = "Seconds before the metadata registry is checked again for schema changes (default: 3600).",
+            required = false)
+    public int getSchemaCacheTtlSeconds() {
+        return schemaCacheTtlSeconds;
+    }
+
+    /**
+     * Sets how long the schema is cached.
+     *
+     * @param schemaCacheTtlSeconds The cache TTL in seconds.
+     */
+    public void setSchemaCacheTtlSeconds(int schemaCacheTtlSeconds) {
+        if (schemaCacheTtlSeconds <= 0) {
+            throw new IllegalArgumentException("Schema cache TTL must be greater than 0.");
+        }
+        this.schemaCacheTtlSeconds = schemaCacheTtlSeconds;
+    }
+
+    /**
+     * Gets the number of shards fetched in parallel during a full scan.
+     *
+     * @return The number of scan workers; 1 keeps the sequential scan.
+     */
+    @ConfigurationProperty(order = 13, displayMessageKey = "Full Scan Workers",
+            helpMessageKey = "Shards fetched in parallel when listing every eperson (default: 1, sequential; scans with scanId still use checkpointed shards).",
+            required = false)
+    public int getFullScanWorkers() {
+        return fullScanWorkers;
+    }
+
+    /**
+     * Sets the number of shards fetched in parallel during a full scan.
+     *
+     * @param fullScanWorkers The number of scan workers.
+     */
+    public void setFullScanWorkers(int fullScanWorkers) {
+        if (fullScanWorkers <= 0) {
+            throw new IllegalArgumentException("Full scan workers must be greater than 0.");
+        }
+        this.fullScanWorkers = fullScanWorkers;
+    }
+
+    /**
+     * Gets the number of pages in each shard of a full scan.
+     *
+     * @return The pages per shard.
+     */
+    @ConfigurationProperty(order = 14, displayMessageKey = "Full Scan Pages Per Shard",
+            helpMessageKey = "Pages of 100 epersons in each shard of a full scan (default: 10).",
+            required = false)
+    public int getFullScanPagesPerShard() {
+        return fullScanPagesPerShard;
+    }
+
+    /**
+     * Sets the number of pages in each shard of a full scan.
+     *
+     * @param fullScanPagesPerShard The pages per shard.
+     */
+    public void setFullScanPagesPerShard(int fullScanPagesPerShard) {
+        if (fullScanPagesPerShard <= 0) {
+            throw new IllegalArgumentException("Full scan pages per shard must be greater than 0.");
+        }
+        this.fullScanPagesPerShard = fullScanPagesPerShard;
+    }
+
+    /**
+     * Gets the directory where full scan checkpoints are stored.
+     *
+     * @return The checkpoint directory; null uses a folder in the system temporary directory.
+     */
+    @ConfigurationProperty(order = 15, displayMessageKey = "Scan Checkpoint Directory",
+            helpMessageKey = "Directory for the checkpoints of resumable full scans (default: system temporary directory).",
+            required = false)
+    public String getScanCheckpointDirectory() {
+        return scanCheckpointDirectory;
+    }
+
+    /**
+     * Sets the directory where full scan checkpoints are stored.
+     *
+     * @param scanCheckpointDirectory The checkpoint directory.
+     */
+    public void setScanCheckpointDirectory(String scanCheckpointDirectory) {
+        this.scanCheckpointDirectory = scanCheckpointDirectory;
+    }
+
+    /**
+     * Gets the window in which updates to the same eperson are merged into one write.
+     *
+     * @return The window in milliseconds; 0 disables coalescing.
+     */
+    @ConfigurationProperty(order = 16, displayMessageKey = "Update Coalescing Window",
+            helpMessageKey = "Milliseconds during which updates to the same eperson are merged into one write (default: 0, disabled).",
+            required = false)
+    public long getUpdateCoalescingWindowMillis() {
+        return updateCoalescingWindowMillis;
+    }
+
+    /**
+     * Sets the window in which updates to the same eperson are merged.
+     *
+     * @param updateCoalescingWindowMillis The window in milliseconds; 0 disables coalescing.
+     */
+    public void setUpdateCoalescingWindowMillis(long updateCoalescingWindowMillis) {
+        if (updateCoalescingWindowMillis < 0) {
+            throw new IllegalArgumentException("Update coalescing window cannot be negative.");
+        }
+        this.updateCoalescingWindowMillis = updateCoalescingWindowMillis;
+    }
+
+    /**
+     * Gets how long the last seen state of an eperson is kept to detect updates that change nothing.
+     *
+     * @return The cache TTL in seconds; 0 reads the eperson before every update.
+     */
+    @ConfigurationProperty(order = 17, displayMessageKey = "EPerson State Cache TTL",
+            helpMessageKey = "Seconds the last seen state of an eperson is reused to skip updates that change nothing (default: 0, read before every update).",
+            required = false)
+    public int getEpersonStateCacheTtlSeconds() {
+        return epersonStateCacheTtlSeconds;
+    }
+
+    /**
+     * Sets how long the last seen state of an eperson is kept.
+     *
+     * @param epersonStateCacheTtlSeconds The cache TTL in seconds; 0 disables the cache.
+     */
+    public void setEpersonStateCacheTtlSeconds(int epersonStateCacheTtlSeconds) {
+        if (epersonStateCacheTtlSeconds < 0) {
+            throw new IllegalArgumentException("EPerson state cache TTL cannot be negative.");
+        }
+        this.epersonStateCacheTtlSeconds = epersonStateCacheTtlSeconds;
+    }
+
+    /**
+     * Gets whether creating an eperson whose email already exists returns the existing eperson.
+     *
+     * @return true to return the existing Uid; false to fail with AlreadyExistsException.
+     */
+    @ConfigurationProperty(order = 18, displayMessageKey = "Return Existing On Create",
+            helpMessageKey = "Return the existing eperson when a create hits an email that is already registered (default: false, fail with AlreadyExistsException).",
+            required = false)
+    public boolean isReturnExistingOnCreate() {
+        return returnExistingOnCreate;
+    }
+
+    /**
+     * Sets whether creating an eperson whose email already exists returns the existing eperson.
+     *
+     * @param returnExistingOnCreate true to return the existing Uid.
+     */
+    public void setReturnExistingOnCreate(boolean returnExistingOnCreate) {
+        this.returnExistingOnCreate = returnExistingOnCreate;
+    }
+
+    /**
+     * Gets whether slow GET requests are hedged with a second copy.
+     *
+     * @return true if hedging is enabled.
+     */
+    @ConfigurationProperty(order = 19, displayMessageKey = "Hedge Reads",
+            helpMessageKey = "Send a second copy of a GET request that has not answered within the hedge delay; the first response wins (default: false).",
+            required = false)
+    public boolean isHedgeReads() {
+        return hedgeReads;
+    }
+
+    /**
+     * Enables or disables hedged GET requests.
+     *
+     * @param hedgeReads true to hedge slow GET requests.
+     */
+    public void setHedgeReads(boolean hedgeReads) {
+        this.hedgeReads = hedgeReads;
+    }
+
+    /**
+     * Gets how long a GET request waits before it is hedged.
+     *
+     * @return The delay in milliseconds; 0 uses the recent p95 latency of each endpoint.
+     */
+    @ConfigurationProperty(order = 20, displayMessageKey = "Hedge Delay",
+            helpMessageKey = "Milliseconds before a GET request is hedged (default: 0, the recent p95 latency of the endpoint).",
+            required = false)
+    public int getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    /**
+     * Sets how long a GET request waits before it is hedged.
+     *
+     * @param hedgeDelayMillis The delay in milliseconds; 0 uses the recent p95 latency.
+     */
+    public void setHedgeDelayMillis(int hedgeDelayMillis) {
+        if (hedgeDelayMillis < 0) {
+            throw new IllegalArgumentException("Hedge delay cannot be negative.");
+        }
+        this.hedgeDelayMillis = hedgeDelayMillis;
+    }
+
+    /**
+     * Gets the maximum share of GET requests that may be hedged.
+     *
+     * @return The budget as a percentage of the hedgeable requests.
+     */
+    @ConfigurationProperty(order = 21, displayMessageKey = "Hedge Budget",
+            helpMessageKey = "Maximum hedged requests as a percentage of the GET requests (default: 5).",
+            required = false)
+    public int getHedgeBudgetPercent() {
+        return hedgeBudgetPercent;
+    }
+
+    /**
+     * Sets the maximum share of GET requests that may be hedged.
+     *
+     * @param hedgeBudgetPercent The budget as a percentage, between 1 and 100.
+     */
+    public void setHedgeBudgetPercent(int hedgeBudgetPercent) {
+        if (hedgeBudgetPercent < 1 || hedgeBudgetPercent > 100) {
+            throw new IllegalArgumentException("Hedge budget must be between 1 and 100 percent.");
+        }
+        this.hedgeBudgetPercent = hedgeBudgetPercent;
+    }
+
+    /**
+     * Gets the base URLs of the additional DSpace REST nodes that serve reads.
+     *
+     * @return The replica base URLs; empty to send everything to the base URL.
+     */
+    @ConfigurationProperty(order = 22, displayMessageKey = "Replica Base URLs",
+            helpMessageKey = "Base URLs of other DSpace REST nodes that serve reads; writes always go to the base URL (default: none).",
+            required = false)
+    public String[] getReplicaBaseUrls() {
+        return replicaBaseUrls.clone();
+    }
+
+    /**
+     * Sets the base URLs of the additional DSpace REST nodes that serve reads.
+     *
+     * @param replicaBaseUrls The replica base URLs.
+     */
+    public void setReplicaBaseUrls(String[] replicaBaseUrls) {
+        this.replicaBaseUrls = replicaBaseUrls != null ? replicaBaseUrls.clone() : new String[0];
+    }
+
+    /**
+     * Gets whether all the DSpace nodes share the JWT secret, so one login is valid on all of them.
+     *
+     * @return true if the nodes share the JWT secret.
+     */
+    @ConfigurationProperty(order = 23, displayMessageKey = "Shared JWT Secret",
+            helpMessageKey = "The DSpace nodes share the JWT secret, so the token of the base URL is reused on the replicas (default: true).",
+            required = false)
+    public boolean isSharedJwtSecret() {
+        return sharedJwtSecret;
+    }
+
+    /**
+     * Sets whether all the DSpace nodes share the JWT secret.
+     *
+     * @param sharedJwtSecret true to reuse the base URL token on the replicas.
+     */
+    public void setSharedJwtSecret(boolean sharedJwtSecret) {
+        this.sharedJwtSecret = sharedJwtSecret;
+    }
+
+    /**
+     * Gets the interval between active health checks of the DSpace nodes.
+     *
+     * @return The interval in seconds; 0 disables active checks.
+     */
+    @ConfigurationProperty(order = 24, displayMessageKey = "Health Check Interval",
+            helpMessageKey = "Seconds between active health checks of the DSpace nodes when replicas are configured (default: 10, 0 disables).",
+            required = false)
+    public int getHealthCheckIntervalSeconds() {
+        return healthCheckIntervalSeconds;
+    }
+
+    /**
+     * Sets the interval between active health checks of the DSpace nodes.
+     *
+     * @param healthCheckIntervalSeconds The interval in seconds; 0 disables active checks.
+     */
+    public void setHealthCheckIntervalSeconds(int healthCheckIntervalSeconds) {
+        if (healthCheckIntervalSeconds < 0) {
+            throw new IllegalArgumentException("Health check interval cannot be negative.");
+        }
+        this.healthCheckIntervalSeconds = healthCheckIntervalSeconds;
+    }
+
+    /**
+     * Gets when the connector logs in to DSpace.
+     *
+     * @return {@code lazy}, {@code background} or {@code eager}.
+     */
+    @ConfigurationProperty(order = 25, displayMessageKey = "Startup Authentication",
+            helpMessageKey = "When to log in: lazy (on the first request), background (right after init, without blocking it) or eager (during init, failing if DSpace is unreachable) (default: lazy).",
+            required = false)
+    public String getStartupAuthentication() {
+        return startupAuthentication;
+    }
+
+    /**
+     * Sets when the connector logs in to DSpace.
+     *
+     * @param startupAuthentication {@code lazy}, {@code background} or {@code eager}.
+     */
+    public void setStartupAuthentication(String startupAuthentication) {
+        this.startupAuthentication = startupAuthentication;
+    }
+
+    /**
+     * Gets the number of pooled connections opened in the background after init.
+     *
+     * @return The number of connections per DSpace node; 0 disables the warm-up.
+     */
+    @ConfigurationProperty(order = 26, displayMessageKey = "Warm-up Connections",
+            helpMessageKey = "Connections to each DSpace node opened in the background after init, so the first operations skip the TCP and TLS handshakes (default: 0, at most Max Concurrent Requests).",
+            required = false)
+    public int getWarmUpConnections() {
+        return warmUpConnections;
+    }
+
+    /**
+     * Sets the number of pooled connections opened in the background after init.
+     *
+     * @param warmUpConnections The number of connections per DSpace node; 0 disables the warm-up.
+     */
+    public void setWarmUpConnections(int warmUpConnections) {
+        if (warmUpConnections < 0) {
+            throw new IllegalArgumentException("Warm-up connections cannot be negative.");
+        }
+        this.warmUpConnections = warmUpConnections;
+    }
+
+    /**
+     * Gets the directory of the on-disk JWT cache.
+     *
+     * @return The cache directory; null or empty disables the cache.
+     */
+    @ConfigurationProperty(order = 27, displayMessageKey = "Token Cache Directory",
+            helpMessageKey = "Directory where the JWT is kept encrypted, so restarted connectors reuse it instead of logging in again (default: disabled).",
+            required = false)
+    public String getTokenCacheDirectory() {
+        return tokenCacheDirectory;
+    }
+
+    /**
+     * Sets the directory of the on-disk JWT cache.
+     *
+     * @param tokenCacheDirectory The cache directory; null or empty disables the cache.
+     */
+    public void setTokenCacheDirectory(String tokenCacheDirectory) {
+        this.tokenCacheDirectory = tokenCacheDirectory;
+    }
+
+    /**
+     * Gets the time limit of each connector operation.
+     *
+     * @return The limit in milliseconds; 0 disables it.
+     */
+    @ConfigurationProperty(order = 28, displayMessageKey = "Operation Timeout",
+            helpMessageKey = "Time limit in milliseconds of each connector operation, including token, connection and retry waits; the timeoutMillis operation option overrides it (default: 0, no limit).",
+            required = false)
+    public long getOperationTimeoutMillis() {
+        return operationTimeoutMillis;
+    }
+
+    /**
+     * Sets the time limit of each connector operation.
+     *
+     * @param operationTimeoutMillis The limit in milliseconds; 0 disables it.
+     */
+    public void setOperationTimeoutMillis(long operationTimeoutMillis) {
+        if (operationTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Operation timeout cannot be negative.");
+        }
+        this.operationTimeoutMillis = operationTimeoutMillis;
+    }
+
+    /**
+     * Gets whether requests are authenticated with the Authorization header only.
+     *
+     * @return true if requests neither send nor store cookies.
+     */
+    @ConfigurationProperty(order = 29, displayMessageKey = "Stateless Session",
+            helpMessageKey = "Authenticate requests with the JWT header only, without sharing cookies between them (default: true).",
+            required = false)
+    public boolean isStatelessSession() {
+        return statelessSession;
+    }
+
+    /**
+     * Sets whether requests are authenticated with the Authorization header only.
+     *
+     * @param statelessSession true to send and store no cookies outside the login.
+     */
+    public void setStatelessSession(boolean statelessSession) {
+        this.statelessSession = statelessSession;
+    }
+
     /**
      * Checks if the configuration is properly initialized.
      *
@@ -153,6 +755,15 @@ public class DSpaceConfiguration extends AbstractConfiguration {
         validateBaseUrl();
         validateCredentials();
         validateTimeouts();
+        validateConcurrency();
+        validateTracing();
+        validateCaches();
+        validateScan();
+        validateCoalescing();
+        validateHedging();
+        validateReplicas();
+        validateStartup();
+        validateTokenCache();
     }
 
     /**
@@ -191,5 +802,126 @@ public class DSpaceConfiguration extends AbstractConfiguration {
         if (readTimeout <= 0) {
             throw new IllegalArgumentException("Read timeout must be greater than 0.");
         }
+        if (operationTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Operation timeout cannot be negative.");
+        }
+    }
+
+    /**
+     * Validates concurrency settings.
+     */
+    private void validateConcurrency() {
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("Max concurrent requests must be greater than 0.");
+        }
+    }
+
+    /**
+     * Validates slow operation tracing settings.
+     */
+    private void validateTracing() {
+        if (slowOperationThresholdMillis < 0) {
+            throw new IllegalArgumentException("Slow operation threshold cannot be negative.");
+        }
+        if (slowOperationBufferSize <= 0) {
+            throw new IllegalArgumentException("Slow operation buffer size must be greater than 0.");
+        }
+    }
+
+    /**
+     * Validates cache settings.
+     */
+    private void validateCaches() {
+        if (membershipCacheTtlSeconds < 0) {
+            throw new IllegalArgumentException("Membership cache TTL cannot be negative.");
+        }
+        if (schemaCacheTtlSeconds <= 0) {
+            throw new IllegalArgumentException("Schema cache TTL must be greater than 0.");
+        }
+        if (epersonStateCacheTtlSeconds < 0) {
+            throw new IllegalArgumentException("EPerson state cache TTL cannot be negative.");
+        }
+    }
+
+    /**
+     * Validates full scan settings.
+     */
+    private void validateScan() {
+        if (fullScanWorkers <= 0) {
+            throw new IllegalArgumentException("Full scan workers must be greater than 0.");
+        }
+        if (fullScanPagesPerShard <= 0) {
+            throw new IllegalArgumentException("Full scan pages per shard must be greater than 0.");
+        }
+    }
+
+    /**
+     * Validates the replica base URLs and the health check interval.
+     */
+    private void validateReplicas() {
+        for (String replica : replicaBaseUrls) {
+            if (replica == null || replica.isEmpty()) {
+                throw new IllegalArgumentException("Replica base URLs cannot be empty.");
+            }
+            try {
+                new URL(replica);
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Replica base URL is not a valid URL: " + replica, e);
+            }
+        }
+        if (healthCheckIntervalSeconds < 0) {
+            throw new IllegalArgumentException("Health check interval cannot be negative.");
+        }
+    }
+
+    /**
+     * Validates hedged request settings.
+     */
+    private void validateHedging() {
+        if (hedgeDelayMillis < 0) {
+            throw new IllegalArgumentException("Hedge delay cannot be negative.");
+        }
+        if (hedgeBudgetPercent < 1 || hedgeBudgetPercent > 100) {
+            throw new IllegalArgumentException("Hedge budget must be between 1 and 100 percent.");
+        }
+    }
+
+    /**
+     * Validates update coalescing settings.
+     */
+    private void validateCoalescing() {
+        if (updateCoalescingWindowMillis < 0) {
+            throw new IllegalArgumentException("Update coalescing window cannot be negative.");
+        }
+    }
+
+    /**
+     * Validates startup settings.
+     */
+    private void validateStartup() {
+        if (!"lazy".equals(startupAuthentication) && !"background".equals(startupAuthentication)
+                && !"eager".equals(startupAuthentication)) {
+            throw new IllegalArgumentException("Startup authentication must be lazy, background or eager.");
+        }
+        if (warmUpConnections < 0) {
+            throw new IllegalArgumentException("Warm-up connections cannot be negative.");
+        }
+        if (warmUpConnections > maxConcurrentRequests) {
+            throw new IllegalArgumentException("Warm-up connections cannot exceed max concurrent requests.");
+        }
+    }
+
+    /**
+     * Validates the token cache directory.
+     */
+    private void validateTokenCache() {
+        if (tokenCacheDirectory == null || tokenCacheDirectory.isEmpty()) {
+            return;
+        }
+        try {
+            Paths.get(tokenCacheDirectory);
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Token cache directory is not a valid path: " + tokenCacheDirectory, e);
+        }
     }
 }
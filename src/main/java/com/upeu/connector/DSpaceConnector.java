@@ -1,28 +1,63 @@
 package com.upeu.connector;
 
 import com.upeu.connector.auth.AuthManager;
+import com.upeu.connector.auth.NodeBalancer;
+import com.upeu.connector.auth.OperationDeadline;
+import com.upeu.connector.auth.RequestHedger;
+import com.upeu.connector.auth.TokenCache;
+import com.upeu.connector.bulk.DeleteSummary;
+import com.upeu.connector.bulk.EPersonBulkDeleter;
+import com.upeu.connector.bulk.EPersonExporter;
+import com.upeu.connector.bulk.EPersonImporter;
+import com.upeu.connector.bulk.ExportSummary;
+import com.upeu.connector.bulk.ImportSummary;
+import com.upeu.connector.filter.DSpaceQuery;
 import com.upeu.connector.filter.EPersonFilterTranslator;
-import com.upeu.connector.handler.EPerson;
+import com.upeu.connector.filter.EPersonQuery;
+import com.upeu.connector.filter.GroupFilterTranslator;
+import com.upeu.connector.filter.GroupQuery;
 import com.upeu.connector.handler.EPersonHandler;
+import com.upeu.connector.handler.EPersonStateCache;
+import com.upeu.connector.handler.Group;
+import com.upeu.connector.handler.GroupHandler;
+import com.upeu.connector.handler.GroupMembershipResolver;
+import com.upeu.connector.handler.MembershipCache;
+import com.upeu.connector.handler.ShardedScanner;
+import com.upeu.connector.handler.UpdateCoalescer;
+import com.upeu.connector.metrics.ConnectorMetrics;
+import com.upeu.connector.metrics.EndpointSnapshot;
+import com.upeu.connector.metrics.OperationTrace;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.metrics.TracePhase;
+import com.upeu.connector.util.DaemonThreadFactory;
 import com.upeu.connector.util.EndpointRegistry;
-import com.upeu.connector.util.SchemaRegistry;
+import com.upeu.connector.schema.SchemaProvider;
 import com.upeu.connector.util.ValidationJsonUtil;
 import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.exceptions.OperationTimeoutException;
 import org.identityconnectors.framework.common.objects.*;
 import org.identityconnectors.framework.common.objects.filter.FilterTranslator;
 import org.identityconnectors.framework.spi.Connector;
 import org.identityconnectors.framework.spi.ConnectorClass;
 import org.identityconnectors.framework.spi.Configuration;
 import org.identityconnectors.framework.spi.operations.*;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @ConnectorClass(configurationClass = DSpaceConfiguration.class, displayNameKey = "DSpaceConnector")
-public class DSpaceConnector implements Connector, CreateOp, UpdateOp, DeleteOp, SearchOp<String>, SchemaOp, TestOp {
+public class DSpaceConnector implements Connector, CreateOp, UpdateOp, UpdateAttributeValuesOp, DeleteOp,
+        SearchOp<DSpaceQuery>, SchemaOp, TestOp {
 
     private static final Logger LOG = LoggerFactory.getLogger(DSpaceConnector.class);
 
@@ -30,6 +65,14 @@ public class DSpaceConnector implements Connector, CreateOp, UpdateOp, DeleteOp,
     private DSpaceConfiguration configuration;
     private DSpaceClient client;
     private EPersonHandler ePersonHandler;
+    private GroupHandler groupHandler;
+    private SchemaProvider schemaProvider;
+    private ExecutorService searchExecutor;
+    private ExecutorService relationExecutor;
+    private ConnectorMetrics metrics;
+    private OperationTracer tracer = OperationTracer.disabled();
+    // Última traducción de filtro del hilo, a la espera de su executeQuery
+    private final ThreadLocal<Translation> pendingTranslation = new ThreadLocal<>();
 
     // ==============================
     // Constructor Público Requerido
@@ -60,20 +103,146 @@ public class DSpaceConnector implements Connector, CreateOp, UpdateOp, DeleteOp,
         LOG.info("Contraseña: [PROTEGIDO]");
 
         // Inicializar componentes necesarios
+        this.tracer = new OperationTracer(
+                this.configuration.getSlowOperationThresholdMillis(),
+                this.configuration.getSlowOperationBufferSize());
+        this.metrics = new ConnectorMetrics(metricsInstanceId(), this.configuration.isMetricsJmxEnabled(), this.tracer);
         this.authManager = new AuthManager(
                 this.configuration.getBaseUrl(),
                 this.configuration.getUsername(),
-                this.configuration.getPassword()
+                this.configuration.getPassword(),
+                new AuthManager.Options()
+                        .maxConnections(this.configuration.getMaxConcurrentRequests())
+                        .metrics(this.metrics)
+                        .hedger(this.configuration.isHedgeReads()
+                                ? new RequestHedger(this.configuration.getHedgeDelayMillis(),
+                                        this.configuration.getHedgeBudgetPercent(),
+                                        // Cada petición concurrente puede ocupar dos hilos: el intento y su réplica
+                                        2 * this.configuration.getMaxConcurrentRequests(), this.metrics)
+                                : null)
+                        .balancer(nodeBalancer())
+                        .tokenCache(tokenCache())
+                        .connectTimeoutMillis(this.configuration.getConnectTimeout())
+                        .readTimeoutMillis(this.configuration.getReadTimeout())
+                        .statelessSession(this.configuration.isStatelessSession())
         );
 
-        validateAuthentication();
+        if ("eager".equals(this.configuration.getStartupAuthentication())) {
+            validateAuthentication();
+        }
 
+        this.searchExecutor = Executors.newFixedThreadPool(
+                this.configuration.getMaxConcurrentRequests(), new DaemonThreadFactory("search"));
+        // Pool aparte para miembros y grupos: las ramas de búsqueda pueden ocupar todo el primero
+        // mientras esperan a que el hilo llamante, que resuelve los grupos, consuma sus páginas.
+        this.relationExecutor = Executors.newFixedThreadPool(
+                this.configuration.getMaxConcurrentRequests(), new DaemonThreadFactory("relation"));
         this.client = new DSpaceClient(this.authManager);
-        this.ePersonHandler = new EPersonHandler(client);
+        this.groupHandler = new GroupHandler(client, relationExecutor,
+                new MembershipCache(this.configuration.getMembershipCacheTtlSeconds() * 1000L));
+        this.schemaProvider = new SchemaProvider(client, DSpaceConnector.class,
+                this.configuration.getBaseUrl() + "|" + this.configuration.getUsername(),
+                Arrays.asList(this.configuration.getMetadataSchemas()),
+                this.configuration.getSchemaCacheTtlSeconds() * 1000L);
+        this.ePersonHandler = new EPersonHandler(client, searchExecutor, new EPersonHandler.Options()
+                .membershipResolver(new GroupMembershipResolver(client, groupHandler, relationExecutor))
+                .schemaProvider(schemaProvider)
+                .fullScanner(fullScanner())
+                .updateCoalescer(updateCoalescer())
+                .stateCache(stateCache())
+                .returnExistingOnCreate(this.configuration.isReturnExistingOnCreate()));
+
+        startInBackground();
 
         LOG.info("DSpaceConnector inicializado correctamente.");
     }
 
+    /**
+     * Lanza el login y el precalentamiento de conexiones sin bloquear init. En modo lazy el
+     * login se hace en la primera petición que necesita el token.
+     */
+    private void startInBackground() {
+        if ("background".equals(this.configuration.getStartupAuthentication())) {
+            authManager.authenticateInBackground().whenComplete((done, error) -> {
+                if (error != null) {
+                    LOG.warn("Falló la autenticación en segundo plano; se reintentará en la primera operación: {}",
+                            error.getMessage());
+                }
+            });
+        }
+        if (this.configuration.getWarmUpConnections() > 0) {
+            authManager.warmUp(this.configuration.getWarmUpConnections());
+        }
+    }
+
+    /**
+     * Reparto de lecturas entre los nodos de DSpace; null si solo hay la URL base.
+     */
+    private NodeBalancer nodeBalancer() {
+        String[] replicas = this.configuration.getReplicaBaseUrls();
+        if (replicas.length == 0) {
+            return null;
+        }
+        LOG.info("Lecturas repartidas entre {} y {} réplicas.", this.configuration.getBaseUrl(), replicas.length);
+        return new NodeBalancer(this.configuration.getBaseUrl(), Arrays.asList(replicas),
+                this.configuration.isSharedJwtSecret(),
+                this.configuration.getHealthCheckIntervalSeconds() * 1000L);
+    }
+
+    /**
+     * Caché en disco del token JWT; null si no se configura un directorio.
+     */
+    private TokenCache tokenCache() {
+        String directory = this.configuration.getTokenCacheDirectory();
+        if (directory == null || directory.isBlank()) {
+            return null;
+        }
+        return new TokenCache(Paths.get(directory), this.configuration.getBaseUrl(),
+                this.configuration.getUsername(), this.configuration.getPassword());
+    }
+
+    /**
+     * Recorrido por shards de los listados completos. Con un solo worker solo se usa en los
+     * recorridos con scanId, para que también puedan reanudarse.
+     */
+    private ShardedScanner fullScanner() {
+        String directory = this.configuration.getScanCheckpointDirectory();
+        Path checkpoints = directory != null && !directory.isBlank()
+                ? Paths.get(directory)
+                : Paths.get(System.getProperty("java.io.tmpdir"), "dspace-connector-scans");
+        return new ShardedScanner(client, this.configuration.getFullScanWorkers(),
+                this.configuration.getFullScanPagesPerShard(), checkpoints);
+    }
+
+    /**
+     * Agrupación de actualizaciones por EPerson; null si la ventana es 0.
+     */
+    private UpdateCoalescer updateCoalescer() {
+        long window = this.configuration.getUpdateCoalescingWindowMillis();
+        return window > 0 ? new UpdateCoalescer(window) : null;
+    }
+
+    /**
+     * Caché del último estado de cada EPerson; null si el TTL es 0.
+     */
+    private EPersonStateCache stateCache() {
+        int ttlSeconds = this.configuration.getEpersonStateCacheTtlSeconds();
+        return ttlSeconds > 0 ? new EPersonStateCache(ttlSeconds * 1000L) : null;
+    }
+
+    /**
+     * Identificador de esta instancia en los nombres JMX: host de DSpace más un sufijo único.
+     */
+    private String metricsInstanceId() {
+        String host;
+        try {
+            host = URI.create(this.configuration.getBaseUrl()).getHost();
+        } catch (IllegalArgumentException e) {
+            host = null;
+        }
+        return (host != null ? host : "dspace") + "-" + Integer.toHexString(System.identityHashCode(this));
+    }
+
     private void validateAuthentication() {
         try {
             if (!authManager.isAuthenticated()) {
@@ -91,8 +260,26 @@ public class DSpaceConnector implements Connector, CreateOp, UpdateOp, DeleteOp,
     @Override
     public void dispose() {
         LOG.info("Liberando recursos en DSpaceConnector...");
+        if (searchExecutor != null) {
+            searchExecutor.shutdownNow();
+            searchExecutor = null;
+        }
+        if (relationExecutor != null) {
+            relationExecutor.shutdownNow();
+            relationExecutor = null;
+        }
+        if (authManager != null) {
+            authManager.close();
+        }
+        if (metrics != null) {
+            metrics.close();
+            metrics = null;
+        }
+        tracer = OperationTracer.disabled();
         client = null;
         ePersonHandler = null;
+        groupHandler = null;
+        schemaProvider = null;
         authManager = null;
         LOG.info("Recursos liberados exitosamente.");
     }
@@ -102,82 +289,269 @@ public class DSpaceConnector implements Connector, CreateOp, UpdateOp, DeleteOp,
         return this.configuration;
     }
 
+    /**
+     * Devuelve una copia de las métricas de peticiones por endpoint y método HTTP.
+     *
+     * @return Instantáneas de métricas; vacía si el conector no está inicializado.
+     */
+    public List<EndpointSnapshot> getMetricsSnapshot() {
+        return metrics != null ? metrics.snapshot() : List.of();
+    }
+
+    /**
+     * Devuelve las últimas operaciones que superaron el umbral de lentitud, con el desglose
+     * de tiempos por fase (traducción del filtro, token, pool de conexiones, TTFB, lectura
+     * del cuerpo, decodificación JSON y mapeo a ConnectorObject).
+     *
+     * @return Trazas de la más reciente a la más antigua; vacía si la traza está desactivada.
+     */
+    public List<OperationTrace> getSlowOperationTraces() {
+        return tracer.getSlowTraces();
+    }
+
+    /**
+     * Devuelve cuántas actualizaciones de EPersons se enviaron a DSpace y cuántas se omitieron
+     * porque no cambiaban nada.
+     *
+     * @return Mapa con las claves {@code sent} y {@code skipped}; vacío si el conector no está inicializado.
+     */
+    public Map<String, Long> getUpdateWriteCounts() {
+        if (ePersonHandler == null) {
+            return Map.of();
+        }
+        return Map.of("sent", ePersonHandler.getSentWrites(), "skipped", ePersonHandler.getSkippedWrites());
+    }
+
+    /**
+     * Devuelve los contadores de réplicas de GET: peticiones replicables, réplicas enviadas,
+     * réplicas que respondieron antes que la original y réplicas denegadas por el presupuesto.
+     *
+     * @return Mapa con las claves {@code hedgeable}, {@code sent}, {@code won} y {@code denied};
+     * vacío si las réplicas están desactivadas.
+     */
+    public Map<String, Long> getHedgeCounts() {
+        RequestHedger hedger = authManager != null ? authManager.getHedger() : null;
+        if (hedger == null) {
+            return Map.of();
+        }
+        return Map.of("hedgeable", hedger.getHedgeableRequests(), "sent", hedger.getHedgesSent(),
+                "won", hedger.getHedgesWon(), "denied", hedger.getHedgesDenied());
+    }
+
+    // ==============================
+    // Operaciones Masivas
+    // ==============================
+
+    /**
+     * Exporta todos los EPersons a un fichero NDJSON local, sin pasar por midPoint.
+     * Si el mismo fichero tiene una exportación interrumpida, se reanuda desde su último checkpoint.
+     * El tiempo límite de las operaciones se aplica a cada página.
+     *
+     * @param target Fichero de salida.
+     * @param gzip   true para comprimir la salida con gzip.
+     * @return Resumen de la exportación.
+     */
+    public ExportSummary exportEPersons(Path target, boolean gzip) {
+        return new EPersonExporter(client, EPersonExporter.DEFAULT_PAGE_SIZE,
+                this.configuration.getOperationTimeoutMillis()).export(target, gzip);
+    }
+
+    /**
+     * Importa EPersons desde un fichero NDJSON o CSV con tantos envíos en paralelo como
+     * {@code maxConcurrentRequests}. El tiempo límite de las operaciones se aplica a cada registro.
+     *
+     * @param source  Fichero de entrada; el formato se deduce de la extensión.
+     * @param results Fichero NDJSON con el resultado de cada registro (UUID o error).
+     * @param upsert  true para actualizar los EPersons cuyo email ya existe en lugar de crearlos.
+     * @return Resumen de la importación.
+     */
+    public ImportSummary importEPersons(Path source, Path results, boolean upsert) {
+        return new EPersonImporter(ePersonHandler, this.configuration.getMaxConcurrentRequests(), upsert,
+                this.configuration.getOperationTimeoutMillis()).importFile(source, results);
+    }
+
+    /**
+     * Elimina muchos EPersons a la vez, con tantas peticiones en paralelo como
+     * {@code maxConcurrentRequests}. Los EPersons que ya no existen cuentan como eliminados.
+     * El tiempo límite de las operaciones se aplica a cada eliminación.
+     *
+     * @param ids UUIDs de los EPersons.
+     * @return Resumen con los eliminados y los fallos agrupados por motivo.
+     */
+    public DeleteSummary deleteEPersons(Collection<String> ids) {
+        try {
+            return new EPersonBulkDeleter(ePersonHandler, this.configuration.getMaxConcurrentRequests(),
+                    this.configuration.getOperationTimeoutMillis()).delete(ids);
+        } finally {
+            // Los EPersons eliminados podían ser miembros de cualquier grupo en caché
+            groupHandler.invalidateMemberships();
+        }
+    }
+
     // ==============================
     // Operaciones CRUD Centralizadas
     // ==============================
     @Override
     public Uid create(ObjectClass objectClass, Set<Attribute> attributes, OperationOptions options) {
-        return handleCrudOperation(objectClass, OperationType.CREATE, null, attributes);
+        return handleCrudOperation(objectClass, OperationType.CREATE, null, attributes, options);
     }
 
     @Override
     public Uid update(ObjectClass objectClass, Uid uid, Set<Attribute> attributes, OperationOptions options) {
-        return handleCrudOperation(objectClass, OperationType.UPDATE, uid, attributes);
+        return handleCrudOperation(objectClass, OperationType.UPDATE, uid, attributes, options);
     }
 
     @Override
     public void delete(ObjectClass objectClass, Uid uid, OperationOptions options) {
-        handleCrudOperation(objectClass, OperationType.DELETE, uid, null);
-    }
-
-    private Uid handleCrudOperation(ObjectClass objectClass, OperationType operationType, Uid uid, Set<Attribute> attributes) {
-        if (objectClass.is(ObjectClass.ACCOUNT_NAME)) {
-            switch (operationType) {
-                case CREATE:
-                    return ePersonHandler.create(attributes);
-                case UPDATE:
-                    return ePersonHandler.update(uid.getUidValue(), attributes);
-                case DELETE:
-                    ePersonHandler.delete(uid.getUidValue());
-                    return null;
+        handleCrudOperation(objectClass, OperationType.DELETE, uid, null, options);
+    }
+
+    @Override
+    public Uid addAttributeValues(ObjectClass objectClass, Uid uid, Set<Attribute> valuesToAdd, OperationOptions options) {
+        return handleCrudOperation(objectClass, OperationType.ADD_VALUES, uid, valuesToAdd, options);
+    }
+
+    @Override
+    public Uid removeAttributeValues(ObjectClass objectClass, Uid uid, Set<Attribute> valuesToRemove, OperationOptions options) {
+        return handleCrudOperation(objectClass, OperationType.REMOVE_VALUES, uid, valuesToRemove, options);
+    }
+
+    private Uid handleCrudOperation(ObjectClass objectClass, OperationType operationType, Uid uid, Set<Attribute> attributes,
+                                    OperationOptions options) {
+        tracer.begin(operationType.name().toLowerCase(), objectClass.getObjectClassValue());
+        OperationDeadline deadline = beginDeadline(options);
+        try {
+            if (objectClass.is(ObjectClass.ACCOUNT_NAME)) {
+                switch (operationType) {
+                    case CREATE:
+                        return ePersonHandler.create(attributes);
+                    case UPDATE:
+                        return ePersonHandler.update(uid.getUidValue(), attributes);
+                    case DELETE:
+                        ePersonHandler.delete(uid.getUidValue());
+                        // El EPerson eliminado podía ser miembro de cualquier grupo en caché
+                        groupHandler.invalidateMemberships();
+                        return null;
+                    default:
+                        break;
+                }
             }
+            if (objectClass.is(Group.OBJECT_CLASS.getObjectClassValue())) {
+                switch (operationType) {
+                    case CREATE:
+                        return groupHandler.create(attributes);
+                    case UPDATE:
+                        return groupHandler.update(uid.getUidValue(), attributes);
+                    case ADD_VALUES:
+                        return groupHandler.addAttributeValues(uid.getUidValue(), attributes);
+                    case REMOVE_VALUES:
+                        return groupHandler.removeAttributeValues(uid.getUidValue(), attributes);
+                    case DELETE:
+                        groupHandler.delete(uid.getUidValue());
+                        return null;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported object class or operation: " + objectClass + " " + operationType);
+        } catch (RuntimeException e) {
+            throw timeoutOr(deadline, e);
+        } finally {
+            deadline.end();
+            tracer.end();
         }
-        throw new IllegalArgumentException("Unsupported object class: " + objectClass);
     }
 
     private enum OperationType {
-        CREATE, UPDATE, DELETE
+        CREATE, UPDATE, ADD_VALUES, REMOVE_VALUES, DELETE
     }
 
     // ==============================
     // Operaciones de Búsqueda
     // ==============================
     @Override
-    public FilterTranslator<String> createFilterTranslator(ObjectClass objectClass, OperationOptions options) {
+    public FilterTranslator<DSpaceQuery> createFilterTranslator(ObjectClass objectClass, OperationOptions options) {
+        FilterTranslator<? extends DSpaceQuery> translator;
         if (objectClass.is("eperson")) {
-            return new EPersonFilterTranslator();
+            translator = new EPersonFilterTranslator();
+        } else if (objectClass.is(Group.OBJECT_CLASS.getObjectClassValue())) {
+            translator = new GroupFilterTranslator();
         } else {
             throw new IllegalArgumentException("Unsupported object class: " + objectClass);
         }
+        // La traza empieza en executeQuery: aquí solo se mide la traducción, que se suma a la
+        // traza si luego se ejecuta una de sus consultas. Una traducción que falla o que nunca
+        // se ejecuta no deja nada ligado al hilo.
+        return filter -> {
+            pendingTranslation.remove();
+            long start = System.nanoTime();
+            List<DSpaceQuery> queries = List.copyOf(translator.translate(filter));
+            if (tracer.isEnabled()) {
+                pendingTranslation.set(new Translation(queries, System.nanoTime() - start));
+            }
+            return queries;
+        };
     }
 
     @Override
-    public void executeQuery(ObjectClass objectClass, String query, ResultsHandler handler, OperationOptions options) {
-        if (!objectClass.is("eperson")) {
+    public void executeQuery(ObjectClass objectClass, DSpaceQuery query, ResultsHandler handler, OperationOptions options) {
+        boolean isEPerson = objectClass.is("eperson");
+        if (!isEPerson && !objectClass.is(Group.OBJECT_CLASS.getObjectClassValue())) {
             throw new IllegalArgumentException("Unsupported object class: " + objectClass.getObjectClassValue());
         }
 
-        List<JSONObject> results = client.search("epersons", query == null ? "" : query);
-
-        for (JSONObject json : results) {
-            ConnectorObject connectorObject = new EPerson(json).toConnectorObject();
-            if (!handler.handle(connectorObject)) {
-                LOG.debug("Result handling interrupted.");
-                break;
+        tracer.begin("search", objectClass.getObjectClassValue());
+        recordTranslation(query);
+        // Al terminar, end() aborta las peticiones que sigan en curso, p. ej. si el handler se detuvo
+        OperationDeadline deadline = beginDeadline(options);
+        try {
+            if (isEPerson) {
+                ePersonHandler.search((EPersonQuery) query, handler, options);
+            } else {
+                groupHandler.search((GroupQuery) query, handler, options);
             }
+        } catch (RuntimeException e) {
+            throw timeoutOr(deadline, e);
+        } finally {
+            deadline.end();
+            tracer.end();
+        }
+    }
+
+    /**
+     * Suma a la traza el tiempo de la traducción que produjo la consulta, una sola vez.
+     */
+    private void recordTranslation(DSpaceQuery query) {
+        Translation translation = pendingTranslation.get();
+        pendingTranslation.remove();
+        if (translation != null && translation.produced(query)) {
+            tracer.record(TracePhase.FILTER_TRANSLATION, translation.nanos);
         }
     }
 
+    /**
+     * Inicia el tiempo límite de una operación: el de las opciones o, si no lo traen, el configurado.
+     */
+    private OperationDeadline beginDeadline(OperationOptions options) {
+        return OperationDeadline.begin(
+                OperationDeadline.timeoutMillis(options, this.configuration.getOperationTimeoutMillis()));
+    }
+
+    /**
+     * Los clientes envuelven los errores de red: si la operación agotó su tiempo, se informa como tal.
+     */
+    private static RuntimeException timeoutOr(OperationDeadline deadline, RuntimeException e) {
+        if (e instanceof OperationTimeoutException || !deadline.isExpired()) {
+            return e;
+        }
+        return deadline.timeout(e);
+    }
+
     // ==============================
     // Construcción del Schema
     // ==============================
     @Override
     public Schema schema() {
-        LOG.info("Construyendo esquema para DSpaceConnector...");
-        SchemaBuilder schemaBuilder = new SchemaBuilder(DSpaceConnector.class);
-
-        SchemaRegistry.registerSchemas(schemaBuilder);
-        return schemaBuilder.build();
+        // Esquema inmutable en caché; solo se reconstruye si cambia el registro de metadatos.
+        return schemaProvider.getSchema();
     }
 
     // ==============================
@@ -191,4 +565,26 @@ public class DSpaceConnector implements Connector, CreateOp, UpdateOp, DeleteOp,
         authManager.validateConnection();
         LOG.info("Prueba de conectividad exitosa.");
     }
+
+    /**
+     * Consultas producidas por una traducción de filtro y el tiempo que tomó.
+     */
+    private static final class Translation {
+        private final List<DSpaceQuery> queries;
+        private final long nanos;
+
+        private Translation(List<DSpaceQuery> queries, long nanos) {
+            this.queries = queries;
+            this.nanos = nanos;
+        }
+
+        private boolean produced(DSpaceQuery query) {
+            for (DSpaceQuery candidate : queries) {
+                if (candidate == query) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -1,8 +1,18 @@
 package com.upeu.connector.auth;
 
+import com.upeu.connector.metrics.ConnectorMetrics;
+import com.upeu.connector.metrics.MeteredConnectionManager;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.metrics.RequestSample;
+import com.upeu.connector.metrics.TracePhase;
+import com.upeu.connector.util.DaemonThreadFactory;
 import com.upeu.connector.util.EndpointRegistry;
 import org.apache.hc.client5.http.classic.methods.*;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.cookie.BasicCookieStore;
+import org.apache.hc.client5.http.cookie.Cookie;
+import org.apache.hc.client5.http.cookie.CookieStore;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
@@ -10,53 +20,178 @@ import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.util.Timeout;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * AuthManager centralizes authentication and HTTP request management for DSpace API.
  */
 public class AuthManager {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AuthManager.class);
+
     private static final String HEADER_CONTENT_TYPE = "Content-Type";
     private static final String HEADER_AUTHORIZATION = "Authorization";
     private static final String HEADER_BEARER_PREFIX = "Bearer ";
     private static final String HEADER_X_XSRF_TOKEN = "X-XSRF-TOKEN";
     private static final String APPLICATION_JSON = "application/json";
     private static final String APPLICATION_FORM_URLENCODED = "application/x-www-form-urlencoded";
+    private static final ContentType TEXT_URI_LIST = ContentType.create("text/uri-list", StandardCharsets.UTF_8);
+    // Clave de métricas para las peticiones que no indican su endpoint
+    private static final String UNKNOWN_ENDPOINT = "other";
+
+    // Hilos de las tareas de arranque, como el login en segundo plano
+    private static final DaemonThreadFactory STARTUP_THREADS = new DaemonThreadFactory("startup");
 
+    // Solo se comparte entre peticiones fuera del modo sin estado
     private final BasicCookieStore cookieStore;
-    private final HttpClientContext httpClientContext;
+    private final boolean statelessSession;
     private final CloseableHttpClient httpClient;
     private final String baseUrl;
+    private final EndpointRegistry endpoints;
     private final String username;
     private final String password;
+    private final ConnectorMetrics metrics;
+    private final RequestHedger hedger;
+    private final NodeBalancer balancer;
+    private final TokenCache tokenCache;
+    private final int maxConnections;
+    private final long readTimeoutMillis;
+
+    // Token y caducidad se publican juntos: las peticiones lo leen sin tomar el lock
+    private volatile Session session;
 
-    private String jwtToken;
-    private long tokenExpirationTime;
+    // ReentrantLock y no synchronized: la espera del token respeta el tiempo límite de la operación
+    private final ReentrantLock lock = new ReentrantLock();
 
-    private final Object lock = new Object();
+    // Conexiones simultáneas por defecto hacia DSpace
+    private static final int DEFAULT_MAX_CONNECTIONS = 4;
+    // Vida asumida de un token sin claim exp legible; la de DSpace por defecto
+    private static final long DEFAULT_TOKEN_LIFETIME_MILLIS = 30 * 60 * 1000;
 
     public AuthManager(String baseUrl, String username, String password) {
+        this(baseUrl, username, password, new Options());
+    }
+
+    /**
+     * @param options Connection pool, timeouts and optional collaborators; see {@link Options}.
+     */
+    public AuthManager(String baseUrl, String username, String password, Options options) {
+        validateNotNull(options, "Las opciones no pueden ser nulas.");
         validateNonEmpty(baseUrl, "La URL base no puede ser nula o vacía.");
         validateNonEmpty(username, "El nombre de usuario no puede ser nulo o vacío.");
         validateNonEmpty(password, "La contraseña no puede ser nula o vacía.");
 
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.endpoints = new EndpointRegistry(this.baseUrl);
+        this.metrics = options.metrics != null ? options.metrics : ConnectorMetrics.local();
+        this.hedger = options.hedger;
+        if (options.balancer != null && !options.balancer.primary().getBaseUrl().equals(this.baseUrl)) {
+            throw new IllegalArgumentException("El nodo primario debe ser la URL base.");
+        }
+        this.balancer = options.balancer;
+        this.tokenCache = options.tokenCache;
         this.username = username;
         this.password = password;
         this.cookieStore = new BasicCookieStore();
-        this.httpClientContext = HttpClientContext.create();
-        this.httpClientContext.setCookieStore(cookieStore);
+        this.statelessSession = options.statelessSession;
 
+        if (options.maxConnections <= 0) {
+            throw new IllegalArgumentException("El número máximo de conexiones debe ser mayor que 0.");
+        }
+        if (options.connectTimeoutMillis < 0 || options.readTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Los tiempos de espera no pueden ser negativos.");
+        }
+        this.maxConnections = options.maxConnections;
+        this.readTimeoutMillis = options.readTimeoutMillis;
+        MeteredConnectionManager connectionManager = new MeteredConnectionManager(this.metrics, options.maxConnections);
+        ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom();
+        if (options.connectTimeoutMillis > 0) {
+            connectionConfig.setConnectTimeout(Timeout.ofMilliseconds(options.connectTimeoutMillis));
+        }
+        if (options.readTimeoutMillis > 0) {
+            connectionConfig.setSocketTimeout(Timeout.ofMilliseconds(options.readTimeoutMillis));
+        }
+        connectionManager.setDefaultConnectionConfig(connectionConfig.build());
         this.httpClient = HttpClients.custom()
                 .setDefaultCookieStore(cookieStore)
+                .setConnectionManager(connectionManager)
+                .setRetryStrategy(new DeadlineRetryStrategy())
                 .build();
+        if (options.balancer != null) {
+            options.balancer.startHealthChecks(this::probe);
+        }
+    }
+
+    // ==============================
+    // Arranque
+    // ==============================
+
+    /**
+     * Opens pooled connections in the background, so the first operations find them already
+     * connected (and TLS-handshaken). Each connection is opened by an unauthenticated GET of the
+     * authentication status; the requests to a node run at the same time, so the pool has to
+     * open one connection for each and keeps them alive afterwards.
+     *
+     * @param connections Connections to open to each DSpace node; capped at the pool size.
+     * @return Completes with the number of connections opened.
+     */
+    public CompletableFuture<Integer> warmUp(int connections) {
+        if (connections < 0) {
+            throw new IllegalArgumentException("El número de conexiones de precalentamiento no puede ser negativo.");
+        }
+        int perNode = Math.min(connections, maxConnections);
+        List<String> nodeBaseUrls = new ArrayList<>();
+        if (balancer != null) {
+            balancer.getNodes().forEach(node -> nodeBaseUrls.add(node.getBaseUrl()));
+        } else {
+            nodeBaseUrls.add(baseUrl);
+        }
+        AtomicInteger opened = new AtomicInteger();
+        // Tantos hilos como conexiones por nodo: bastan para abrirlas a la vez y los nodos se recorren por turnos
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(perNode, 1), new DaemonThreadFactory("warmup"));
+        List<CompletableFuture<Void>> probes = new ArrayList<>();
+        for (String nodeBaseUrl : nodeBaseUrls) {
+            for (int i = 0; i < perNode; i++) {
+                probes.add(CompletableFuture.runAsync(() -> {
+                    if (probe(nodeBaseUrl)) {
+                        opened.incrementAndGet();
+                    }
+                }, executor));
+            }
+        }
+        executor.shutdown();
+        return CompletableFuture.allOf(probes.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            LOG.info("Precalentamiento completado: {} conexiones abiertas en {} nodos.", opened.get(), nodeBaseUrls.size());
+            return opened.get();
+        });
+    }
+
+    /**
+     * Runs a startup task, such as the background login, on its own daemon thread.
+     */
+    private static Executor startupThread() {
+        return task -> STARTUP_THREADS.newThread(task).start();
     }
 
     // ==============================
@@ -64,33 +199,96 @@ public class AuthManager {
     // ==============================
 
     public boolean isAuthenticated() {
-        return jwtToken != null && System.currentTimeMillis() < tokenExpirationTime;
+        Session current = session;
+        return current != null && current.isValid();
     }
 
     public void renewAuthentication() {
-        synchronized (lock) {
-            jwtToken = obtainJwtToken();
+        lockToken();
+        try {
+            Session current = session;
+            obtainJwtToken(current != null ? current.token : null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Renews the primary's token after DSpace rejected it. If another thread already replaced
+     * it, its new token is kept and no second login is made.
+     *
+     * @param rejected Token DSpace answered 401 to.
+     */
+    private void renewRejected(String rejected) {
+        lockToken();
+        try {
+            Session current = session;
+            if (current == null || current.token.equals(rejected) || !current.isValid()) {
+                obtainJwtToken(rejected);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     public String getJwtToken() {
-        synchronized (lock) {
-            if (!isAuthenticated()) {
-                jwtToken = obtainJwtToken();
+        // Camino habitual sin lock: el token vigente se comparte entre todos los hilos
+        Session current = session;
+        if (current != null && current.isValid()) {
+            return current.token;
+        }
+        lockToken();
+        try {
+            current = session;
+            if (current != null && current.isValid()) {
+                return current.token;
+            }
+            return obtainJwtToken(null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the token lock, waiting no longer than the deadline of the current operation.
+     */
+    private void lockToken() {
+        OperationDeadline deadline = OperationDeadline.current();
+        if (deadline == null) {
+            lock.lock();
+            return;
+        }
+        try {
+            if (!lock.tryLock(deadline.remainingMillis(), TimeUnit.MILLISECONDS)) {
+                throw deadline.timeout(null);
             }
-            return jwtToken;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Espera del token interrumpida.", e);
         }
     }
 
+    /**
+     * Logs in on a background thread if there is no valid token yet. Requests that need the
+     * token meanwhile wait for this login instead of starting another one.
+     *
+     * @return Completes when the login finishes; completes exceptionally if it fails.
+     */
+    public CompletableFuture<Void> authenticateInBackground() {
+        return CompletableFuture.runAsync(this::getJwtToken, startupThread());
+    }
+
     public void addAuthenticationHeaders(HttpUriRequestBase request) {
-        request.addHeader(HEADER_AUTHORIZATION, HEADER_BEARER_PREFIX + getJwtToken());
-        request.addHeader(HEADER_CONTENT_TYPE, APPLICATION_JSON);
+        // setHeader: al reintentar tras un 401 se sustituye el token rechazado
+        request.setHeader(HEADER_AUTHORIZATION, HEADER_BEARER_PREFIX + tokenFor(request));
+        if (!request.containsHeader(HEADER_CONTENT_TYPE)) {
+            request.addHeader(HEADER_CONTENT_TYPE, APPLICATION_JSON);
+        }
     }
 
     public void validateConnection() {
-        String endpoint = EndpointRegistry.getEndpoint("authStatus");
-        HttpGet request = new HttpGet(buildEndpoint(endpoint));
-        try (var response = httpClient.execute(request, httpClientContext)) {
+        HttpGet request = new HttpGet(endpoints.collection("authStatus", null));
+        try (var response = httpClient.execute(request, newRequestContext())) {
             if (response.getCode() != 200) {
                 throw new IllegalStateException("Failed to validate connection. Status code: " + response.getCode());
             }
@@ -99,13 +297,51 @@ public class AuthManager {
         }
     }
 
-    private String obtainCsrfToken() {
-        String endpoint = EndpointRegistry.getEndpoint("authStatus");
-        HttpGet request = new HttpGet(buildEndpoint(endpoint));
-        try (var response = httpClient.execute(request, httpClientContext)) {
+    /**
+     * Token for a request: the primary's, unless the request goes to another node that does not
+     * share the JWT secret, which then needs its own login.
+     */
+    private String tokenFor(HttpUriRequestBase request) {
+        if (balancer != null && !balancer.isSharedToken()) {
+            try {
+                NodeBalancer.Node node = balancer.nodeOf(request.getUri());
+                if (!node.isPrimary()) {
+                    return node.token(this::login, AuthManager::expiryOf);
+                }
+            } catch (URISyntaxException e) {
+                // Se usa el token del primario
+            }
+        }
+        return getJwtToken();
+    }
+
+    /**
+     * Active health check: a node is healthy if it answers its authentication status.
+     */
+    private boolean probe(String nodeBaseUrl) {
+        HttpGet request = new HttpGet(URI.create(nodeBaseUrl + endpoints.getEndpoint("authStatus")));
+        try (var response = httpClient.execute(request, newRequestContext())) {
+            EntityUtils.consume(response.getEntity());
+            return response.getCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private String obtainCsrfToken(String nodeBaseUrl, HttpClientContext loginContext) {
+        URI statusUrl = URI.create(nodeBaseUrl + endpoints.getEndpoint("authStatus"));
+        HttpGet request = new HttpGet(statusUrl);
+        applyDeadline(request, OperationDeadline.current());
+        RequestSample sample = metrics.begin("authStatus", "GET");
+        try (var response = httpClient.execute(request, loginContext)) {
+            sample.status(response.getCode());
             if (response.getCode() == 200) {
-                return cookieStore.getCookies().stream()
+                // Con varios nodos cada uno deja su propia cookie: se prefiere la de su host
+                String host = statusUrl.getHost();
+                return loginContext.getCookieStore().getCookies().stream()
                         .filter(cookie -> "DSPACE-XSRF-COOKIE".equals(cookie.getName()))
+                        .sorted((a, b) -> Boolean.compare(!host.equalsIgnoreCase(a.getDomain()),
+                                !host.equalsIgnoreCase(b.getDomain())))
                         .map(cookie -> cookie.getValue())
                         .findFirst()
                         .orElseThrow(() -> new RuntimeException("CSRF token not found in cookies."));
@@ -114,30 +350,65 @@ public class AuthManager {
             }
         } catch (IOException e) {
             throw new RuntimeException("Error obtaining CSRF token", e);
+        } finally {
+            sample.end();
         }
     }
 
-    private String obtainJwtToken() {
-        String endpoint = EndpointRegistry.getEndpoint("login");
-        HttpPost request = new HttpPost(buildEndpoint(endpoint));
+    /**
+     * Logs in on the primary, or takes a still valid token from the token cache.
+     *
+     * @param rejected Current token when it is being renewed, so the cache does not return it again.
+     */
+    private String obtainJwtToken(String rejected) {
+        if (tokenCache != null) {
+            TokenCache.Entry entry = tokenCache.obtain(rejected, () -> {
+                String token = login(baseUrl);
+                return new TokenCache.Entry(token, expiryOf(token));
+            });
+            session = new Session(entry.getToken(), entry.getExpiresAt());
+        } else {
+            String token = login(baseUrl);
+            session = new Session(token, expiryOf(token));
+        }
+        return session.token;
+    }
+
+    /**
+     * Expiry of a token as DSpace issued it (its {@code exp} claim).
+     */
+    private static long expiryOf(String token) {
+        return JwtClaims.expiresAt(token, System.currentTimeMillis() + DEFAULT_TOKEN_LIFETIME_MILLIS);
+    }
+
+    /**
+     * Logs in on one node and returns its JWT token.
+     */
+    private String login(String nodeBaseUrl) {
+        // La cookie CSRF solo hace falta entre la consulta de estado y el login
+        HttpClientContext loginContext = newLoginContext();
+        HttpPost request = new HttpPost(URI.create(nodeBaseUrl + endpoints.getEndpoint("login")));
         request.addHeader(HEADER_CONTENT_TYPE, APPLICATION_FORM_URLENCODED);
-        request.addHeader(HEADER_X_XSRF_TOKEN, obtainCsrfToken());
+        request.addHeader(HEADER_X_XSRF_TOKEN, obtainCsrfToken(nodeBaseUrl, loginContext));
 
         List<BasicNameValuePair> params = new ArrayList<>();
         params.add(new BasicNameValuePair("user", username));
         params.add(new BasicNameValuePair("password", password));
         request.setEntity(new UrlEncodedFormEntity(params, StandardCharsets.UTF_8));
 
-        try (var response = httpClient.execute(request, httpClientContext)) {
+        applyDeadline(request, OperationDeadline.current());
+        RequestSample sample = metrics.begin("login", "POST");
+        try (var response = httpClient.execute(request, loginContext)) {
+            sample.status(response.getCode());
             if (response.getCode() == 200) {
-                jwtToken = extractJwtTokenFromResponse(response);
-                tokenExpirationTime = System.currentTimeMillis() + 3600 * 1000; // 1 hour
-                return jwtToken;
+                return extractJwtTokenFromResponse(response);
             } else {
                 throw new RuntimeException("Error obtaining JWT token. Status code: " + response.getCode());
             }
         } catch (IOException e) {
             throw new RuntimeException("Error obtaining JWT token", e);
+        } finally {
+            sample.end();
         }
     }
 
@@ -149,9 +420,11 @@ public class AuthManager {
         throw new RuntimeException("Authorization header is invalid or missing.");
     }
 
-    public String buildEndpoint(String endpointKey) {
-        validateNonEmpty(endpointKey, "El endpoint no puede ser nulo ni vacío.");
-        return baseUrl + endpointKey;
+    /**
+     * Endpoints of the configured server; request URLs are expanded from its templates.
+     */
+    public EndpointRegistry getEndpoints() {
+        return endpoints;
     }
 
     // ==============================
@@ -159,57 +432,318 @@ public class AuthManager {
     // ==============================
 
     public String get(String url) throws Exception {
-        validateNonEmpty(url, "La URL no puede ser nula ni vacía.");
-        HttpGet request = new HttpGet(url);
-        return executeWithAuth(request);
+        return get(UNKNOWN_ENDPOINT, toUri(url));
     }
 
     public String post(String url, String payload) throws Exception {
-        validateNonEmpty(url, "La URL no puede ser nula ni vacía.");
+        return post(UNKNOWN_ENDPOINT, toUri(url), payload);
+    }
+
+    public String put(String url, String payload) throws Exception {
+        return put(UNKNOWN_ENDPOINT, toUri(url), payload);
+    }
+
+    public void delete(String url) throws Exception {
+        delete(UNKNOWN_ENDPOINT, toUri(url));
+    }
+
+    /**
+     * GET request; metrics are recorded under the given endpoint key.
+     * With hedging enabled, a slow GET is sent a second time and the first response wins.
+     */
+    public String get(String endpointKey, URI url) throws Exception {
+        validateNotNull(url, "La URL no puede ser nula.");
+        if (hedger != null) {
+            // Cada intento elige su nodo: la réplica suele ir a otro distinto del lento
+            return hedger.execute(endpointKey, () -> new HttpGet(readUrl(url)),
+                    request -> executeWithAuth(endpointKey, request, 0));
+        }
+        HttpGet request = new HttpGet(readUrl(url));
+        return executeWithAuth(endpointKey, request, 0);
+    }
+
+    /**
+     * POST request; metrics are recorded under the given endpoint key.
+     */
+    public String post(String endpointKey, URI url, String payload) throws Exception {
+        validateNotNull(url, "La URL no puede ser nula.");
         validateNonEmpty(payload, "El cuerpo de la solicitud no puede ser nulo ni vacío.");
         HttpPost request = new HttpPost(url);
-        request.setEntity(new StringEntity(payload, ContentType.APPLICATION_JSON));
-        return executeWithAuth(request);
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        request.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        return executeWithAuth(endpointKey, request, body.length);
     }
 
-    public String put(String url, String payload) throws Exception {
-        validateNonEmpty(url, "La URL no puede ser nula ni vacía.");
+    /**
+     * PUT request; metrics are recorded under the given endpoint key.
+     */
+    public String put(String endpointKey, URI url, String payload) throws Exception {
+        validateNotNull(url, "La URL no puede ser nula.");
         validateNonEmpty(payload, "El cuerpo de la solicitud no puede ser nulo ni vacío.");
         HttpPut request = new HttpPut(url);
-        request.setEntity(new StringEntity(payload, ContentType.APPLICATION_JSON));
-        return executeWithAuth(request);
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        request.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        return executeWithAuth(endpointKey, request, body.length);
     }
 
-    public void delete(String url) throws Exception {
-        validateNonEmpty(url, "La URL no puede ser nula ni vacía.");
+    /**
+     * PATCH request with a JSON Patch body; metrics are recorded under the given endpoint key.
+     */
+    public String patch(String endpointKey, URI url, String payload) throws Exception {
+        validateNotNull(url, "La URL no puede ser nula.");
+        validateNonEmpty(payload, "El cuerpo de la solicitud no puede ser nulo ni vacío.");
+        HttpPatch request = new HttpPatch(url);
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        request.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        return executeWithAuth(endpointKey, request, body.length);
+    }
+
+    /**
+     * POST request with a {@code text/uri-list} body, used by DSpace to link many resources
+     * (e.g. group members) in a single request.
+     *
+     * @param endpointKey Key used for the metrics.
+     * @param url         Link collection URL.
+     * @param uris        Absolute URIs of the resources to link, one per line.
+     */
+    public String postUriList(String endpointKey, URI url, List<String> uris) throws Exception {
+        validateNotNull(url, "La URL no puede ser nula.");
+        if (uris == null || uris.isEmpty()) {
+            throw new IllegalArgumentException("La lista de URIs no puede ser nula ni vacía.");
+        }
+        HttpPost request = new HttpPost(url);
+        byte[] body = String.join("\n", uris).getBytes(StandardCharsets.UTF_8);
+        request.setHeader(HEADER_CONTENT_TYPE, TEXT_URI_LIST.toString());
+        request.setEntity(new ByteArrayEntity(body, TEXT_URI_LIST));
+        return executeWithAuth(endpointKey, request, body.length);
+    }
+
+    /**
+     * DELETE request; metrics are recorded under the given endpoint key.
+     */
+    public void delete(String endpointKey, URI url) throws Exception {
+        validateNotNull(url, "La URL no puede ser nula.");
         HttpDelete request = new HttpDelete(url);
-        executeWithAuthWithoutResponse(request);
+        executeWithAuth(endpointKey, request, 0);
+    }
+
+    public ConnectorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Balancer of the DSpace nodes, or null if there is a single node.
+     */
+    public NodeBalancer getBalancer() {
+        return balancer;
+    }
+
+    /**
+     * Hedger of the GET requests, or null if hedging is disabled.
+     */
+    public RequestHedger getHedger() {
+        return hedger;
     }
 
-    private String executeWithAuth(HttpUriRequestBase request) throws Exception {
-        addAuthenticationHeaders(request);
-        try (var response = httpClient.execute(request, httpClientContext)) {
-            validateResponse(response);
-            return parseResponse(response.getEntity());
+    /**
+     * Stops the hedging threads and closes the HTTP client and its connections.
+     */
+    public void close() {
+        if (hedger != null) {
+            hedger.close();
         }
+        if (balancer != null) {
+            balancer.close();
+        }
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            // Se está liberando el conector: el error no afecta a nada más
+        }
+    }
+
+    /**
+     * URL of a read on the node chosen by the balancer.
+     */
+    private URI readUrl(URI url) {
+        return balancer != null ? balancer.forRead(url) : url;
     }
 
-    private void executeWithAuthWithoutResponse(HttpUriRequestBase request) throws Exception {
-        addAuthenticationHeaders(request);
-        try (var response = httpClient.execute(request, httpClientContext)) {
-            validateResponse(response);
+    /**
+     * Sends an authenticated request. If DSpace answers 401 the token was revoked before its
+     * expiry (DSpace restarted, its secret rotated or the token came from an old cache): the
+     * token is renewed once and the request sent again.
+     */
+    private String executeWithAuth(String endpointKey, HttpUriRequestBase request, long bytesOut) throws Exception {
+        try {
+            return executeOnBalancedNode(endpointKey, request, bytesOut);
+        } catch (HttpStatusException e) {
+            if (e.getStatusCode() != 401 || request.isCancelled()) {
+                throw e;
+            }
+            String rejected = sentToken(request);
+            LOG.info("DSpace rechazó el token en {} {}: se renueva y se reintenta.", request.getMethod(), endpointKey);
+            rejectToken(request, rejected);
+            request.reset();
+            return executeOnBalancedNode(endpointKey, request, bytesOut);
         }
     }
 
+    private static String sentToken(HttpUriRequestBase request) {
+        var header = request.getFirstHeader(HEADER_AUTHORIZATION);
+        return header != null && header.getValue().startsWith(HEADER_BEARER_PREFIX)
+                ? header.getValue().substring(HEADER_BEARER_PREFIX.length()) : null;
+    }
+
+    /**
+     * Discards a rejected token: the node's own one if the request went to a node with its own
+     * login, otherwise the primary's.
+     */
+    private void rejectToken(HttpUriRequestBase request, String rejected) throws URISyntaxException {
+        if (balancer != null && !balancer.isSharedToken()) {
+            NodeBalancer.Node node = balancer.nodeOf(request.getUri());
+            if (!node.isPrimary()) {
+                node.rejectToken(rejected);
+                return;
+            }
+        }
+        renewRejected(rejected);
+    }
+
+    private String executeOnBalancedNode(String endpointKey, HttpUriRequestBase request, long bytesOut)
+            throws Exception {
+        NodeBalancer.Node node = balancer != null ? balancer.nodeOf(request.getUri()) : null;
+        if (node == null) {
+            return executeOnNode(endpointKey, request, bytesOut);
+        }
+        node.begin();
+        try {
+            String body = executeOnNode(endpointKey, request, bytesOut);
+            node.succeeded();
+            return body;
+        } catch (IOException e) {
+            // Los 4xx son respuestas válidas del nodo; solo cuentan los 5xx y los errores de red.
+            // Una réplica perdedora cancelada no dice nada de la salud del nodo.
+            if (!request.isCancelled()) {
+                HttpStatusException status = HttpStatusException.find(e);
+                if (status == null) {
+                    node.failed(e.getClass().getSimpleName());
+                } else if (status.getStatusCode() >= 500) {
+                    node.failed("HTTP " + status.getStatusCode());
+                } else {
+                    node.succeeded();
+                }
+            }
+            throw e;
+        } finally {
+            node.end();
+        }
+    }
+
+    private String executeOnNode(String endpointKey, HttpUriRequestBase request, long bytesOut) throws Exception {
+        OperationDeadline deadline = OperationDeadline.current();
+        if (deadline != null) {
+            deadline.check();
+            // Registrada desde el principio: si vence, se aborta la espera de conexión o la lectura
+            deadline.register(request);
+        }
+        OperationTracer tracer = metrics.getTracer();
+        RequestSample sample = metrics.begin(endpointKey, request.getMethod());
+        try {
+            long tokenStart = System.nanoTime();
+            addAuthenticationHeaders(request);
+            long tokenNanos = System.nanoTime() - tokenStart;
+            sample.tokenWait(tokenNanos);
+            tracer.record(TracePhase.TOKEN, tokenNanos);
+            sample.bytesOut(bytesOut);
+            applyDeadline(request, deadline);
+
+            // Contexto propio por petición: HttpClientContext no es seguro entre hilos.
+            long executeStart = System.nanoTime();
+            try (var response = httpClient.execute(request, newRequestContext())) {
+                // execute() vuelve al recibir las cabeceras: el resto de la espera es TTFB
+                long leaseNanos = sample.getLeaseWaitNanos();
+                tracer.record(TracePhase.CONNECTION_LEASE, leaseNanos);
+                tracer.record(TracePhase.TTFB, System.nanoTime() - executeStart - leaseNanos);
+
+                sample.status(response.getCode());
+                validateResponse(response);
+                long readStart = System.nanoTime();
+                byte[] body = readBody(response.getEntity());
+                tracer.record(TracePhase.BODY_READ, System.nanoTime() - readStart);
+                sample.bytesIn(body.length);
+                return new String(body, StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            if (deadline != null && deadline.isExpired()) {
+                throw deadline.timeout(e);
+            }
+            throw e;
+        } finally {
+            if (deadline != null) {
+                deadline.unregister(request);
+            }
+            sample.end();
+        }
+    }
+
+    /**
+     * Bounds the pool lease and the wait for data of a request by the time left to the
+     * operation. Without a deadline the client defaults (connect and read timeouts) apply.
+     */
+    private void applyDeadline(HttpUriRequestBase request, OperationDeadline deadline) {
+        if (deadline == null || deadline.remainingMillis() == Long.MAX_VALUE) {
+            return;
+        }
+        long remaining = Math.max(1, deadline.remainingMillis());
+        long responseTimeout = readTimeoutMillis > 0 ? Math.min(readTimeoutMillis, remaining) : remaining;
+        request.setConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(remaining))
+                .setResponseTimeout(Timeout.ofMilliseconds(responseTimeout))
+                .build());
+    }
+
+    /**
+     * Context of one request; HttpClientContext is not thread-safe, so it is never shared. In
+     * stateless mode the request neither sends nor keeps cookies.
+     */
+    private HttpClientContext newRequestContext() {
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(statelessSession ? NoCookieStore.INSTANCE : cookieStore);
+        return context;
+    }
+
+    /**
+     * Context of one login, shared only by its CSRF request and its login request.
+     */
+    private HttpClientContext newLoginContext() {
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(statelessSession ? new BasicCookieStore() : cookieStore);
+        return context;
+    }
+
     private void validateResponse(CloseableHttpResponse response) throws IOException {
         int statusCode = response.getCode();
         if (statusCode < 200 || statusCode >= 300) {
-            throw new IOException("HTTP request failed with status code: " + statusCode);
+            throw new HttpStatusException(statusCode);
         }
     }
 
-    private String parseResponse(HttpEntity entity) throws IOException {
-        return entity != null ? new String(entity.getContent().readAllBytes()) : "";
+    private byte[] readBody(HttpEntity entity) throws IOException {
+        return entity != null ? EntityUtils.toByteArray(entity) : new byte[0];
+    }
+
+    private static URI toUri(String url) {
+        if (url == null || url.trim().isEmpty()) {
+            throw new IllegalArgumentException("La URL no puede ser nula ni vacía.");
+        }
+        return URI.create(url);
+    }
+
+    private void validateNotNull(Object value, String errorMessage) {
+        if (value == null) {
+            throw new IllegalArgumentException(errorMessage);
+        }
     }
 
     private void validateNonEmpty(String value, String errorMessage) {
@@ -217,4 +751,133 @@ public class AuthManager {
             throw new IllegalArgumentException(errorMessage);
         }
     }
+
+    /**
+     * Token of the primary and the time it expires at, published together.
+     */
+    private static final class Session {
+        private final String token;
+        private final long expiresAt;
+
+        private Session(String token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isValid() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+    }
+
+    /**
+     * Cookie store that keeps nothing, for the requests of the stateless mode.
+     */
+    private static final class NoCookieStore implements CookieStore {
+        private static final NoCookieStore INSTANCE = new NoCookieStore();
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            // Las respuestas pueden traer cookies: se descartan
+        }
+
+        @Override
+        public List<Cookie> getCookies() {
+            return List.of();
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean clearExpired(Date date) {
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            // No hay nada que borrar
+        }
+    }
+
+    /**
+     * Optional settings of an {@link AuthManager}. Every setter returns this object, so the
+     * options read as a chain; whatever is not set keeps the default documented on the setter.
+     */
+    public static final class Options {
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+        private ConnectorMetrics metrics;
+        private RequestHedger hedger;
+        private NodeBalancer balancer;
+        private TokenCache tokenCache;
+        private int connectTimeoutMillis;
+        private int readTimeoutMillis;
+        private boolean statelessSession;
+
+        /**
+         * @param maxConnections Simultaneous connections to each DSpace node; 4 by default.
+         */
+        public Options maxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * @param metrics Metrics of the connector instance; null (the default) for local metrics only.
+         */
+        public Options metrics(ConnectorMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param hedger Hedges the keyed GET requests; null (the default) to send each GET once.
+         */
+        public Options hedger(RequestHedger hedger) {
+            this.hedger = hedger;
+            return this;
+        }
+
+        /**
+         * @param balancer Spreads GET requests over several DSpace nodes; null (the default) to send
+         *                 everything to the base URL. Its primary must be the base URL.
+         */
+        public Options balancer(NodeBalancer balancer) {
+            this.balancer = balancer;
+            return this;
+        }
+
+        /**
+         * @param tokenCache Shares the primary's token with other instances and later restarts; null
+         *                   (the default) to keep it in memory only.
+         */
+        public Options tokenCache(TokenCache tokenCache) {
+            this.tokenCache = tokenCache;
+            return this;
+        }
+
+        /**
+         * @param connectTimeoutMillis Timeout to open a connection; 0 (the default) for the HTTP client default.
+         */
+        public Options connectTimeoutMillis(int connectTimeoutMillis) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * @param readTimeoutMillis Maximum wait for data on an open connection; 0 (the default) for
+         *                          the HTTP client default.
+         */
+        public Options readTimeoutMillis(int readTimeoutMillis) {
+            this.readTimeoutMillis = readTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * @param statelessSession true to authenticate requests with the Authorization header only: each
+         *                         login keeps its CSRF cookie to itself and no cookie is stored or sent
+         *                         by the other requests, so they share no mutable state. false by default.
+         */
+        public Options statelessSession(boolean statelessSession) {
+            this.statelessSession = statelessSession;
+            return this;
+        }
+    }
 }
@@ -0,0 +1,35 @@
+package com.upeu.connector.auth;
+
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * The HTTP client's default retry policy, limited by the deadline of the current operation:
+ * a request is not retried once the operation is done, nor when the wait before the retry
+ * (e.g. a {@code Retry-After} of a 503) would outlast it.
+ */
+class DeadlineRetryStrategy extends DefaultHttpRequestRetryStrategy {
+
+    @Override
+    public boolean retryRequest(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+        OperationDeadline deadline = OperationDeadline.current();
+        if (deadline != null && deadline.isDone()) {
+            return false;
+        }
+        return super.retryRequest(request, exception, execCount, context);
+    }
+
+    @Override
+    public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+        if (!super.retryRequest(response, execCount, context)) {
+            return false;
+        }
+        OperationDeadline deadline = OperationDeadline.current();
+        return deadline == null
+                || getRetryInterval(response, execCount, context).toMilliseconds() < deadline.remainingMillis();
+    }
+}
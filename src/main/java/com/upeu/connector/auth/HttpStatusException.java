@@ -0,0 +1,50 @@
+package com.upeu.connector.auth;
+
+import java.io.IOException;
+
+/**
+ * Raised when DSpace answers with a non-2xx status code.
+ * Keeps the status so callers can tell "not found" or "conflict" apart from real failures.
+ */
+public class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public HttpStatusException(int statusCode) {
+        super("HTTP request failed with status code: " + statusCode);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isNotFound() {
+        return statusCode == 404;
+    }
+
+    /**
+     * Whether DSpace rejected the request because it clashes with existing data
+     * (409, or 422 as DSpace answers for a duplicate email).
+     */
+    public boolean isConflict() {
+        return statusCode == 409 || statusCode == 422;
+    }
+
+    /**
+     * Finds an HttpStatusException in the cause chain of an exception.
+     *
+     * @param throwable The exception to inspect.
+     * @return The HttpStatusException, or null if there is none.
+     */
+    public static HttpStatusException find(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof HttpStatusException) {
+                return (HttpStatusException) t;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.upeu.connector.auth;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Reads the claims of a DSpace JWT that the connector needs. The signature is not checked:
+ * the token comes straight from the login response and only DSpace verifies it.
+ */
+final class JwtClaims {
+
+    private JwtClaims() {
+    }
+
+    /**
+     * Expiry of a token from its {@code exp} claim.
+     *
+     * @param token          The JWT.
+     * @param fallbackMillis Value returned when the token has no readable {@code exp} claim.
+     * @return Epoch milliseconds at which the token expires.
+     */
+    static long expiresAt(String token, long fallbackMillis) {
+        String[] parts = token != null ? token.split("\\.") : new String[0];
+        if (parts.length < 2) {
+            return fallbackMillis;
+        }
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+            long exp = new JSONObject(payload).optLong("exp", 0);
+            return exp > 0 ? exp * 1000 : fallbackMillis;
+        } catch (IllegalArgumentException | JSONException e) {
+            // Token opaco o mal formado: se asume la vida por defecto
+            return fallbackMillis;
+        }
+    }
+}
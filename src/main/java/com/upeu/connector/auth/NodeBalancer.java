@@ -0,0 +1,276 @@
+package com.upeu.connector.auth;
+
+import com.upeu.connector.util.DaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Spreads read requests over several DSpace REST nodes.
+ * <p>
+ * The first node is the primary and receives every write. Reads go to the healthy node with
+ * the fewest outstanding requests; ties are broken at random. Request URLs are always built
+ * against the primary base URL and rewritten to the chosen node.
+ * <p>
+ * Health is tracked in two ways. Passive checks count consecutive I/O errors and 5xx answers;
+ * after {@value #FAILURE_THRESHOLD} of them the node is left out of reads for a cool-down that
+ * doubles while it keeps failing. Active checks, when enabled, probe every node periodically
+ * and bring a node back as soon as its probe succeeds. When no node is healthy, reads fall
+ * back to the primary.
+ */
+public class NodeBalancer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NodeBalancer.class);
+
+    // Fallos consecutivos que retiran un nodo de las lecturas
+    static final int FAILURE_THRESHOLD = 3;
+    private static final long MIN_COOL_DOWN_MILLIS = 5_000;
+    private static final long MAX_COOL_DOWN_MILLIS = 120_000;
+
+    private final List<Node> nodes;
+    private final boolean sharedToken;
+    private final long healthCheckIntervalMillis;
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param primaryBaseUrl            Base URL of the primary node (writes and fallback reads).
+     * @param replicaBaseUrls           Base URLs of the other nodes; may be empty.
+     * @param sharedToken               true if the nodes share the JWT secret, so the primary's token is valid on all of them.
+     * @param healthCheckIntervalMillis Interval between active health checks; 0 disables them.
+     */
+    public NodeBalancer(String primaryBaseUrl, List<String> replicaBaseUrls, boolean sharedToken,
+                        long healthCheckIntervalMillis) {
+        if (healthCheckIntervalMillis < 0) {
+            throw new IllegalArgumentException("El intervalo de comprobación de salud no puede ser negativo.");
+        }
+        List<Node> all = new ArrayList<>();
+        all.add(new Node(normalize(primaryBaseUrl), true));
+        for (String replica : replicaBaseUrls) {
+            String base = normalize(replica);
+            if (all.stream().noneMatch(node -> node.baseUrl.equals(base))) {
+                all.add(new Node(base, false));
+            }
+        }
+        this.nodes = Collections.unmodifiableList(all);
+        this.sharedToken = sharedToken;
+        this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+    }
+
+    public Node primary() {
+        return nodes.get(0);
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public boolean isSharedToken() {
+        return sharedToken;
+    }
+
+    /**
+     * Picks the node for a read and rewrites the URL to it.
+     *
+     * @param url URL built against the primary base URL.
+     * @return The same request on the chosen node.
+     */
+    public URI forRead(URI url) {
+        Node chosen = null;
+        int ties = 0;
+        long now = System.currentTimeMillis();
+        for (Node node : nodes) {
+            if (!node.isHealthy(now)) {
+                continue;
+            }
+            int outstanding = node.outstanding.get();
+            if (chosen == null || outstanding < chosen.outstanding.get()) {
+                chosen = node;
+                ties = 1;
+            } else if (outstanding == chosen.outstanding.get() && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                chosen = node;
+            }
+        }
+        return (chosen != null ? chosen : primary()).resolve(url, primary().baseUrl);
+    }
+
+    /**
+     * Node a request URL points to, or the primary if it matches none.
+     */
+    public Node nodeOf(URI url) {
+        String text = url.toString();
+        for (int i = nodes.size() - 1; i > 0; i--) {
+            if (text.startsWith(nodes.get(i).baseUrl)) {
+                return nodes.get(i);
+            }
+        }
+        return primary();
+    }
+
+    /**
+     * Starts the periodic active health checks.
+     *
+     * @param probe Returns true if the node with the given base URL answers correctly.
+     */
+    public synchronized void startHealthChecks(Predicate<String> probe) {
+        if (healthCheckIntervalMillis == 0 || nodes.size() < 2 || healthChecker != null) {
+            return;
+        }
+        healthChecker = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("health"));
+        healthChecker.scheduleWithFixedDelay(() -> {
+            for (Node node : nodes) {
+                boolean healthy;
+                try {
+                    healthy = probe.test(node.baseUrl);
+                } catch (RuntimeException e) {
+                    healthy = false;
+                }
+                if (healthy) {
+                    node.succeeded();
+                } else {
+                    node.markDown("comprobación activa fallida");
+                }
+            }
+        }, healthCheckIntervalMillis, healthCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the active health checks.
+     */
+    public synchronized void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+            healthChecker = null;
+        }
+    }
+
+    private static String normalize(String baseUrl) {
+        if (baseUrl == null || baseUrl.trim().isEmpty()) {
+            throw new IllegalArgumentException("La URL base de un nodo no puede ser nula o vacía.");
+        }
+        String trimmed = baseUrl.trim();
+        return trimmed.endsWith("/") ? trimmed : trimmed + "/";
+    }
+
+    /**
+     * One DSpace REST node, with its outstanding requests, health and (without a shared
+     * secret) its own session token.
+     */
+    public static final class Node {
+        private final String baseUrl;
+        private final boolean primary;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long downUntil;
+        private volatile long coolDownMillis = MIN_COOL_DOWN_MILLIS;
+
+        // Token propio del nodo cuando no comparte el secreto JWT con el primario
+        private final Object tokenLock = new Object();
+        private String token;
+        private long tokenExpiresAt;
+
+        private Node(String baseUrl, boolean primary) {
+            this.baseUrl = baseUrl;
+            this.primary = primary;
+        }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public boolean isPrimary() {
+            return primary;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public boolean isHealthy() {
+            return isHealthy(System.currentTimeMillis());
+        }
+
+        private boolean isHealthy(long now) {
+            return now >= downUntil;
+        }
+
+        void begin() {
+            outstanding.incrementAndGet();
+        }
+
+        void end() {
+            outstanding.decrementAndGet();
+        }
+
+        void succeeded() {
+            consecutiveFailures.set(0);
+            if (downUntil != 0) {
+                downUntil = 0;
+                coolDownMillis = MIN_COOL_DOWN_MILLIS;
+                LOG.info("Nodo {} disponible de nuevo.", baseUrl);
+            }
+        }
+
+        void failed(String reason) {
+            if (consecutiveFailures.incrementAndGet() >= FAILURE_THRESHOLD) {
+                markDown(reason);
+            }
+        }
+
+        private void markDown(String reason) {
+            long now = System.currentTimeMillis();
+            if (isHealthy(now)) {
+                LOG.warn("Nodo {} retirado de las lecturas durante {} ms: {}.", baseUrl, coolDownMillis, reason);
+                downUntil = now + coolDownMillis;
+                coolDownMillis = Math.min(coolDownMillis * 2, MAX_COOL_DOWN_MILLIS);
+            }
+            consecutiveFailures.set(0);
+        }
+
+        URI resolve(URI url, String primaryBaseUrl) {
+            String text = url.toString();
+            if (primary || !text.startsWith(primaryBaseUrl)) {
+                return url;
+            }
+            return URI.create(baseUrl + text.substring(primaryBaseUrl.length()));
+        }
+
+        /**
+         * Returns the node's own token, logging in with the given function when it is missing or expired.
+         *
+         * @param login  Logs in on a node given its base URL and returns the token.
+         * @param expiry Expiry of a token, in epoch milliseconds.
+         */
+        String token(Function<String, String> login, ToLongFunction<String> expiry) {
+            synchronized (tokenLock) {
+                if (token == null || System.currentTimeMillis() >= tokenExpiresAt) {
+                    token = login.apply(baseUrl);
+                    tokenExpiresAt = expiry.applyAsLong(token);
+                }
+                return token;
+            }
+        }
+
+        /**
+         * Drops the node's token if it is the one the node rejected, so the next request logs in again.
+         */
+        void rejectToken(String rejected) {
+            synchronized (tokenLock) {
+                if (token != null && token.equals(rejected)) {
+                    token = null;
+                }
+            }
+        }
+    }
+}
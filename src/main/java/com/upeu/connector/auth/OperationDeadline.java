@@ -0,0 +1,227 @@
+package com.upeu.connector.auth;
+
+import com.upeu.connector.util.DaemonThreadFactory;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.exceptions.OperationTimeoutException;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deadline and cancellation of one connector operation.
+ * <p>
+ * The deadline is bound to the thread that runs the operation and copied to the worker
+ * threads it starts (see {@link #attach}). Every HTTP request sent on
+ * its behalf is registered while in flight. When the deadline passes, or the operation ends
+ * early because the results handler stopped the search, the registered requests are aborted:
+ * this covers the wait for a pooled connection, the wait for the response and the body read.
+ * The token lock and new requests check the deadline before waiting.
+ */
+public final class OperationDeadline {
+
+    /**
+     * Operation option with the timeout of one operation in milliseconds; overrides the configured one.
+     */
+    public static final String OPTION_TIMEOUT_MILLIS = "timeoutMillis";
+
+    private static final ThreadLocal<OperationDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long timeoutMillis;
+    private final long expiresAtNanos;
+    private final Set<Cancellable> inFlight = ConcurrentHashMap.newKeySet();
+    private final OperationDeadline previous;
+    private final ScheduledFuture<?> expiry;
+    private volatile boolean expired;
+    private volatile boolean cancelled;
+
+    private OperationDeadline(long timeoutMillis, OperationDeadline previous) {
+        this.timeoutMillis = timeoutMillis;
+        this.expiresAtNanos = timeoutMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+        this.previous = previous;
+        this.expiry = timeoutMillis > 0
+                ? Timer.INSTANCE.schedule(this::expire, timeoutMillis, TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    /**
+     * Starts an operation on the calling thread.
+     *
+     * @param timeoutMillis Timeout of the operation; 0 for no deadline (it can still be cancelled).
+     * @return The deadline; {@link #end()} must be called when the operation finishes.
+     */
+    public static OperationDeadline begin(long timeoutMillis) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("El tiempo límite de la operación no puede ser negativo.");
+        }
+        OperationDeadline deadline = new OperationDeadline(timeoutMillis, CURRENT.get());
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * Timeout of an operation: the {@value #OPTION_TIMEOUT_MILLIS} option if present, otherwise the configured one.
+     */
+    public static long timeoutMillis(OperationOptions options, long configuredMillis) {
+        Object value = options != null ? options.getOptions().get(OPTION_TIMEOUT_MILLIS) : null;
+        if (value instanceof Number) {
+            return Math.max(0, ((Number) value).longValue());
+        }
+        if (value instanceof String) {
+            try {
+                return Math.max(0, Long.parseLong(((String) value).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Opción " + OPTION_TIMEOUT_MILLIS + " no válida: " + value, e);
+            }
+        }
+        return configuredMillis;
+    }
+
+    /**
+     * Deadline of the operation running on the calling thread, or null.
+     */
+    public static OperationDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds a deadline to a worker thread.
+     *
+     * @return The deadline previously bound, to pass to {@link #restore}.
+     */
+    public static OperationDeadline attach(OperationDeadline deadline) {
+        OperationDeadline previous = CURRENT.get();
+        if (deadline != null) {
+            CURRENT.set(deadline);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+
+    public static void restore(OperationDeadline previous) {
+        attach(previous);
+    }
+
+    /**
+     * Waits for a task started by the operation on the calling thread, no longer than its deadline.
+     */
+    public static <T> T await(Future<T> future) throws InterruptedException, ExecutionException {
+        OperationDeadline deadline = CURRENT.get();
+        if (deadline == null || deadline.expiresAtNanos == 0) {
+            return future.get();
+        }
+        try {
+            return future.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw deadline.timeout(e);
+        }
+    }
+
+    /**
+     * Ends the operation: aborts the requests still in flight (e.g. the branches of a search
+     * whose handler stopped) and unbinds the deadline from the thread.
+     */
+    public void end() {
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+        cancel();
+        if (CURRENT.get() == this) {
+            attach(previous);
+        }
+    }
+
+    /**
+     * Time left, in milliseconds; {@link Long#MAX_VALUE} without a deadline.
+     */
+    public long remainingMillis() {
+        if (expiresAtNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expired || (expiresAtNanos != 0 && System.nanoTime() - expiresAtNanos >= 0);
+    }
+
+    /**
+     * True once the operation has expired or ended.
+     */
+    public boolean isDone() {
+        return cancelled || isExpired();
+    }
+
+    /**
+     * Throws if no more work should be started for the operation.
+     */
+    public void check() {
+        if (isExpired()) {
+            throw timeout(null);
+        }
+        if (cancelled) {
+            throw new ConnectorException("La operación ya terminó.");
+        }
+    }
+
+    /**
+     * Exception for an operation that ran out of time.
+     */
+    public OperationTimeoutException timeout(Throwable cause) {
+        String message = "La operación superó su tiempo límite de " + timeoutMillis + " ms.";
+        return cause != null ? new OperationTimeoutException(message, cause) : new OperationTimeoutException(message);
+    }
+
+    /**
+     * Registers a request in flight; it is aborted at once if the operation is already done.
+     */
+    public void register(Cancellable request) {
+        inFlight.add(request);
+        if (isDone()) {
+            request.cancel();
+        }
+    }
+
+    public void unregister(Cancellable request) {
+        inFlight.remove(request);
+    }
+
+    private void expire() {
+        expired = true;
+        abortInFlight();
+    }
+
+    private void cancel() {
+        cancelled = true;
+        abortInFlight();
+    }
+
+    private void abortInFlight() {
+        for (Cancellable request : inFlight) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Single timer for the deadlines of every connector in the JVM; it only flips a flag and
+     * aborts requests, so one daemon thread is enough.
+     */
+    private static final class Timer {
+        private static final ScheduledThreadPoolExecutor INSTANCE = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("deadline"));
+            // Casi todas las operaciones terminan a tiempo: sus tareas se retiran al cancelarse
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+}
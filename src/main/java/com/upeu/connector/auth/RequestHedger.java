@@ -0,0 +1,284 @@
+package com.upeu.connector.auth;
+
+import com.upeu.connector.metrics.ConnectorMetrics;
+import com.upeu.connector.metrics.OperationTrace;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.util.DaemonThreadFactory;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedges idempotent GET requests to cut the latency tail.
+ * <p>
+ * The request runs on a worker thread while the caller waits. If no response arrives within
+ * the hedge delay, a second copy is sent; the pool leases it another connection. The first
+ * successful response wins and the other request is cancelled. The delay is either fixed or
+ * the p95 latency of the endpoint over the last minutes. Until enough requests have been
+ * measured, the endpoint is not hedged and the request runs on the caller thread.
+ * <p>
+ * The worker pool is bounded. When it is full, a request runs unhedged on the caller thread
+ * and a hedge is not sent.
+ * <p>
+ * Hedges are paid from a budget: each hedgeable request earns {@code budgetPercent}/100 of a
+ * hedge, up to a small burst. Extra load therefore stays below that share of the GET traffic.
+ */
+public class RequestHedger {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestHedger.class);
+
+    // Peticiones medidas antes de usar el p95 de un endpoint como retardo
+    private static final long MIN_SAMPLES = 100;
+    // Cada cuánto se recalcula el p95 de un endpoint (y se toma un intervalo de su histograma)
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // El presupuesto se cuenta en centésimas de réplica; se acumulan como mucho 10 réplicas
+    private static final long HEDGE_COST = 100;
+    private static final long MAX_TOKENS = 10 * HEDGE_COST;
+
+    /**
+     * One attempt of the request, run on a worker thread.
+     */
+    @FunctionalInterface
+    public interface Attempt {
+        String run(HttpUriRequestBase request) throws Exception;
+    }
+
+    private final long delayNanos;
+    private final int budgetPercent;
+    private final ConnectorMetrics metrics;
+    private final OperationTracer tracer;
+    private final ExecutorService executor;
+    private final Map<String, Delay> delays = new ConcurrentHashMap<>();
+    private final AtomicLong tokens = new AtomicLong();
+
+    private final LongAdder hedgeableRequests = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder hedgesDenied = new LongAdder();
+
+    /**
+     * @param delayMillis   Fixed hedge delay; 0 to use the observed p95 of each endpoint.
+     * @param budgetPercent Maximum hedges as a percentage of the hedgeable requests (1-100).
+     * @param maxThreads    Maximum worker threads running attempts.
+     * @param metrics       Metrics with the latency histograms of the endpoints.
+     */
+    public RequestHedger(long delayMillis, int budgetPercent, int maxThreads, ConnectorMetrics metrics) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("El retardo de réplica no puede ser negativo.");
+        }
+        if (budgetPercent < 1 || budgetPercent > 100) {
+            throw new IllegalArgumentException("El presupuesto de réplicas debe estar entre 1 y 100.");
+        }
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException("El número de hilos de réplica debe ser mayor que 0.");
+        }
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        this.budgetPercent = budgetPercent;
+        this.metrics = metrics;
+        this.tracer = metrics.getTracer();
+        // Sin cola: con todos los hilos ocupados se rechaza la tarea y el llamante decide
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new DaemonThreadFactory("hedge"));
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Runs a GET, hedging it if it is slower than the delay of its endpoint.
+     *
+     * @param endpointKey Key of the endpoint, used to pick the delay.
+     * @param requests    Creates a new request for each attempt.
+     * @param attempt     Executes one request and returns its body.
+     * @return The body of the first successful response.
+     */
+    public String execute(String endpointKey, Supplier<HttpUriRequestBase> requests, Attempt attempt) throws Exception {
+        long delay = delayNanos(endpointKey);
+        if (delay <= 0) {
+            return attempt.run(requests.get());
+        }
+        hedgeableRequests.increment();
+        tokens.accumulateAndGet(budgetPercent, (current, earned) -> Math.min(current + earned, MAX_TOKENS));
+
+        Race race = new Race(attempt, tracer.current(), OperationDeadline.current());
+        if (!race.launch(requests.get(), false)) {
+            LOG.debug("Pool de réplicas lleno: la petición a {} se envía sin réplica.", endpointKey);
+            return attempt.run(requests.get());
+        }
+        try {
+            try {
+                return race.winner.get(delay, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (!spendToken()) {
+                    hedgesDenied.increment();
+                } else if (race.launch(requests.get(), true)) {
+                    hedgesSent.increment();
+                    LOG.debug("Sin respuesta de {} tras {} ms: se envía una réplica.",
+                            endpointKey, TimeUnit.NANOSECONDS.toMillis(delay));
+                } else {
+                    tokens.addAndGet(HEDGE_COST);
+                    hedgesDenied.increment();
+                }
+                return race.winner.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            race.cancel();
+        }
+    }
+
+    /**
+     * Requests that could be hedged (their endpoint had a delay).
+     */
+    public long getHedgeableRequests() {
+        return hedgeableRequests.sum();
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.sum();
+    }
+
+    /**
+     * Hedges whose response arrived before the original request's.
+     */
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    /**
+     * Slow requests that were not hedged because the budget was spent.
+     */
+    public long getHedgesDenied() {
+        return hedgesDenied.sum();
+    }
+
+    /**
+     * Stops the worker threads; running requests are interrupted.
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private long delayNanos(String endpointKey) {
+        if (delayNanos > 0) {
+            return delayNanos;
+        }
+        long now = System.nanoTime();
+        Delay delay = delays.get(endpointKey);
+        if (delay == null || now - delay.computedAt > DELAY_REFRESH_NANOS) {
+            long p95Micros = metrics.endpoint(endpointKey, "GET").recentLatencyPercentileMicros(95, MIN_SAMPLES);
+            delay = new Delay(p95Micros > 0 ? TimeUnit.MICROSECONDS.toNanos(p95Micros) : 0, now);
+            delays.put(endpointKey, delay);
+        }
+        return delay.nanos;
+    }
+
+    private boolean spendToken() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - HEDGE_COST));
+        return true;
+    }
+
+    /**
+     * Attempts of one request; the first success completes {@link #winner}.
+     */
+    private final class Race {
+        private final CompletableFuture<String> winner = new CompletableFuture<>();
+        private final List<HttpUriRequestBase> requests = new CopyOnWriteArrayList<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicReference<Exception> firstError = new AtomicReference<>();
+        private final Attempt attempt;
+        private final OperationTrace trace;
+        private final OperationDeadline deadline;
+
+        private Race(Attempt attempt, OperationTrace trace, OperationDeadline deadline) {
+            this.attempt = attempt;
+            this.trace = trace;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Starts an attempt on a worker thread.
+         *
+         * @return False if the pool was full and the attempt was not started.
+         */
+        private boolean launch(HttpUriRequestBase request, boolean hedge) {
+            requests.add(request);
+            running.incrementAndGet();
+            try {
+                executor.execute(() -> run(request, hedge));
+                return true;
+            } catch (RejectedExecutionException e) {
+                requests.remove(request);
+                running.decrementAndGet();
+                return false;
+            }
+        }
+
+        private void run(HttpUriRequestBase request, boolean hedge) {
+            OperationTrace previous = tracer.attach(trace);
+            OperationDeadline previousDeadline = OperationDeadline.attach(deadline);
+            try {
+                String body = attempt.run(request);
+                if (winner.complete(body) && hedge) {
+                    hedgesWon.increment();
+                }
+            } catch (Exception e) {
+                // Solo falla la petición si fallan todos los intentos; se informa el primer error
+                firstError.compareAndSet(null, e);
+                if (running.decrementAndGet() == 0) {
+                    winner.completeExceptionally(firstError.get());
+                }
+            } finally {
+                OperationDeadline.restore(previousDeadline);
+                tracer.restore(previous);
+            }
+        }
+
+        private void cancel() {
+            for (HttpUriRequestBase request : requests) {
+                request.cancel();
+            }
+        }
+    }
+
+    private static final class Delay {
+        private final long nanos;
+        private final long computedAt;
+
+        private Delay(long nanos, long computedAt) {
+            this.nanos = nanos;
+            this.computedAt = computedAt;
+        }
+    }
+}
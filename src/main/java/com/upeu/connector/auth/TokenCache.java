@@ -0,0 +1,294 @@
+package com.upeu.connector.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the JWT of one DSpace user on disk, so a restarted connector reuses it instead of
+ * logging in again.
+ * <p>
+ * There is one file per base URL and user. It is encrypted with AES-GCM under a key derived
+ * from the password with PBKDF2, and the base URL and user are authenticated with it, so a
+ * file copied to another entry or read with another password is simply a miss. Files are
+ * replaced atomically (temporary file plus move), so readers never see a partial file.
+ * <p>
+ * Logins go through {@link #obtain}, which holds an exclusive lock on a companion lock file
+ * while it checks the cache and logs in. When many connectors start at once, on one or several
+ * JVMs of the host, one of them logs in and the others read its token.
+ */
+public class TokenCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TokenCache.class);
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int SALT_BYTES = 16;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final int KEY_BITS = 256;
+    private static final int PBKDF2_ITERATIONS = 65_536;
+    // Un token que caduca antes de este margen ya no se reutiliza
+    private static final long EXPIRY_MARGIN_MILLIS = 60_000;
+
+    // FileLock es por proceso: los hilos de la misma JVM se excluyen con un monitor por fichero
+    private static final Map<Path, Object> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Path lockFile;
+    private final byte[] associatedData;
+    private final char[] password;
+    private final SecureRandom random = new SecureRandom();
+
+    // Última clave derivada y su sal; derivarla cuesta decenas de milisegundos
+    private byte[] salt;
+    private SecretKey key;
+
+    /**
+     * A cached token and the time it expires at.
+     */
+    public static final class Entry {
+        private final String token;
+        private final long expiresAt;
+
+        public Entry(String token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        private boolean isUsable(long now) {
+            return expiresAt - EXPIRY_MARGIN_MILLIS > now;
+        }
+    }
+
+    /**
+     * @param directory Directory of the cache files; created if missing.
+     * @param baseUrl   Base URL of DSpace.
+     * @param username  DSpace user the tokens belong to.
+     * @param password  Password of the user; the encryption key is derived from it.
+     */
+    public TokenCache(Path directory, String baseUrl, String username, String password) {
+        if (directory == null) {
+            throw new IllegalArgumentException("El directorio de la caché de tokens no puede ser nulo.");
+        }
+        if (baseUrl == null || username == null || password == null || password.isEmpty()) {
+            throw new IllegalArgumentException("La URL base, el usuario y la contraseña son obligatorios.");
+        }
+        String identity = (baseUrl.endsWith("/") ? baseUrl : baseUrl + "/") + "\n" + username;
+        String name = fileName(identity);
+        Path absolute = directory.toAbsolutePath().normalize();
+        this.file = absolute.resolve(name + ".jwt");
+        this.lockFile = absolute.resolve(name + ".lock");
+        this.associatedData = identity.getBytes(StandardCharsets.UTF_8);
+        this.password = password.toCharArray();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the cached token if it is still valid for a while.
+     *
+     * @return The token, or null if there is none, it expired or it cannot be read.
+     */
+    public Entry load() {
+        Entry entry = read();
+        return entry != null && entry.isUsable(System.currentTimeMillis()) ? entry : null;
+    }
+
+    /**
+     * Returns a valid token from the cache or, if there is none, logs in and caches the new one.
+     *
+     * @param rejected Token the caller found invalid; a cached token equal to it is not reused. May be null.
+     * @param login    Logs in and returns the new token with its expiry.
+     * @return The token to use.
+     */
+    public Entry obtain(String rejected, Supplier<Entry> login) {
+        synchronized (LOCAL_LOCKS.computeIfAbsent(lockFile, path -> new Object())) {
+            try {
+                Files.createDirectories(lockFile.getParent());
+                try (FileChannel channel = FileChannel.open(lockFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock ignored = channel.lock()) {
+                    return loadOrLogin(rejected, login);
+                }
+            } catch (IOException e) {
+                // Sin bloqueo se pierde la coordinación entre JVMs, pero no la autenticación
+                LOG.warn("No se pudo bloquear la caché de tokens {}: {}", lockFile, e.getMessage());
+                return loadOrLogin(rejected, login);
+            }
+        }
+    }
+
+    private Entry loadOrLogin(String rejected, Supplier<Entry> login) {
+        Entry cached = load();
+        if (cached != null && !cached.token.equals(rejected)) {
+            LOG.debug("Token reutilizado de la caché {}.", file);
+            return cached;
+        }
+        Entry fresh = login.get();
+        store(fresh);
+        return fresh;
+    }
+
+    /**
+     * Replaces the cached token. Failures are logged and otherwise ignored.
+     */
+    public void store(Entry entry) {
+        Path temporary = null;
+        try {
+            Files.createDirectories(file.getParent());
+            byte[] content = encrypt(entry);
+            temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            restrictPermissions(temporary);
+            Files.write(temporary, content);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            temporary = null;
+        } catch (IOException | GeneralSecurityException e) {
+            LOG.warn("No se pudo guardar el token en la caché {}: {}", file, e.getMessage());
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    // El temporal huérfano no impide el uso de la caché
+                }
+            }
+        }
+    }
+
+    private Entry read() {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.warn("No se pudo leer la caché de tokens {}: {}", file, e.getMessage());
+            return null;
+        }
+        try {
+            return decrypt(content);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            // Otra contraseña o un fichero dañado: se trata como ausente y se sobrescribirá
+            LOG.debug("Caché de tokens {} ilegible: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized byte[] encrypt(Entry entry) throws GeneralSecurityException {
+        if (salt == null) {
+            salt = new byte[SALT_BYTES];
+            random.nextBytes(salt);
+            key = null;
+        }
+        SecretKey secret = key(salt);
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+
+        byte[] token = entry.token.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer plain = ByteBuffer.allocate(Long.BYTES + token.length);
+        plain.putLong(entry.expiresAt).put(token);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, secret, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(associatedData);
+        byte[] encrypted = cipher.doFinal(plain.array());
+
+        return ByteBuffer.allocate(1 + SALT_BYTES + IV_BYTES + encrypted.length)
+                .put(FORMAT_VERSION).put(salt).put(iv).put(encrypted)
+                .array();
+    }
+
+    private synchronized Entry decrypt(byte[] content) throws GeneralSecurityException {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        if (content.length < 1 + SALT_BYTES + IV_BYTES || buffer.get() != FORMAT_VERSION) {
+            throw new GeneralSecurityException("formato desconocido");
+        }
+        byte[] fileSalt = new byte[SALT_BYTES];
+        byte[] iv = new byte[IV_BYTES];
+        buffer.get(fileSalt).get(iv);
+        byte[] encrypted = new byte[buffer.remaining()];
+        buffer.get(encrypted);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key(fileSalt), new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(associatedData);
+        ByteBuffer plain = ByteBuffer.wrap(cipher.doFinal(encrypted));
+
+        long expiresAt = plain.getLong();
+        byte[] token = new byte[plain.remaining()];
+        plain.get(token);
+        return new Entry(new String(token, StandardCharsets.UTF_8), expiresAt);
+    }
+
+    /**
+     * Key for a salt; the last one is kept and also reused for the next write.
+     */
+    private SecretKey key(byte[] keySalt) throws GeneralSecurityException {
+        if (key == null || !Arrays.equals(salt, keySalt)) {
+            PBEKeySpec spec = new PBEKeySpec(password, keySalt, PBKDF2_ITERATIONS, KEY_BITS);
+            try {
+                byte[] encoded = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+                key = new SecretKeySpec(encoded, "AES");
+                salt = keySalt.clone();
+            } finally {
+                spec.clearPassword();
+            }
+        }
+        return key;
+    }
+
+    private static String fileName(String identity) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder("dspace-token-");
+            for (int i = 0; i < 16; i++) {
+                name.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return name.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 no disponible.", e);
+        }
+    }
+
+    private static void restrictPermissions(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // Sistemas sin permisos POSIX: el contenido sigue cifrado
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.upeu.connector.bulk;
+
+import com.upeu.connector.auth.OperationDeadline;
+import com.upeu.connector.metrics.OperationTracer;
+import org.identityconnectors.framework.common.exceptions.OperationTimeoutException;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs one item of a bulk operation (one delete, one imported record, one exported page) with
+ * its own deadline and trace, begun on the worker thread that runs it.
+ * <p>
+ * A bulk operation can run for hours, so the operation timeout applies to each item rather than
+ * to the whole run: a stuck request fails its item instead of holding a worker until the socket
+ * timeout, and slow items show up in the slow-operation traces.
+ */
+final class BulkItem {
+
+    private BulkItem() {
+    }
+
+    /**
+     * @param tracer        Tracer of the connector.
+     * @param operation     Name of the trace (delete, import, export).
+     * @param timeoutMillis Time limit of the item; 0 for none.
+     * @param task          Work of the item.
+     * @return The result of the task.
+     */
+    static <T> T run(OperationTracer tracer, String operation, long timeoutMillis, Supplier<T> task) {
+        tracer.begin(operation, "eperson");
+        OperationDeadline deadline = OperationDeadline.begin(timeoutMillis);
+        try {
+            return task.get();
+        } catch (RuntimeException e) {
+            // Los clientes envuelven los errores de red: si el elemento agotó su tiempo, se informa como tal
+            if (e instanceof OperationTimeoutException || !deadline.isExpired()) {
+                throw e;
+            }
+            throw deadline.timeout(e);
+        } finally {
+            deadline.end();
+            tracer.end();
+        }
+    }
+}
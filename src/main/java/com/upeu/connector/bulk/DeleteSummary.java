@@ -0,0 +1,70 @@
+package com.upeu.connector.bulk;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk eperson delete.
+ */
+public final class DeleteSummary {
+
+    private final long deleted;
+    private final long notFound;
+    private final Map<String, Long> failures;
+    private final Map<String, List<String>> failedSamples;
+    private final long elapsedNanos;
+
+    DeleteSummary(long deleted, long notFound, Map<String, Long> failures,
+                  Map<String, List<String>> failedSamples, long elapsedNanos) {
+        this.deleted = deleted;
+        this.notFound = notFound;
+        this.failures = Map.copyOf(failures);
+        this.failedSamples = Map.copyOf(failedSamples);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * UUIDs that no longer existed; they count as deleted.
+     */
+    public long getNotFound() {
+        return notFound;
+    }
+
+    public long getFailed() {
+        return failures.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Number of failures per reason (e.g. {@code HTTP 403} or {@code invalid id}).
+     */
+    public Map<String, Long> getFailures() {
+        return failures;
+    }
+
+    /**
+     * First UUIDs that failed for each reason, to start the investigation from.
+     */
+    public Map<String, List<String>> getFailedSamples() {
+        return failedSamples;
+    }
+
+    public long getTotal() {
+        return deleted + notFound + getFailed();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        return String.format(Locale.ROOT, "%d epersons (%d deleted, %d not found, %d failed %s) in %.1f s (%.0f/s)",
+                getTotal(), deleted, notFound, getFailed(), failures, seconds, seconds > 0 ? getTotal() / seconds : 0);
+    }
+}
@@ -0,0 +1,152 @@
+package com.upeu.connector.bulk;
+
+import com.upeu.connector.auth.HttpStatusException;
+import com.upeu.connector.handler.EPersonHandler;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.util.DaemonThreadFactory;
+import com.upeu.connector.util.ValidationJsonUtil;
+import org.identityconnectors.framework.common.exceptions.OperationTimeoutException;
+import org.identityconnectors.framework.common.exceptions.UnknownUidException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes many epersons concurrently through {@link EPersonHandler#delete}
+ * ({@code DELETE epersons/{uuid}}).
+ * <p>
+ * At most {@code parallelism} deletes are in flight, which matches the connection pool of the
+ * connector, so the pool stays the only limit on concurrent requests. An eperson that no longer
+ * exists (404) counts as deleted, so the same list can be sent again after a partial failure.
+ * Each delete runs with its own deadline and trace ({@link BulkItem}).
+ * Failures are grouped by reason and a few UUIDs of each reason are kept.
+ */
+public class EPersonBulkDeleter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EPersonBulkDeleter.class);
+
+    // UUIDs guardados por motivo de fallo
+    private static final int SAMPLES_PER_REASON = 10;
+
+    private final EPersonHandler ePersonHandler;
+    private final int parallelism;
+    private final long itemTimeoutMillis;
+    private final OperationTracer tracer;
+
+    /**
+     * @param ePersonHandler    Handler used to delete each eperson.
+     * @param parallelism       Deletes sent to DSpace at the same time.
+     * @param itemTimeoutMillis Time limit of each delete; 0 for none.
+     */
+    public EPersonBulkDeleter(EPersonHandler ePersonHandler, int parallelism, long itemTimeoutMillis) {
+        this.ePersonHandler = ValidationJsonUtil.validateNotNull(ePersonHandler, "El handler de EPersons no puede ser nulo.");
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("El paralelismo debe ser mayor que 0.");
+        }
+        if (itemTimeoutMillis < 0) {
+            throw new IllegalArgumentException("El tiempo límite no puede ser negativo.");
+        }
+        this.parallelism = parallelism;
+        this.itemTimeoutMillis = itemTimeoutMillis;
+        this.tracer = ePersonHandler.getTracer();
+    }
+
+    /**
+     * Deletes the given epersons.
+     *
+     * @param ids UUIDs of the epersons to delete; duplicates are deleted once.
+     * @return The delete summary.
+     */
+    public DeleteSummary delete(Collection<String> ids) {
+        ValidationJsonUtil.validateNotNull(ids, "La lista de UUIDs no puede ser nula.");
+        long start = System.nanoTime();
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(ids));
+        LOG.info("Eliminando {} epersons (paralelismo {}).", unique.size(), parallelism);
+
+        LongAdder deleted = new LongAdder();
+        LongAdder notFound = new LongAdder();
+        Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+        Map<String, List<String>> samples = new ConcurrentHashMap<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(parallelism, Math.max(unique.size(), 1)), new DaemonThreadFactory("delete"));
+        try {
+            for (String id : unique) {
+                executor.execute(() -> {
+                    String reason = deleteOne(id);
+                    if (reason == null) {
+                        deleted.increment();
+                    } else if (reason.isEmpty()) {
+                        notFound.increment();
+                    } else {
+                        failures.computeIfAbsent(reason, r -> new LongAdder()).increment();
+                        List<String> sample = samples.computeIfAbsent(reason, r -> new ArrayList<>());
+                        synchronized (sample) {
+                            if (sample.size() < SAMPLES_PER_REASON) {
+                                sample.add(id);
+                            }
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOG.info("Eliminación en curso: {} eliminados, {} no encontrados.", deleted.sum(), notFound.sum());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Eliminación masiva interrumpida.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Long> failureCounts = new HashMap<>();
+        failures.forEach((reason, count) -> failureCounts.put(reason, count.sum()));
+        Map<String, List<String>> failedSamples = new HashMap<>();
+        samples.forEach((reason, sample) -> failedSamples.put(reason, List.copyOf(sample)));
+        DeleteSummary summary = new DeleteSummary(deleted.sum(), notFound.sum(), failureCounts, failedSamples,
+                System.nanoTime() - start);
+        LOG.info("Eliminación masiva completada: {}", summary);
+        return summary;
+    }
+
+    /**
+     * Deletes one eperson.
+     *
+     * @return null if deleted, an empty string if it did not exist, or the failure reason.
+     */
+    private String deleteOne(String id) {
+        try {
+            BulkItem.run(tracer, "delete", itemTimeoutMillis, () -> {
+                ePersonHandler.delete(id);
+                return null;
+            });
+            return null;
+        } catch (UnknownUidException e) {
+            return "";
+        } catch (OperationTimeoutException e) {
+            return "timeout";
+        } catch (IllegalArgumentException e) {
+            return "invalid id";
+        } catch (RuntimeException e) {
+            LOG.debug("Error al eliminar el EPerson {}: {}", id, e.getMessage());
+            HttpStatusException status = HttpStatusException.find(e);
+            if (status != null) {
+                return "HTTP " + status.getStatusCode();
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return cause.getClass().getSimpleName();
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.upeu.connector.bulk;
+
+import com.upeu.connector.DSpaceClient;
+import com.upeu.connector.auth.AuthManager;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.util.DaemonThreadFactory;
+import com.upeu.connector.util.ValidationJsonUtil;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports every eperson to a local NDJSON file, one DSpace resource (without {@code _links}) per line.
+ * <p>
+ * Pages are streamed from {@link DSpaceClient} in a stable order (by email) and the next page is
+ * fetched while the current one is written, so at most two pages are held in memory. Lines are
+ * staged in a fixed-size buffer and written through a {@link FileChannel}, optionally gzip-compressed.
+ * Each page is fetched with its own deadline and trace ({@link BulkItem}).
+ * <p>
+ * Every few pages the exporter records the next page and the file offset in a {@code .progress}
+ * file next to the output. An interrupted export run again with the same target truncates the file
+ * back to that offset and continues from that page; the progress file is removed on completion.
+ * A gzip export closes a gzip member at each checkpoint, so the output is a multi-member gzip
+ * stream, which {@code gzip -d} and {@link java.util.zip.GZIPInputStream} read as one file.
+ */
+public class EPersonExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EPersonExporter.class);
+
+    private static final String ENDPOINT = "epersons";
+    private static final Map<String, String> STABLE_ORDER = Map.of("sort", "email,ASC");
+    /**
+     * Epersons per HAL page unless another size is given.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    // Páginas entre dos checkpoints
+    private static final int CHECKPOINT_PAGES = 10;
+    private static final String PROGRESS_SUFFIX = ".progress";
+
+    private final DSpaceClient dSpaceClient;
+    private final int pageSize;
+    private final long pageTimeoutMillis;
+    private final OperationTracer tracer;
+
+    public EPersonExporter(DSpaceClient dSpaceClient) {
+        this(dSpaceClient, DEFAULT_PAGE_SIZE);
+    }
+
+    public EPersonExporter(DSpaceClient dSpaceClient, int pageSize) {
+        this(dSpaceClient, pageSize, 0);
+    }
+
+    /**
+     * @param dSpaceClient      Client used to read the epersons.
+     * @param pageSize          Epersons per HAL page.
+     * @param pageTimeoutMillis Time limit of each page fetch; 0 for none.
+     */
+    public EPersonExporter(DSpaceClient dSpaceClient, int pageSize, long pageTimeoutMillis) {
+        this.dSpaceClient = ValidationJsonUtil.validateNotNull(dSpaceClient, "El cliente DSpace no puede ser nulo.");
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor que 0.");
+        }
+        if (pageTimeoutMillis < 0) {
+            throw new IllegalArgumentException("El tiempo límite no puede ser negativo.");
+        }
+        this.pageSize = pageSize;
+        this.pageTimeoutMillis = pageTimeoutMillis;
+        this.tracer = dSpaceClient.getTracer();
+    }
+
+    /**
+     * Exports every eperson, resuming an interrupted export of the same file if possible.
+     *
+     * @param target Output file.
+     * @param gzip   Whether to gzip the output.
+     * @return The export summary.
+     */
+    public ExportSummary export(Path target, boolean gzip) {
+        ValidationJsonUtil.validateNotNull(target, "El fichero de destino no puede ser nulo.");
+        long start = System.nanoTime();
+        Path progressFile = target.resolveSibling(target.getFileName() + PROGRESS_SUFFIX);
+        Progress progress = Progress.load(progressFile, target, gzip, pageSize);
+        if (progress.nextPage > 0) {
+            LOG.info("Reanudando la exportación en {} desde la página {} ({} epersons ya escritos).",
+                    target, progress.nextPage, progress.records);
+        }
+
+        ExecutorService prefetcher = Executors.newSingleThreadExecutor(new DaemonThreadFactory("export"));
+        int pages = 0;
+        long records = progress.records;
+        try (NdjsonSink sink = new NdjsonSink(target, progress.offset, gzip)) {
+            int page = progress.nextPage;
+            CompletableFuture<JSONObject> next = fetch(page, prefetcher);
+            while (next != null) {
+                JSONObject response = join(next);
+                List<JSONObject> objects = ValidationJsonUtil.extractEmbeddedObjects(response, null);
+                JSONObject pageInfo = response.optJSONObject("page");
+                int totalPages = pageInfo != null ? pageInfo.optInt("totalPages", 0) : 0;
+                page++;
+                pages++;
+                // La siguiente página se descarga mientras se escribe esta
+                next = !objects.isEmpty() && page < totalPages ? fetch(page, prefetcher) : null;
+
+                for (JSONObject eperson : objects) {
+                    eperson.remove("_links");
+                    sink.writeLine(eperson.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                records += objects.size();
+
+                if (next != null && page % CHECKPOINT_PAGES == 0) {
+                    Progress.save(progressFile, new Progress(page, sink.checkpoint(), records, gzip, pageSize));
+                }
+            }
+            sink.finish();
+            Files.deleteIfExists(progressFile);
+            ExportSummary summary = new ExportSummary(records, pages, sink.size(), System.nanoTime() - start,
+                    progress.nextPage > 0);
+            LOG.info("Exportación de epersons completada en {}: {}", target, summary);
+            return summary;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al escribir la exportación en " + target, e);
+        } finally {
+            prefetcher.shutdownNow();
+        }
+    }
+
+    private CompletableFuture<JSONObject> fetch(int page, ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> BulkItem.run(tracer, "export", pageTimeoutMillis,
+                () -> dSpaceClient.fetchPage(ENDPOINT, STABLE_ORDER, page, pageSize)), executor);
+    }
+
+    private static JSONObject join(CompletableFuture<JSONObject> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Buffered NDJSON writer over a file channel, optionally gzip-compressed.
+     */
+    private static final class NdjsonSink implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final OutputStream channelStream;
+        private GZIPOutputStream gzip;
+
+        private NdjsonSink(Path target, long offset, boolean compress) throws IOException {
+            this.channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // Descarta lo escrito después del último checkpoint
+            channel.truncate(offset);
+            channel.position(offset);
+            // El canal se cierra aquí, no al cerrar cada miembro gzip
+            this.channelStream = new FilterOutputStream(Channels.newOutputStream(channel)) {
+                @Override
+                public void write(byte[] bytes, int off, int len) throws IOException {
+                    out.write(bytes, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            this.gzip = compress ? newMember() : null;
+        }
+
+        private void writeLine(byte[] line) throws IOException {
+            if (line.length + 1 > buffer.remaining()) {
+                flushBuffer();
+                if (line.length + 1 > buffer.capacity()) {
+                    write(ByteBuffer.wrap(line));
+                    write(ByteBuffer.wrap(new byte[]{'\n'}));
+                    return;
+                }
+            }
+            buffer.put(line).put((byte) '\n');
+        }
+
+        /**
+         * Writes everything buffered and returns the file offset a resumed export can continue from.
+         */
+        private long checkpoint() throws IOException {
+            flushBuffer();
+            if (gzip != null) {
+                gzip.close();
+                gzip = newMember();
+            }
+            return channel.position();
+        }
+
+        private void finish() throws IOException {
+            flushBuffer();
+            if (gzip != null) {
+                gzip.close();
+                gzip = null;
+            }
+            channel.force(false);
+        }
+
+        private long size() throws IOException {
+            return channel.position();
+        }
+
+        private void flushBuffer() throws IOException {
+            buffer.flip();
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer bytes) throws IOException {
+            if (gzip != null) {
+                gzip.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                bytes.position(bytes.limit());
+                return;
+            }
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+
+        private GZIPOutputStream newMember() throws IOException {
+            return new GZIPOutputStream(channelStream, BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Checkpoint of an export: next page to fetch and the file offset where it starts.
+     */
+    private static final class Progress {
+        private final int nextPage;
+        private final long offset;
+        private final long records;
+        private final boolean gzip;
+        private final int pageSize;
+
+        private Progress(int nextPage, long offset, long records, boolean gzip, int pageSize) {
+            this.nextPage = nextPage;
+            this.offset = offset;
+            this.records = records;
+            this.gzip = gzip;
+            this.pageSize = pageSize;
+        }
+
+        private static Progress load(Path file, Path target, boolean gzip, int pageSize) {
+            Progress fresh = new Progress(0, 0, 0, gzip, pageSize);
+            if (!Files.exists(file) || !Files.exists(target)) {
+                return fresh;
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+                Progress saved = new Progress(
+                        Integer.parseInt(properties.getProperty("nextPage")),
+                        Long.parseLong(properties.getProperty("offset")),
+                        Long.parseLong(properties.getProperty("records")),
+                        Boolean.parseBoolean(properties.getProperty("gzip")),
+                        Integer.parseInt(properties.getProperty("pageSize")));
+                if (saved.gzip != gzip || saved.pageSize != pageSize || saved.offset > Files.size(target)) {
+                    LOG.warn("El progreso {} no corresponde a esta exportación; se empieza de cero.", file);
+                    return fresh;
+                }
+                return saved;
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("No se pudo leer el progreso {}; se empieza de cero: {}", file, e.getMessage());
+                return fresh;
+            }
+        }
+
+        private static void save(Path file, Progress progress) throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("nextPage", String.valueOf(progress.nextPage));
+            properties.setProperty("offset", String.valueOf(progress.offset));
+            properties.setProperty("records", String.valueOf(progress.records));
+            properties.setProperty("gzip", String.valueOf(progress.gzip));
+            properties.setProperty("pageSize", String.valueOf(progress.pageSize));
+
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Progreso de la exportación de epersons");
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Command-line entry point, for exports outside midPoint.
+     * <p>
+     * Usage: {@code EPersonExporter <baseUrl> <username> <output.ndjson[.gz]> [--gzip]}; the password
+     * is read from the {@code DSPACE_PASSWORD} environment variable. Gzip is also enabled when the
+     * output name ends in {@code .gz}.
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Uso: EPersonExporter <baseUrl> <usuario> <salida.ndjson[.gz]> [--gzip]");
+            System.exit(2);
+        }
+        String password = System.getenv("DSPACE_PASSWORD");
+        if (password == null || password.isEmpty()) {
+            System.err.println("Defina la contraseña en la variable de entorno DSPACE_PASSWORD.");
+            System.exit(2);
+        }
+        Path target = Paths.get(args[2]);
+        boolean gzip = target.getFileName().toString().endsWith(".gz")
+                || (args.length > 3 && "--gzip".equals(args[3]));
+
+        DSpaceClient client = new DSpaceClient(new AuthManager(args[0], args[1], password));
+        ExportSummary summary = new EPersonExporter(client).export(target, gzip);
+        System.out.println(summary);
+    }
+}
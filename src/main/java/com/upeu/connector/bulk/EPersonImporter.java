@@ -0,0 +1,517 @@
+package com.upeu.connector.bulk;
+
+import com.upeu.connector.handler.EPersonHandler;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.util.DaemonThreadFactory;
+import com.upeu.connector.util.ValidationJsonUtil;
+import org.identityconnectors.framework.common.exceptions.AlreadyExistsException;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports epersons from an NDJSON or CSV file.
+ * <p>
+ * The import runs as three pipelined stages:
+ * <ul>
+ *     <li>The calling thread reads the file one record at a time.</li>
+ *     <li>A bounded pool sends each record through {@link EPersonHandler#create}, so the payloads
+ *     are the same as those of the connector. In upsert mode, a record whose email already exists
+ *     goes through {@link EPersonHandler#update} instead; the existing eperson is only looked up
+ *     when DSpace rejects the create. Each record runs with its own deadline and trace
+ *     ({@link BulkItem}).</li>
+ *     <li>A single writer thread appends one NDJSON result line per record (line, email, status,
+ *     UUID or error).</li>
+ * </ul>
+ * At most twice the parallelism of records are in flight, so memory stays constant whatever
+ * the file size.
+ * <p>
+ * Accepted NDJSON records are either the export format ({@link EPersonExporter}, with a
+ * {@code metadata} object) or flat objects with the attribute names. CSV files need a header
+ * row with the attribute names. In both formats, keys with a dot (e.g. {@code eperson.phone})
+ * are metadata fields. Files ending in {@code .gz} are decompressed on the fly.
+ */
+public class EPersonImporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EPersonImporter.class);
+
+    /**
+     * Input file formats.
+     */
+    public enum Format {
+        NDJSON, CSV;
+
+        /**
+         * Guesses the format from the file name ({@code .csv} or {@code .csv.gz}, otherwise NDJSON).
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".gz")) {
+                name = name.substring(0, name.length() - 3);
+            }
+            return name.endsWith(".csv") ? CSV : NDJSON;
+        }
+    }
+
+    private static final String ATTR_EMAIL = "email";
+    private static final Set<String> PROPERTIES = Set.of(ATTR_EMAIL, "firstname", "lastname",
+            "canLogIn", "netid", "requireCertificate");
+    private static final Set<String> BOOLEAN_PROPERTIES = Set.of("canLogIn", "requireCertificate");
+    private static final Map<String, String> METADATA_ATTRIBUTES = Map.of(
+            "eperson.firstname", "firstname",
+            "eperson.lastname", "lastname");
+
+    private final EPersonHandler ePersonHandler;
+    private final int parallelism;
+    private final boolean upsert;
+    private final long itemTimeoutMillis;
+    private final OperationTracer tracer;
+
+    /**
+     * @param ePersonHandler    Handler used to create and update the epersons.
+     * @param parallelism       Records sent to DSpace at the same time.
+     * @param upsert            Whether to update the existing eperson when a record's email is already taken.
+     * @param itemTimeoutMillis Time limit of each record; 0 for none.
+     */
+    public EPersonImporter(EPersonHandler ePersonHandler, int parallelism, boolean upsert, long itemTimeoutMillis) {
+        this.ePersonHandler = ValidationJsonUtil.validateNotNull(ePersonHandler, "El handler de EPersons no puede ser nulo.");
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("El paralelismo debe ser mayor que 0.");
+        }
+        if (itemTimeoutMillis < 0) {
+            throw new IllegalArgumentException("El tiempo límite no puede ser negativo.");
+        }
+        this.parallelism = parallelism;
+        this.upsert = upsert;
+        this.itemTimeoutMillis = itemTimeoutMillis;
+        this.tracer = ePersonHandler.getTracer();
+    }
+
+    /**
+     * Imports a file.
+     *
+     * @param source  Input file; its format is guessed from the name.
+     * @param results File that receives one NDJSON result line per record.
+     * @return The import summary.
+     */
+    public ImportSummary importFile(Path source, Path results) {
+        return importFile(source, Format.of(source), results);
+    }
+
+    /**
+     * Imports a file in the given format.
+     *
+     * @param source  Input file.
+     * @param format  Format of the input file.
+     * @param results File that receives one NDJSON result line per record.
+     * @return The import summary.
+     */
+    public ImportSummary importFile(Path source, Format format, Path results) {
+        ValidationJsonUtil.validateNotNull(source, "El fichero de origen no puede ser nulo.");
+        ValidationJsonUtil.validateNotNull(results, "El fichero de resultados no puede ser nulo.");
+        long start = System.nanoTime();
+        LOG.info("Importando epersons desde {} ({}, paralelismo {}, upsert {}).", source, format, parallelism, upsert);
+
+        ExecutorService senders = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("import-send"));
+        ExecutorService writerThread = Executors.newSingleThreadExecutor(new DaemonThreadFactory("import-write"));
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        BlockingQueue<Result> completed = new ArrayBlockingQueue<>(parallelism * 4);
+        try (BufferedReader reader = open(source);
+             BufferedWriter writer = Files.newBufferedWriter(results, StandardCharsets.UTF_8)) {
+            Future<long[]> written = writerThread.submit(() -> writeResults(completed, writer));
+
+            RecordReader records = format == Format.CSV ? new CsvRecordReader(reader) : new NdjsonRecordReader(reader);
+            Record record;
+            while ((record = records.next()) != null) {
+                acquire(inFlight, 1, written);
+                Record current = record;
+                try {
+                    senders.execute(() -> {
+                        try {
+                            put(completed, send(current));
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+
+            // Esperar a los envíos pendientes y cerrar la etapa de escritura
+            acquire(inFlight, parallelism * 2, written);
+            completed.put(Result.END);
+            long[] counts = written.get();
+            writer.flush();
+            ImportSummary summary = new ImportSummary(counts[0], counts[1], counts[2], System.nanoTime() - start);
+            LOG.info("Importación completada desde {}: {}", source, summary);
+            return summary;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al importar " + source, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importación interrumpida.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al escribir los resultados en " + results, e.getCause());
+        } finally {
+            senders.shutdownNow();
+            writerThread.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends one record: creates it, or updates the existing eperson with the same email in upsert mode.
+     */
+    private Result send(Record record) {
+        if (record.error != null) {
+            return Result.failed(record, record.error);
+        }
+        try {
+            return BulkItem.run(tracer, "import", itemTimeoutMillis, () -> createOrUpdate(record));
+        } catch (RuntimeException e) {
+            LOG.debug("Error al importar la línea {}: {}", record.line, e.getMessage());
+            return Result.failed(record, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private Result createOrUpdate(Record record) {
+        String email = record.email();
+        // Los metadatos que el esquema no conoce se descartan, igual que al crear
+        Set<Attribute> attributes = new HashSet<>(record.attributes);
+        attributes.removeIf(attribute -> attribute.getName().indexOf('.') >= 0
+                && !ePersonHandler.isMetadataAttribute(attribute.getName()));
+        try {
+            Uid uid = ePersonHandler.create(attributes, false);
+            return new Result(record.line, email, Status.CREATED, uid.getUidValue(), null);
+        } catch (AlreadyExistsException e) {
+            // Solo se busca el EPerson existente cuando DSpace rechaza la creación
+            if (!upsert || e.getUid() == null) {
+                throw e;
+            }
+            Uid uid = ePersonHandler.update(e.getUid().getUidValue(), attributes);
+            return new Result(record.line, email, Status.UPDATED, uid.getUidValue(), null);
+        }
+    }
+
+    private static long[] writeResults(BlockingQueue<Result> completed, BufferedWriter writer)
+            throws IOException, InterruptedException {
+        long[] counts = new long[Status.values().length];
+        Result result;
+        while ((result = completed.take()) != Result.END) {
+            counts[result.status.ordinal()]++;
+            JSONObject line = new JSONObject()
+                    .put("line", result.line)
+                    .put("status", result.status.name().toLowerCase());
+            if (result.email != null) {
+                line.put(ATTR_EMAIL, result.email);
+            }
+            if (result.uuid != null) {
+                line.put("uuid", result.uuid);
+            }
+            if (result.error != null) {
+                line.put("error", result.error);
+            }
+            writer.write(line.toString());
+            writer.newLine();
+        }
+        return counts;
+    }
+
+    /**
+     * Waits for free slots in the send stage; fails instead of blocking forever if the writer stage died.
+     */
+    private static void acquire(Semaphore inFlight, int permits, Future<long[]> written)
+            throws InterruptedException, ExecutionException {
+        while (!inFlight.tryAcquire(permits, 100, TimeUnit.MILLISECONDS)) {
+            if (written.isDone()) {
+                written.get();
+                throw new IllegalStateException("La etapa de escritura terminó antes de tiempo.");
+            }
+        }
+    }
+
+    private static void put(BlockingQueue<Result> queue, Result result) {
+        try {
+            queue.put(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static BufferedReader open(Path source) throws IOException {
+        InputStream in = Files.newInputStream(source);
+        if (source.getFileName().toString().toLowerCase().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    // ==============================
+    // Lectura de registros
+    // ==============================
+
+    /**
+     * Builds the attribute set of a record from field names and values.
+     */
+    private static Set<Attribute> toAttributes(Map<String, List<String>> fields) {
+        Set<Attribute> attributes = new HashSet<>();
+        for (Map.Entry<String, List<String>> field : fields.entrySet()) {
+            String name = METADATA_ATTRIBUTES.getOrDefault(field.getKey(), field.getKey());
+            List<String> values = field.getValue();
+            if (values.isEmpty() || (!PROPERTIES.contains(name) && name.indexOf('.') < 0)) {
+                continue;
+            }
+            if (BOOLEAN_PROPERTIES.contains(name)) {
+                attributes.add(AttributeBuilder.build(name, Boolean.parseBoolean(values.get(0))));
+            } else if (PROPERTIES.contains(name)) {
+                attributes.add(AttributeBuilder.build(name, values.get(0)));
+            } else {
+                attributes.add(AttributeBuilder.build(name, new ArrayList<Object>(values)));
+            }
+        }
+        return attributes;
+    }
+
+    private interface RecordReader {
+        /**
+         * @return The next record, or null at the end of the file.
+         */
+        Record next() throws IOException;
+    }
+
+    /**
+     * One JSON object per line; blank lines are skipped.
+     */
+    private static final class NdjsonRecordReader implements RecordReader {
+        private final BufferedReader reader;
+        private long line;
+
+        private NdjsonRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Record next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new Record(line, toAttributes(fields(new JSONObject(text))), null);
+                } catch (JSONException e) {
+                    return new Record(line, Set.of(), "JSON no válido: " + e.getMessage());
+                }
+            }
+            return null;
+        }
+
+        private static Map<String, List<String>> fields(JSONObject json) {
+            Map<String, List<String>> fields = new LinkedHashMap<>();
+            for (String key : json.keySet()) {
+                if (!"metadata".equals(key)) {
+                    fields.put(key, values(json.get(key)));
+                }
+            }
+            JSONObject metadata = json.optJSONObject("metadata");
+            if (metadata != null) {
+                for (String key : metadata.keySet()) {
+                    fields.put(key, values(metadata.get(key)));
+                }
+            }
+            return fields;
+        }
+
+        /**
+         * Plain values, arrays of values and DSpace metadata arrays ({@code [{"value": ...}]}).
+         */
+        private static List<String> values(Object value) {
+            List<String> values = new ArrayList<>();
+            if (value instanceof JSONArray) {
+                JSONArray array = (JSONArray) value;
+                for (int i = 0; i < array.length(); i++) {
+                    Object item = array.get(i);
+                    if (item instanceof JSONObject) {
+                        Object metadataValue = ((JSONObject) item).opt("value");
+                        if (metadataValue != null && metadataValue != JSONObject.NULL) {
+                            values.add(metadataValue.toString());
+                        }
+                    } else if (item != JSONObject.NULL) {
+                        values.add(item.toString());
+                    }
+                }
+            } else if (value != null && value != JSONObject.NULL && !(value instanceof JSONObject)) {
+                values.add(value.toString());
+            }
+            return values;
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row; quoted fields may contain commas, quotes and line breaks.
+     * Empty cells are skipped.
+     */
+    private static final class CsvRecordReader implements RecordReader {
+        private final BufferedReader reader;
+        private List<String> header;
+        private long line;
+        private long rowStart;
+
+        private CsvRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Record next() throws IOException {
+            if (header == null) {
+                header = readRow();
+                if (header == null) {
+                    return null;
+                }
+            }
+            List<String> row;
+            do {
+                row = readRow();
+                if (row == null) {
+                    return null;
+                }
+            } while (row.size() == 1 && row.get(0).isEmpty());
+
+            if (row.size() > header.size()) {
+                return new Record(rowStart, Set.of(), "La fila tiene más columnas que la cabecera.");
+            }
+            Map<String, List<String>> fields = new LinkedHashMap<>();
+            for (int i = 0; i < row.size(); i++) {
+                if (!row.get(i).isEmpty()) {
+                    fields.put(header.get(i).trim(), List.of(row.get(i)));
+                }
+            }
+            return new Record(rowStart, toAttributes(fields), null);
+        }
+
+        private List<String> readRow() throws IOException {
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            line++;
+            rowStart = line;
+            List<String> row = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            while (c >= 0) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int nextChar = reader.read();
+                        if (nextChar == '"') {
+                            cell.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        cell.append((char) c);
+                    }
+                } else if (c == '"' && cell.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    row.add(cell.toString());
+                    cell.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    cell.append((char) c);
+                }
+                c = reader.read();
+            }
+            row.add(cell.toString());
+            return row;
+        }
+    }
+
+    /**
+     * A parsed record, or the reason it could not be parsed.
+     */
+    private static final class Record {
+        private final long line;
+        private final Set<Attribute> attributes;
+        private final String error;
+
+        private Record(long line, Set<Attribute> attributes, String error) {
+            this.line = line;
+            this.attributes = attributes;
+            this.error = error;
+        }
+
+        private String email() {
+            for (Attribute attribute : attributes) {
+                if (ATTR_EMAIL.equals(attribute.getName()) && !attribute.getValue().isEmpty()) {
+                    return String.valueOf(attribute.getValue().get(0));
+                }
+            }
+            return null;
+        }
+    }
+
+    private enum Status {
+        CREATED, UPDATED, FAILED
+    }
+
+    private static final class Result {
+        private static final Result END = new Result(-1, null, Status.FAILED, null, null);
+
+        private final long line;
+        private final String email;
+        private final Status status;
+        private final String uuid;
+        private final String error;
+
+        private Result(long line, String email, Status status, String uuid, String error) {
+            this.line = line;
+            this.email = email;
+            this.status = status;
+            this.uuid = uuid;
+            this.error = error;
+        }
+
+        private static Result failed(Record record, String error) {
+            return new Result(record.line, record.email(), Status.FAILED, null, error);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.upeu.connector.bulk;
+
+import java.util.Locale;
+
+/**
+ * Outcome of an eperson export.
+ */
+public final class ExportSummary {
+
+    private final long records;
+    private final int pages;
+    private final long bytes;
+    private final long elapsedNanos;
+    private final boolean resumed;
+
+    ExportSummary(long records, int pages, long bytes, long elapsedNanos, boolean resumed) {
+        this.records = records;
+        this.pages = pages;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+        this.resumed = resumed;
+    }
+
+    /**
+     * Total epersons in the file, including those written by an earlier, interrupted run.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * HAL pages fetched by this run.
+     */
+    public int getPages() {
+        return pages;
+    }
+
+    /**
+     * Size of the output file.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Whether this run continued from the checkpoint of an earlier run.
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d epersons, %d pages, %d bytes in %.1f s%s",
+                records, pages, bytes, elapsedNanos / 1e9, resumed ? " (resumed)" : "");
+    }
+}
@@ -0,0 +1,51 @@
+package com.upeu.connector.bulk;
+
+import java.util.Locale;
+
+/**
+ * Outcome of an eperson import.
+ */
+public final class ImportSummary {
+
+    private final long created;
+    private final long updated;
+    private final long failed;
+    private final long elapsedNanos;
+
+    ImportSummary(long created, long updated, long failed, long elapsedNanos) {
+        this.created = created;
+        this.updated = updated;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Records that matched an existing eperson by email (upsert mode only).
+     */
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getTotal() {
+        return created + updated + failed;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        return String.format(Locale.ROOT, "%d records (%d created, %d updated, %d failed) in %.1f s (%.0f/s)",
+                getTotal(), created, updated, failed, seconds, seconds > 0 ? getTotal() / seconds : 0);
+    }
+}
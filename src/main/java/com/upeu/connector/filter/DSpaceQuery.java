@@ -0,0 +1,25 @@
+package com.upeu.connector.filter;
+
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+
+/**
+ * Native query produced by the filter translators of the connector.
+ * Each object class has its own implementation; they share the residual filter
+ * that is evaluated locally on whatever the server returns.
+ */
+public interface DSpaceQuery {
+
+    /**
+     * Filter that must still be evaluated on the returned objects, or null.
+     */
+    Filter getResidual();
+
+    /**
+     * Evaluates the residual filter on an object returned by DSpace.
+     *
+     * @param object Object built from the server response.
+     * @return true if the object satisfies the original filter.
+     */
+    boolean matches(ConnectorObject object);
+}
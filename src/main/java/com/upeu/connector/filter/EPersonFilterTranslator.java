@@ -1,124 +1,216 @@
 package com.upeu.connector.filter;
 
-import com.upeu.connector.util.EndpointRegistry;
 import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.Uid;
 import org.identityconnectors.framework.common.objects.filter.*;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
- * Translates MidPoint filters into query strings for the DSpace EPerson API.
+ * Translates MidPoint filters into native queries for the DSpace EPerson API.
+ * <p>
+ * The filter tree is compiled into the most selective DSpace endpoints:
+ * equality on the UID becomes a direct {@code GET epersons/{uuid}}, equality on the
+ * email goes to {@code search/byEmail}, equality and substring matches on email and
+ * names go to {@code search/byMetadata}. Whatever the
+ * server cannot answer exactly is kept as a residual filter on each query and
+ * evaluated locally by the connector.
  */
-public class EPersonFilterTranslator implements FilterTranslator<String> {
+public class EPersonFilterTranslator implements FilterTranslator<EPersonQuery> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EPersonFilterTranslator.class);
 
-    private static final String UNSUPPORTED_FILTER_TYPE = "Unsupported filter type: ";
-    private static final String UNSUPPORTED_ATTRIBUTE = "Unsupported attribute for filter: ";
+    private static final String ATTR_EMAIL = "email";
+    private static final String ATTR_FIRSTNAME = "firstname";
+    private static final String ATTR_LASTNAME = "lastname";
 
     /**
-     * Translates a MidPoint filter into a list of query parameters for the DSpace EPerson API.
+     * Translates a MidPoint filter into DSpace queries.
+     * An OR that needs several requests is returned as a single union query,
+     * so the connector can run the branches concurrently and merge the results.
      *
      * @param filter The MidPoint filter.
-     * @return A list of query strings for the API.
+     * @return The query to run; empty when there is no filter at all.
      */
     @Override
-    public List<String> translate(Filter filter) {
+    public List<EPersonQuery> translate(Filter filter) {
         if (filter == null) {
             // Si no hay filtro, devolver una lista vacía (no se aplica ningún filtro).
             return List.of();
         }
 
-        List<String> queries = new ArrayList<>();
-        if (filter instanceof EqualsFilter) {
-            translateEqualsFilter((EqualsFilter) filter, queries);
-        } else {
-            throw new UnsupportedOperationException(UNSUPPORTED_FILTER_TYPE + filter.getClass().getSimpleName());
+        List<EPersonQuery> queries = compile(filter);
+        if (queries == null) {
+            LOG.debug("El filtro no puede resolverse en el servidor, se evaluará localmente: {}", filter);
+            return List.of(EPersonQuery.all(filter));
         }
-        return queries;
+        LOG.debug("Filtro traducido a {} consulta(s): {}", queries.size(), queries);
+        return queries.size() == 1 ? queries : List.of(EPersonQuery.union(queries));
     }
 
     /**
-     * Handles translation of EqualsFilter for email-specific searches.
+     * Compiles a filter node.
      *
-     * @param filter The EqualsFilter instance.
-     * @param queries The list of query parameters to append to.
+     * @return The queries whose union is a superset of the filter, or null if
+     * the node cannot be narrowed on the server.
      */
-    private void translateEqualsFilter(EqualsFilter filter, List<String> queries) {
-        Attribute attribute = extractAttribute(filter);
-        String attributeName = attribute.getName();
-        String value = extractAttributeValue(attribute);
+    private List<EPersonQuery> compile(Filter filter) {
+        if (filter instanceof AndFilter) {
+            return compileAnd((AndFilter) filter);
+        }
+        if (filter instanceof OrFilter) {
+            return compileOr((OrFilter) filter);
+        }
+        if (filter instanceof EqualsFilter) {
+            return compileEquals((EqualsFilter) filter);
+        }
+        if (filter instanceof ContainsFilter
+                || filter instanceof StartsWithFilter
+                || filter instanceof EndsWithFilter) {
+            return compileSubstring((StringFilter) filter);
+        }
+        // NOT, comparaciones y demás filtros no tienen equivalente en la API.
+        return null;
+    }
 
-        if ("email".equalsIgnoreCase(attributeName)) {
-            // Use the specific endpoint for email-based searches
-            String endpoint = EndpointRegistry.getEndpoint("epersons.search.byEmail");
-            queries.add(endpoint + "?email=" + encode(value));
-        } else {
-            // For all other attributes, fallback to metadata-based search
-            String endpoint = EndpointRegistry.getEndpoint("epersons.search.byMetadata");
-            queries.add(endpoint + "?query=" + encode(value));
+    /**
+     * Keeps only the most selective branch of the AND; the whole AND becomes the residual.
+     */
+    private List<EPersonQuery> compileAnd(AndFilter filter) {
+        List<EPersonQuery> best = null;
+        for (Filter child : filter.getFilters()) {
+            List<EPersonQuery> candidate = compile(child);
+            if (candidate != null && isMoreSelective(candidate, best)) {
+                best = candidate;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        List<EPersonQuery> queries = new ArrayList<>(best.size());
+        for (EPersonQuery query : best) {
+            queries.add(query.withResidual(filter));
         }
+        return queries;
     }
 
     /**
-     * Handles generic filters for metadata-based searches.
-     *
-     * @param filter The filter instance.
-     * @param queries The list of query parameters to append to.
+     * Every branch of the OR must be pushable; the result is the union of the branches.
      */
-    private void translateGenericFilter(Filter filter, List<String> queries) {
-        Attribute attribute = extractAttribute(filter);
-        String attributeName = attribute.getName();
+    private List<EPersonQuery> compileOr(OrFilter filter) {
+        List<EPersonQuery> queries = new ArrayList<>();
+        for (Filter child : filter.getFilters()) {
+            List<EPersonQuery> branch = compile(child);
+            if (branch == null) {
+                return null;
+            }
+            for (EPersonQuery query : branch) {
+                merge(queries, query);
+            }
+        }
+        return queries;
+    }
+
+    private List<EPersonQuery> compileEquals(EqualsFilter filter) {
+        Attribute attribute = filter.getAttribute();
         String value = extractAttributeValue(attribute);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
 
-        // Metadata-based searches support first name, last name, email, and UUID
-        switch (attributeName.toLowerCase()) {
-            case "email":
-            case "firstname":
-            case "lastname":
-            case "uuid":
-                String endpoint = EndpointRegistry.getEndpoint("epersons.search.byMetadata");
-                queries.add(endpoint + "?query=" + encode(value));
-                break;
-            default:
-                throw new UnsupportedOperationException(UNSUPPORTED_ATTRIBUTE + attributeName);
+        String name = attribute.getName();
+        if (Uid.NAME.equals(name)) {
+            // Lectura directa por UUID; un OR de UIDs se convierte en varias lecturas en paralelo.
+            return List.of(EPersonQuery.byUid(value, null));
         }
+        if (ATTR_EMAIL.equalsIgnoreCase(name) || Name.NAME.equals(name)) {
+            // search/byEmail devuelve exactamente el EPerson buscado.
+            return List.of(EPersonQuery.byEmail(value, null));
+        }
+        if (ATTR_FIRSTNAME.equalsIgnoreCase(name) || ATTR_LASTNAME.equalsIgnoreCase(name)) {
+            return List.of(EPersonQuery.byMetadata(value, filter));
+        }
+        return null;
+    }
+
+    private List<EPersonQuery> compileSubstring(StringFilter filter) {
+        String name = filter.getName();
+        String value = filter.getValue();
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        if (ATTR_EMAIL.equalsIgnoreCase(name)
+                || Name.NAME.equals(name)
+                || ATTR_FIRSTNAME.equalsIgnoreCase(name)
+                || ATTR_LASTNAME.equalsIgnoreCase(name)) {
+            // byMetadata hace una búsqueda parcial: el resultado es un superconjunto.
+            return List.of(EPersonQuery.byMetadata(value, filter));
+        }
+        return null;
     }
 
     /**
-     * Extracts the attribute from a filter.
-     *
-     * @param filter The filter instance.
-     * @return The attribute from the filter.
+     * Compares two candidate translations of AND branches.
+     * A single request always beats a fan-out, then the most selective endpoint wins.
      */
-    private Attribute extractAttribute(Filter filter) {
-        if (filter instanceof AttributeFilter) {
-            return ((AttributeFilter) filter).getAttribute();
+    private boolean isMoreSelective(List<EPersonQuery> candidate, List<EPersonQuery> current) {
+        if (current == null) {
+            return true;
+        }
+        if (candidate.size() != current.size()) {
+            return candidate.size() < current.size();
+        }
+        return minSelectivity(candidate) > minSelectivity(current);
+    }
+
+    private int minSelectivity(List<EPersonQuery> queries) {
+        int min = Integer.MAX_VALUE;
+        for (EPersonQuery query : queries) {
+            min = Math.min(min, query.selectivity());
         }
-        throw new IllegalArgumentException("Filter does not contain an attribute: " + filter.getClass().getSimpleName());
+        return min;
     }
 
     /**
-     * Extracts the value from an attribute.
-     *
-     * @param attribute The attribute instance.
-     * @return The first value of the attribute.
+     * Adds a query to an OR union, collapsing requests that hit the same endpoint with the same value.
      */
-    private String extractAttributeValue(Attribute attribute) {
-        if (attribute.getValue() == null || attribute.getValue().isEmpty()) {
-            throw new IllegalArgumentException("Attribute value cannot be null or empty for: " + attribute.getName());
+    private void merge(List<EPersonQuery> queries, EPersonQuery query) {
+        for (int i = 0; i < queries.size(); i++) {
+            EPersonQuery existing = queries.get(i);
+            if (existing.sameRequest(query)) {
+                queries.set(i, existing.withResidual(unionResidual(existing.getResidual(), query.getResidual())));
+                return;
+            }
         }
-        Object value = attribute.getValue().get(0);
-        return value != null ? value.toString() : "";
+        queries.add(query);
+    }
+
+    private Filter unionResidual(Filter left, Filter right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        return FilterBuilder.or(left, right);
     }
 
     /**
-     * Encodes a value for safe usage in a URL query parameter.
+     * Extracts the value from an attribute.
      *
-     * @param value The value to encode.
-     * @return The URL-encoded value.
+     * @param attribute The attribute instance.
+     * @return The first value of the attribute, or null if it has none.
      */
-    private String encode(String value) {
-        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    private String extractAttributeValue(Attribute attribute) {
+        Collection<Object> values = attribute.getValue();
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        Object value = values.iterator().next();
+        return value != null ? value.toString() : null;
     }
 }
@@ -0,0 +1,223 @@
+package com.upeu.connector.filter;
+
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Native DSpace query produced by {@link EPersonFilterTranslator}.
+ * Holds the search endpoint to call, its parameters and the residual filter
+ * that must still be evaluated locally on the returned objects. A union query
+ * groups the branches of an OR so they can be executed concurrently.
+ */
+public final class EPersonQuery implements DSpaceQuery {
+
+    /**
+     * DSpace endpoints a query can be pushed down to, from least to most selective.
+     */
+    public enum Type {
+        UNION(null, null),
+        ALL("epersons", null),
+        BY_METADATA("epersons.search.byMetadata", "query"),
+        BY_EMAIL("epersons.search.byEmail", "email"),
+        BY_UID("epersons", null);
+
+        private final String endpointKey;
+        private final String parameter;
+
+        Type(String endpointKey, String parameter) {
+            this.endpointKey = endpointKey;
+            this.parameter = parameter;
+        }
+    }
+
+    private final Type type;
+    private final String value;
+    private final Filter residual;
+    private final List<EPersonQuery> branches;
+
+    private EPersonQuery(Type type, String value, Filter residual, List<EPersonQuery> branches) {
+        this.type = Objects.requireNonNull(type, "El tipo de consulta no puede ser nulo.");
+        this.value = value;
+        this.residual = residual;
+        this.branches = branches;
+    }
+
+    private EPersonQuery(Type type, String value, Filter residual) {
+        this(type, value, residual, List.of());
+    }
+
+    /**
+     * Full scan of the eperson collection.
+     *
+     * @param residual Filter to evaluate locally, or null to return everything.
+     */
+    public static EPersonQuery all(Filter residual) {
+        return new EPersonQuery(Type.ALL, null, residual);
+    }
+
+    /**
+     * Exact lookup through {@code search/byEmail}.
+     */
+    public static EPersonQuery byEmail(String email, Filter residual) {
+        return new EPersonQuery(Type.BY_EMAIL, email, residual);
+    }
+
+    /**
+     * Substring lookup through {@code search/byMetadata} (email, first name, last name or UUID).
+     */
+    public static EPersonQuery byMetadata(String query, Filter residual) {
+        return new EPersonQuery(Type.BY_METADATA, query, residual);
+    }
+
+    /**
+     * Direct read of one eperson through {@code GET epersons/{uuid}}.
+     */
+    public static EPersonQuery byUid(String uuid, Filter residual) {
+        return new EPersonQuery(Type.BY_UID, uuid, residual);
+    }
+
+    /**
+     * Union of several queries; each branch keeps its own residual filter.
+     *
+     * @param branches Queries to run, at least two.
+     */
+    public static EPersonQuery union(List<EPersonQuery> branches) {
+        if (branches == null || branches.size() < 2) {
+            throw new IllegalArgumentException("Una unión requiere al menos dos consultas.");
+        }
+        return new EPersonQuery(Type.UNION, null, null, List.copyOf(branches));
+    }
+
+    /**
+     * Returns a copy of this query with a different residual filter.
+     */
+    public EPersonQuery withResidual(Filter residual) {
+        if (type == Type.UNION) {
+            throw new IllegalStateException("El filtro residual de una unión está en sus ramas.");
+        }
+        return new EPersonQuery(type, value, residual);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public Filter getResidual() {
+        return residual;
+    }
+
+    public boolean isUnion() {
+        return type == Type.UNION;
+    }
+
+    /**
+     * Branches of a union query; empty for a simple query.
+     */
+    public List<EPersonQuery> getBranches() {
+        return branches;
+    }
+
+    /**
+     * Key of the endpoint in {@link com.upeu.connector.util.EndpointRegistry}.
+     */
+    public String getEndpointKey() {
+        return type.endpointKey;
+    }
+
+    /**
+     * Query parameters to send to the endpoint (not encoded).
+     * A {@link Type#BY_UID} query carries its value in the path instead.
+     */
+    public Map<String, String> getParameters() {
+        if (type.parameter == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put(type.parameter, value);
+        return params;
+    }
+
+    /**
+     * Whether the server answer is already the final result (no local evaluation needed).
+     */
+    public boolean isExact() {
+        return residual == null;
+    }
+
+    /**
+     * Evaluates the residual filter on an object returned by DSpace.
+     *
+     * @param object Object built from the server response.
+     * @return true if the object satisfies the original filter.
+     */
+    @Override
+    public boolean matches(ConnectorObject object) {
+        return residual == null || residual.accept(object);
+    }
+
+    /**
+     * Relative selectivity used to pick the best branch of an AND.
+     * Higher is better: direct reads first, then exact email lookups, then longer metadata queries.
+     */
+    int selectivity() {
+        switch (type) {
+            case BY_UID:
+                return Integer.MAX_VALUE;
+            case BY_EMAIL:
+                return Integer.MAX_VALUE - 1;
+            case BY_METADATA:
+                return 1 + value.length();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Two queries are equivalent when they hit the same endpoint with the same value.
+     */
+    boolean sameRequest(EPersonQuery other) {
+        return type == other.type && Objects.equals(value, other.value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EPersonQuery)) {
+            return false;
+        }
+        EPersonQuery that = (EPersonQuery) o;
+        return sameRequest(that)
+                && Objects.equals(residual, that.residual)
+                && branches.equals(that.branches);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, value, residual, branches);
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.UNION) {
+            return "EPersonQuery{type=UNION, branches=" + branches + '}';
+        }
+        return "EPersonQuery{" +
+                "type=" + type +
+                ", value='" + value + '\'' +
+                ", residual=" + residual +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package com.upeu.connector.filter;
+
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Translates MidPoint filters into native queries for the DSpace Group API.
+ * <p>
+ * Equality on the UID becomes a direct {@code GET groups/{uuid}}; equality and substring
+ * matches on the name go to {@code groups/search/byMetadata}, which matches partially, so the
+ * original filter is always kept as residual. An AND is narrowed by its most selective child;
+ * anything else is resolved with a full scan and evaluated locally.
+ */
+public class GroupFilterTranslator implements FilterTranslator<GroupQuery> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GroupFilterTranslator.class);
+
+    private static final String ATTR_NAME = "name";
+
+    @Override
+    public List<GroupQuery> translate(Filter filter) {
+        if (filter == null) {
+            return List.of();
+        }
+        GroupQuery query = compile(filter);
+        if (query == null) {
+            LOG.debug("El filtro de grupos se evaluará localmente: {}", filter);
+            return List.of(GroupQuery.all(filter));
+        }
+        LOG.debug("Filtro de grupos traducido a: {}", query);
+        return List.of(query);
+    }
+
+    private GroupQuery compile(Filter filter) {
+        if (filter instanceof AndFilter) {
+            GroupQuery best = null;
+            for (Filter child : ((AndFilter) filter).getFilters()) {
+                GroupQuery candidate = compile(child);
+                if (candidate != null && (best == null || candidate.getType().ordinal() > best.getType().ordinal())) {
+                    best = candidate;
+                }
+            }
+            return best != null ? best.withResidual(filter) : null;
+        }
+        if (filter instanceof EqualsFilter) {
+            Attribute attribute = ((EqualsFilter) filter).getAttribute();
+            String value = extractAttributeValue(attribute);
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            if (Uid.NAME.equals(attribute.getName())) {
+                return GroupQuery.byUid(value, null);
+            }
+            return isName(attribute.getName()) ? GroupQuery.byMetadata(value, filter) : null;
+        }
+        if (filter instanceof ContainsFilter || filter instanceof StartsWithFilter || filter instanceof EndsWithFilter) {
+            StringFilter stringFilter = (StringFilter) filter;
+            String value = stringFilter.getValue();
+            if (value == null || value.isEmpty() || !isName(stringFilter.getName())) {
+                return null;
+            }
+            return GroupQuery.byMetadata(value, filter);
+        }
+        // OR, NOT y comparaciones: recorrido completo con evaluación local.
+        return null;
+    }
+
+    private boolean isName(String attributeName) {
+        return Name.NAME.equals(attributeName) || ATTR_NAME.equalsIgnoreCase(attributeName);
+    }
+
+    private String extractAttributeValue(Attribute attribute) {
+        Collection<Object> values = attribute.getValue();
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        Object value = values.iterator().next();
+        return value != null ? value.toString() : null;
+    }
+}
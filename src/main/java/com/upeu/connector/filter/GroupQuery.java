@@ -0,0 +1,139 @@
+package com.upeu.connector.filter;
+
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Native DSpace query for groups, produced by {@link GroupFilterTranslator}.
+ */
+public final class GroupQuery implements DSpaceQuery {
+
+    /**
+     * DSpace endpoints a group query can be pushed down to, from least to most selective.
+     */
+    public enum Type {
+        ALL("groups", null),
+        BY_METADATA("groups.search.byMetadata", "query"),
+        BY_UID("groups", null);
+
+        private final String endpointKey;
+        private final String parameter;
+
+        Type(String endpointKey, String parameter) {
+            this.endpointKey = endpointKey;
+            this.parameter = parameter;
+        }
+    }
+
+    private final Type type;
+    private final String value;
+    private final Filter residual;
+
+    private GroupQuery(Type type, String value, Filter residual) {
+        this.type = Objects.requireNonNull(type, "El tipo de consulta no puede ser nulo.");
+        this.value = value;
+        this.residual = residual;
+    }
+
+    /**
+     * Full scan of the group collection.
+     *
+     * @param residual Filter to evaluate locally, or null to return everything.
+     */
+    public static GroupQuery all(Filter residual) {
+        return new GroupQuery(Type.ALL, null, residual);
+    }
+
+    /**
+     * Substring lookup on the group name through {@code search/byMetadata}.
+     */
+    public static GroupQuery byMetadata(String query, Filter residual) {
+        return new GroupQuery(Type.BY_METADATA, query, residual);
+    }
+
+    /**
+     * Direct read of one group through {@code GET groups/{uuid}}.
+     */
+    public static GroupQuery byUid(String uuid, Filter residual) {
+        return new GroupQuery(Type.BY_UID, uuid, residual);
+    }
+
+    /**
+     * Returns a copy of this query with a different residual filter.
+     */
+    public GroupQuery withResidual(Filter residual) {
+        return new GroupQuery(type, value, residual);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public Filter getResidual() {
+        return residual;
+    }
+
+    /**
+     * Key of the endpoint in {@link com.upeu.connector.util.EndpointRegistry}.
+     */
+    public String getEndpointKey() {
+        return type.endpointKey;
+    }
+
+    /**
+     * Query parameters to send to the endpoint (not encoded).
+     */
+    public Map<String, String> getParameters() {
+        if (type.parameter == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put(type.parameter, value);
+        return params;
+    }
+
+    public boolean isExact() {
+        return residual == null;
+    }
+
+    @Override
+    public boolean matches(ConnectorObject object) {
+        return residual == null || residual.accept(object);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GroupQuery)) {
+            return false;
+        }
+        GroupQuery that = (GroupQuery) o;
+        return type == that.type && Objects.equals(value, that.value) && Objects.equals(residual, that.residual);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, value, residual);
+    }
+
+    @Override
+    public String toString() {
+        return "GroupQuery{" +
+                "type=" + type +
+                ", value='" + value + '\'' +
+                ", residual=" + residual +
+                '}';
+    }
+}
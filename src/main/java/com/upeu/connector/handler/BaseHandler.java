@@ -1,13 +1,21 @@
 package com.upeu.connector.handler;
 
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.ResultsHandler;
+import org.identityconnectors.framework.common.objects.SearchResult;
+import org.identityconnectors.framework.spi.SearchResultsHandler;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.upeu.connector.DSpaceClient;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -47,51 +55,145 @@ public abstract class BaseHandler {
     }
 
     /**
-     * Realiza una operación genérica de actualización.
+     * Realiza una operación genérica de actualización con un JSON Patch
+     * ({@code PATCH <endpoint>/<id>}).
      *
      * @param endpointKey Clave del endpoint.
      * @param id          ID de la entidad.
-     * @param updates     Datos actualizados en formato JSON.
+     * @param operations  Operaciones JSON Patch.
      * @return Respuesta de la API en formato JSON.
      */
-    public JSONObject update(String endpointKey, String id, JSONObject updates) {
+    public JSONObject update(String endpointKey, String id, JSONArray operations) {
         try {
-            String fullEndpoint = constructEndpointWithParams(endpointKey, "id=" + id);
-            String response = dSpaceClient.put(fullEndpoint, updates.toString());
-            logger.info("Entidad actualizada exitosamente en: {}", fullEndpoint);
-            return new JSONObject(response);
+            JSONObject response = dSpaceClient.patchById(endpointKey, id, operations.toString());
+            logger.info("Entidad actualizada exitosamente en: {}/{}", endpointKey, id);
+            return response;
         } catch (Exception e) {
-            logger.error("Error al actualizar en {}: {}", endpointKey, e.getMessage());
-            throw new RuntimeException(e);
+            logger.error("Error al actualizar {} en {}: {}", id, endpointKey, e.getMessage());
+            throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
         }
     }
 
     /**
-     * Realiza una operación genérica de eliminación.
+     * Realiza una operación genérica de eliminación ({@code DELETE <endpoint>/<id>}).
      *
      * @param endpointKey Clave del endpoint.
      * @param id          ID de la entidad.
      */
     public void delete(String endpointKey, String id) {
         try {
-            String fullEndpoint = constructEndpointWithParams(endpointKey, "id=" + id);
-            dSpaceClient.delete(fullEndpoint);
-            logger.info("Entidad eliminada en: {}", fullEndpoint);
+            dSpaceClient.deleteById(endpointKey, id);
+            logger.info("Entidad eliminada en: {}/{}", endpointKey, id);
         } catch (Exception e) {
-            logger.error("Error al eliminar en {}: {}", endpointKey, e.getMessage());
-            throw new RuntimeException(e);
+            logger.error("Error al eliminar {} en {}: {}", id, endpointKey, e.getMessage());
+            throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+        }
+    }
+
+    // ==============================
+    // Paginación de búsquedas
+    // ==============================
+
+    /**
+     * Informa al handler el resultado de una búsqueda paginada: la cookie de la siguiente
+     * posición y el número de resultados restantes.
+     */
+    protected static void completePage(ResultsHandler handler, int next, int remaining) {
+        if (handler instanceof SearchResultsHandler) {
+            String cookie = remaining != 0 ? String.valueOf(next) : null;
+            ((SearchResultsHandler) handler).handleResult(new SearchResult(cookie, remaining, remaining == 0));
+        }
+    }
+
+    /**
+     * Posición inicial (base cero) de la página: la cookie tiene prioridad sobre el offset (base uno).
+     */
+    protected static int startIndex(OperationOptions options) {
+        String cookie = options.getPagedResultsCookie();
+        if (cookie != null && !cookie.isEmpty()) {
+            try {
+                int position = Integer.parseInt(cookie);
+                if (position >= 0) {
+                    return position;
+                }
+            } catch (NumberFormatException e) {
+                // se informa abajo
+            }
+            throw new IllegalArgumentException("Cookie de paginación no válida: " + cookie);
+        }
+        Integer offset = options.getPagedResultsOffset();
+        return offset != null && offset > 0 ? offset - 1 : 0;
+    }
+
+    /**
+     * Indica si un valor tiene formato de UUID; un UID que no lo tiene no puede existir en DSpace.
+     */
+    protected static boolean isUuid(String value) {
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    protected static Map<String, String> merge(Map<String, String> params, Map<String, String> extra) {
+        if (extra.isEmpty()) {
+            return params;
         }
+        Map<String, String> merged = new LinkedHashMap<>(params);
+        merged.putAll(extra);
+        return merged;
     }
 
     /**
-     * Construye un endpoint con parámetros de consulta opcionales.
+     * Handler intermedio que aplica la ventana de paginación. Al llegar el primer resultado
+     * posterior a la página detiene la búsqueda: basta para saber que hay más, sin descargar el resto.
      */
-    protected String constructEndpointWithParams(String endpointKey, String... queryParams) {
-        String fullEndpoint = dSpaceClient.getAuthManager().buildEndpoint(endpointKey);
-        if (queryParams != null && queryParams.length > 0) {
-            fullEndpoint += "?" + String.join("&", queryParams);
+    protected static final class PagingResultsHandler implements ResultsHandler {
+        private final ResultsHandler delegate;
+        private final int start;
+        private final int pageSize;
+        private int seen;
+        private int delivered;
+        private boolean more;
+        private boolean stopped;
+
+        protected PagingResultsHandler(ResultsHandler delegate, int start, int pageSize) {
+            this.delegate = delegate;
+            this.start = start;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean handle(ConnectorObject connectorObject) {
+            int index = seen++;
+            if (index < start) {
+                return true;
+            }
+            if (delivered < pageSize) {
+                delivered++;
+                if (!delegate.handle(connectorObject)) {
+                    stopped = true;
+                    return false;
+                }
+                return true;
+            }
+            more = true;
+            return false;
+        }
+
+        public int getDelivered() {
+            return delivered;
+        }
+
+        /**
+         * Resultados restantes tras la página: 0 si la búsqueda se agotó; -1 (desconocido) si quedan
+         * más o si el handler la detuvo antes.
+         */
+        public int getRemaining() {
+            return more || stopped ? -1 : 0;
         }
-        return fullEndpoint;
     }
 
     /**
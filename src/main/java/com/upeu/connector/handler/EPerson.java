@@ -3,8 +3,13 @@ package com.upeu.connector.handler;
 import com.upeu.connector.util.ValidationJsonUtil;
 import org.identityconnectors.framework.common.objects.ConnectorObject;
 import org.identityconnectors.framework.common.objects.ConnectorObjectBuilder;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Clase que representa un EPerson en DSpace.
  */
@@ -15,6 +20,7 @@ public class EPerson {
     private final String firstName;
     private final String lastName;
     private final boolean canLogIn;
+    private final JSONObject metadata;
 
     /**
      * Constructor que inicializa un EPerson desde un JSON.
@@ -28,9 +34,14 @@ public class EPerson {
         // Extraer y validar campos obligatorios
         this.id = json.optString("id", null);
         this.email = json.optString("email", null);
-        this.firstName = ValidationJsonUtil.extractMetadataValue(json, "eperson.firstname");
-        this.lastName = ValidationJsonUtil.extractMetadataValue(json, "eperson.lastname");
+        JSONObject metadata = json.optJSONObject("metadata");
+        if (metadata == null) {
+            metadata = json;
+        }
+        this.firstName = ValidationJsonUtil.extractMetadataValue(metadata, "eperson.firstname");
+        this.lastName = ValidationJsonUtil.extractMetadataValue(metadata, "eperson.lastname");
         this.canLogIn = json.optBoolean("canLogIn", false);
+        this.metadata = metadata;
 
         // Validación de campos obligatorios
         ValidationJsonUtil.validateNotEmpty(this.id, "El campo 'id' es obligatorio en el JSON del EPerson.");
@@ -68,12 +79,41 @@ public class EPerson {
      * @return ConnectorObject construido a partir de los atributos de EPerson.
      */
     public ConnectorObject toConnectorObject() {
+        return toConnectorObject(List.of());
+    }
+
+    /**
+     * Convierte este EPerson en un ConnectorObject incluyendo campos de metadatos adicionales.
+     *
+     * @param metadataFields Claves de metadatos (p. ej. "eperson.phone") a exponer como atributos
+     *                       multivaluados; los campos ausentes se omiten.
+     * @return ConnectorObject construido a partir de los atributos de EPerson.
+     */
+    public ConnectorObject toConnectorObject(Collection<String> metadataFields) {
         ConnectorObjectBuilder builder = new ConnectorObjectBuilder();
         builder.setUid(this.id);
         builder.setName(this.email); // Usamos el email como nombre único
+        builder.addAttribute("email", this.email);
         builder.addAttribute("firstname", this.firstName);
         builder.addAttribute("lastname", this.lastName);
         builder.addAttribute("canLogIn", this.canLogIn);
+        for (String field : metadataFields) {
+            JSONArray values = metadata.optJSONArray(field);
+            if (values != null && !values.isEmpty()) {
+                List<String> strings = new ArrayList<>(values.length());
+                for (int i = 0; i < values.length(); i++) {
+                    JSONObject value = values.optJSONObject(i);
+                    // Un valor JSON null se omite en lugar de romper el mapeo
+                    String string = value != null ? value.optString("value", null) : null;
+                    if (string != null) {
+                        strings.add(string);
+                    }
+                }
+                if (!strings.isEmpty()) {
+                    builder.addAttribute(field, strings);
+                }
+            }
+        }
         return builder.build();
     }
 
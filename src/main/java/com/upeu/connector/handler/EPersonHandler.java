@@ -1,31 +1,142 @@
 package com.upeu.connector.handler;
 
 import com.upeu.connector.DSpaceClient;
-import com.upeu.connector.util.EndpointRegistry;
+import com.upeu.connector.auth.HttpStatusException;
+import com.upeu.connector.auth.OperationDeadline;
+import com.upeu.connector.filter.EPersonQuery;
+import com.upeu.connector.metrics.OperationTrace;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.metrics.TracePhase;
+import com.upeu.connector.schema.SchemaProvider;
+import com.upeu.connector.util.UuidSet;
 import com.upeu.connector.util.ValidationJsonUtil;
+import org.identityconnectors.framework.common.exceptions.AlreadyExistsException;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.exceptions.UnknownUidException;
 import org.identityconnectors.framework.common.objects.*;
+import org.identityconnectors.framework.spi.SearchResultsHandler;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Handler para gestionar operaciones relacionadas con EPersons.
  */
 public class EPersonHandler extends BaseHandler {
 
+    // Atributos de ConnId que DSpace sabe ordenar, con su nombre en el parámetro sort
+    private static final Map<String, String> SORT_FIELDS = Map.of(
+            Name.NAME, "email",
+            "email", "email",
+            "firstname", "firstname",
+            "lastname", "lastname");
+
+    // Orden de las uniones paginadas sin orden explícito; el mismo que el del recorrido por shards
+    private static final Map<String, String> DEFAULT_ORDER = Map.of("sort", "email,ASC");
+
+    private static final String ENDPOINT = "epersons";
+
+    // Atributos de ConnId que son propiedades directas del recurso EPerson
+    private static final Map<String, String> PROPERTY_PATHS = Map.of(
+            Name.NAME, "/email",
+            "email", "/email",
+            "canLogIn", "/canLogIn",
+            "netid", "/netid",
+            "requireCertificate", "/requireCertificate");
+
+    // Propiedades opcionales que se envían tal cual al crear
+    private static final List<String> CREATE_PROPERTIES = List.of("canLogIn", "netid", "requireCertificate");
+
+    // Atributos de ConnId que se guardan como metadatos del EPerson
+    private static final Map<String, String> METADATA_KEYS = Map.of(
+            "firstname", "eperson.firstname",
+            "lastname", "eperson.lastname");
+
+    // Atributo con los grupos del EPerson; solo se devuelve si se solicita
+    public static final String ATTR_GROUPS = "groups";
+
+    // Hasta este número de resultados los grupos se piden por EPerson; por encima se usa el índice invertido
+    private static final int SMALL_RESULT_THRESHOLD = 50;
+
+    // Tamaño de página de cada rama de una fusión ordenada; el de los listados de DSpaceClient
+    private static final int BRANCH_PAGE_SIZE = 100;
+
+    private final ExecutorService searchExecutor;
+    private final OperationTracer tracer;
+    private final GroupMembershipResolver membershipResolver;
+    private final SchemaProvider schemaProvider;
+    private final ShardedScanner fullScanner;
+    private final UpdateCoalescer updateCoalescer;
+    private final EPersonStateCache stateCache;
+    private final boolean returnExistingOnCreate;
+    private final AtomicLong sentWrites = new AtomicLong();
+    private final AtomicLong skippedWrites = new AtomicLong();
+
     /**
      * Constructor de EPersonHandler.
      *
-     * @param dSpaceClient Instancia del cliente DSpace.
+     * @param dSpaceClient   Instancia del cliente DSpace.
+     * @param searchExecutor Ejecutor usado para lanzar en paralelo las ramas de un OR.
      */
-    public EPersonHandler(DSpaceClient dSpaceClient) {
+    public EPersonHandler(DSpaceClient dSpaceClient, ExecutorService searchExecutor) {
+        this(dSpaceClient, searchExecutor, new Options());
+    }
+
+    /**
+     * Constructor de EPersonHandler con los colaboradores opcionales indicados.
+     *
+     * @param dSpaceClient   Instancia del cliente DSpace.
+     * @param searchExecutor Ejecutor usado para lanzar en paralelo las ramas de un OR.
+     * @param options        Colaboradores opcionales y comportamiento al crear; ver {@link Options}.
+     */
+    public EPersonHandler(DSpaceClient dSpaceClient, ExecutorService searchExecutor, Options options) {
         super(dSpaceClient);
+        this.searchExecutor = ValidationJsonUtil.validateNotNull(searchExecutor, "El ejecutor de búsquedas no puede ser nulo.");
+        this.tracer = dSpaceClient.getTracer();
+        ValidationJsonUtil.validateNotNull(options, "Las opciones no pueden ser nulas.");
+        this.membershipResolver = options.membershipResolver;
+        this.schemaProvider = options.schemaProvider;
+        this.fullScanner = options.fullScanner;
+        this.updateCoalescer = options.updateCoalescer;
+        this.stateCache = options.stateCache;
+        this.returnExistingOnCreate = options.returnExistingOnCreate;
     }
 
     /**
      * Crea un nuevo EPerson.
+     * Si ya existe uno con el mismo email, devuelve su Uid o lanza {@link AlreadyExistsException}
+     * según la configuración.
      */
     public Uid create(Set<Attribute> attributes) {
+        return create(attributes, returnExistingOnCreate);
+    }
+
+    /**
+     * Crea un nuevo EPerson sin repetir peticiones fallidas cuando el email ya existe.
+     * El email se busca primero en la caché de estado, sin peticiones; si DSpace rechaza
+     * la creación por conflicto (409 o 422), se consulta {@code search/byEmail} una vez.
+     *
+     * @param attributes     Atributos del EPerson.
+     * @param returnExisting true para devolver el Uid del EPerson existente; false para lanzar
+     *                       {@link AlreadyExistsException} con ese Uid.
+     */
+    public Uid create(Set<Attribute> attributes, boolean returnExisting) {
         // Validación de atributos requeridos
         String email = ValidationJsonUtil.validateNotNull(
                 AttributeUtil.getStringValue(AttributeUtil.find("email", attributes)),
@@ -43,44 +154,839 @@ public class EPersonHandler extends BaseHandler {
         // Crear payload utilizando las utilidades centralizadas
         JSONObject payload = new JSONObject();
         payload.put("email", email);
-        payload.put("metadata", new JSONObject()
+        for (String property : CREATE_PROPERTIES) {
+            Attribute attribute = AttributeUtil.find(property, attributes);
+            Object value = attribute != null ? AttributeUtil.getSingleValue(attribute) : null;
+            if (value != null) {
+                payload.put(property, value);
+            }
+        }
+        JSONObject metadata = new JSONObject()
                 .put("eperson.firstname", ValidationJsonUtil.createMetadataArray(firstName))
-                .put("eperson.lastname", ValidationJsonUtil.createMetadataArray(lastName)));
+                .put("eperson.lastname", ValidationJsonUtil.createMetadataArray(lastName));
+        if (schemaProvider != null) {
+            // Campos dinámicos del registro de metadatos
+            for (String field : schemaProvider.getMetadataFields()) {
+                Attribute attribute = AttributeUtil.find(field, attributes);
+                if (attribute != null && attribute.getValue() != null && !attribute.getValue().isEmpty()) {
+                    JSONArray values = new JSONArray();
+                    attribute.getValue().forEach(value -> values.put(new JSONObject().put("value", String.valueOf(value))));
+                    metadata.put(field, values);
+                }
+            }
+        }
+        payload.put("metadata", metadata);
+
+        // Un EPerson ya visto con este email no se intenta crear, si sigue existiendo con ese email
+        Optional<String> known = stateCache != null ? stateCache.findIdByEmail(email) : Optional.empty();
+        if (known.isPresent() && confirmEmail(known.get(), email)) {
+            return existing(email, known.get(), returnExisting);
+        }
 
         // Crear EPerson usando el método genérico de BaseHandler
-        JSONObject response = create(EndpointRegistry.getEndpoint("epersons"), payload);
+        JSONObject response;
+        try {
+            response = create(ENDPOINT, payload);
+        } catch (RuntimeException e) {
+            HttpStatusException status = HttpStatusException.find(e);
+            if (status == null || !status.isConflict()) {
+                throw e;
+            }
+            // El conflicto puede deberse a otro motivo: solo se trata como duplicado si el email existe
+            String existingId = findIdByEmail(email).orElseThrow(() -> e);
+            return existing(email, existingId, returnExisting);
+        }
 
         // Validar y devolver el ID del nuevo recurso
         return new Uid(ValidationJsonUtil.validateNotNull(response.getString("id"), "La respuesta no contiene un ID."));
     }
 
     /**
-     * Actualiza un EPerson existente.
+     * Comprueba con una lectura que un EPerson de la caché sigue existiendo con ese email: pudo
+     * borrarse o cambiar de email directamente en DSpace. Si no, se quita de la caché.
+     */
+    private boolean confirmEmail(String id, String email) {
+        Optional<JSONObject> current = dSpaceClient.getById(ENDPOINT, id);
+        if (current.isPresent() && email.equalsIgnoreCase(current.get().optString("email", ""))) {
+            stateCache.put(current.get());
+            return true;
+        }
+        logger.debug("El EPerson {} de la caché ya no existe con el email {}; se descarta.", id, email);
+        stateCache.invalidate(id);
+        return false;
+    }
+
+    private Uid existing(String email, String id, boolean returnExisting) {
+        Uid uid = new Uid(id);
+        if (returnExisting) {
+            logger.info("El EPerson con email {} ya existe ({}); se devuelve el existente.", email, id);
+            return uid;
+        }
+        throw new AlreadyExistsException("Ya existe un EPerson con el email " + email + ".").initUid(uid);
+    }
+
+    /**
+     * Indica si un atributo es un campo de metadatos que este handler sabe escribir.
+     *
+     * @param name Nombre del atributo (p. ej. "firstname" o "eperson.phone").
+     */
+    public boolean isMetadataAttribute(String name) {
+        return METADATA_KEYS.containsKey(name)
+                || (schemaProvider != null && schemaProvider.getMetadataFields().contains(name));
+    }
+
+    /**
+     * Busca el UUID de un EPerson por su email ({@code search/byEmail}).
+     *
+     * @param email Email del EPerson.
+     * @return El UUID, o vacío si no existe ningún EPerson con ese email.
+     */
+    public Optional<String> findIdByEmail(String email) {
+        ValidationJsonUtil.validateNotEmpty(email, "El email no puede ser nulo ni vacío.");
+        EPersonQuery query = EPersonQuery.byEmail(email, null);
+        List<JSONObject> found = dSpaceClient.search(query.getEndpointKey(), query.getParameters());
+        return found.isEmpty() ? Optional.empty() : Optional.ofNullable(found.get(0).optString("id", null));
+    }
+
+    /**
+     * Actualiza un EPerson existente con un JSON Patch ({@code PATCH epersons/{uuid}}).
+     * Las propiedades se reemplazan; los metadatos se reemplazan, se añaden si el EPerson
+     * no los tenía o se eliminan si el atributo llega vacío.
+     * Solo se envían los atributos que cambian respecto al estado actual (de la caché o de
+     * una lectura); si ninguno cambia, no se escribe nada.
+     * Con la agrupación activada, las actualizaciones del mismo EPerson dentro de la ventana
+     * se envían en una sola escritura.
      */
     public Uid update(String id, Set<Attribute> attributes) {
         // Validar ID
         ValidationJsonUtil.validateId(id, "El ID del EPerson es requerido para la actualización.");
+        // Antes de sumarse a un lote: un atributo no válido solo debe hacer fallar a quien lo envió
+        validateUpdatable(attributes);
+        if (updateCoalescer != null) {
+            return updateCoalescer.submit(id, attributes, merged -> write(id, merged));
+        }
+        return write(id, attributes);
+    }
+
+    private Uid write(String id, Set<Attribute> attributes) {
+        JSONObject current = currentState(id);
+
+        // Construir las operaciones del parche solo con lo que cambia
+        JSONArray operations = patchOperations(current, attributes);
+        if (operations.isEmpty()) {
+            skippedWrites.incrementAndGet();
+            logger.debug("Sin cambios en el EPerson {}: no se envía la actualización.", id);
+            return new Uid(id);
+        }
+
+        sentWrites.incrementAndGet();
+        try {
+            update(ENDPOINT, id, operations);
+        } catch (RuntimeException e) {
+            throw notFoundAsUnknownUid(id, e);
+        } finally {
+            invalidateState(id);
+        }
+        return new Uid(id);
+    }
+
+    /**
+     * Estado actual de un EPerson: el de la caché si sigue vigente o, si no, una lectura.
+     */
+    private JSONObject currentState(String id) {
+        if (stateCache != null) {
+            Optional<JSONObject> cached = stateCache.get(id);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        return dSpaceClient.getById(ENDPOINT, id)
+                .orElseThrow(() -> new UnknownUidException(new Uid(id), ObjectClass.ACCOUNT));
+    }
+
+    private void invalidateState(String id) {
+        if (stateCache != null) {
+            stateCache.invalidate(id);
+        }
+    }
 
-        // Construir actualizaciones
-        JSONObject updates = new JSONObject();
-        attributes.forEach(attr -> updates.put(attr.getName(), AttributeUtil.getSingleValue(attr)));
+    /**
+     * Traza de operaciones del cliente, para las operaciones masivas que usan este handler.
+     */
+    public OperationTracer getTracer() {
+        return tracer;
+    }
 
-        // Realizar la actualización
-        JSONObject response = update(EndpointRegistry.getEndpoint("epersons"), id, updates);
+    /**
+     * Actualizaciones que llegaron a enviarse a DSpace.
+     */
+    public long getSentWrites() {
+        return sentWrites.get();
+    }
 
-        // Validar y devolver el ID actualizado
-        return new Uid(ValidationJsonUtil.validateNotNull(response.getString("id"), "La respuesta no contiene un ID actualizado."));
+    /**
+     * Actualizaciones que no se enviaron porque no cambiaban nada.
+     */
+    public long getSkippedWrites() {
+        return skippedWrites.get();
     }
 
     /**
-     * Elimina un EPerson.
+     * Elimina un EPerson ({@code DELETE epersons/{uuid}}).
      */
     public void delete(String id) {
         // Validar ID
         ValidationJsonUtil.validateId(id, "El ID del EPerson es requerido para eliminar.");
 
-        // Realizar la eliminación
-        super.delete(EndpointRegistry.getEndpoint("epersons"), id);
+        try {
+            super.delete(ENDPOINT, id);
+        } catch (RuntimeException e) {
+            throw notFoundAsUnknownUid(id, e);
+        } finally {
+            invalidateState(id);
+        }
+    }
+
+    /**
+     * Comprueba que todos los atributos se pueden escribir: propiedades del EPerson con un solo
+     * valor o campos de metadatos conocidos.
+     *
+     * @throws IllegalArgumentException si alguno no se puede actualizar.
+     */
+    private void validateUpdatable(Set<Attribute> attributes) {
+        for (Attribute attribute : attributes) {
+            String name = attribute.getName();
+            if (Uid.NAME.equals(name)) {
+                continue;
+            }
+            if (PROPERTY_PATHS.containsKey(name)) {
+                // Lanza IllegalArgumentException si trae más de un valor
+                AttributeUtil.getSingleValue(attribute);
+            } else if (!isMetadataAttribute(name)) {
+                throw new IllegalArgumentException("El atributo '" + name + "' no se puede actualizar.");
+            }
+        }
+    }
+
+    /**
+     * Traduce los atributos de ConnId a operaciones JSON Patch sobre el EPerson actual.
+     * Los atributos cuyo valor coincide con el actual no generan ninguna operación; los
+     * atributos ya se validaron con {@link #validateUpdatable}.
+     */
+    private JSONArray patchOperations(JSONObject current, Set<Attribute> attributes) {
+        JSONObject metadata = current.optJSONObject("metadata");
+        JSONArray operations = new JSONArray();
+        for (Attribute attribute : attributes) {
+            String name = attribute.getName();
+            if (Uid.NAME.equals(name)) {
+                continue;
+            }
+            String property = PROPERTY_PATHS.get(name);
+            if (property != null) {
+                Object value = AttributeUtil.getSingleValue(attribute);
+                if (!sameValue(current.opt(property.substring(1)), value)) {
+                    operations.put(new JSONObject()
+                            .put("op", "replace")
+                            .put("path", property)
+                            .put("value", value));
+                }
+                continue;
+            }
+            String key = METADATA_KEYS.getOrDefault(name, name);
+            boolean present = metadata != null && metadata.has(key);
+            List<Object> values = attribute.getValue();
+            if (values == null || values.isEmpty()) {
+                if (present) {
+                    operations.put(new JSONObject().put("op", "remove").put("path", "/metadata/" + key));
+                }
+                continue;
+            }
+            if (present && sameValues(metadata.optJSONArray(key), values)) {
+                continue;
+            }
+            JSONArray metadataValues = new JSONArray();
+            values.forEach(value -> metadataValues.put(new JSONObject().put("value", String.valueOf(value))));
+            operations.put(new JSONObject()
+                    .put("op", present ? "replace" : "add")
+                    .put("path", "/metadata/" + key)
+                    .put("value", metadataValues));
+        }
+        return operations;
+    }
+
+    private static boolean sameValue(Object current, Object requested) {
+        Object value = current == JSONObject.NULL ? null : current;
+        if (value == null || requested == null) {
+            return value == requested;
+        }
+        return String.valueOf(value).equals(String.valueOf(requested));
+    }
+
+    /**
+     * Compara los valores de un metadato de DSpace ({@code [{"value": ...}, ...]}) con los solicitados, en orden.
+     */
+    private static boolean sameValues(JSONArray current, List<Object> requested) {
+        if (current == null || current.length() != requested.size()) {
+            return false;
+        }
+        for (int i = 0; i < requested.size(); i++) {
+            JSONObject entry = current.optJSONObject(i);
+            if (entry == null || !String.valueOf(requested.get(i)).equals(entry.optString("value", null))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static RuntimeException notFoundAsUnknownUid(String id, RuntimeException e) {
+        HttpStatusException status = HttpStatusException.find(e);
+        if (status != null && status.isNotFound()) {
+            return new UnknownUidException(new Uid(id), ObjectClass.ACCOUNT);
+        }
+        return e;
+    }
+
+    /**
+     * Busca EPersons y entrega los resultados al handler a medida que llegan.
+     * Las consultas de unión (OR) se ejecutan en paralelo y se eliminan duplicados por UUID;
+     * un OR de UIDs se resuelve así como lecturas directas concurrentes, limitadas por el ejecutor.
+     *
+     * @param query   Consulta traducida; null recorre todos los EPersons.
+     * @param handler Handler que recibe los objetos; si devuelve false se detiene la búsqueda.
+     */
+    public void search(EPersonQuery query, ResultsHandler handler) {
+        search(query, handler, null);
+    }
+
+    /**
+     * Busca EPersons aplicando la paginación y el orden de las opciones de ConnId.
+     * Sin consulta residual, las páginas se piden directamente a DSpace ({@code page}/{@code size});
+     * en otro caso se pagina localmente sobre los resultados filtrados.
+     * Al terminar una búsqueda paginada se informa un {@link SearchResult} con la cookie
+     * de la siguiente posición y el número de resultados restantes.
+     *
+     * @param query   Consulta traducida; null recorre todos los EPersons.
+     * @param handler Handler que recibe los objetos; si devuelve false se detiene la búsqueda.
+     * @param options Opciones de la operación; puede ser nulo.
+     */
+    public void search(EPersonQuery query, ResultsHandler handler, OperationOptions options) {
+        if (membershipResolver != null && isRequested(options, ATTR_GROUPS)) {
+            GroupsResolvingHandler resolving = new GroupsResolvingHandler(handler);
+            searchObjects(query, resolving, options);
+            resolving.finish();
+            return;
+        }
+        searchObjects(query, handler, options);
+    }
+
+    private void searchObjects(EPersonQuery query, ResultsHandler handler, OperationOptions options) {
+        EPersonQuery effectiveQuery = query == null ? EPersonQuery.all(null) : query;
+        Function<JSONObject, ConnectorObject> mapper = mapper();
+        Map<String, String> sortParams = sortParameters(options);
+        Integer pageSize = options != null ? options.getPageSize() : null;
+
+        if (pageSize == null || pageSize <= 0) {
+            String scanId = scanId(options);
+            if (fullScanner != null && (fullScanner.isParallel() || scanId != null)
+                    && effectiveQuery.getType() == EPersonQuery.Type.ALL && effectiveQuery.isExact()) {
+                // Listado completo: shards con un orden estable para poder reanudarlo
+                Map<String, String> order = sortParams.isEmpty() ? DEFAULT_ORDER : sortParams;
+                fullScanner.scan(effectiveQuery.getEndpointKey(), merge(effectiveQuery.getParameters(), order),
+                        scanId, mapper, handler);
+            } else if (effectiveQuery.isUnion() && sortParams.isEmpty()) {
+                searchUnion(effectiveQuery.getBranches(), mapper, handler);
+            } else if (effectiveQuery.isUnion()) {
+                searchUnionOrdered(effectiveQuery.getBranches(), sortParams, mapper, handler);
+            } else {
+                searchSingle(effectiveQuery, sortParams, mapper, handler);
+            }
+            return;
+        }
+
+        int start = startIndex(options);
+        if (effectiveQuery.getType() == EPersonQuery.Type.ALL && effectiveQuery.isExact()) {
+            searchPageNative(effectiveQuery, sortParams, start, pageSize, mapper, handler);
+        } else {
+            searchPageLocal(effectiveQuery, sortParams, start, pageSize, mapper, handler);
+        }
+    }
+
+    private void searchSingle(EPersonQuery query, Map<String, String> sortParams,
+                              Function<JSONObject, ConnectorObject> mapper, ResultsHandler handler) {
+        fetch(query, sortParams, page -> {
+            for (JSONObject json : page) {
+                ConnectorObject connectorObject = mapper.apply(json);
+                if (query.matches(connectorObject) && !handler.handle(connectorObject)) {
+                    logger.debug("Result handling interrupted.");
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Pide a DSpace solo las páginas que cubren la ventana [start, start + pageSize).
+     * Si la ventana no está alineada con el tamaño de página abarca como máximo dos páginas.
+     */
+    private void searchPageNative(EPersonQuery query, Map<String, String> sortParams, int start, int pageSize,
+                                  Function<JSONObject, ConnectorObject> mapper, ResultsHandler handler) {
+        int serverPage = start / pageSize;
+        int skip = start % pageSize;
+        int delivered = 0;
+        long totalElements = -1;
+
+        while (delivered < pageSize) {
+            JSONObject response = dSpaceClient.fetchPage(query.getEndpointKey(), merge(query.getParameters(), sortParams),
+                    serverPage, pageSize);
+            List<JSONObject> objects = ValidationJsonUtil.extractEmbeddedObjects(response, null);
+            JSONObject pageInfo = response.optJSONObject("page");
+            totalElements = pageInfo != null ? pageInfo.optLong("totalElements", -1) : -1;
+
+            boolean stopped = false;
+            for (int i = skip; i < objects.size() && delivered < pageSize; i++) {
+                delivered++;
+                if (!handler.handle(mapper.apply(objects.get(i)))) {
+                    logger.debug("Result handling interrupted.");
+                    stopped = true;
+                    break;
+                }
+            }
+            skip = 0;
+
+            int totalPages = pageInfo != null ? pageInfo.optInt("totalPages", 0) : 0;
+            if (stopped || objects.size() < pageSize || serverPage + 1 >= totalPages) {
+                break;
+            }
+            serverPage++;
+        }
+
+        int next = start + delivered;
+        int remaining = totalElements < 0 ? -1 : (int) Math.max(0, totalElements - next);
+        completePage(handler, next, remaining);
+    }
+
+    /**
+     * Pagina localmente una consulta con filtro residual o unión: descarta los primeros
+     * {@code start} resultados, entrega {@code pageSize} y se detiene en el siguiente.
+     * Las ramas de una unión se fusionan por la clave de orden (email si no se indica ninguna),
+     * de modo que cada página numera los resultados igual que las anteriores.
+     */
+    private void searchPageLocal(EPersonQuery query, Map<String, String> sortParams, int start, int pageSize,
+                                 Function<JSONObject, ConnectorObject> mapper, ResultsHandler handler) {
+        PagingResultsHandler paging = new PagingResultsHandler(handler, start, pageSize);
+        if (query.isUnion()) {
+            searchUnionOrdered(query.getBranches(), sortParams.isEmpty() ? DEFAULT_ORDER : sortParams, mapper, paging);
+        } else {
+            searchSingle(query, sortParams, mapper, paging);
+        }
+        completePage(handler, start + paging.getDelivered(), paging.getRemaining());
+    }
+
+    /**
+     * Traduce la primera clave de orden soportada al parámetro {@code sort} de DSpace.
+     */
+    private Map<String, String> sortParameters(OperationOptions options) {
+        if (options == null || options.getSortKeys() == null) {
+            return Map.of();
+        }
+        for (SortKey sortKey : options.getSortKeys()) {
+            String field = SORT_FIELDS.get(sortKey.getField());
+            if (field != null) {
+                return Map.of("sort", field + (sortKey.isAscendingOrder() ? ",ASC" : ",DESC"));
+            }
+            logger.debug("Orden no soportado por DSpace, se ignora: {}", sortKey.getField());
+        }
+        return Map.of();
+    }
+
+    /**
+     * Ejecuta las ramas de una unión de forma concurrente. Las páginas se fusionan en el hilo
+     * llamante conforme llegan, sin un orden definido; al detenerse el handler se cancelan las
+     * ramas pendientes. Las búsquedas con orden o paginadas usan {@link #searchUnionOrdered}.
+     */
+    private void searchUnion(List<EPersonQuery> branches, Function<JSONObject, ConnectorObject> mapper,
+                             ResultsHandler handler) {
+        BlockingQueue<BranchPage> pages = new ArrayBlockingQueue<>(branches.size() * 2);
+        List<Future<?>> futures = new ArrayList<>(branches.size());
+        UuidSet seen = new UuidSet();
+
+        logger.debug("Ejecutando {} consultas en paralelo.", branches.size());
+        try {
+            // Las ramas acumulan sus tiempos en la traza de la operación que las lanzó
+            // y comparten su tiempo límite
+            OperationTrace trace = tracer.current();
+            OperationDeadline deadline = OperationDeadline.current();
+            for (EPersonQuery branch : branches) {
+                futures.add(searchExecutor.submit(() -> {
+                    OperationTrace previous = tracer.attach(trace);
+                    OperationDeadline previousDeadline = OperationDeadline.attach(deadline);
+                    try {
+                        runBranch(branch, pages);
+                    } finally {
+                        OperationDeadline.restore(previousDeadline);
+                        tracer.restore(previous);
+                    }
+                }));
+            }
+
+            int pending = branches.size();
+            while (pending > 0) {
+                BranchPage page = pages.take();
+                if (page.error != null) {
+                    throw page.error;
+                }
+                if (page.objects == null) {
+                    pending--;
+                    continue;
+                }
+                for (JSONObject json : page.objects) {
+                    ConnectorObject connectorObject = mapper.apply(json);
+                    // Primero el filtro residual de la rama: otra rama puede aceptar el mismo objeto.
+                    if (!page.branch.matches(connectorObject) || !seen.add(connectorObject.getUid().getUidValue())) {
+                        continue;
+                    }
+                    if (!handler.handle(connectorObject)) {
+                        logger.debug("Result handling interrupted.");
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Búsqueda interrumpida.", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Fusiona las ramas de una unión en el orden indicado: cada rama se pide ya ordenada a DSpace
+     * y en paralelo, y en cada paso se entrega el menor de los primeros resultados pendientes
+     * (a igual clave, el de menor UUID). El orden de salida no depende de qué rama responda
+     * antes, así que la paginación local es estable entre llamadas.
+     */
+    private void searchUnionOrdered(List<EPersonQuery> branches, Map<String, String> sortParams,
+                                    Function<JSONObject, ConnectorObject> mapper, ResultsHandler handler) {
+        Comparator<ConnectorObject> order = resultOrder(sortParams);
+        PriorityQueue<BranchCursor> heads = new PriorityQueue<>(branches.size(),
+                (a, b) -> order.compare(a.current, b.current));
+        List<BranchCursor> cursors = new ArrayList<>(branches.size());
+        UuidSet seen = new UuidSet();
+
+        logger.debug("Fusionando {} consultas en paralelo por {}.", branches.size(), sortParams.get("sort"));
+        try {
+            for (EPersonQuery branch : branches) {
+                cursors.add(new BranchCursor(branch, sortParams, mapper));
+            }
+            for (BranchCursor cursor : cursors) {
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+
+            while (!heads.isEmpty()) {
+                BranchCursor cursor = heads.poll();
+                ConnectorObject connectorObject = cursor.current;
+                if (seen.add(connectorObject.getUid().getUidValue()) && !handler.handle(connectorObject)) {
+                    logger.debug("Result handling interrupted.");
+                    return;
+                }
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Búsqueda interrumpida.", e);
+        } finally {
+            cursors.forEach(BranchCursor::cancel);
+        }
+    }
+
+    /**
+     * Descarga una página de una rama de la fusión ordenada.
+     *
+     * @param page Número de página, empezando en cero; una lectura por UUID solo tiene la primera.
+     */
+    private BranchSlice fetchSlice(EPersonQuery branch, Map<String, String> sortParams, int page) {
+        if (branch.getType() == EPersonQuery.Type.BY_UID) {
+            List<JSONObject> objects = new ArrayList<>(1);
+            fetch(branch, Map.of(), objects::addAll);
+            return new BranchSlice(objects, false);
+        }
+        JSONObject response = dSpaceClient.fetchPage(branch.getEndpointKey(),
+                merge(branch.getParameters(), sortParams), page, BRANCH_PAGE_SIZE);
+        JSONObject pageInfo = response.optJSONObject("page");
+        int totalPages = pageInfo != null ? pageInfo.optInt("totalPages", 0) : 0;
+        return new BranchSlice(ValidationJsonUtil.extractEmbeddedObjects(response, null), page + 1 < totalPages);
+    }
+
+    /**
+     * Orden de los resultados para el parámetro {@code sort} de DSpace ({@code campo,ASC|DESC}):
+     * por el atributo del mismo nombre sin distinguir mayúsculas, con los valores ausentes al
+     * final y el UUID como desempate.
+     */
+    private static Comparator<ConnectorObject> resultOrder(Map<String, String> sortParams) {
+        String[] sort = sortParams.getOrDefault("sort", "email,ASC").split(",");
+        String field = sort[0];
+        Comparator<String> text = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+        boolean descending = sort.length > 1 && "DESC".equalsIgnoreCase(sort[1]);
+        Comparator<ConnectorObject> byField = Comparator.comparing(
+                connectorObject -> AttributeUtil.getStringValue(connectorObject.getAttributeByName(field)),
+                Comparator.nullsLast(descending ? text.reversed() : text));
+        return byField.thenComparing(connectorObject -> connectorObject.getUid().getUidValue());
+    }
+
+    private void runBranch(EPersonQuery branch, BlockingQueue<BranchPage> pages) {
+        BranchPage last;
+        try {
+            fetch(branch, Map.of(), objects -> {
+                try {
+                    pages.put(new BranchPage(branch, objects, null));
+                    return !Thread.currentThread().isInterrupted();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            });
+            last = new BranchPage(branch, null, null);
+        } catch (RuntimeException e) {
+            last = new BranchPage(branch, null, e);
+        }
+
+        try {
+            // Si la búsqueda se canceló, la interrupción libera este put.
+            pages.put(last);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Obtiene los resultados de una consulta simple: lectura directa por UUID o búsqueda paginada.
+     */
+    private void fetch(EPersonQuery query, Map<String, String> extraParams, Predicate<List<JSONObject>> pageConsumer) {
+        if (query.getType() != EPersonQuery.Type.BY_UID) {
+            dSpaceClient.searchPages(query.getEndpointKey(), merge(query.getParameters(), extraParams), pageConsumer);
+            return;
+        }
+        if (!isUuid(query.getValue())) {
+            // Un UID que no es UUID no puede existir en DSpace.
+            logger.debug("UID con formato no válido, sin resultados: {}", query.getValue());
+            return;
+        }
+        dSpaceClient.getById(query.getEndpointKey(), query.getValue())
+                .ifPresent(json -> pageConsumer.test(List.of(json)));
+    }
+
+    private static String scanId(OperationOptions options) {
+        Object scanId = options != null ? options.getOptions().get(ShardedScanner.OPTION_SCAN_ID) : null;
+        return scanId != null ? scanId.toString() : null;
+    }
+
+    private static boolean isRequested(OperationOptions options, String attribute) {
+        return options != null && options.getAttributesToGet() != null
+                && Arrays.asList(options.getAttributesToGet()).contains(attribute);
+    }
+
+    /**
+     * Handler intermedio que añade el atributo {@code groups}. Retiene hasta
+     * {@link #SMALL_RESULT_THRESHOLD} objetos: si la búsqueda termina antes, pide los grupos de
+     * cada uno en paralelo; si no, construye una vez el índice invertido de membresía y
+     * resuelve con él el resto de la búsqueda.
+     */
+    private final class GroupsResolvingHandler implements SearchResultsHandler {
+        private final ResultsHandler delegate;
+        private final List<ConnectorObject> buffer = new ArrayList<>();
+        private Map<String, List<String>> index;
+        private boolean stopped;
+
+        private GroupsResolvingHandler(ResultsHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean handle(ConnectorObject connectorObject) {
+            if (stopped) {
+                return false;
+            }
+            if (index != null) {
+                return deliver(connectorObject, index);
+            }
+            buffer.add(connectorObject);
+            if (buffer.size() > SMALL_RESULT_THRESHOLD) {
+                logger.debug("Más de {} resultados: se construye el índice de grupos.", SMALL_RESULT_THRESHOLD);
+                index = membershipResolver.buildIndex();
+                return flush(index);
+            }
+            return true;
+        }
+
+        /**
+         * Entrega lo retenido cuando la búsqueda terminó sin llegar al umbral.
+         */
+        private void finish() {
+            if (stopped || buffer.isEmpty()) {
+                return;
+            }
+            List<String> ids = new ArrayList<>(buffer.size());
+            for (ConnectorObject connectorObject : buffer) {
+                ids.add(connectorObject.getUid().getUidValue());
+            }
+            flush(membershipResolver.fetchForEPersons(ids));
+        }
+
+        private boolean flush(Map<String, List<String>> groups) {
+            try {
+                for (ConnectorObject connectorObject : buffer) {
+                    if (!deliver(connectorObject, groups)) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                buffer.clear();
+            }
+        }
+
+        private boolean deliver(ConnectorObject connectorObject, Map<String, List<String>> groups) {
+            ConnectorObject withGroups = new ConnectorObjectBuilder()
+                    .add(connectorObject)
+                    .addAttribute(ATTR_GROUPS, groups.getOrDefault(connectorObject.getUid().getUidValue(), List.of()))
+                    .build();
+            if (!delegate.handle(withGroups)) {
+                logger.debug("Result handling interrupted.");
+                stopped = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void handleResult(SearchResult result) {
+            // La página debe entregarse completa antes de informar el resultado.
+            finish();
+            if (delegate instanceof SearchResultsHandler) {
+                ((SearchResultsHandler) delegate).handleResult(result);
+            }
+        }
+    }
+
+    /**
+     * Conversión de los EPersons de una búsqueda. Los campos de metadatos se leen una vez por
+     * búsqueda y no por objeto: todos los resultados se exponen con el mismo esquema.
+     */
+    private Function<JSONObject, ConnectorObject> mapper() {
+        List<String> metadataFields = schemaProvider != null ? schemaProvider.getMetadataFields() : List.of();
+        return json -> {
+            if (stateCache != null) {
+                stateCache.put(json);
+            }
+            return tracer.time(TracePhase.MAPPING, () -> new EPerson(json).toConnectorObject(metadataFields));
+        };
+    }
+
+    /**
+     * Posición de la fusión ordenada dentro de una rama: su primer resultado pendiente, ya
+     * filtrado por el filtro residual de la rama. Las páginas se piden de una en una al ejecutor,
+     * con una de adelanto; ninguna tarea espera al hilo que fusiona, así que la fusión avanza
+     * aunque haya más ramas que hilos en el ejecutor.
+     */
+    private final class BranchCursor {
+        private final EPersonQuery branch;
+        private final Map<String, String> sortParams;
+        private final Function<JSONObject, ConnectorObject> mapper;
+        private Future<BranchSlice> next;
+        private int nextPage;
+        private List<JSONObject> page = List.of();
+        private int position;
+        private ConnectorObject current;
+
+        private BranchCursor(EPersonQuery branch, Map<String, String> sortParams,
+                             Function<JSONObject, ConnectorObject> mapper) {
+            this.branch = branch;
+            this.sortParams = sortParams;
+            this.mapper = mapper;
+            this.next = request();
+        }
+
+        /**
+         * Avanza al siguiente resultado de la rama, esperando su página si aún no ha llegado.
+         *
+         * @return false si la rama se agotó.
+         */
+        private boolean advance() throws InterruptedException {
+            while (true) {
+                while (position < page.size()) {
+                    ConnectorObject connectorObject = mapper.apply(page.get(position++));
+                    if (branch.matches(connectorObject)) {
+                        current = connectorObject;
+                        return true;
+                    }
+                }
+                if (next == null) {
+                    current = null;
+                    return false;
+                }
+                BranchSlice slice = await(next);
+                // La siguiente página se pide mientras se fusiona esta
+                next = slice.more ? request() : null;
+                page = slice.objects;
+                position = 0;
+            }
+        }
+
+        private void cancel() {
+            if (next != null) {
+                next.cancel(true);
+            }
+        }
+
+        private Future<BranchSlice> request() {
+            int pageNumber = nextPage++;
+            return searchExecutor.submit(GroupHandler.withOperation(tracer,
+                    () -> fetchSlice(branch, sortParams, pageNumber)));
+        }
+
+        private BranchSlice await(Future<BranchSlice> future) throws InterruptedException {
+            try {
+                return OperationDeadline.await(future);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new ConnectorException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Página de una rama de la fusión ordenada y si la rama tiene más páginas.
+     */
+    private static final class BranchSlice {
+        private final List<JSONObject> objects;
+        private final boolean more;
+
+        private BranchSlice(List<JSONObject> objects, boolean more) {
+            this.objects = objects;
+            this.more = more;
+        }
+    }
+
+    /**
+     * Página de resultados de una rama; sin objetos indica fin de rama, con error indica fallo.
+     */
+    private static final class BranchPage {
+        private final EPersonQuery branch;
+        private final List<JSONObject> objects;
+        private final RuntimeException error;
+
+        private BranchPage(EPersonQuery branch, List<JSONObject> objects, RuntimeException error) {
+            this.branch = branch;
+            this.objects = objects;
+            this.error = error;
+        }
     }
 
     /**
@@ -90,4 +996,67 @@ public class EPersonHandler extends BaseHandler {
     protected boolean validate(Object entity) {
         return entity instanceof JSONObject && ((JSONObject) entity).has("email");
     }
+
+    /**
+     * Opciones de un EPersonHandler. Cada método devuelve el mismo objeto para encadenarlos; lo
+     * que no se indica queda a null o false, que desactiva la función correspondiente.
+     */
+    public static final class Options {
+        private GroupMembershipResolver membershipResolver;
+        private SchemaProvider schemaProvider;
+        private ShardedScanner fullScanner;
+        private UpdateCoalescer updateCoalescer;
+        private EPersonStateCache stateCache;
+        private boolean returnExistingOnCreate;
+
+        /**
+         * @param membershipResolver Resuelve los grupos de los EPersons; null si no se soportan.
+         */
+        public Options membershipResolver(GroupMembershipResolver membershipResolver) {
+            this.membershipResolver = membershipResolver;
+            return this;
+        }
+
+        /**
+         * @param schemaProvider Aporta los campos de metadatos dinámicos del esquema; null para el esquema fijo.
+         */
+        public Options schemaProvider(SchemaProvider schemaProvider) {
+            this.schemaProvider = schemaProvider;
+            return this;
+        }
+
+        /**
+         * @param fullScanner Recorre por shards los listados completos paralelos o con scanId; null para el
+         *                    recorrido secuencial.
+         */
+        public Options fullScanner(ShardedScanner fullScanner) {
+            this.fullScanner = fullScanner;
+            return this;
+        }
+
+        /**
+         * @param updateCoalescer Agrupa las actualizaciones seguidas de un mismo EPerson; null para no agruparlas.
+         */
+        public Options updateCoalescer(UpdateCoalescer updateCoalescer) {
+            this.updateCoalescer = updateCoalescer;
+            return this;
+        }
+
+        /**
+         * @param stateCache Último estado visto de cada EPerson; null para leerlo siempre antes de actualizar.
+         */
+        public Options stateCache(EPersonStateCache stateCache) {
+            this.stateCache = stateCache;
+            return this;
+        }
+
+        /**
+         * @param returnExistingOnCreate true para devolver el Uid del EPerson existente en lugar de
+         *                               lanzar {@link AlreadyExistsException}.
+         */
+        public Options returnExistingOnCreate(boolean returnExistingOnCreate) {
+            this.returnExistingOnCreate = returnExistingOnCreate;
+            return this;
+        }
+    }
 }
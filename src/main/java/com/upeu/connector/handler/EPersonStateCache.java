@@ -0,0 +1,151 @@
+package com.upeu.connector.handler;
+
+import org.json.JSONObject;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Último estado conocido de cada EPerson, tal como lo devolvió DSpace en una búsqueda o lectura.
+ * <p>
+ * Permite comparar una actualización con el estado actual sin volver a pedir el EPerson.
+ * Cada entrada caduca tras el TTL configurado y las escrituras del conector invalidan la
+ * entrada del EPerson afectado. Un índice por email permite saber, sin peticiones, si un
+ * EPerson que se va a crear ya existe. Si la caché está llena, los estados nuevos no se guardan
+ * hasta que caduquen entradas antiguas; las caducadas se purgan a intervalos, no en cada inserción.
+ */
+public class EPersonStateCache {
+
+    // Por encima de este número de entradas se purgan las caducadas antes de insertar
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    // Pausa mínima entre purgas: recorrer la caché en cada inserción haría cuadrático un recorrido completo
+    private static final long MIN_PURGE_INTERVAL_MILLIS = 1_000;
+
+    // Tope de entradas: un recorrido completo no debe guardar todo el directorio en memoria
+    private static final int MAX_ENTRIES = 50_000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByEmail = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    /**
+     * @param ttlMillis Vida de cada entrada en milisegundos; 0 desactiva la caché.
+     */
+    public EPersonStateCache(long ttlMillis) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("El TTL de la caché no puede ser negativo.");
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Devuelve el estado guardado de un EPerson si no ha caducado.
+     *
+     * @param id UUID del EPerson.
+     */
+    public Optional<JSONObject> get(String id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(id, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.state);
+    }
+
+    /**
+     * Busca en la caché el UUID del EPerson con un email (sin distinguir mayúsculas).
+     *
+     * @param email Email del EPerson.
+     * @return El UUID, o vacío si no hay un estado vigente con ese email.
+     */
+    public Optional<String> findIdByEmail(String email) {
+        String key = emailKey(email);
+        String id = key != null ? idsByEmail.get(key) : null;
+        if (id == null) {
+            return Optional.empty();
+        }
+        Optional<JSONObject> state = get(id);
+        if (state.isEmpty() || !key.equals(emailKey(state.get().optString("email", null)))) {
+            idsByEmail.remove(key, id);
+            return Optional.empty();
+        }
+        return Optional.of(id);
+    }
+
+    /**
+     * Guarda el estado de un EPerson devuelto por DSpace; se ignora si no tiene {@code id}.
+     */
+    public void put(JSONObject state) {
+        String id = state.optString("id", null);
+        if (ttlMillis == 0 || id == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (entries.size() > PURGE_THRESHOLD) {
+            purgeExpired(now);
+        }
+        if (entries.size() < MAX_ENTRIES || entries.containsKey(id)) {
+            entries.put(id, new Entry(state, now + ttlMillis));
+            String email = emailKey(state.optString("email", null));
+            if (email != null) {
+                idsByEmail.put(email, id);
+            }
+        }
+    }
+
+    /**
+     * Quita las entradas caducadas, como mucho una vez por intervalo y desde un solo hilo.
+     * Entre purgas las entradas caducadas solo ocupan sitio: {@link #get} ya no las devuelve.
+     */
+    private void purgeExpired(long now) {
+        long due = nextPurge.get();
+        if (now < due || !nextPurge.compareAndSet(due, now + Math.max(MIN_PURGE_INTERVAL_MILLIS, ttlMillis / 2))) {
+            return;
+        }
+        entries.values().removeIf(e -> e.expiresAt <= now);
+        idsByEmail.values().removeIf(indexed -> !entries.containsKey(indexed));
+    }
+
+    /**
+     * Elimina el estado guardado de un EPerson.
+     */
+    public void invalidate(String id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            String email = emailKey(entry.state.optString("email", null));
+            if (email != null) {
+                idsByEmail.remove(email, id);
+            }
+        }
+    }
+
+    /**
+     * Vacía la caché.
+     */
+    public void clear() {
+        entries.clear();
+        idsByEmail.clear();
+    }
+
+    private static String emailKey(String email) {
+        return email == null || email.isEmpty() ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final JSONObject state;
+        private final long expiresAt;
+
+        private Entry(JSONObject state, long expiresAt) {
+            this.state = state;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.upeu.connector.handler;
 
 import com.upeu.connector.filter.EPersonFilterTranslator;
+import com.upeu.connector.filter.EPersonQuery;
 import org.identityconnectors.framework.common.objects.filter.*;
 
 import java.util.ArrayList;
@@ -21,12 +22,12 @@ public class FilterHandler {
     }
 
     /**
-     * Traduce un filtro en una lista de parámetros de consulta.
+     * Traduce un filtro en una lista de consultas nativas de DSpace.
      *
      * @param filter El filtro a traducir. Puede ser nulo.
-     * @return Una lista de cadenas representando parámetros de consulta.
+     * @return Una lista de consultas a ejecutar.
      */
-    public List<String> translateFilter(Filter filter) {
+    public List<EPersonQuery> translateFilter(Filter filter) {
         if (filter == null) {
             // Si el filtro es nulo, devolver una lista vacía (sin parámetros)
             return new ArrayList<>();
@@ -35,35 +36,4 @@ public class FilterHandler {
         // Delegar la traducción de filtros a EPersonFilterTranslator
         return ePersonFilterTranslator.translate(filter);
     }
-
-    /**
-     * Valida el filtro proporcionado.
-     *
-     * @param filter El filtro a validar.
-     * @throws IllegalArgumentException si el filtro es inválido.
-     */
-    public void validateFilter(Filter filter) {
-        if (filter == null) {
-            // No es obligatorio que el filtro esté presente; manejarlo como válido
-            return;
-        }
-
-        // Validar si el filtro es una instancia de los tipos soportados
-        if (!isSupportedFilter(filter)) {
-            throw new IllegalArgumentException("Tipo de filtro no soportado: " + filter.getClass().getSimpleName());
-        }
-    }
-
-    /**
-     * Verifica si un filtro es de un tipo soportado.
-     *
-     * @param filter El filtro a verificar.
-     * @return Verdadero si el filtro es soportado; falso de lo contrario.
-     */
-    private boolean isSupportedFilter(Filter filter) {
-        return filter instanceof EqualsFilter ||
-                filter instanceof ContainsFilter ||
-                filter instanceof StartsWithFilter ||
-                filter instanceof EndsWithFilter;
-    }
 }
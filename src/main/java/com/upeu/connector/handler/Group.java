@@ -0,0 +1,100 @@
+package com.upeu.connector.handler;
+
+import com.upeu.connector.util.ValidationJsonUtil;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.ConnectorObjectBuilder;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.json.JSONObject;
+
+import java.util.List;
+
+/**
+ * Clase que representa un grupo de DSpace.
+ */
+public class Group {
+
+    public static final ObjectClass OBJECT_CLASS = new ObjectClass("group");
+
+    public static final String ATTR_NAME = "name";
+    public static final String ATTR_DESCRIPTION = "description";
+    public static final String ATTR_PERMANENT = "permanent";
+    public static final String ATTR_MEMBERS = "members";
+    public static final String ATTR_SUBGROUPS = "subgroups";
+
+    private final String id;
+    private final String name;
+    private final String description;
+    private final boolean permanent;
+
+    /**
+     * Constructor que inicializa un grupo desde un JSON.
+     *
+     * @param json Objeto JSON que contiene los datos del grupo.
+     */
+    public Group(JSONObject json) {
+        ValidationJsonUtil.validateNotNull(json, "El JSON proporcionado no puede ser nulo.");
+
+        this.id = json.optString("id", null);
+        this.name = json.optString("name", null);
+        JSONObject metadata = json.optJSONObject("metadata");
+        this.description = metadata != null ? ValidationJsonUtil.extractMetadataValue(metadata, "dc.description") : null;
+        this.permanent = json.optBoolean("permanent", false);
+
+        ValidationJsonUtil.validateNotEmpty(this.id, "El campo 'id' es obligatorio en el JSON del grupo.");
+        ValidationJsonUtil.validateNotEmpty(this.name, "El campo 'name' es obligatorio en el JSON del grupo.");
+    }
+
+    // ==============================
+    // Getters para los atributos
+    // ==============================
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isPermanent() {
+        return permanent;
+    }
+
+    /**
+     * Convierte este grupo en un ConnectorObject.
+     *
+     * @param members   UUIDs de los EPersons miembros, o null si no se solicitaron.
+     * @param subgroups UUIDs de los subgrupos, o null si no se solicitaron.
+     * @return ConnectorObject construido a partir de los atributos del grupo.
+     */
+    public ConnectorObject toConnectorObject(List<String> members, List<String> subgroups) {
+        ConnectorObjectBuilder builder = new ConnectorObjectBuilder();
+        builder.setObjectClass(OBJECT_CLASS);
+        builder.setUid(this.id);
+        builder.setName(this.name);
+        builder.addAttribute(ATTR_NAME, this.name);
+        if (this.description != null) {
+            builder.addAttribute(ATTR_DESCRIPTION, this.description);
+        }
+        builder.addAttribute(ATTR_PERMANENT, this.permanent);
+        if (members != null) {
+            builder.addAttribute(ATTR_MEMBERS, members);
+        }
+        if (subgroups != null) {
+            builder.addAttribute(ATTR_SUBGROUPS, subgroups);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "Group{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", permanent=" + permanent +
+                '}';
+    }
+}
@@ -0,0 +1,453 @@
+package com.upeu.connector.handler;
+
+import com.upeu.connector.DSpaceClient;
+import com.upeu.connector.auth.OperationDeadline;
+import com.upeu.connector.auth.HttpStatusException;
+import com.upeu.connector.filter.GroupQuery;
+import com.upeu.connector.metrics.OperationTrace;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.metrics.TracePhase;
+import com.upeu.connector.util.ValidationJsonUtil;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.exceptions.UnknownUidException;
+import org.identityconnectors.framework.common.objects.*;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * Handler para gestionar operaciones relacionadas con grupos de DSpace.
+ * <p>
+ * Los miembros y subgrupos se vinculan en bloque con cuerpos {@code text/uri-list}
+ * (una sola petición para muchos miembros). En las búsquedas, las relaciones solo se
+ * resuelven si se solicitan, una vez por grupo, en paralelo para todos los grupos de
+ * cada página y a través de {@link MembershipCache}.
+ */
+public class GroupHandler extends BaseHandler {
+
+    private static final String ENDPOINT = "groups";
+    private static final String EPERSON_ENDPOINT = "epersons";
+
+    private final ExecutorService executor;
+    private final MembershipCache membershipCache;
+    private final OperationTracer tracer;
+
+    /**
+     * Constructor de GroupHandler.
+     *
+     * @param dSpaceClient    Instancia del cliente DSpace.
+     * @param executor        Ejecutor usado para resolver relaciones y desvincular en paralelo.
+     * @param membershipCache Caché de miembros y subgrupos.
+     */
+    public GroupHandler(DSpaceClient dSpaceClient, ExecutorService executor, MembershipCache membershipCache) {
+        super(dSpaceClient);
+        this.executor = ValidationJsonUtil.validateNotNull(executor, "El ejecutor no puede ser nulo.");
+        this.membershipCache = ValidationJsonUtil.validateNotNull(membershipCache, "La caché de membresía no puede ser nula.");
+        this.tracer = dSpaceClient.getTracer();
+    }
+
+    // ==============================
+    // Operaciones CRUD
+    // ==============================
+
+    /**
+     * Crea un grupo y vincula sus miembros y subgrupos iniciales.
+     */
+    public Uid create(Set<Attribute> attributes) {
+        String name = ValidationJsonUtil.validateNotNull(nameOf(attributes), "El atributo 'name' es requerido.");
+
+        JSONObject payload = new JSONObject();
+        payload.put("name", name);
+        String description = AttributeUtil.getStringValue(AttributeUtil.find(Group.ATTR_DESCRIPTION, attributes));
+        if (description != null) {
+            payload.put("metadata", new JSONObject()
+                    .put("dc.description", ValidationJsonUtil.createMetadataArray(description)));
+        }
+
+        JSONObject response = create(ENDPOINT, payload);
+        String id = ValidationJsonUtil.validateNotNull(response.optString("id", null), "La respuesta no contiene un ID.");
+
+        addLinks(id, MembershipCache.Relation.MEMBERS, values(attributes, Group.ATTR_MEMBERS));
+        addLinks(id, MembershipCache.Relation.SUBGROUPS, values(attributes, Group.ATTR_SUBGROUPS));
+        return new Uid(id);
+    }
+
+    /**
+     * Actualiza un grupo. Los atributos {@code members} y {@code subgroups} reemplazan la
+     * relación completa: se vincula lo que falta en una sola petición y se desvincula el resto en paralelo.
+     */
+    public Uid update(String id, Set<Attribute> attributes) {
+        ValidationJsonUtil.validateId(id, "El ID del grupo es requerido para la actualización.");
+        JSONObject current = dSpaceClient.getById(ENDPOINT, id)
+                .orElseThrow(() -> new UnknownUidException(new Uid(id), Group.OBJECT_CLASS));
+
+        JSONArray operations = new JSONArray();
+        String name = nameOf(attributes);
+        if (name != null && !name.equals(current.optString("name", null))) {
+            operations.put(new JSONObject().put("op", "replace").put("path", "/name").put("value", name));
+        }
+        Attribute descriptionAttr = AttributeUtil.find(Group.ATTR_DESCRIPTION, attributes);
+        if (descriptionAttr != null) {
+            describe(operations, new Group(current).getDescription(), AttributeUtil.getStringValue(descriptionAttr));
+        }
+        if (!operations.isEmpty()) {
+            try {
+                dSpaceClient.patchById(ENDPOINT, id, operations.toString());
+            } catch (Exception e) {
+                throw wrap("Error al actualizar el grupo " + id, id, e);
+            }
+        }
+
+        try {
+            replaceRelation(id, MembershipCache.Relation.MEMBERS, AttributeUtil.find(Group.ATTR_MEMBERS, attributes));
+            replaceRelation(id, MembershipCache.Relation.SUBGROUPS, AttributeUtil.find(Group.ATTR_SUBGROUPS, attributes));
+        } finally {
+            membershipCache.invalidate(id);
+        }
+        return new Uid(id);
+    }
+
+    /**
+     * Añade miembros o subgrupos sin leer la relación actual.
+     */
+    public Uid addAttributeValues(String id, Set<Attribute> attributes) {
+        ValidationJsonUtil.validateId(id, "El ID del grupo es requerido.");
+        try {
+            for (Attribute attribute : attributes) {
+                addLinks(id, relationOf(attribute), toStrings(attribute.getValue()));
+            }
+        } finally {
+            membershipCache.invalidate(id);
+        }
+        return new Uid(id);
+    }
+
+    /**
+     * Quita miembros o subgrupos; las peticiones de desvinculación se lanzan en paralelo.
+     */
+    public Uid removeAttributeValues(String id, Set<Attribute> attributes) {
+        ValidationJsonUtil.validateId(id, "El ID del grupo es requerido.");
+        try {
+            for (Attribute attribute : attributes) {
+                removeLinks(id, relationOf(attribute), toStrings(attribute.getValue()));
+            }
+        } finally {
+            membershipCache.invalidate(id);
+        }
+        return new Uid(id);
+    }
+
+    /**
+     * Elimina un grupo.
+     */
+    public void delete(String id) {
+        ValidationJsonUtil.validateId(id, "El ID del grupo es requerido para eliminar.");
+        try {
+            dSpaceClient.deleteById(ENDPOINT, id);
+            logger.info("Grupo eliminado: {}", id);
+        } catch (Exception e) {
+            throw wrap("Error al eliminar el grupo " + id, id, e);
+        } finally {
+            membershipCache.invalidate(id);
+        }
+    }
+
+    /**
+     * Vacía la caché de miembros y subgrupos, p. ej. tras eliminar EPersons que podían ser miembros de cualquier grupo.
+     */
+    public void invalidateMemberships() {
+        membershipCache.clear();
+    }
+
+    // ==============================
+    // Búsqueda
+    // ==============================
+
+    /**
+     * Busca grupos y entrega los resultados al handler página a página.
+     * Las relaciones solicitadas en {@code attributesToGet} se resuelven en paralelo para
+     * todos los grupos de la página antes de entregarla.
+     *
+     * @param query   Consulta traducida; null recorre todos los grupos.
+     * @param handler Handler que recibe los objetos; si devuelve false se detiene la búsqueda.
+     * @param options Opciones de la operación; puede ser nulo.
+     */
+    public void search(GroupQuery query, ResultsHandler handler, OperationOptions options) {
+        GroupQuery effectiveQuery = query == null ? GroupQuery.all(null) : query;
+        Set<String> requested = options != null && options.getAttributesToGet() != null
+                ? new HashSet<>(Arrays.asList(options.getAttributesToGet())) : Set.of();
+        boolean withMembers = requested.contains(Group.ATTR_MEMBERS);
+        boolean withSubgroups = requested.contains(Group.ATTR_SUBGROUPS);
+
+        Integer pageSize = options != null ? options.getPageSize() : null;
+        if (pageSize == null || pageSize <= 0) {
+            fetch(effectiveQuery, page -> deliver(page, effectiveQuery, withMembers, withSubgroups, handler));
+            return;
+        }
+
+        int start = startIndex(options);
+        PagingResultsHandler paging = new PagingResultsHandler(handler, start, pageSize);
+        fetch(effectiveQuery, page -> deliver(page, effectiveQuery, withMembers, withSubgroups, paging));
+        completePage(handler, start + paging.getDelivered(), paging.getRemaining());
+    }
+
+    private void fetch(GroupQuery query, Predicate<List<JSONObject>> pageConsumer) {
+        if (query.getType() == GroupQuery.Type.BY_UID) {
+            if (!isUuid(query.getValue())) {
+                logger.debug("UID de grupo con formato no válido, sin resultados: {}", query.getValue());
+                return;
+            }
+            dSpaceClient.getById(ENDPOINT, query.getValue()).ifPresent(json -> pageConsumer.test(List.of(json)));
+            return;
+        }
+        dSpaceClient.searchPages(query.getEndpointKey(), query.getParameters(), pageConsumer);
+    }
+
+    /**
+     * Entrega una página de grupos, resolviendo antes sus relaciones en paralelo.
+     */
+    private boolean deliver(List<JSONObject> page, GroupQuery query, boolean withMembers, boolean withSubgroups,
+                            ResultsHandler handler) {
+        List<Group> groups = new ArrayList<>(page.size());
+        for (JSONObject json : page) {
+            groups.add(new Group(json));
+        }
+
+        List<Future<List<String>>> members = withMembers
+                ? resolveAll(groups, MembershipCache.Relation.MEMBERS) : null;
+        List<Future<List<String>>> subgroups = withSubgroups
+                ? resolveAll(groups, MembershipCache.Relation.SUBGROUPS) : null;
+        try {
+            for (int i = 0; i < groups.size(); i++) {
+                List<String> memberIds = members != null ? await(members.get(i)) : null;
+                List<String> subgroupIds = subgroups != null ? await(subgroups.get(i)) : null;
+                Group group = groups.get(i);
+                ConnectorObject connectorObject = tracer.time(TracePhase.MAPPING,
+                        () -> group.toConnectorObject(memberIds, subgroupIds));
+                if (query.matches(connectorObject) && !handler.handle(connectorObject)) {
+                    logger.debug("Result handling interrupted.");
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            cancelAll(members);
+            cancelAll(subgroups);
+        }
+    }
+
+    private List<Future<List<String>>> resolveAll(List<Group> groups, MembershipCache.Relation relation) {
+        List<Future<List<String>>> futures = new ArrayList<>(groups.size());
+        for (Group group : groups) {
+            futures.add(executor.submit(withOperation(tracer, () -> relation(group.getId(), relation))));
+        }
+        return futures;
+    }
+
+    /**
+     * Devuelve una relación del grupo a través de la caché.
+     */
+    public List<String> relation(String groupId, MembershipCache.Relation relation) {
+        return membershipCache.get(groupId, relation, () -> loadRelation(groupId, relation));
+    }
+
+    private List<String> loadRelation(String groupId, MembershipCache.Relation relation) {
+        List<String> ids = new ArrayList<>();
+        dSpaceClient.searchLinkedPages(ENDPOINT, groupId, relation.getPath(), page -> {
+            for (JSONObject json : page) {
+                ids.add(json.getString("id"));
+            }
+            return true;
+        });
+        return ids;
+    }
+
+    // ==============================
+    // Gestión de relaciones
+    // ==============================
+
+    private void replaceRelation(String id, MembershipCache.Relation relation, Attribute attribute) {
+        if (attribute == null) {
+            return;
+        }
+        Set<String> desired = new LinkedHashSet<>(toStrings(attribute.getValue()));
+        // Se lee el estado real, no el de la caché, para calcular la diferencia.
+        Set<String> current = new LinkedHashSet<>(loadRelation(id, relation));
+
+        List<String> toAdd = new ArrayList<>(desired);
+        toAdd.removeAll(current);
+        List<String> toRemove = new ArrayList<>(current);
+        toRemove.removeAll(desired);
+
+        logger.debug("Grupo {}: {} {} por vincular, {} por desvincular", id, toAdd.size(), relation, toRemove.size());
+        addLinks(id, relation, toAdd);
+        removeLinks(id, relation, toRemove);
+    }
+
+    private void addLinks(String id, MembershipCache.Relation relation, Collection<String> targetIds) {
+        if (targetIds.isEmpty()) {
+            return;
+        }
+        String targetKey = relation == MembershipCache.Relation.MEMBERS ? EPERSON_ENDPOINT : ENDPOINT;
+        try {
+            dSpaceClient.addLinks(ENDPOINT, id, relation.getPath(), targetKey, targetIds);
+        } catch (Exception e) {
+            throw wrap("Error al vincular " + relation + " al grupo " + id, id, e);
+        }
+    }
+
+    private void removeLinks(String id, MembershipCache.Relation relation, Collection<String> targetIds) {
+        if (targetIds.isEmpty()) {
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(targetIds.size());
+        for (String targetId : targetIds) {
+            tasks.add(withOperation(tracer, () -> {
+                try {
+                    dSpaceClient.removeLink(ENDPOINT, id, relation.getPath(), targetId);
+                } catch (Exception e) {
+                    HttpStatusException status = HttpStatusException.find(e);
+                    if (status == null || !status.isNotFound()) {
+                        throw e;
+                    }
+                    // El vínculo ya no existía: el resultado es el mismo.
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                await(future);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Desvinculación interrumpida.", e);
+        }
+    }
+
+    // ==============================
+    // Utilidades
+    // ==============================
+
+    private static MembershipCache.Relation relationOf(Attribute attribute) {
+        if (Group.ATTR_MEMBERS.equals(attribute.getName())) {
+            return MembershipCache.Relation.MEMBERS;
+        }
+        if (Group.ATTR_SUBGROUPS.equals(attribute.getName())) {
+            return MembershipCache.Relation.SUBGROUPS;
+        }
+        throw new IllegalArgumentException("El atributo no admite añadir o quitar valores: " + attribute.getName());
+    }
+
+    private static String nameOf(Set<Attribute> attributes) {
+        String name = AttributeUtil.getStringValue(AttributeUtil.find(Group.ATTR_NAME, attributes));
+        if (name == null) {
+            Name nameAttr = AttributeUtil.getNameFromAttributes(attributes);
+            name = nameAttr != null ? nameAttr.getNameValue() : null;
+        }
+        return name;
+    }
+
+    private static List<String> values(Set<Attribute> attributes, String name) {
+        Attribute attribute = AttributeUtil.find(name, attributes);
+        return attribute != null ? toStrings(attribute.getValue()) : List.of();
+    }
+
+    private static List<String> toStrings(List<Object> values) {
+        if (values == null) {
+            return List.of();
+        }
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value != null) {
+                strings.add(value.toString());
+            }
+        }
+        return strings;
+    }
+
+    /**
+     * Añade a un JSON Patch la operación que lleva la descripción de su valor actual al nuevo.
+     */
+    private static void describe(JSONArray operations, String current, String desired) {
+        String path = "/metadata/dc.description";
+        if (desired == null) {
+            if (current != null) {
+                operations.put(new JSONObject().put("op", "remove").put("path", path));
+            }
+        } else if (current == null) {
+            operations.put(new JSONObject().put("op", "add").put("path", path)
+                    .put("value", ValidationJsonUtil.createMetadataArray(desired)));
+        } else if (!current.equals(desired)) {
+            operations.put(new JSONObject().put("op", "replace").put("path", path + "/0")
+                    .put("value", new JSONObject().put("value", desired)));
+        }
+    }
+
+    /**
+     * Envuelve una tarea del ejecutor de relaciones para que corra dentro de la operación que
+     * la lanza: sus peticiones suman a la traza de esa operación y se abortan con su tiempo límite.
+     * Debe llamarse desde el hilo de la operación.
+     */
+    static <T> Callable<T> withOperation(OperationTracer tracer, Callable<T> task) {
+        OperationTrace trace = tracer.current();
+        OperationDeadline deadline = OperationDeadline.current();
+        return () -> {
+            OperationTrace previous = tracer.attach(trace);
+            OperationDeadline previousDeadline = OperationDeadline.attach(deadline);
+            try {
+                return task.call();
+            } finally {
+                OperationDeadline.restore(previousDeadline);
+                tracer.restore(previous);
+            }
+        };
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return OperationDeadline.await(future);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Operación interrumpida.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ConnectorException(cause.getMessage(), cause);
+        }
+    }
+
+    private static void cancelAll(List<? extends Future<?>> futures) {
+        if (futures != null) {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private RuntimeException wrap(String message, String id, Exception e) {
+        HttpStatusException status = HttpStatusException.find(e);
+        if (status != null && status.isNotFound()) {
+            return new UnknownUidException(new Uid(id), Group.OBJECT_CLASS);
+        }
+        logger.error("{}: {}", message, e.getMessage());
+        return e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(message, e);
+    }
+
+    @Override
+    protected boolean validate(Object entity) {
+        return entity instanceof JSONObject && ((JSONObject) entity).has("name");
+    }
+}
@@ -0,0 +1,138 @@
+package com.upeu.connector.handler;
+
+import com.upeu.connector.DSpaceClient;
+import com.upeu.connector.auth.OperationDeadline;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.util.ValidationJsonUtil;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Resuelve los grupos de un conjunto de EPersons sin una petición por EPerson y grupo.
+ * <p>
+ * Hay dos estrategias: para pocos EPersons se pide {@code epersons/{uuid}/groups} de cada
+ * uno en paralelo; para muchos se recorre una sola vez la colección de grupos, se obtienen
+ * sus miembros (a través de {@link MembershipCache}) y se invierte en un índice
+ * EPerson → grupos que sirve para toda la búsqueda en curso.
+ */
+public class GroupMembershipResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GroupMembershipResolver.class);
+
+    private static final String EPERSON_ENDPOINT = "epersons";
+    private static final String GROUP_ENDPOINT = "groups";
+    private static final String GROUPS_RELATION = "groups";
+
+    private final DSpaceClient dSpaceClient;
+    private final GroupHandler groupHandler;
+    private final ExecutorService executor;
+    private final OperationTracer tracer;
+
+    /**
+     * @param dSpaceClient Cliente DSpace.
+     * @param groupHandler Handler de grupos, que aporta la caché de miembros.
+     * @param executor     Ejecutor para las peticiones en paralelo; no debe ser el de las ramas de búsqueda.
+     */
+    public GroupMembershipResolver(DSpaceClient dSpaceClient, GroupHandler groupHandler, ExecutorService executor) {
+        this.dSpaceClient = ValidationJsonUtil.validateNotNull(dSpaceClient, "DSpaceClient no puede ser nulo.");
+        this.groupHandler = ValidationJsonUtil.validateNotNull(groupHandler, "GroupHandler no puede ser nulo.");
+        this.executor = ValidationJsonUtil.validateNotNull(executor, "El ejecutor no puede ser nulo.");
+        this.tracer = dSpaceClient.getTracer();
+    }
+
+    /**
+     * Pide los grupos de cada EPerson en paralelo.
+     *
+     * @param epersonIds UUIDs de los EPersons.
+     * @return Grupos por UUID de EPerson.
+     */
+    public Map<String, List<String>> fetchForEPersons(Collection<String> epersonIds) {
+        Map<String, Future<List<String>>> futures = new HashMap<>();
+        try {
+            for (String id : epersonIds) {
+                futures.computeIfAbsent(id, key -> executor.submit(
+                        GroupHandler.withOperation(tracer, () -> loadGroupsOf(key))));
+            }
+            Map<String, List<String>> groups = new HashMap<>();
+            for (Map.Entry<String, Future<List<String>>> entry : futures.entrySet()) {
+                groups.put(entry.getKey(), await(entry.getValue()));
+            }
+            return groups;
+        } finally {
+            futures.values().forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Construye el índice invertido EPerson → grupos recorriendo todos los grupos una vez.
+     * Los miembros de los grupos de cada página se resuelven en paralelo.
+     *
+     * @return Grupos directos por UUID de EPerson.
+     */
+    public Map<String, List<String>> buildIndex() {
+        long start = System.nanoTime();
+        Map<String, List<String>> index = new HashMap<>();
+        int[] groupCount = {0};
+        dSpaceClient.searchPages(GROUP_ENDPOINT, Map.of(), page -> {
+            List<String> groupIds = new ArrayList<>(page.size());
+            List<Future<List<String>>> members = new ArrayList<>(page.size());
+            try {
+                for (JSONObject json : page) {
+                    String groupId = json.getString("id");
+                    groupIds.add(groupId);
+                    members.add(executor.submit(GroupHandler.withOperation(tracer,
+                            () -> groupHandler.relation(groupId, MembershipCache.Relation.MEMBERS))));
+                }
+                for (int i = 0; i < groupIds.size(); i++) {
+                    for (String epersonId : await(members.get(i))) {
+                        index.computeIfAbsent(epersonId, key -> new ArrayList<>(4)).add(groupIds.get(i));
+                    }
+                }
+            } finally {
+                members.forEach(future -> future.cancel(true));
+            }
+            groupCount[0] += groupIds.size();
+            return true;
+        });
+        LOG.debug("Índice de membresía construido: {} grupos, {} EPersons en {} ms",
+                groupCount[0], index.size(), (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    private List<String> loadGroupsOf(String epersonId) {
+        List<String> groups = new ArrayList<>();
+        dSpaceClient.searchLinkedPages(EPERSON_ENDPOINT, epersonId, GROUPS_RELATION, page -> {
+            for (JSONObject json : page) {
+                groups.add(json.getString("id"));
+            }
+            return true;
+        });
+        return groups;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return OperationDeadline.await(future);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Resolución de grupos interrumpida.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ConnectorException(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.upeu.connector.handler;
+
+import com.upeu.connector.auth.OperationDeadline;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché de las relaciones de un grupo (miembros y subgrupos) por UUID de grupo.
+ * <p>
+ * Cada entrada caduca tras el TTL configurado. Si varios hilos piden la misma relación
+ * a la vez solo uno la descarga y el resto espera su resultado, de modo que una misma
+ * relación nunca se pide dos veces en paralelo. Las escrituras del conector invalidan
+ * las entradas del grupo afectado.
+ */
+public class MembershipCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MembershipCache.class);
+
+    // Por encima de este número de entradas se purgan las caducadas antes de insertar
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    // Pausa mínima entre purgas, para no recorrer la caché en cada inserción
+    private static final long MIN_PURGE_INTERVAL_MILLIS = 1_000;
+
+    /**
+     * Relaciones de un grupo que se guardan en caché, con el nombre de la colección enlazada en DSpace.
+     */
+    public enum Relation {
+        MEMBERS("epersons"),
+        SUBGROUPS("subgroups");
+
+        private final String path;
+
+        Relation(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    /**
+     * @param ttlMillis Vida de cada entrada en milisegundos; 0 desactiva la caché.
+     */
+    public MembershipCache(long ttlMillis) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("El TTL de la caché no puede ser negativo.");
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Devuelve la relación de un grupo, descargándola con el loader si no está en caché o ha caducado.
+     *
+     * @param groupId  UUID del grupo.
+     * @param relation Relación solicitada.
+     * @param loader   Descarga la lista de UUIDs desde DSpace.
+     * @return Lista inmutable de UUIDs.
+     */
+    public List<String> get(String groupId, Relation relation, Supplier<List<String>> loader) {
+        if (ttlMillis == 0) {
+            return List.copyOf(loader.get());
+        }
+
+        String key = key(groupId, relation);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            return joinOrLoad(entry, loader);
+        }
+
+        if (entries.size() > PURGE_THRESHOLD) {
+            purgeExpired(now);
+        }
+
+        Entry fresh = new Entry(now + ttlMillis);
+        boolean owner = entry == null ? entries.putIfAbsent(key, fresh) == null : entries.replace(key, entry, fresh);
+        if (!owner) {
+            // Otro hilo se adelantó con la descarga: se espera su resultado.
+            Entry other = entries.get(key);
+            if (other != null) {
+                return joinOrLoad(other, loader);
+            }
+            return List.copyOf(loader.get());
+        }
+
+        try {
+            List<String> value = List.copyOf(loader.get());
+            fresh.future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // También ante un Error: si el futuro quedara sin completar, los hilos que esperan
+            // y los que lleguen durante el TTL se bloquearían sobre él.
+            entries.remove(key, fresh);
+            fresh.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Quita las entradas caducadas, como mucho una vez por intervalo y desde un solo hilo.
+     */
+    private void purgeExpired(long now) {
+        long due = nextPurge.get();
+        if (now < due || !nextPurge.compareAndSet(due, now + Math.max(MIN_PURGE_INTERVAL_MILLIS, ttlMillis / 2))) {
+            return;
+        }
+        entries.values().removeIf(e -> e.expiresAt <= now);
+    }
+
+    /**
+     * Espera la descarga de otro hilo, como mucho hasta el tiempo límite de la operación que
+     * espera. Esa descarga corre con el tiempo límite de la operación que la lanzó: si falla y
+     * la operación que espera sigue viva, esta descarga la relación por su cuenta en lugar de
+     * heredar un fallo ajeno.
+     */
+    private static List<String> joinOrLoad(Entry entry, Supplier<List<String>> loader) {
+        try {
+            return entry.join();
+        } catch (RuntimeException e) {
+            OperationDeadline deadline = OperationDeadline.current();
+            if ((deadline != null && deadline.isDone()) || Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            LOG.debug("Descarga compartida fallida ({}); se repite para esta operación.", e.getMessage());
+            return List.copyOf(loader.get());
+        }
+    }
+
+    /**
+     * Elimina las relaciones en caché de un grupo.
+     */
+    public void invalidate(String groupId) {
+        for (Relation relation : Relation.values()) {
+            entries.remove(key(groupId, relation));
+        }
+        LOG.debug("Caché de membresía invalidada para el grupo {}", groupId);
+    }
+
+    /**
+     * Vacía la caché.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private static String key(String groupId, Relation relation) {
+        return groupId + '/' + relation.path;
+    }
+
+    private static final class Entry {
+        private final long expiresAt;
+        private final CompletableFuture<List<String>> future = new CompletableFuture<>();
+
+        private Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private List<String> join() {
+            try {
+                return OperationDeadline.await(future);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectorException("Espera de la relación de grupo interrumpida.", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new ConnectorException(cause.getMessage(), cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.upeu.connector.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Fichero de progreso de un recorrido completo por shards.
+ * <p>
+ * Guarda la consulta recorrida (endpoint y parámetros, orden incluido), el tamaño de página,
+ * las páginas por shard y los shards ya entregados. Se reescribe entero en un fichero temporal
+ * que después se mueve sobre el anterior, de modo que un fallo a mitad de escritura nunca deja
+ * un checkpoint corrupto. Si la consulta o la disposición de shards de una ejecución posterior
+ * no coincide con la guardada, el checkpoint se descarta: sobre otro orden, los shards
+ * completados no cubrirían los mismos objetos.
+ * No es seguro entre hilos: solo lo usa el hilo que entrega los resultados.
+ */
+public class ScanCheckpoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScanCheckpoint.class);
+
+    private static final Pattern SCAN_ID = Pattern.compile("[A-Za-z0-9._-]{1,128}");
+    private static final String SUFFIX = ".scan";
+
+    private static final String KEY_QUERY = "query";
+    private static final String KEY_PAGE_SIZE = "pageSize";
+    private static final String KEY_PAGES_PER_SHARD = "pagesPerShard";
+    private static final String KEY_COMPLETED = "completed";
+
+    private final Path file;
+    private final String query;
+    private final int pageSize;
+    private final int pagesPerShard;
+    private final BitSet completed;
+
+    private ScanCheckpoint(Path file, String query, int pageSize, int pagesPerShard, BitSet completed) {
+        this.file = file;
+        this.query = query;
+        this.pageSize = pageSize;
+        this.pagesPerShard = pagesPerShard;
+        this.completed = completed;
+    }
+
+    /**
+     * Carga el checkpoint de un recorrido o crea uno vacío.
+     *
+     * @param directory     Directorio de los checkpoints.
+     * @param scanId        Identificador del recorrido; letras, dígitos, '.', '_' y '-'.
+     * @param endpointKey   Clave del endpoint del recorrido actual.
+     * @param params        Parámetros de la consulta del recorrido actual.
+     * @param pageSize      Tamaño de página del recorrido actual.
+     * @param pagesPerShard Páginas por shard del recorrido actual.
+     */
+    public static ScanCheckpoint open(Path directory, String scanId, String endpointKey, Map<String, String> params,
+                                      int pageSize, int pagesPerShard) {
+        if (scanId == null || !SCAN_ID.matcher(scanId).matches()) {
+            throw new IllegalArgumentException("Identificador de recorrido no válido: " + scanId);
+        }
+        Path file = directory.resolve(scanId + SUFFIX);
+        String query = query(endpointKey, params);
+        BitSet completed = new BitSet();
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el checkpoint " + file, e);
+            }
+            if (!query.equals(properties.getProperty(KEY_QUERY))) {
+                LOG.warn("El checkpoint {} es de otra consulta u otro orden; el recorrido empieza de cero.", file);
+            } else if (!String.valueOf(pageSize).equals(properties.getProperty(KEY_PAGE_SIZE))
+                    || !String.valueOf(pagesPerShard).equals(properties.getProperty(KEY_PAGES_PER_SHARD))) {
+                LOG.warn("El checkpoint {} usa otra disposición de shards; el recorrido empieza de cero.", file);
+            } else if (!parseShards(properties.getProperty(KEY_COMPLETED, ""), completed)) {
+                completed.clear();
+                LOG.warn("El checkpoint {} está dañado; el recorrido empieza de cero.", file);
+            } else {
+                LOG.info("Reanudando el recorrido '{}': {} shard(s) ya completados.", scanId, completed.cardinality());
+            }
+        }
+        return new ScanCheckpoint(file, query, pageSize, pagesPerShard, completed);
+    }
+
+    /**
+     * Huella de la consulta: el endpoint y los parámetros ordenados por nombre.
+     */
+    private static String query(String endpointKey, Map<String, String> params) {
+        return endpointKey + '?' + new TreeMap<>(params);
+    }
+
+    /**
+     * Lee la lista de shards completados; false si algún valor no es un índice válido.
+     */
+    private static boolean parseShards(String value, BitSet completed) {
+        for (String shard : value.split(",")) {
+            if (shard.isBlank()) {
+                continue;
+            }
+            try {
+                int index = Integer.parseInt(shard.trim());
+                if (index < 0) {
+                    return false;
+                }
+                completed.set(index);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isCompleted(int shard) {
+        return completed.get(shard);
+    }
+
+    public int getCompletedCount() {
+        return completed.cardinality();
+    }
+
+    /**
+     * Marca un shard como entregado y persiste el checkpoint.
+     */
+    public void markCompleted(int shard) {
+        completed.set(shard);
+        write();
+    }
+
+    /**
+     * Elimina el checkpoint al terminar el recorrido completo.
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warn("No se pudo eliminar el checkpoint {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void write() {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_QUERY, query);
+        properties.setProperty(KEY_PAGE_SIZE, String.valueOf(pageSize));
+        properties.setProperty(KEY_PAGES_PER_SHARD, String.valueOf(pagesPerShard));
+        StringBuilder shards = new StringBuilder();
+        completed.stream().forEach(shard -> shards.append(shards.length() > 0 ? "," : "").append(shard));
+        properties.setProperty(KEY_COMPLETED, shards.toString());
+
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    properties.store(writer, "Checkpoint de recorrido completo de DSpace");
+                }
+                move(temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el checkpoint " + file, e);
+        }
+    }
+
+    private void move(Path temp) throws IOException {
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
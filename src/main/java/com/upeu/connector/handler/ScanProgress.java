@@ -0,0 +1,79 @@
+package com.upeu.connector.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+
+/**
+ * Progreso de un recorrido completo por shards: registra cada shard terminado con su
+ * rendimiento y el acumulado del recorrido.
+ */
+public class ScanProgress {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScanProgress.class);
+
+    private final String scanId;
+    private final int totalShards;
+    private final long startedAt = System.nanoTime();
+    private int completedShards;
+    private long objects;
+
+    /**
+     * @param scanId          Identificador del recorrido; null si no tiene checkpoint.
+     * @param totalShards     Número total de shards.
+     * @param completedShards Shards ya completados en una ejecución anterior.
+     */
+    public ScanProgress(String scanId, int totalShards, int completedShards) {
+        this.scanId = scanId != null ? scanId : "-";
+        this.totalShards = totalShards;
+        this.completedShards = completedShards;
+    }
+
+    /**
+     * Registra un shard entregado.
+     *
+     * @param shard      Índice del shard.
+     * @param count      Objetos entregados del shard.
+     * @param fetchNanos Tiempo que tardó el worker en descargar el shard.
+     */
+    public void shardCompleted(int shard, long count, long fetchNanos) {
+        completedShards++;
+        objects += count;
+        if (LOG.isInfoEnabled()) {
+            LOG.info(String.format(Locale.ROOT,
+                    "Recorrido %s: shard %d completado, %d objetos en %.1f s (%.0f obj/s). "
+                            + "Progreso %d/%d shards (%.0f%%), %d objetos, %.0f obj/s.",
+                    scanId, shard, count, fetchNanos / 1e9, rate(count, fetchNanos),
+                    completedShards, totalShards, 100.0 * completedShards / Math.max(1, totalShards),
+                    objects, rate(objects, System.nanoTime() - startedAt)));
+        }
+    }
+
+    /**
+     * Registra el resumen final del recorrido.
+     *
+     * @param finished true si se recorrieron todos los shards.
+     */
+    public void finish(boolean finished) {
+        long elapsed = System.nanoTime() - startedAt;
+        if (LOG.isInfoEnabled()) {
+            LOG.info(String.format(Locale.ROOT,
+                    "Recorrido %s %s: %d/%d shards, %d objetos en %.1f s (%.0f obj/s).",
+                    scanId, finished ? "terminado" : "detenido", completedShards, totalShards,
+                    objects, elapsed / 1e9, rate(objects, elapsed)));
+        }
+    }
+
+    public int getCompletedShards() {
+        return completedShards;
+    }
+
+    public long getObjects() {
+        return objects;
+    }
+
+    private static double rate(long count, long nanos) {
+        return nanos > 0 ? count * 1e9 / nanos : 0;
+    }
+}
@@ -0,0 +1,241 @@
+package com.upeu.connector.handler;
+
+import com.upeu.connector.DSpaceClient;
+import com.upeu.connector.auth.OperationDeadline;
+import com.upeu.connector.metrics.OperationTrace;
+import com.upeu.connector.metrics.OperationTracer;
+import com.upeu.connector.util.DaemonThreadFactory;
+import com.upeu.connector.util.UuidSet;
+import com.upeu.connector.util.ValidationJsonUtil;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.ResultsHandler;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Recorrido completo de una colección dividido en shards de páginas consecutivas.
+ * <p>
+ * Varios workers descargan y mapean los shards en paralelo, pero los objetos se entregan
+ * al {@link ResultsHandler} siempre desde el hilo llamante, a través de una cola acotada.
+ * Cuando se indica un identificador de recorrido, cada shard entregado por completo se anota
+ * en un {@link ScanCheckpoint}: una ejecución posterior con el mismo identificador salta esos
+ * shards y el checkpoint se elimina cuando el recorrido termina.
+ * <p>
+ * Los shards son rangos de páginas sobre un orden estable, por lo que altas o bajas durante el
+ * recorrido pueden desplazar objetos entre shards; dentro de una ejecución se descartan los
+ * duplicados por UUID.
+ */
+public class ShardedScanner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedScanner.class);
+
+    /**
+     * Opción de la operación de búsqueda con el identificador del recorrido a reanudar.
+     */
+    public static final String OPTION_SCAN_ID = "scanId";
+
+    // Mismo tamaño de página que usa DSpaceClient al recorrer colecciones
+    private static final int PAGE_SIZE = 100;
+
+    private final DSpaceClient dSpaceClient;
+    private final OperationTracer tracer;
+    private final int workers;
+    private final int pagesPerShard;
+    private final Path checkpointDirectory;
+
+    /**
+     * @param dSpaceClient        Instancia del cliente DSpace.
+     * @param workers             Shards descargados a la vez.
+     * @param pagesPerShard       Páginas de {@value #PAGE_SIZE} objetos por shard.
+     * @param checkpointDirectory Directorio de los checkpoints.
+     */
+    public ShardedScanner(DSpaceClient dSpaceClient, int workers, int pagesPerShard, Path checkpointDirectory) {
+        if (workers <= 0 || pagesPerShard <= 0) {
+            throw new IllegalArgumentException("Los workers y las páginas por shard deben ser mayores que 0.");
+        }
+        this.dSpaceClient = ValidationJsonUtil.validateNotNull(dSpaceClient, "El cliente DSpace no puede ser nulo.");
+        this.checkpointDirectory = ValidationJsonUtil.validateNotNull(checkpointDirectory,
+                "El directorio de checkpoints no puede ser nulo.");
+        this.tracer = dSpaceClient.getTracer();
+        this.workers = workers;
+        this.pagesPerShard = pagesPerShard;
+    }
+
+    /**
+     * @return true si los shards se descargan con más de un worker.
+     */
+    public boolean isParallel() {
+        return workers > 1;
+    }
+
+    /**
+     * Recorre todos los objetos de un endpoint.
+     *
+     * @param endpointKey Clave del endpoint de la colección.
+     * @param params      Parámetros de la consulta; deben fijar un orden estable.
+     * @param scanId      Identificador del recorrido para reanudarlo; null para no guardar progreso.
+     * @param mapper      Convierte cada recurso en ConnectorObject; se ejecuta en los workers.
+     * @param handler     Recibe los objetos en el hilo llamante; si devuelve false se detiene el recorrido.
+     * @return true si se recorrieron todos los shards.
+     */
+    public boolean scan(String endpointKey, Map<String, String> params, String scanId,
+                        Function<JSONObject, ConnectorObject> mapper, ResultsHandler handler) {
+        JSONObject first = dSpaceClient.fetchPage(endpointKey, params, 0, PAGE_SIZE);
+        JSONObject pageInfo = first.optJSONObject("page");
+        int totalPages = pageInfo != null ? pageInfo.optInt("totalPages", 0) : 0;
+        int totalShards = Math.max(1, (totalPages + pagesPerShard - 1) / pagesPerShard);
+
+        ScanCheckpoint checkpoint = scanId != null
+                ? ScanCheckpoint.open(checkpointDirectory, scanId, endpointKey, params, PAGE_SIZE, pagesPerShard)
+                : null;
+        List<Integer> pending = new ArrayList<>(totalShards);
+        for (int shard = 0; shard < totalShards; shard++) {
+            if (checkpoint == null || !checkpoint.isCompleted(shard)) {
+                pending.add(shard);
+            }
+        }
+        ScanProgress progress = new ScanProgress(scanId, totalShards, totalShards - pending.size());
+        LOG.info("Recorrido completo de '{}': {} página(s) en {} shard(s), {} pendiente(s), {} worker(s).",
+                endpointKey, totalPages, totalShards, pending.size(), Math.min(workers, pending.size()));
+
+        boolean finished = pending.isEmpty() || deliver(endpointKey, params, first, pending, mapper, handler,
+                checkpoint, progress);
+        progress.finish(finished);
+        if (finished && checkpoint != null) {
+            checkpoint.delete();
+        }
+        return finished;
+    }
+
+    private boolean deliver(String endpointKey, Map<String, String> params, JSONObject first, List<Integer> pending,
+                            Function<JSONObject, ConnectorObject> mapper, ResultsHandler handler,
+                            ScanCheckpoint checkpoint, ScanProgress progress) {
+        int poolSize = Math.min(workers, pending.size());
+        BlockingQueue<ShardPage> pages = new ArrayBlockingQueue<>(poolSize * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, new DaemonThreadFactory("scan"));
+        List<Future<?>> futures = new ArrayList<>(pending.size());
+        UuidSet seen = new UuidSet();
+
+        try {
+            // Los workers acumulan sus tiempos en la traza de la operación que lanzó el recorrido
+            OperationTrace trace = tracer.current();
+            OperationDeadline deadline = OperationDeadline.current();
+            for (int shard : pending) {
+                futures.add(executor.submit(() -> {
+                    OperationTrace previous = tracer.attach(trace);
+                    OperationDeadline previousDeadline = OperationDeadline.attach(deadline);
+                    try {
+                        runShard(endpointKey, params, shard, shard == 0 ? first : null, mapper, pages);
+                    } finally {
+                        OperationDeadline.restore(previousDeadline);
+                        tracer.restore(previous);
+                    }
+                }));
+            }
+
+            long[] delivered = new long[pending.get(pending.size() - 1) + 1];
+            int remaining = pending.size();
+            while (remaining > 0) {
+                ShardPage page = pages.take();
+                if (page.error != null) {
+                    throw page.error;
+                }
+                if (page.objects == null) {
+                    remaining--;
+                    if (checkpoint != null) {
+                        checkpoint.markCompleted(page.shard);
+                    }
+                    progress.shardCompleted(page.shard, delivered[page.shard], page.fetchNanos);
+                    continue;
+                }
+                for (ConnectorObject connectorObject : page.objects) {
+                    if (!seen.add(connectorObject.getUid().getUidValue())) {
+                        continue;
+                    }
+                    delivered[page.shard]++;
+                    if (!handler.handle(connectorObject)) {
+                        LOG.debug("Result handling interrupted.");
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Recorrido completo interrumpido.", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Descarga las páginas de un shard, las mapea y las encola; al final encola la marca de fin
+     * de shard o el error.
+     */
+    private void runShard(String endpointKey, Map<String, String> params, int shard, JSONObject prefetched,
+                          Function<JSONObject, ConnectorObject> mapper, BlockingQueue<ShardPage> pages) {
+        long start = System.nanoTime();
+        ShardPage last;
+        try {
+            int firstPage = shard * pagesPerShard;
+            for (int page = firstPage; page < firstPage + pagesPerShard; page++) {
+                JSONObject response = page == 0 && prefetched != null
+                        ? prefetched
+                        : dSpaceClient.fetchPage(endpointKey, params, page, PAGE_SIZE);
+                List<JSONObject> objects = ValidationJsonUtil.extractEmbeddedObjects(response, null);
+                List<ConnectorObject> mapped = new ArrayList<>(objects.size());
+                for (JSONObject json : objects) {
+                    mapped.add(mapper.apply(json));
+                }
+                pages.put(new ShardPage(shard, mapped, 0, null));
+                if (objects.size() < PAGE_SIZE || Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+            }
+            last = new ShardPage(shard, null, System.nanoTime() - start, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            last = new ShardPage(shard, null, 0, e);
+        }
+
+        try {
+            // Si el recorrido se canceló, la interrupción libera este put.
+            pages.put(last);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Página mapeada de un shard; sin objetos indica fin de shard, con error indica fallo.
+     */
+    private static final class ShardPage {
+        private final int shard;
+        private final List<ConnectorObject> objects;
+        private final long fetchNanos;
+        private final RuntimeException error;
+
+        private ShardPage(int shard, List<ConnectorObject> objects, long fetchNanos, RuntimeException error) {
+            this.shard = shard;
+            this.objects = objects;
+            this.fetchNanos = fetchNanos;
+            this.error = error;
+        }
+    }
+}
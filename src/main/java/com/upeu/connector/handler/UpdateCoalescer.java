@@ -0,0 +1,175 @@
+package com.upeu.connector.handler;
+
+import com.upeu.connector.auth.OperationDeadline;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Agrupa las actualizaciones de un mismo objeto que llegan dentro de una ventana corta.
+ * <p>
+ * La primera llamada para un UUID abre un lote y actúa como líder: espera la ventana, cierra
+ * el lote y envía una sola escritura con los atributos combinados. Las llamadas que llegan
+ * mientras el lote está abierto se suman a él y esperan su resultado. Los atributos se
+ * combinan en orden de llegada (el último valor de cada atributo gana), igual que si las
+ * actualizaciones se hubieran aplicado una tras otra, y todas las llamadas del lote reciben
+ * el mismo Uid o la misma excepción. Por eso cada llamada debe validar sus atributos antes de
+ * sumarse: en el lote solo fallan las escrituras, no los datos de una llamada concreta.
+ * <p>
+ * Los lotes sucesivos de un mismo UUID se escriben en orden: el líder de un lote espera a
+ * que termine la escritura del anterior. Cada llamada espera como mucho hasta el tiempo
+ * límite de su propia operación ({@link OperationDeadline}).
+ */
+public class UpdateCoalescer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UpdateCoalescer.class);
+
+    private final long windowNanos;
+    private final Map<String, Batch> open = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Uid>> lastWrite = new ConcurrentHashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong mergedUpdates = new AtomicLong();
+
+    /**
+     * @param windowMillis Tiempo que un lote espera otras actualizaciones del mismo UUID.
+     */
+    public UpdateCoalescer(long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("La ventana de agrupación debe ser mayor que 0.");
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    /**
+     * Suma una actualización al lote abierto del UUID, o abre uno nuevo.
+     *
+     * @param id         UUID del objeto.
+     * @param attributes Atributos de esta actualización.
+     * @param writer     Escribe los atributos combinados; solo lo llama el líder del lote.
+     * @return El Uid devuelto por la escritura del lote.
+     */
+    public Uid submit(String id, Set<Attribute> attributes, Function<Set<Attribute>, Uid> writer) {
+        Batch[] joined = new Batch[1];
+        boolean[] leader = new boolean[1];
+        open.compute(id, (key, batch) -> {
+            if (batch == null) {
+                CompletableFuture<Uid> result = new CompletableFuture<>();
+                batch = new Batch(lastWrite.put(key, result), result);
+                leader[0] = true;
+            } else {
+                mergedUpdates.incrementAndGet();
+            }
+            // Solo se modifica mientras el lote sigue en el mapa: tras retirarlo queda inmutable
+            batch.add(attributes);
+            joined[0] = batch;
+            return batch;
+        });
+
+        Batch batch = joined[0];
+        if (leader[0]) {
+            lead(id, batch, writer);
+        }
+        return await(batch.result);
+    }
+
+    /**
+     * Escrituras enviadas (una por lote).
+     */
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * Actualizaciones que se sumaron a un lote ya abierto en lugar de enviar su propia escritura.
+     */
+    public long getMergedUpdates() {
+        return mergedUpdates.get();
+    }
+
+    private void lead(String id, Batch batch, Function<Set<Attribute>, Uid> writer) {
+        try {
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(remaining);
+            }
+            open.remove(id, batch);
+            if (Thread.currentThread().isInterrupted()) {
+                // Se conserva la interrupción y no se escribe: el lote entero falla
+                throw new ConnectorException("Actualización combinada de " + id + " interrumpida.");
+            }
+
+            if (batch.previous != null) {
+                // El resultado del lote anterior no importa, solo que haya terminado
+                await(batch.previous.handle((uid, error) -> null));
+            }
+            if (batch.updates > 1) {
+                LOG.debug("Escritura combinada de {} actualizaciones para {}.", batch.updates, id);
+            }
+            writes.incrementAndGet();
+            batch.result.complete(writer.apply(Set.copyOf(batch.attributes.values())));
+        } catch (RuntimeException | Error e) {
+            batch.result.completeExceptionally(e);
+        } finally {
+            // Por si el líder falló antes de retirar el lote
+            open.remove(id, batch);
+            lastWrite.remove(id, batch.result);
+        }
+    }
+
+    private static <T> T await(Future<T> result) {
+        try {
+            return OperationDeadline.await(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Espera de la actualización combinada interrumpida.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ConnectorException(cause);
+        }
+    }
+
+    /**
+     * Lote de actualizaciones de un UUID.
+     */
+    private static final class Batch {
+        private final CompletableFuture<Uid> previous;
+        private final CompletableFuture<Uid> result;
+        private final Map<String, Attribute> attributes = new LinkedHashMap<>();
+        private int updates;
+
+        private Batch(CompletableFuture<Uid> previous, CompletableFuture<Uid> result) {
+            this.previous = previous;
+            this.result = result;
+        }
+
+        private void add(Set<Attribute> update) {
+            updates++;
+            for (Attribute attribute : update) {
+                // Se reinserta para conservar el orden de la última modificación
+                attributes.remove(attribute.getName());
+                attributes.put(attribute.getName(), attribute);
+            }
+        }
+    }
+}
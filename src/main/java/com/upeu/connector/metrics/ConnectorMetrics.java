@@ -0,0 +1,183 @@
+package com.upeu.connector.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Request metrics of one connector instance, grouped by endpoint key and HTTP method.
+ * Each group is exposed as an MXBean under
+ * {@code com.upeu.connector:type=DSpaceConnector,instance=<id>,endpoint=<key>,method=<method>}
+ * and can also be polled through {@link #snapshot()}.
+ */
+public class ConnectorMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectorMetrics.class);
+
+    private static final String JMX_DOMAIN = "com.upeu.connector";
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private final String instanceId;
+    private final boolean jmxEnabled;
+    private final OperationTracer tracer;
+
+    // Petición en curso en cada hilo, para atribuir la espera del pool de conexiones
+    private final ThreadLocal<RequestSample> current = new ThreadLocal<>();
+
+    /**
+     * @param instanceId Identifier of the connector instance in the JMX names.
+     * @param jmxEnabled Whether to register the MBeans.
+     */
+    public ConnectorMetrics(String instanceId, boolean jmxEnabled) {
+        this(instanceId, jmxEnabled, OperationTracer.disabled());
+    }
+
+    /**
+     * @param instanceId Identifier of the connector instance in the JMX names.
+     * @param jmxEnabled Whether to register the MBeans.
+     * @param tracer     Slow-operation tracer fed by the requests of this instance.
+     */
+    public ConnectorMetrics(String instanceId, boolean jmxEnabled, OperationTracer tracer) {
+        this.instanceId = instanceId;
+        this.jmxEnabled = jmxEnabled;
+        this.tracer = tracer != null ? tracer : OperationTracer.disabled();
+        if (this.tracer.isEnabled()) {
+            registerTracer();
+        }
+    }
+
+    /**
+     * Metrics that are recorded but never registered in JMX.
+     */
+    public static ConnectorMetrics local() {
+        return new ConnectorMetrics("local", false);
+    }
+
+    /**
+     * Starts measuring a request. The caller must call {@link RequestSample#end()} in a finally block.
+     *
+     * @param endpointKey Key of the endpoint in the registry.
+     * @param method      HTTP method.
+     */
+    public RequestSample begin(String endpointKey, String method) {
+        RequestSample sample = new RequestSample(this, endpoint(endpointKey, method), current.get());
+        current.set(sample);
+        tracer.countRequest();
+        return sample;
+    }
+
+    void finish(RequestSample sample) {
+        if (current.get() == sample) {
+            if (sample.parent != null) {
+                current.set(sample.parent);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    void recordLeaseWait(long nanos) {
+        RequestSample sample = current.get();
+        if (sample != null) {
+            sample.leaseWait(nanos);
+        }
+    }
+
+    public OperationTracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Returns the metrics of an endpoint key and method, creating and registering them on first use.
+     */
+    public EndpointMetrics endpoint(String endpointKey, String method) {
+        String key = method + " " + endpointKey;
+        EndpointMetrics metrics = endpoints.get(key);
+        if (metrics == null) {
+            metrics = endpoints.computeIfAbsent(key, k -> new EndpointMetrics(endpointKey, method));
+            register(metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Immutable copy of all the metrics recorded so far.
+     */
+    public List<EndpointSnapshot> snapshot() {
+        List<EndpointSnapshot> snapshots = new ArrayList<>(endpoints.size());
+        for (EndpointMetrics metrics : endpoints.values()) {
+            snapshots.add(metrics.snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Unregisters every MBean of this instance.
+     */
+    public void close() {
+        if (!jmxEnabled) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        synchronized (registered) {
+            for (ObjectName name : registered) {
+                try {
+                    server.unregisterMBean(name);
+                } catch (Exception e) {
+                    LOG.debug("No se pudo desregistrar el MBean {}", name, e);
+                }
+            }
+            registered.clear();
+        }
+    }
+
+    private void registerTracer() {
+        if (!jmxEnabled) {
+            return;
+        }
+        synchronized (registered) {
+            try {
+                ObjectName name = new ObjectName(JMX_DOMAIN + ":type=DSpaceConnector"
+                        + ",instance=" + ObjectName.quote(instanceId)
+                        + ",name=slowOperations");
+                ManagementFactory.getPlatformMBeanServer().registerMBean(tracer, name);
+                registered.add(name);
+            } catch (Exception e) {
+                LOG.warn("No se pudo registrar el MBean de operaciones lentas: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void register(EndpointMetrics metrics) {
+        if (!jmxEnabled) {
+            return;
+        }
+        synchronized (registered) {
+            try {
+                ObjectName name = new ObjectName(JMX_DOMAIN + ":type=DSpaceConnector"
+                        + ",instance=" + ObjectName.quote(instanceId)
+                        + ",endpoint=" + ObjectName.quote(metrics.getEndpointKey())
+                        + ",method=" + metrics.getMethod());
+                if (registered.contains(name)) {
+                    return;
+                }
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+                registered.add(name);
+            } catch (InstanceAlreadyExistsException e) {
+                LOG.debug("MBean ya registrado para {} {}", metrics.getMethod(), metrics.getEndpointKey());
+            } catch (Exception e) {
+                LOG.warn("No se pudieron registrar las métricas JMX de {} {}: {}",
+                        metrics.getMethod(), metrics.getEndpointKey(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.upeu.connector.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of one endpoint key and HTTP method.
+ * Recording is lock-free ({@link LongAdder} and HdrHistogram's {@link ConcurrentHistogram}),
+ * so it can stay enabled on the request path.
+ */
+public final class EndpointMetrics implements EndpointMetricsMXBean {
+
+    // Rango de los histogramas: 1 µs a 10 minutos, 3 dígitos significativos
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    // Ventana de la latencia reciente: se descarta lo medido hace más de dos ventanas
+    private static final long RECENT_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final String endpointKey;
+    private final String method;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder[] statusClasses = new LongAdder[6];
+    private final LongAdder ioErrors = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    private final Histogram latency = newHistogram();
+    private final Histogram tokenWait = newHistogram();
+    private final Histogram leaseWait = newHistogram();
+    // Se crea con la primera consulta de la latencia reciente; la mayoría de endpoints no la usan
+    private volatile RecentLatency recentLatency;
+
+    EndpointMetrics(String endpointKey, String method) {
+        this.endpointKey = endpointKey;
+        this.method = method;
+        for (int i = 0; i < statusClasses.length; i++) {
+            statusClasses[i] = new LongAdder();
+        }
+    }
+
+    void record(RequestSample sample) {
+        requests.increment();
+        if (sample.statusCode > 0) {
+            statusClasses[Math.min(sample.statusCode / 100, 5)].increment();
+        } else {
+            ioErrors.increment();
+        }
+        bytesIn.add(sample.bytesIn);
+        bytesOut.add(sample.bytesOut);
+        latency.recordValue(toMicros(sample.totalNanos));
+        RecentLatency recent = recentLatency;
+        if (recent != null) {
+            recent.recorder.recordValue(toMicros(sample.totalNanos));
+        }
+        tokenWait.recordValue(toMicros(sample.tokenWaitNanos));
+        leaseWait.recordValue(toMicros(sample.leaseWaitNanos));
+    }
+
+    /**
+     * Immutable copy of the current values.
+     */
+    public EndpointSnapshot snapshot() {
+        return new EndpointSnapshot(endpointKey, method, requests.sum(),
+                new long[]{statusClasses[1].sum(), statusClasses[2].sum(), statusClasses[3].sum(),
+                        statusClasses[4].sum(), statusClasses[5].sum()},
+                ioErrors.sum(), bytesIn.sum(), bytesOut.sum(),
+                latency.copy(), tokenWait.copy(), leaseWait.copy());
+    }
+
+    // ==============================
+    // Atributos JMX
+    // ==============================
+
+    @Override
+    public String getEndpointKey() {
+        return endpointKey;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getStatus2xxCount() {
+        return statusClasses[2].sum();
+    }
+
+    @Override
+    public long getStatus3xxCount() {
+        return statusClasses[3].sum();
+    }
+
+    @Override
+    public long getStatus4xxCount() {
+        return statusClasses[4].sum();
+    }
+
+    @Override
+    public long getStatus5xxCount() {
+        return statusClasses[5].sum();
+    }
+
+    @Override
+    public long getIoErrorCount() {
+        return ioErrors.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return percentileMillis(latency, 50);
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return percentileMillis(latency, 99);
+    }
+
+    @Override
+    public double getLatencyMaxMillis() {
+        return latency.getMaxValue() / 1000.0;
+    }
+
+    @Override
+    public double getTokenWaitP99Millis() {
+        return percentileMillis(tokenWait, 99);
+    }
+
+    @Override
+    public double getLeaseWaitP99Millis() {
+        return percentileMillis(leaseWait, 99);
+    }
+
+    @Override
+    public void reset() {
+        requests.reset();
+        for (LongAdder statusClass : statusClasses) {
+            statusClass.reset();
+        }
+        ioErrors.reset();
+        bytesIn.reset();
+        bytesOut.reset();
+        latency.reset();
+        tokenWait.reset();
+        leaseWait.reset();
+    }
+
+    /**
+     * Recent latency at a percentile, for callers that adapt to the current latency (e.g. request hedging).
+     * <p>
+     * It covers the requests of the last one to two minutes, collected from a {@link Recorder}
+     * on each call, so callers should poll it at a steady interval. Recording starts with the
+     * first call, which returns -1. {@link #reset()} does not clear it.
+     *
+     * @param percentile Percentile between 0 and 100.
+     * @param minSamples Requests that must be in the window for the value to be meaningful.
+     * @return The latency in microseconds, or -1 with fewer than {@code minSamples} requests.
+     */
+    public long recentLatencyPercentileMicros(double percentile, long minSamples) {
+        RecentLatency recent = recentLatency;
+        if (recent == null) {
+            synchronized (this) {
+                if (recentLatency == null) {
+                    recentLatency = new RecentLatency();
+                }
+            }
+            return -1;
+        }
+        return recent.percentile(percentile, minSamples);
+    }
+
+    static double percentileMillis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(Math.max(0, nanos / 1000), HIGHEST_TRACKABLE_MICROS);
+    }
+
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Latencia de la ventana en curso y de la anterior. Cada consulta vacía el intervalo del
+     * {@link Recorder} en la ventana en curso; al cumplirse la ventana, esta pasa a ser la anterior.
+     */
+    private static final class RecentLatency {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final Histogram merged = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private Histogram current = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private Histogram previous = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private Histogram interval;
+        private long currentStart = System.nanoTime();
+
+        private synchronized long percentile(double percentile, long minSamples) {
+            interval = recorder.getIntervalHistogram(interval);
+            long now = System.nanoTime();
+            long age = now - currentStart;
+            if (age >= 2 * RECENT_WINDOW_NANOS) {
+                previous.reset();
+                current.reset();
+                currentStart = now;
+            } else if (age >= RECENT_WINDOW_NANOS) {
+                Histogram oldest = previous;
+                previous = current;
+                current = oldest;
+                current.reset();
+                currentStart = now;
+            }
+            current.add(interval);
+
+            merged.reset();
+            merged.add(previous);
+            merged.add(current);
+            return merged.getTotalCount() < minSamples ? -1 : merged.getValueAtPercentile(percentile);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.upeu.connector.metrics;
+
+/**
+ * JMX view of the metrics of one endpoint key and HTTP method.
+ * Latencies are in milliseconds; token and lease waits are part of the total latency.
+ */
+public interface EndpointMetricsMXBean {
+
+    String getEndpointKey();
+
+    String getMethod();
+
+    long getRequestCount();
+
+    long getStatus2xxCount();
+
+    long getStatus3xxCount();
+
+    long getStatus4xxCount();
+
+    long getStatus5xxCount();
+
+    /**
+     * Requests that failed without an HTTP status (connection refused, timeouts...).
+     */
+    long getIoErrorCount();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP99Millis();
+
+    double getLatencyMaxMillis();
+
+    /**
+     * Time spent obtaining the JWT, including any login it triggered.
+     */
+    double getTokenWaitP99Millis();
+
+    /**
+     * Time spent waiting for a pooled connection.
+     */
+    double getLeaseWaitP99Millis();
+
+    void reset();
+}
@@ -0,0 +1,108 @@
+package com.upeu.connector.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Point-in-time copy of the metrics of one endpoint key and HTTP method.
+ */
+public final class EndpointSnapshot {
+
+    private final String endpointKey;
+    private final String method;
+    private final long requestCount;
+    private final long[] statusClassCounts;
+    private final long ioErrorCount;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final Histogram latency;
+    private final Histogram tokenWait;
+    private final Histogram leaseWait;
+
+    EndpointSnapshot(String endpointKey, String method, long requestCount, long[] statusClassCounts,
+                     long ioErrorCount, long bytesIn, long bytesOut,
+                     Histogram latency, Histogram tokenWait, Histogram leaseWait) {
+        this.endpointKey = endpointKey;
+        this.method = method;
+        this.requestCount = requestCount;
+        this.statusClassCounts = statusClassCounts;
+        this.ioErrorCount = ioErrorCount;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.latency = latency;
+        this.tokenWait = tokenWait;
+        this.leaseWait = leaseWait;
+    }
+
+    public String getEndpointKey() {
+        return endpointKey;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Number of responses of a status class.
+     *
+     * @param statusClass 1 to 5 (1xx to 5xx).
+     */
+    public long getStatusClassCount(int statusClass) {
+        if (statusClass < 1 || statusClass > 5) {
+            throw new IllegalArgumentException("Clase de estado no válida: " + statusClass);
+        }
+        return statusClassCounts[statusClass - 1];
+    }
+
+    public long getIoErrorCount() {
+        return ioErrorCount;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * Total request latency in microseconds.
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Token acquisition time in microseconds.
+     */
+    public Histogram getTokenWait() {
+        return tokenWait;
+    }
+
+    /**
+     * Connection pool wait in microseconds.
+     */
+    public Histogram getLeaseWait() {
+        return leaseWait;
+    }
+
+    public double getLatencyMillisAtPercentile(double percentile) {
+        return EndpointMetrics.percentileMillis(latency, percentile);
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + endpointKey +
+                " requests=" + requestCount +
+                " 2xx=" + getStatusClassCount(2) +
+                " 4xx=" + getStatusClassCount(4) +
+                " 5xx=" + getStatusClassCount(5) +
+                " ioErrors=" + ioErrorCount +
+                " p50=" + getLatencyMillisAtPercentile(50) + "ms" +
+                " p99=" + getLatencyMillisAtPercentile(99) + "ms";
+    }
+}
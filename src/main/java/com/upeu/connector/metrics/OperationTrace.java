@@ -0,0 +1,86 @@
+package com.upeu.connector.metrics;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timing breakdown of one connector operation.
+ * Phases can be recorded from several threads (e.g. the branches of an OR search),
+ * so the accumulators are atomic; time not attributed to any phase is reported as "other".
+ */
+public final class OperationTrace {
+
+    private final String operation;
+    private final String detail;
+    private final Instant startedAt;
+    private final long startNanos;
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(TracePhase.values().length);
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile long totalNanos = -1;
+
+    OperationTrace(String operation, String detail) {
+        this.operation = operation;
+        this.detail = detail;
+        this.startedAt = Instant.now();
+        this.startNanos = System.nanoTime();
+    }
+
+    void add(TracePhase phase, long nanos) {
+        phaseNanos.addAndGet(phase.ordinal(), nanos);
+    }
+
+    void countRequest() {
+        requests.incrementAndGet();
+    }
+
+    void finish() {
+        totalNanos = System.nanoTime() - startNanos;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public long getTotalMillis() {
+        return (totalNanos < 0 ? System.nanoTime() - startNanos : totalNanos) / 1_000_000;
+    }
+
+    public long getPhaseMillis(TracePhase phase) {
+        return phaseNanos.get(phase.ordinal()) / 1_000_000;
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public String toString() {
+        long total = totalNanos < 0 ? System.nanoTime() - startNanos : totalNanos;
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(startedAt).append(' ').append(operation);
+        if (detail != null) {
+            sb.append(' ').append(detail);
+        }
+        sb.append(String.format(Locale.ROOT, " %.1f ms [", total / 1e6));
+        long attributed = 0;
+        for (TracePhase phase : TracePhase.values()) {
+            long nanos = phaseNanos.get(phase.ordinal());
+            attributed += nanos;
+            sb.append(phase.getLabel()).append('=').append(String.format(Locale.ROOT, "%.1f", nanos / 1e6)).append(' ');
+        }
+        // En operaciones paralelas la suma de fases puede superar el total
+        sb.append(String.format(Locale.ROOT, "other=%.1f] requests=%d",
+                Math.max(0, total - attributed) / 1e6, requests.get()));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package com.upeu.connector.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Optional per-operation tracing. When enabled, every connector operation gets an
+ * {@link OperationTrace} bound to the calling thread; operations slower than the
+ * threshold are logged with their phase breakdown and kept in a ring buffer of the
+ * last N slow traces. When disabled, every call returns immediately.
+ */
+public class OperationTracer implements OperationTracerMXBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OperationTracer.class);
+
+    private final long thresholdNanos;
+    private final OperationTrace[] ring;
+    private int next;
+    private long slowCount;
+
+    private final ThreadLocal<OperationTrace> current = new ThreadLocal<>();
+
+    /**
+     * @param thresholdMillis Operations taking longer are logged and kept; 0 disables tracing.
+     * @param bufferSize      Number of slow traces kept in memory.
+     */
+    public OperationTracer(long thresholdMillis, int bufferSize) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+        this.ring = new OperationTrace[Math.max(1, bufferSize)];
+    }
+
+    public static OperationTracer disabled() {
+        return new OperationTracer(0, 1);
+    }
+
+    public boolean isEnabled() {
+        return thresholdNanos > 0;
+    }
+
+    /**
+     * Starts tracing an operation on the calling thread, replacing any stale trace.
+     *
+     * @param operation Operation name (search, create...).
+     * @param detail    Extra context such as the object class, or null.
+     */
+    public void begin(String operation, String detail) {
+        if (isEnabled()) {
+            current.set(new OperationTrace(operation, detail));
+        }
+    }
+
+    /**
+     * Ends the trace of the calling thread and keeps it if it was slow.
+     */
+    public void end() {
+        if (!isEnabled()) {
+            return;
+        }
+        OperationTrace trace = current.get();
+        current.remove();
+        if (trace == null) {
+            return;
+        }
+        trace.finish();
+        if (trace.getTotalMillis() * 1_000_000L >= thresholdNanos) {
+            LOG.warn("Operación lenta: {}", trace);
+            synchronized (ring) {
+                ring[next] = trace;
+                next = (next + 1) % ring.length;
+                slowCount++;
+            }
+        }
+    }
+
+    /**
+     * Trace bound to the calling thread, to hand over to worker threads; null if none.
+     */
+    public OperationTrace current() {
+        return isEnabled() ? current.get() : null;
+    }
+
+    /**
+     * Binds a trace captured on another thread to the calling worker thread.
+     * Returns the previous binding, to be restored with {@link #restore(OperationTrace)}.
+     */
+    public OperationTrace attach(OperationTrace trace) {
+        if (!isEnabled()) {
+            return null;
+        }
+        OperationTrace previous = current.get();
+        current.set(trace);
+        return previous;
+    }
+
+    public void restore(OperationTrace previous) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Adds time to a phase of the current trace.
+     */
+    public void record(TracePhase phase, long nanos) {
+        if (isEnabled()) {
+            OperationTrace trace = current.get();
+            if (trace != null) {
+                trace.add(phase, nanos);
+            }
+        }
+    }
+
+    /**
+     * Runs a step and attributes its duration to a phase.
+     */
+    public <T> T time(TracePhase phase, Supplier<T> step) {
+        if (!isEnabled()) {
+            return step.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    void countRequest() {
+        if (isEnabled()) {
+            OperationTrace trace = current.get();
+            if (trace != null) {
+                trace.countRequest();
+            }
+        }
+    }
+
+    /**
+     * Slow traces kept in the ring buffer, most recent first.
+     */
+    public List<OperationTrace> getSlowTraces() {
+        List<OperationTrace> traces = new ArrayList<>(ring.length);
+        synchronized (ring) {
+            for (int i = 1; i <= ring.length; i++) {
+                OperationTrace trace = ring[(next - i + ring.length) % ring.length];
+                if (trace != null) {
+                    traces.add(trace);
+                }
+            }
+        }
+        return traces;
+    }
+
+    // ==============================
+    // Atributos JMX
+    // ==============================
+
+    @Override
+    public long getThresholdMillis() {
+        return thresholdNanos / 1_000_000L;
+    }
+
+    @Override
+    public long getSlowOperationCount() {
+        synchronized (ring) {
+            return slowCount;
+        }
+    }
+
+    @Override
+    public String[] getRecentSlowOperations() {
+        return getSlowTraces().stream().map(OperationTrace::toString).toArray(String[]::new);
+    }
+}
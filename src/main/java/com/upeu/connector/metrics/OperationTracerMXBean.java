@@ -0,0 +1,16 @@
+package com.upeu.connector.metrics;
+
+/**
+ * JMX view of the slow-operation tracer.
+ */
+public interface OperationTracerMXBean {
+
+    long getThresholdMillis();
+
+    long getSlowOperationCount();
+
+    /**
+     * Last slow operations with their phase breakdown, most recent first.
+     */
+    String[] getRecentSlowOperations();
+}
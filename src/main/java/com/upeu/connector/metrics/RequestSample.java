@@ -0,0 +1,63 @@
+package com.upeu.connector.metrics;
+
+/**
+ * Measurements of one HTTP request, filled in by {@code AuthManager} while it runs
+ * and recorded when {@link #end()} is called. Used by a single thread.
+ */
+public final class RequestSample {
+
+    private final ConnectorMetrics metrics;
+    private final EndpointMetrics endpoint;
+    private final long startNanos;
+    // Petición que estaba en curso en el hilo (p. ej. la que provocó un login)
+    final RequestSample parent;
+
+    int statusCode;
+    long bytesIn;
+    long bytesOut;
+    long tokenWaitNanos;
+    long leaseWaitNanos;
+    long totalNanos;
+
+    RequestSample(ConnectorMetrics metrics, EndpointMetrics endpoint, RequestSample parent) {
+        this.metrics = metrics;
+        this.endpoint = endpoint;
+        this.parent = parent;
+        this.startNanos = System.nanoTime();
+    }
+
+    public void tokenWait(long nanos) {
+        tokenWaitNanos += nanos;
+    }
+
+    public void leaseWait(long nanos) {
+        leaseWaitNanos += nanos;
+    }
+
+    public void status(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public void bytesIn(long bytes) {
+        bytesIn += bytes;
+    }
+
+    public void bytesOut(long bytes) {
+        bytesOut += bytes;
+    }
+
+    public long getLeaseWaitNanos() {
+        return leaseWaitNanos;
+    }
+
+    /**
+     * Records the sample. A request without a status is counted as an I/O error.
+     */
+    public void end() {
+        totalNanos = System.nanoTime() - startNanos;
+        if (endpoint != null) {
+            endpoint.record(this);
+        }
+        metrics.finish(this);
+    }
+}
@@ -0,0 +1,24 @@
+package com.upeu.connector.metrics;
+
+/**
+ * Phases an operation is split into when tracing slow operations.
+ */
+public enum TracePhase {
+    FILTER_TRANSLATION("translate"),
+    TOKEN("token"),
+    CONNECTION_LEASE("lease"),
+    TTFB("ttfb"),
+    BODY_READ("body"),
+    JSON_DECODE("decode"),
+    MAPPING("mapping");
+
+    private final String label;
+
+    TracePhase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -1,6 +1,5 @@
 package com.upeu.connector.schema;
 
-import com.upeu.connector.util.EndpointRegistry;
 import org.identityconnectors.framework.common.objects.AttributeInfo;
 import org.identityconnectors.framework.common.objects.AttributeInfoBuilder;
 import org.identityconnectors.framework.common.objects.ObjectClassInfoBuilder;
@@ -8,7 +7,9 @@ import org.identityconnectors.framework.common.objects.SchemaBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -29,6 +30,7 @@ public class EPersonSchema {
     private static final String ATTR_REQUIRE_CERTIFICATE = "requireCertificate";
     private static final String ATTR_CERTIFICATE = "certificate";
     private static final String ATTR_METADATA = "metadata";
+    private static final String ATTR_GROUPS = "groups";
 
     // Atributos esenciales
     private static final Set<String> ESSENTIAL_ATTRIBUTES = Set.of(ATTR_ID, ATTR_EMAIL, ATTR_FIRSTNAME, ATTR_LASTNAME);
@@ -39,6 +41,17 @@ public class EPersonSchema {
      * @param schemaBuilder SchemaBuilder instance.
      */
     public static void define(SchemaBuilder schemaBuilder) {
+        define(schemaBuilder, List.of());
+    }
+
+    /**
+     * Defines the ePerson schema with additional metadata attributes.
+     *
+     * @param schemaBuilder  SchemaBuilder instance.
+     * @param metadataFields Keys of metadata fields from the server registry, each exposed
+     *                       as a multi-valued string attribute named after the key.
+     */
+    public static void define(SchemaBuilder schemaBuilder, Collection<String> metadataFields) {
         // Define attributes for ePerson
         Set<AttributeInfo> attributes = new HashSet<>();
 
@@ -51,6 +64,21 @@ public class EPersonSchema {
         attributes.add(createAttribute(ATTR_REQUIRE_CERTIFICATE, false, true, true, true, Boolean.class));
         attributes.add(createAttribute(ATTR_CERTIFICATE, false, true, true, true, String.class));
         attributes.add(createAttribute(ATTR_METADATA, false, true, true, true, String.class, true)); // Multi-valued
+        // UUIDs de los grupos del EPerson: solo lectura y solo bajo petición (cuesta peticiones extra)
+        attributes.add(AttributeInfoBuilder.define(ATTR_GROUPS)
+                .setMultiValued(true)
+                .setCreateable(false)
+                .setUpdateable(false)
+                .setReturnedByDefault(false)
+                .build());
+
+        // Campos del registro de metadatos del servidor
+        Set<String> fixedNames = attributes.stream().map(AttributeInfo::getName).collect(Collectors.toSet());
+        for (String field : metadataFields) {
+            if (!fixedNames.contains(field)) {
+                attributes.add(createAttribute(field, false, true, true, true, String.class, true));
+            }
+        }
 
         // Validate essential attributes
         validateAttributes(attributes, ESSENTIAL_ATTRIBUTES);
@@ -60,10 +88,6 @@ public class EPersonSchema {
         objectClassBuilder.setType("eperson");
         objectClassBuilder.addAllAttributeInfo(attributes);
 
-        // Log the endpoint for this object type
-        String endpoint = EndpointRegistry.getEndpoint("epersons");
-        LOGGER.info("Endpoint for 'eperson': {}", endpoint);
-
         // Add ObjectClass to SchemaBuilder
         schemaBuilder.defineObjectClass(objectClassBuilder.build());
 
@@ -0,0 +1,67 @@
+package com.upeu.connector.schema;
+
+import org.identityconnectors.framework.common.objects.AttributeInfo;
+import org.identityconnectors.framework.common.objects.AttributeInfoBuilder;
+import org.identityconnectors.framework.common.objects.ObjectClassInfoBuilder;
+import org.identityconnectors.framework.common.objects.SchemaBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Defines the schema for group entities in DSpace-CRIS.
+ * The {@code members} and {@code subgroups} relations are not returned by default:
+ * they cost extra requests and are only resolved when explicitly requested.
+ */
+public class GroupSchema {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GroupSchema.class);
+
+    // Constantes para los nombres de atributos
+    private static final String ATTR_NAME = "name";
+    private static final String ATTR_DESCRIPTION = "description";
+    private static final String ATTR_PERMANENT = "permanent";
+    private static final String ATTR_MEMBERS = "members";
+    private static final String ATTR_SUBGROUPS = "subgroups";
+
+    /**
+     * Defines the group schema.
+     *
+     * @param schemaBuilder SchemaBuilder instance.
+     */
+    public static void define(SchemaBuilder schemaBuilder) {
+        Set<AttributeInfo> attributes = new HashSet<>();
+
+        attributes.add(AttributeInfoBuilder.define(ATTR_NAME)
+                .setRequired(true)
+                .build());
+        attributes.add(AttributeInfoBuilder.define(ATTR_DESCRIPTION)
+                .build());
+        attributes.add(AttributeInfoBuilder.define(ATTR_PERMANENT)
+                .setType(Boolean.class)
+                .setCreateable(false)
+                .setUpdateable(false)
+                .build());
+        attributes.add(relation(ATTR_MEMBERS));
+        attributes.add(relation(ATTR_SUBGROUPS));
+
+        ObjectClassInfoBuilder objectClassBuilder = new ObjectClassInfoBuilder();
+        objectClassBuilder.setType("group");
+        objectClassBuilder.addAllAttributeInfo(attributes);
+
+        schemaBuilder.defineObjectClass(objectClassBuilder.build());
+        LOGGER.info("Esquema 'group' definido correctamente.");
+    }
+
+    /**
+     * Multi-valued relation holding the UUIDs of the linked resources.
+     */
+    private static AttributeInfo relation(String name) {
+        return AttributeInfoBuilder.define(name)
+                .setMultiValued(true)
+                .setReturnedByDefault(false)
+                .build();
+    }
+}
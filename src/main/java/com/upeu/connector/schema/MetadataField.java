@@ -0,0 +1,64 @@
+package com.upeu.connector.schema;
+
+import org.json.JSONObject;
+
+import java.util.Objects;
+
+/**
+ * Field of the DSpace metadata registry ({@code core/metadatafields}),
+ * identified by {@code prefix.element[.qualifier]}.
+ */
+public final class MetadataField implements Comparable<MetadataField> {
+
+    private final String prefix;
+    private final String element;
+    private final String qualifier;
+
+    public MetadataField(String prefix, String element, String qualifier) {
+        this.prefix = Objects.requireNonNull(prefix, "El prefijo del esquema no puede ser nulo.");
+        this.element = Objects.requireNonNull(element, "El elemento no puede ser nulo.");
+        this.qualifier = qualifier == null || qualifier.isEmpty() ? null : qualifier;
+    }
+
+    /**
+     * Builds a field from an entry of {@code core/metadatafields/search/bySchema}.
+     *
+     * @param prefix Prefix of the schema that was searched.
+     * @param json   The metadata field resource.
+     */
+    public static MetadataField fromJson(String prefix, JSONObject json) {
+        String qualifier = json.isNull("qualifier") ? null : json.optString("qualifier", null);
+        return new MetadataField(prefix, json.getString("element"), qualifier);
+    }
+
+    /**
+     * Key used in DSpace metadata maps and as the attribute name, e.g. {@code eperson.phone}.
+     */
+    public String getKey() {
+        return qualifier == null ? prefix + "." + element : prefix + "." + element + "." + qualifier;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public int compareTo(MetadataField other) {
+        return getKey().compareTo(other.getKey());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MetadataField && getKey().equals(((MetadataField) o).getKey());
+    }
+
+    @Override
+    public int hashCode() {
+        return getKey().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getKey();
+    }
+}
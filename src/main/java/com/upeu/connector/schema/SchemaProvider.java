@@ -0,0 +1,212 @@
+package com.upeu.connector.schema;
+
+import com.upeu.connector.DSpaceClient;
+import com.upeu.connector.util.SchemaRegistry;
+import org.identityconnectors.framework.common.objects.Schema;
+import org.identityconnectors.framework.common.objects.SchemaBuilder;
+import org.identityconnectors.framework.spi.Connector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Builds the connector schema from the DSpace metadata registry and caches it.
+ * <p>
+ * Every field of the configured metadata schemas becomes an eperson attribute. The result
+ * is shared by all connector instances with the same configuration key (base URL, user and
+ * schemas) and served as the same immutable {@link Schema} until the TTL expires. The
+ * registry is then read again by the next caller while the others keep getting the expired
+ * schema; only the very first read of a configuration makes callers wait. If the fingerprint
+ * has not changed, the cached schema is kept. If the registry cannot be read, the last schema is served, or
+ * the static schema when there is none.
+ */
+public class SchemaProvider {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaProvider.class);
+
+    private static final String FIELDS_ENDPOINT = "metadatafields.search.bySchema";
+
+    // Reintento tras un fallo al leer el registro
+    private static final long RETRY_MILLIS = 60_000L;
+
+    // Campos de eperson ya expuestos como atributos fijos
+    private static final List<String> MAPPED_FIELDS = List.of("eperson.firstname", "eperson.lastname");
+
+    private static final Map<String, CachedSchema> CACHE = new ConcurrentHashMap<>();
+    // Un refresco a la vez por configuración; las demás configuraciones no esperan
+    private static final Map<String, ReentrantLock> REFRESH_LOCKS = new ConcurrentHashMap<>();
+
+    private final DSpaceClient client;
+    private final Class<? extends Connector> connectorClass;
+    private final String configurationKey;
+    private final List<String> metadataSchemas;
+    private final long ttlMillis;
+
+    /**
+     * @param client           Client used to read the metadata registry.
+     * @param connectorClass   Connector class declared in the schema.
+     * @param configurationKey Identifies the configuration sharing the cached schema.
+     * @param metadataSchemas  Prefixes of the metadata schemas to expose (e.g. "eperson").
+     * @param ttlMillis        Time before the registry is checked again.
+     */
+    public SchemaProvider(DSpaceClient client, Class<? extends Connector> connectorClass, String configurationKey,
+                          List<String> metadataSchemas, long ttlMillis) {
+        this.client = client;
+        this.connectorClass = connectorClass;
+        this.configurationKey = configurationKey + "|" + String.join(",", metadataSchemas);
+        this.metadataSchemas = List.copyOf(metadataSchemas);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the cached schema, refreshing it first if it has expired.
+     */
+    public Schema getSchema() {
+        return current().schema;
+    }
+
+    /**
+     * Keys of the metadata fields exposed as dynamic eperson attributes.
+     */
+    public List<String> getMetadataFields() {
+        return current().fields;
+    }
+
+    /**
+     * Fingerprint of the metadata registry the current schema was built from.
+     */
+    public String getFingerprint() {
+        return current().fingerprint;
+    }
+
+    /**
+     * Discards the cached schemas of every configuration.
+     */
+    public static void invalidateAll() {
+        CACHE.clear();
+    }
+
+    private CachedSchema current() {
+        CachedSchema cached = CACHE.get(configurationKey);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return cached;
+        }
+        ReentrantLock lock = REFRESH_LOCKS.computeIfAbsent(configurationKey, key -> new ReentrantLock());
+        if (cached == null) {
+            // Sin esquema previo no hay nada que servir: se espera la primera lectura
+            lock.lock();
+        } else if (!lock.tryLock()) {
+            // Otro hilo ya lo está refrescando: mientras tanto vale el esquema caducado
+            return cached;
+        }
+        try {
+            // Otro hilo pudo refrescarlo mientras se esperaba el bloqueo.
+            cached = CACHE.get(configurationKey);
+            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                return cached;
+            }
+            CachedSchema refreshed = refresh(cached);
+            CACHE.put(configurationKey, refreshed);
+            return refreshed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CachedSchema refresh(CachedSchema previous) {
+        List<MetadataField> fields;
+        try {
+            fields = readRegistry();
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                LOG.warn("No se pudo leer el registro de metadatos, se mantiene el esquema {}: {}",
+                        previous.fingerprint, e.getMessage());
+                return previous.renew(System.currentTimeMillis() + RETRY_MILLIS);
+            }
+            LOG.warn("No se pudo leer el registro de metadatos, se usa el esquema estático: {}", e.getMessage());
+            return build(List.of(), "static", System.currentTimeMillis() + RETRY_MILLIS);
+        }
+
+        String fingerprint = fingerprint(fields);
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        if (previous != null && previous.fingerprint.equals(fingerprint)) {
+            LOG.debug("Registro de metadatos sin cambios ({}), se conserva el esquema.", fingerprint);
+            return previous.renew(expiresAt);
+        }
+        LOG.info("Construyendo esquema a partir del registro de metadatos ({} campos, huella {})",
+                fields.size(), fingerprint);
+        return build(fields, fingerprint, expiresAt);
+    }
+
+    private List<MetadataField> readRegistry() {
+        TreeSet<MetadataField> fields = new TreeSet<>();
+        for (String prefix : metadataSchemas) {
+            client.searchPages(FIELDS_ENDPOINT, Map.of("schema", prefix), page -> {
+                page.forEach(json -> fields.add(MetadataField.fromJson(prefix, json)));
+                return true;
+            });
+        }
+        return new ArrayList<>(fields);
+    }
+
+    private CachedSchema build(List<MetadataField> fields, String fingerprint, long expiresAt) {
+        List<String> keys = new ArrayList<>(fields.size());
+        for (MetadataField field : fields) {
+            if (!MAPPED_FIELDS.contains(field.getKey())) {
+                keys.add(field.getKey());
+            }
+        }
+        SchemaBuilder schemaBuilder = new SchemaBuilder(connectorClass);
+        SchemaRegistry.registerSchemas(schemaBuilder, keys);
+        return new CachedSchema(schemaBuilder.build(), Collections.unmodifiableList(keys), fingerprint, expiresAt);
+    }
+
+    /**
+     * Short SHA-256 of the sorted field keys.
+     */
+    private static String fingerprint(List<MetadataField> fields) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (MetadataField field : fields) {
+                digest.update(field.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            StringBuilder hex = new StringBuilder();
+            byte[] hash = digest.digest();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static final class CachedSchema {
+        private final Schema schema;
+        private final List<String> fields;
+        private final String fingerprint;
+        private final long expiresAt;
+
+        private CachedSchema(Schema schema, List<String> fields, String fingerprint, long expiresAt) {
+            this.schema = schema;
+            this.fields = fields;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        private CachedSchema renew(long expiresAt) {
+            return new CachedSchema(schema, fields, fingerprint, expiresAt);
+        }
+    }
+}
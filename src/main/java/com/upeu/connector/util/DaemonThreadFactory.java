@@ -0,0 +1,28 @@
+package com.upeu.connector.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates numbered daemon threads named {@code dspace-connector-<purpose>-<n>}, so the worker
+ * pools of the connector are recognisable in thread dumps and never keep the JVM alive.
+ */
+public final class DaemonThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger counter = new AtomicInteger();
+    private final String prefix;
+
+    /**
+     * @param purpose What the threads do, e.g. "search" or "import-send".
+     */
+    public DaemonThreadFactory(String purpose) {
+        this.prefix = "dspace-connector-" + purpose + "-";
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
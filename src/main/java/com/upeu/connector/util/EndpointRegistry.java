@@ -3,76 +3,195 @@ package com.upeu.connector.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Endpoints of one DSpace server.
+ * <p>
+ * Each instance belongs to a single connector configuration: the relative paths are combined
+ * with the base URL once and compiled into {@link UriTemplate}s of the form
+ * {@code <baseUrl><path>{/id,relation,target}{?params*}}, so building a request URL is a
+ * template expansion with proper percent-encoding instead of string concatenation.
+ */
 public class EndpointRegistry {
 
     private static final Logger LOG = LoggerFactory.getLogger(EndpointRegistry.class);
 
-    private static final Map<String, String> endpointMap = new ConcurrentHashMap<>();
+    private static final String TEMPLATE_SUFFIX = "{/id,relation,target}{?params*}";
+
+    private static final Map<String, String> DEFAULT_ENDPOINTS;
 
     static {
-        LOG.info("Inicializando EndpointRegistry con valores predeterminados.");
-        endpointMap.put("epersons", "server/api/eperson/epersons");
-        endpointMap.put("login", "server/api/authn/login");
-        endpointMap.put("authStatus", "server/api/authn/status");
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("epersons", "server/api/eperson/epersons");
+        defaults.put("epersons.search.byEmail", "server/api/eperson/epersons/search/byEmail");
+        defaults.put("epersons.search.byMetadata", "server/api/eperson/epersons/search/byMetadata");
+        defaults.put("groups", "server/api/eperson/groups");
+        defaults.put("groups.search.byMetadata", "server/api/eperson/groups/search/byMetadata");
+        defaults.put("metadatafields.search.bySchema", "server/api/core/metadatafields/search/bySchema");
+        defaults.put("login", "server/api/authn/login");
+        defaults.put("authStatus", "server/api/authn/status");
         // Agregar otros endpoints aquí
-        LOG.debug("Endpoints inicializados: {}", endpointMap);
+        DEFAULT_ENDPOINTS = Collections.unmodifiableMap(defaults);
+    }
+
+    private final String baseUrl;
+    private final Map<String, Endpoint> endpointMap = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the registry of a server with the default DSpace endpoints.
+     *
+     * @param baseUrl Base URL of the server; a trailing slash is added if missing.
+     */
+    public EndpointRegistry(String baseUrl) {
+        ValidationJsonUtil.validateNotEmpty(baseUrl, "La URL base no puede ser nula ni vacía.");
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        DEFAULT_ENDPOINTS.forEach(this::register);
+        LOG.debug("Endpoints inicializados para {}: {}", this.baseUrl, DEFAULT_ENDPOINTS.keySet());
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
     }
 
+    // ==============================
+    // Consulta
+    // ==============================
+
     /**
-     * Obtiene el endpoint asociado con una clave específica.
+     * Obtiene la ruta relativa asociada con una clave específica.
      *
      * @param key La clave del endpoint.
-     * @return La URL del endpoint.
+     * @return La ruta del endpoint relativa a la URL base.
      * @throws IllegalArgumentException Si la clave no se encuentra en el registro.
      */
-    public static String getEndpoint(String key) {
-        LOG.debug("Buscando endpoint para la clave: {}", key);
-        return endpointMap.computeIfAbsent(key, k -> {
-            LOG.error("Error: Endpoint no encontrado para la clave: {}", k);
-            throw new IllegalArgumentException("Endpoint no encontrado para la clave: " + k);
-        });
+    public String getEndpoint(String key) {
+        return lookup(key).path;
+    }
+
+    /**
+     * Obtiene la plantilla compilada de un endpoint.
+     */
+    public UriTemplate getTemplate(String key) {
+        return lookup(key).template;
+    }
+
+    /**
+     * URL of a collection or search endpoint.
+     *
+     * @param key    Endpoint key.
+     * @param params Query parameters; may be null or empty.
+     */
+    public URI collection(String key, Map<String, String> params) {
+        return expand(key, null, null, null, params);
+    }
+
+    /**
+     * URL of a single resource, {@code <endpoint>/{id}}.
+     */
+    public URI resource(String key, String id) {
+        ValidationJsonUtil.validateNotEmpty(id, "El ID no puede ser nulo ni vacío.");
+        return expand(key, id, null, null, null);
     }
 
+    /**
+     * URL of a linked sub-resource, {@code <endpoint>/{id}/{relation}[/{target}]}.
+     *
+     * @param target Id of the linked resource, or null for the whole relation.
+     */
+    public URI link(String key, String id, String relation, String target) {
+        ValidationJsonUtil.validateNotEmpty(id, "El ID no puede ser nulo ni vacío.");
+        ValidationJsonUtil.validateNotEmpty(relation, "La relación no puede ser nula ni vacía.");
+        return expand(key, id, relation, target, null);
+    }
+
+    /**
+     * Expands the template of an endpoint. Null segments are omitted.
+     */
+    public URI expand(String key, String id, String relation, String target, Map<String, String> params) {
+        Map<String, Object> variables = new HashMap<>(8);
+        variables.put("id", id);
+        variables.put("relation", relation);
+        variables.put("target", target);
+        if (params != null && !params.isEmpty()) {
+            variables.put("params", params);
+        }
+        return lookup(key).template.expand(variables);
+    }
+
+    // ==============================
+    // Modificación
+    // ==============================
+
     /**
      * Agrega un nuevo endpoint al registro.
      *
      * @param key      La clave del endpoint.
-     * @param endpoint La URL del endpoint.
+     * @param endpoint La ruta del endpoint relativa a la URL base.
      */
-    public static void addEndpoint(String key, String endpoint) {
-        LOG.debug("Agregando nuevo endpoint al registro. Clave: {}, URL: {}", key, endpoint);
-        if (endpointMap.containsKey(key)) {
-            LOG.warn("El endpoint con clave '{}' ya existe y será sobrescrito. Valor previo: {}", key, endpointMap.get(key));
+    public void addEndpoint(String key, String endpoint) {
+        ValidationJsonUtil.validateNotEmpty(key, "La clave del endpoint no puede ser nula ni vacía.");
+        ValidationJsonUtil.validateNotEmpty(endpoint, "La ruta del endpoint no puede ser nula ni vacía.");
+        Endpoint previous = register(key, endpoint);
+        if (previous != null) {
+            LOG.warn("El endpoint con clave '{}' ya existía y fue sobrescrito. Valor previo: {}", key, previous.path);
         }
-        endpointMap.put(key, endpoint);
-        LOG.info("Endpoint agregado/actualizado correctamente. Clave: {}, URL: {}", key, endpoint);
+        LOG.info("Endpoint agregado/actualizado correctamente. Clave: {}, ruta: {}", key, endpoint);
     }
 
     /**
      * Elimina un endpoint del registro.
      *
      * @param key La clave del endpoint a eliminar.
-     * @return La URL del endpoint eliminado, o null si no existía.
+     * @return La ruta del endpoint eliminado, o null si no existía.
      */
-    public static String removeEndpoint(String key) {
-        LOG.debug("Eliminando endpoint del registro para la clave: {}", key);
-        String removedEndpoint = endpointMap.remove(key);
-        if (removedEndpoint == null) {
+    public String removeEndpoint(String key) {
+        Endpoint removed = endpointMap.remove(key);
+        if (removed == null) {
             LOG.warn("Intento de eliminar un endpoint que no existe para la clave: {}", key);
-        } else {
-            LOG.info("Endpoint eliminado correctamente. Clave: {}, URL: {}", key, removedEndpoint);
+            return null;
         }
-        return removedEndpoint;
+        LOG.info("Endpoint eliminado correctamente. Clave: {}, ruta: {}", key, removed.path);
+        return removed.path;
     }
 
     /**
      * Lista todos los endpoints registrados.
      */
-    public static void listAllEndpoints() {
-        LOG.info("Lista actual de endpoints registrados:");
-        endpointMap.forEach((key, value) -> LOG.info("Clave: {}, URL: {}", key, value));
+    public void listAllEndpoints() {
+        LOG.info("Lista actual de endpoints registrados para {}:", baseUrl);
+        endpointMap.forEach((key, value) -> LOG.info("Clave: {}, plantilla: {}", key, value.template));
+    }
+
+    private Endpoint register(String key, String path) {
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        return endpointMap.put(key, new Endpoint(relative, UriTemplate.compile(baseUrl + relative + TEMPLATE_SUFFIX)));
+    }
+
+    private Endpoint lookup(String key) {
+        Endpoint endpoint = endpointMap.get(key);
+        if (endpoint == null) {
+            LOG.error("Error: Endpoint no encontrado para la clave: {}", key);
+            throw new IllegalArgumentException("Endpoint no encontrado para la clave: " + key);
+        }
+        return endpoint;
+    }
+
+    /**
+     * Relative path and compiled template of an endpoint.
+     */
+    private static final class Endpoint {
+        private final String path;
+        private final UriTemplate template;
+
+        private Endpoint(String path, UriTemplate template) {
+            this.path = path;
+            this.template = template;
+        }
     }
 }
@@ -1,7 +1,13 @@
 package com.upeu.connector.util;
 
 import com.upeu.connector.schema.EPersonSchema;
+import com.upeu.connector.schema.GroupSchema;
+import org.identityconnectors.framework.common.objects.OperationOptionInfoBuilder;
 import org.identityconnectors.framework.common.objects.SchemaBuilder;
+import org.identityconnectors.framework.spi.operations.SearchOp;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Utility class for registering schemas in the DSpace connector.
@@ -14,16 +20,43 @@ public class SchemaRegistry {
      * @param schemaBuilder SchemaBuilder instance to register schemas.
      */
     public static void registerSchemas(SchemaBuilder schemaBuilder) {
+        registerSchemas(schemaBuilder, List.of());
+    }
+
+    /**
+     * Registers all available schemas, adding the given metadata fields as eperson attributes.
+     *
+     * @param schemaBuilder  SchemaBuilder instance to register schemas.
+     * @param metadataFields Keys of the metadata fields discovered on the server (e.g. "eperson.phone").
+     */
+    public static void registerSchemas(SchemaBuilder schemaBuilder, Collection<String> metadataFields) {
         if (schemaBuilder == null) {
             throw new IllegalArgumentException("SchemaBuilder cannot be null.");
         }
 
         // Register schema for EPerson
-        EPersonSchema.define(schemaBuilder);
+        EPersonSchema.define(schemaBuilder, metadataFields);
+
+        // Register schema for Group
+        GroupSchema.define(schemaBuilder);
+
+        // Paging and sorting supported by SearchOp
+        registerSearchOptions(schemaBuilder);
 
         // Placeholder for future schema registrations
         // Example:
-        // GroupSchema.define(schemaBuilder);
         // ItemSchema.define(schemaBuilder);
     }
+
+    /**
+     * Declares the search options the connector honours, so midPoint can page and sort on the server.
+     *
+     * @param schemaBuilder SchemaBuilder instance to register options.
+     */
+    private static void registerSearchOptions(SchemaBuilder schemaBuilder) {
+        schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildPageSize(), SearchOp.class);
+        schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildPagedResultsOffset(), SearchOp.class);
+        schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildPagedResultsCookie(), SearchOp.class);
+        schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildSortKeys(), SearchOp.class);
+    }
 }
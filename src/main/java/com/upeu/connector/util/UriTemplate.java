@@ -0,0 +1,231 @@
+package com.upeu.connector.util;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precompiled URI template following RFC 6570.
+ * <p>
+ * Supports the expressions the connector needs: simple string expansion ({@code {var}}),
+ * reserved expansion ({@code {+var}}), path segments ({@code {/a,b}}) and form-style queries
+ * ({@code {?a,b}}, or {@code {?params*}} to explode a map). Undefined (null) variables are
+ * omitted, as the RFC prescribes. The template is parsed once; expanding it only appends
+ * literals and percent-encoded values to a buffer.
+ */
+public final class UriTemplate {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final boolean[] UNRESERVED = new boolean[128];
+    private static final boolean[] RESERVED = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c : "-._~".toCharArray()) {
+            UNRESERVED[c] = true;
+        }
+        System.arraycopy(UNRESERVED, 0, RESERVED, 0, UNRESERVED.length);
+        for (char c : ":/?#[]@!$&'()*+,;=".toCharArray()) {
+            RESERVED[c] = true;
+        }
+    }
+
+    private final String template;
+    private final Part[] parts;
+    private final int literalLength;
+
+    private UriTemplate(String template, Part[] parts, int literalLength) {
+        this.template = template;
+        this.parts = parts;
+        this.literalLength = literalLength;
+    }
+
+    /**
+     * Parses a template.
+     *
+     * @param template The template, e.g. {@code https://host/server/api/eperson/epersons{/id}{?params*}}.
+     * @throws IllegalArgumentException if an expression is malformed or uses an unsupported operator.
+     */
+    public static UriTemplate compile(String template) {
+        ValidationJsonUtil.validateNotEmpty(template, "La plantilla de URI no puede ser nula ni vacía.");
+        List<Part> parts = new ArrayList<>();
+        int literalLength = 0;
+        int position = 0;
+        while (position < template.length()) {
+            int open = template.indexOf('{', position);
+            if (open < 0) {
+                parts.add(new Part(template.substring(position)));
+                literalLength += template.length() - position;
+                break;
+            }
+            if (open > position) {
+                parts.add(new Part(template.substring(position, open)));
+                literalLength += open - position;
+            }
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Expresión sin cerrar en la plantilla: " + template);
+            }
+            parts.add(parseExpression(template, template.substring(open + 1, close)));
+            position = close + 1;
+        }
+        return new UriTemplate(template, parts.toArray(new Part[0]), literalLength);
+    }
+
+    private static Part parseExpression(String template, String expression) {
+        if (expression.isEmpty()) {
+            throw new IllegalArgumentException("Expresión vacía en la plantilla: " + template);
+        }
+        char operator = expression.charAt(0);
+        String body = expression;
+        if (operator == '+' || operator == '/' || operator == '?' || operator == '&') {
+            body = expression.substring(1);
+        } else if (!Character.isLetterOrDigit(operator) && operator != '_') {
+            throw new IllegalArgumentException("Operador no soportado '" + operator + "' en: " + template);
+        } else {
+            operator = 0;
+        }
+        String[] names = body.split(",");
+        boolean[] explode = new boolean[names.length];
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].endsWith("*")) {
+                explode[i] = true;
+                names[i] = names[i].substring(0, names[i].length() - 1);
+            }
+            if (names[i].isEmpty()) {
+                throw new IllegalArgumentException("Variable vacía en la plantilla: " + template);
+            }
+        }
+        return new Part(operator, names, explode);
+    }
+
+    /**
+     * Expands the template.
+     *
+     * @param variables Variable values: strings (or any object, via toString) and, for exploded
+     *                  query variables, maps. Missing or null variables are omitted.
+     * @return The expanded URI.
+     */
+    public URI expand(Map<String, ?> variables) {
+        StringBuilder uri = new StringBuilder(literalLength + 64);
+        for (Part part : parts) {
+            if (part.literal != null) {
+                uri.append(part.literal);
+            } else {
+                part.expand(uri, variables);
+            }
+        }
+        return URI.create(uri.toString());
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    /**
+     * Percent-encodes a value; with {@code allowReserved} reserved characters are kept.
+     */
+    static void encode(StringBuilder out, String value, boolean allowReserved) {
+        boolean[] allowed = allowReserved ? RESERVED : UNRESERVED;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 128 && allowed[c]) {
+                out.append(c);
+            } else if (allowReserved && c == '%' && i + 2 < value.length()
+                    && isHex(value.charAt(i + 1)) && isHex(value.charAt(i + 2))) {
+                // {+var} conserva las secuencias ya codificadas
+                out.append(c);
+            } else {
+                int end = i + (Character.isHighSurrogate(c) && i + 1 < value.length() ? 2 : 1);
+                for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                    out.append('%').append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+                }
+                i = end - 1;
+            }
+        }
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f');
+    }
+
+    /**
+     * Literal text or expression of a compiled template.
+     */
+    private static final class Part {
+        private final String literal;
+        private final char operator;
+        private final String[] names;
+        private final boolean[] explode;
+
+        private Part(String literal) {
+            this.literal = literal;
+            this.operator = 0;
+            this.names = null;
+            this.explode = null;
+        }
+
+        private Part(char operator, String[] names, boolean[] explode) {
+            this.literal = null;
+            this.operator = operator;
+            this.names = names;
+            this.explode = explode;
+        }
+
+        private void expand(StringBuilder out, Map<String, ?> variables) {
+            boolean first = true;
+            for (int i = 0; i < names.length; i++) {
+                Object value = variables.get(names[i]);
+                if (value == null) {
+                    continue;
+                }
+                if (value instanceof Map) {
+                    if (!explode[i] || (operator != '?' && operator != '&')) {
+                        throw new IllegalArgumentException("Solo se admiten mapas en expresiones {?var*}: " + names[i]);
+                    }
+                    for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                        if (entry.getValue() == null) {
+                            continue;
+                        }
+                        out.append(separator(first));
+                        first = false;
+                        encode(out, String.valueOf(entry.getKey()), false);
+                        out.append('=');
+                        encode(out, String.valueOf(entry.getValue()), false);
+                    }
+                    continue;
+                }
+                out.append(separator(first));
+                first = false;
+                if (operator == '?' || operator == '&') {
+                    out.append(names[i]).append('=');
+                }
+                encode(out, value.toString(), operator == '+');
+            }
+        }
+
+        private String separator(boolean first) {
+            switch (operator) {
+                case '/':
+                    return "/";
+                case '?':
+                    return first ? "?" : "&";
+                case '&':
+                    return "&";
+                default:
+                    return first ? "" : ",";
+            }
+        }
+    }
+}
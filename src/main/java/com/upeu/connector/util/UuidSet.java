@@ -0,0 +1,109 @@
+package com.upeu.connector.util;
+
+import java.util.UUID;
+
+/**
+ * Compact set of UUIDs used to de-duplicate search results.
+ * Stores each UUID as two longs in an open-addressing table (16 bytes per entry,
+ * no boxing), which keeps large merged result sets cheap to track.
+ * Not thread-safe.
+ */
+public final class UuidSet {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] table;
+    private int size;
+    private boolean containsZero;
+
+    public UuidSet() {
+        this(64);
+    }
+
+    /**
+     * @param expectedSize Expected number of UUIDs, used to size the table.
+     */
+    public UuidSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.table = new long[capacity * 2];
+    }
+
+    /**
+     * Adds a UUID to the set.
+     *
+     * @param uuid The UUID to add.
+     * @return true if the UUID was not already present.
+     */
+    public boolean add(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+
+        // La pareja (0, 0) marca las posiciones vacías; se guarda aparte.
+        if (msb == 0L && lsb == 0L) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        if (insert(table, msb, lsb)) {
+            size++;
+            if (size > (table.length / 2) * LOAD_FACTOR) {
+                resize();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a UUID given as a string. Returns true if it was not already present.
+     *
+     * @throws IllegalArgumentException if the value is not a valid UUID.
+     */
+    public boolean add(String uuid) {
+        return add(UUID.fromString(uuid));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean insert(long[] table, long msb, long lsb) {
+        int mask = (table.length / 2) - 1;
+        int slot = mix(msb, lsb) & mask;
+        while (true) {
+            int index = slot * 2;
+            long storedMsb = table[index];
+            long storedLsb = table[index + 1];
+            if (storedMsb == 0L && storedLsb == 0L) {
+                table[index] = msb;
+                table[index + 1] = lsb;
+                return true;
+            }
+            if (storedMsb == msb && storedLsb == lsb) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void resize() {
+        long[] newTable = new long[table.length * 2];
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != 0L || table[i + 1] != 0L) {
+                insert(newTable, table[i], table[i + 1]);
+            }
+        }
+        table = newTable;
+    }
+
+    private static int mix(long msb, long lsb) {
+        long h = msb ^ (lsb * 0x9E3779B97F4A7C15L);
+        h ^= (h >>> 32);
+        h *= 0xC2B2AE3D27D4EB4FL;
+        return (int) (h ^ (h >>> 29));
+    }
+}
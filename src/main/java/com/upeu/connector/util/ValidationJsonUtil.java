@@ -5,7 +5,9 @@ import com.upeu.connector.auth.AuthManager;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 public class ValidationJsonUtil {
@@ -87,6 +89,45 @@ public class ValidationJsonUtil {
         }
     }
 
+    /**
+     * Extracts the objects embedded in a HAL response.
+     * Accepts a collection ({@code _embedded.<key>}), a bare list under {@code results}
+     * or a single resource (e.g. {@code search/byEmail}).
+     */
+    public static List<JSONObject> extractEmbeddedObjects(JSONObject response, String key) {
+        List<JSONObject> objects = new ArrayList<>();
+        if (response == null || response.isEmpty()) {
+            return objects;
+        }
+
+        JSONArray array = null;
+        JSONObject embedded = response.optJSONObject("_embedded");
+        if (embedded != null) {
+            array = key != null ? embedded.optJSONArray(key) : null;
+            if (array == null) {
+                for (String name : embedded.keySet()) {
+                    array = embedded.optJSONArray(name);
+                    if (array != null) {
+                        break;
+                    }
+                }
+            }
+        } else if (response.has("results")) {
+            validateJsonArray(response, "results");
+            array = response.getJSONArray("results");
+        } else if (response.has("id")) {
+            objects.add(response);
+            return objects;
+        }
+
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                objects.add(array.getJSONObject(i));
+            }
+        }
+        return objects;
+    }
+
     public static String extractMetadataValue(JSONObject metadata, String key) {
         validateNotNull(metadata, "Metadata cannot be null.");
         try {
@@ -0,0 +1,115 @@
+package com.upeu.connector;
+
+import com.upeu.connector.filter.EPersonQuery;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parallel operations on one {@link DSpaceConnector} must not see each other's requests or
+ * responses. Every thread owns one eperson; all threads start together and, in each iteration,
+ * write a lastname unique to the thread and the iteration and read the eperson back by UID.
+ * Any answer with another UID or another lastname is cross-talk.
+ */
+class CrossTalkTest {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+    private static final ObjectClass EPERSON = new ObjectClass("eperson");
+    private static final int THREADS = 256;
+    private static final int ITERATIONS = 5;
+
+    @ParameterizedTest(name = "stateless={0}")
+    @ValueSource(booleans = {true, false})
+    @Timeout(value = 120, unit = TimeUnit.SECONDS)
+    void parallelUpdatesReadBackTheirOwnWrites(boolean stateless) throws Exception {
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+        EPersonDataset dataset = EPersonDataset.numbered(THREADS, 8);
+        List<String> ids = new ArrayList<>(dataset.size());
+        dataset.epersons().forEach(eperson -> ids.add(eperson.getString("id")));
+
+        try (MockDSpaceServer server = new MockDSpaceServer(dataset, USER, PASSWORD).start()) {
+            server.setLatencyMillis(2);
+
+            DSpaceConfiguration configuration = new DSpaceConfiguration();
+            configuration.setBaseUrl(server.getBaseUrl());
+            configuration.setUsername(USER);
+            configuration.setPassword(PASSWORD);
+            configuration.setMaxConcurrentRequests(THREADS);
+            configuration.setMetricsJmxEnabled(false);
+            configuration.setStatelessSession(stateless);
+            configuration.validate();
+
+            DSpaceConnector connector = new DSpaceConnector();
+            connector.init(configuration);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Thread> workers = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    String id = ids.get(t);
+                    int worker = t;
+                    Thread thread = new Thread(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            String lastname = "Hilo " + worker + " vuelta " + i;
+                            try {
+                                connector.update(ObjectClass.ACCOUNT, new Uid(id),
+                                        Set.of(AttributeBuilder.build("lastname", lastname)), null);
+                                List<ConnectorObject> found = new ArrayList<>();
+                                connector.executeQuery(EPERSON, EPersonQuery.byUid(id, null), found::add, null);
+                                if (found.size() != 1 || !matches(found.get(0), id, lastname)) {
+                                    failures.add("hilo " + worker + ": esperado " + id + "/" + lastname
+                                            + ", recibido " + found);
+                                }
+                            } catch (RuntimeException e) {
+                                failures.add("hilo " + worker + ": " + e);
+                            }
+                        }
+                    }, "cross-talk-" + t);
+                    workers.add(thread);
+                    thread.start();
+                }
+
+                start.countDown();
+                for (Thread thread : workers) {
+                    thread.join();
+                }
+            } finally {
+                connector.dispose();
+            }
+        }
+
+        assertThat(failures).isEmpty();
+    }
+
+    private static boolean matches(ConnectorObject object, String id, String lastname) {
+        Attribute attribute = object.getAttributeByName("lastname");
+        return id.equals(object.getUid().getUidValue())
+                && attribute != null
+                && attribute.getValue() != null
+                && attribute.getValue().contains(lastname);
+    }
+}
@@ -0,0 +1,99 @@
+package com.upeu.connector;
+
+import com.upeu.connector.auth.OperationDeadline;
+import com.upeu.connector.filter.DSpaceQuery;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+import org.identityconnectors.framework.common.exceptions.OperationTimeoutException;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * El tiempo límite de una operación aborta sus peticiones en curso, y al terminar la operación
+ * se abortan las de las ramas que siguen abiertas, en lugar de esperar sus respuestas.
+ */
+class OperationTimeoutTest {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+    private static final ObjectClass EPERSON = new ObjectClass("eperson");
+    private static final long SLOW_MILLIS = 3_000;
+
+    private MockDSpaceServer server;
+    private DSpaceConnector connector;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new MockDSpaceServer(EPersonDataset.numbered(400, 2), USER, PASSWORD).start();
+        // Páginas pequeñas: cada rama tiene muchas y siempre hay una en camino
+        server.setMaxPageSize(5);
+        DSpaceConfiguration configuration = new DSpaceConfiguration();
+        configuration.setBaseUrl(server.getBaseUrl());
+        configuration.setUsername(USER);
+        configuration.setPassword(PASSWORD);
+        configuration.setMaxConcurrentRequests(2);
+        configuration.setMetricsJmxEnabled(false);
+        configuration.validate();
+        connector = new DSpaceConnector();
+        connector.init(configuration);
+        // Inicia la sesión antes de ralentizar el servidor
+        search(lastname("grupo0"), new OperationOptionsBuilder().build(), 1);
+    }
+
+    @AfterEach
+    void stop() {
+        connector.dispose();
+        server.close();
+    }
+
+    @Test
+    void expiredOperationAbortsItsRequest() {
+        server.setLatencyMillis(SLOW_MILLIS);
+        OperationOptions options = new OperationOptionsBuilder()
+                .setOption(OperationDeadline.OPTION_TIMEOUT_MILLIS, 300)
+                .build();
+
+        assertTimeoutPreemptively(Duration.ofMillis(SLOW_MILLIS / 2), () ->
+                assertThatThrownBy(() -> search(lastname("grupo0"), options, Integer.MAX_VALUE))
+                        .isInstanceOf(OperationTimeoutException.class));
+    }
+
+    @Test
+    void stoppedSearchAbortsTheRequestsOfItsBranches() {
+        server.setLatencyMillis(SLOW_MILLIS);
+        Filter union = FilterBuilder.or(lastname("grupo0"), lastname("grupo1"));
+
+        // Al recibir la primera página, cada rama ya pidió la siguiente; ambas ocupan las dos conexiones
+        assertThat(search(union, new OperationOptionsBuilder().build(), 1)).isEqualTo(1);
+
+        // Si esas peticiones no se hubieran abortado, esta esperaría una conexión libre
+        server.setLatencyMillis(0);
+        assertTimeoutPreemptively(Duration.ofMillis(SLOW_MILLIS / 2),
+                () -> search(lastname("grupo1"), new OperationOptionsBuilder().build(), 1));
+    }
+
+    private int search(Filter filter, OperationOptions options, int limit) {
+        DSpaceQuery query = connector.createFilterTranslator(EPERSON, options).translate(filter).get(0);
+        AtomicInteger received = new AtomicInteger();
+        connector.executeQuery(EPERSON, query, object -> received.incrementAndGet() < limit, options);
+        return received.get();
+    }
+
+    private static Filter lastname(String value) {
+        return FilterBuilder.contains(AttributeBuilder.build("lastname", value));
+    }
+}
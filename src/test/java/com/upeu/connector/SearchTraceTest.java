@@ -0,0 +1,82 @@
+package com.upeu.connector;
+
+import com.upeu.connector.filter.DSpaceQuery;
+import com.upeu.connector.handler.Group;
+import com.upeu.connector.metrics.OperationTrace;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La traza de una búsqueda empieza en executeQuery: una traducción de filtro que no se ejecuta
+ * no debe quedar ligada al hilo ni absorber la búsqueda siguiente.
+ */
+class SearchTraceTest {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+    private static final ObjectClass EPERSON = new ObjectClass("eperson");
+
+    private MockDSpaceServer server;
+    private DSpaceConnector connector;
+    private String groupId;
+
+    @BeforeEach
+    void start() throws Exception {
+        EPersonDataset dataset = EPersonDataset.numbered(20, 1);
+        server = new MockDSpaceServer(dataset, USER, PASSWORD).start();
+        groupId = server.addGroup("Docentes", List.of(dataset.get(0).getString("id")));
+        // Cada búsqueda supera el umbral y su traza queda registrada
+        server.setLatencyMillis(5);
+
+        DSpaceConfiguration configuration = new DSpaceConfiguration();
+        configuration.setBaseUrl(server.getBaseUrl());
+        configuration.setUsername(USER);
+        configuration.setPassword(PASSWORD);
+        configuration.setSlowOperationThresholdMillis(1);
+        configuration.setMetricsJmxEnabled(false);
+        configuration.validate();
+        connector = new DSpaceConnector();
+        connector.init(configuration);
+    }
+
+    @AfterEach
+    void stop() {
+        connector.dispose();
+        server.close();
+    }
+
+    @Test
+    void translationWithoutExecutionDoesNotLeakIntoTheNextSearch() {
+        connector.createFilterTranslator(Group.OBJECT_CLASS, null).translate(FilterBuilder.equalTo(new Uid(groupId)));
+
+        connector.executeQuery(EPERSON, null, object -> true, new OperationOptionsBuilder().build());
+
+        List<OperationTrace> traces = connector.getSlowOperationTraces();
+        assertThat(traces).hasSize(1);
+        assertThat(traces.get(0).getOperation()).isEqualTo("search");
+        assertThat(traces.get(0).getDetail()).isEqualTo("eperson");
+    }
+
+    @Test
+    void executedTranslationBelongsToItsOwnSearch() {
+        DSpaceQuery query = connector.createFilterTranslator(Group.OBJECT_CLASS, null)
+                .translate(FilterBuilder.equalTo(new Uid(groupId))).get(0);
+
+        connector.executeQuery(Group.OBJECT_CLASS, query, object -> true, new OperationOptionsBuilder().build());
+        connector.executeQuery(EPERSON, null, object -> true, new OperationOptionsBuilder().build());
+
+        List<OperationTrace> traces = connector.getSlowOperationTraces();
+        assertThat(traces).extracting(OperationTrace::getDetail).containsExactly("eperson", "group");
+    }
+}
@@ -0,0 +1,120 @@
+package com.upeu.connector;
+
+import com.upeu.connector.filter.EPersonQuery;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.SearchResult;
+import org.identityconnectors.framework.common.objects.SortKey;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.identityconnectors.framework.spi.SearchResultsHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * An OR with more branches than search threads, each branch several pages long, must be merged
+ * in order without waiting on branches that never got a thread.
+ */
+class UnionSearchTest {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+    private static final ObjectClass EPERSON = new ObjectClass("eperson");
+    // 300 epersons per group: three pages of 100 for each branch
+    private static final int EPERSONS = 2400;
+    private static final int BRANCHES = 6;
+    private static final Duration LIMIT = Duration.ofSeconds(60);
+
+    private MockDSpaceServer server;
+    private DSpaceConnector connector;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new MockDSpaceServer(EPersonDataset.numbered(EPERSONS, 8), USER, PASSWORD).start();
+        DSpaceConfiguration configuration = new DSpaceConfiguration();
+        configuration.setBaseUrl(server.getBaseUrl());
+        configuration.setUsername(USER);
+        configuration.setPassword(PASSWORD);
+        configuration.setMaxConcurrentRequests(2);
+        configuration.setMetricsJmxEnabled(false);
+        configuration.validate();
+        connector = new DSpaceConnector();
+        connector.init(configuration);
+    }
+
+    @AfterEach
+    void stop() {
+        connector.dispose();
+        server.close();
+    }
+
+    @Test
+    void sortedUnionOfManyLongBranchesCompletes() {
+        OperationOptions options = new OperationOptionsBuilder()
+                .setSortKeys(new SortKey("email", true))
+                .build();
+
+        List<String> emails = assertTimeoutPreemptively(LIMIT, () -> search(options, null));
+
+        assertThat(emails).hasSize(EPERSONS / 8 * BRANCHES).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void pagedUnionOfManyLongBranchesCompletes() {
+        OperationOptions options = new OperationOptionsBuilder()
+                .setPageSize(500)
+                .setPagedResultsOffset(1001)
+                .build();
+        List<SearchResult> results = new ArrayList<>();
+
+        List<String> emails = assertTimeoutPreemptively(LIMIT, () -> search(options, results));
+
+        assertThat(emails).hasSize(500).doesNotHaveDuplicates().isSorted();
+        assertThat(results).singleElement()
+                .satisfies(result -> assertThat(result.getPagedResultsCookie()).isEqualTo("1500"));
+    }
+
+    private List<String> search(OperationOptions options, List<SearchResult> results) {
+        Filter[] groups = new Filter[BRANCHES];
+        for (int i = 0; i < BRANCHES; i++) {
+            groups[i] = FilterBuilder.contains(AttributeBuilder.build("lastname", "grupo" + i));
+        }
+        Filter filter = groups[0];
+        for (int i = 1; i < BRANCHES; i++) {
+            filter = FilterBuilder.or(filter, groups[i]);
+        }
+        EPersonQuery query = (EPersonQuery) connector.createFilterTranslator(EPERSON, options)
+                .translate(filter).get(0);
+        assertThat(query.getBranches()).hasSize(BRANCHES);
+
+        List<String> emails = new ArrayList<>();
+        connector.executeQuery(EPERSON, query, new SearchResultsHandler() {
+            @Override
+            public boolean handle(ConnectorObject connectorObject) {
+                emails.add(connectorObject.getName().getNameValue());
+                return true;
+            }
+
+            @Override
+            public void handleResult(SearchResult result) {
+                if (results != null) {
+                    results.add(result);
+                }
+            }
+        }, options);
+        return emails;
+    }
+}
@@ -0,0 +1,76 @@
+package com.upeu.connector.auth;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineRetryStrategyTest {
+
+    private final DeadlineRetryStrategy strategy = new DeadlineRetryStrategy();
+
+    @Test
+    void retriesANetworkErrorWhileTheOperationIsAlive() {
+        OperationDeadline deadline = OperationDeadline.begin(60_000);
+        try {
+            assertThat(retryAfterReset()).isTrue();
+        } finally {
+            deadline.end();
+        }
+    }
+
+    @Test
+    void doesNotRetryANetworkErrorOnceTheOperationIsDone() {
+        OperationDeadline deadline = OperationDeadline.begin(0);
+        deadline.end();
+        // Como una rama que sigue ligada a una búsqueda cuyo handler ya se detuvo
+        OperationDeadline previous = OperationDeadline.attach(deadline);
+        try {
+            assertThat(retryAfterReset()).isFalse();
+        } finally {
+            OperationDeadline.restore(previous);
+        }
+    }
+
+    @Test
+    void retriesA503WhenTheWaitFitsTheDeadline() {
+        OperationDeadline deadline = OperationDeadline.begin(60_000);
+        try {
+            assertThat(strategy.retryRequest(unavailable("1"), 1, new BasicHttpContext())).isTrue();
+        } finally {
+            deadline.end();
+        }
+    }
+
+    @Test
+    void doesNotRetryA503WhoseRetryAfterOutlastsTheDeadline() {
+        OperationDeadline deadline = OperationDeadline.begin(1_000);
+        try {
+            assertThat(strategy.retryRequest(unavailable("30"), 1, new BasicHttpContext())).isFalse();
+        } finally {
+            deadline.end();
+        }
+    }
+
+    @Test
+    void withoutADeadlineTheDefaultPolicyApplies() {
+        assertThat(retryAfterReset()).isTrue();
+        assertThat(strategy.retryRequest(unavailable("30"), 1, new BasicHttpContext())).isTrue();
+    }
+
+    private boolean retryAfterReset() {
+        return strategy.retryRequest(new HttpGet("http://localhost/server/api/eperson/epersons"),
+                new IOException("Connection reset"), 1, new BasicHttpContext());
+    }
+
+    private static HttpResponse unavailable(String retryAfterSeconds) {
+        BasicHttpResponse response = new BasicHttpResponse(503);
+        response.addHeader("Retry-After", retryAfterSeconds);
+        return response;
+    }
+}
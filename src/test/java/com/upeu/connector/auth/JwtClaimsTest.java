@@ -0,0 +1,35 @@
+package com.upeu.connector.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtClaimsTest {
+
+    private static final long FALLBACK = 42L;
+
+    @Test
+    void readsTheExpiryFromTheExpClaim() {
+        assertThat(JwtClaims.expiresAt(jwt("{\"eid\":\"admin\",\"exp\":1700000000}"), FALLBACK))
+                .isEqualTo(1_700_000_000_000L);
+    }
+
+    @Test
+    void fallsBackWhenTheClaimIsMissingOrUnreadable() {
+        assertThat(JwtClaims.expiresAt(jwt("{\"eid\":\"admin\"}"), FALLBACK)).isEqualTo(FALLBACK);
+        assertThat(JwtClaims.expiresAt(jwt("no es json"), FALLBACK)).isEqualTo(FALLBACK);
+        assertThat(JwtClaims.expiresAt("a.%%%.c", FALLBACK)).isEqualTo(FALLBACK);
+        assertThat(JwtClaims.expiresAt("opaco", FALLBACK)).isEqualTo(FALLBACK);
+        assertThat(JwtClaims.expiresAt(null, FALLBACK)).isEqualTo(FALLBACK);
+    }
+
+    private static String jwt(String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + ".firma";
+    }
+}
@@ -0,0 +1,133 @@
+package com.upeu.connector.auth;
+
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.identityconnectors.framework.common.exceptions.OperationTimeoutException;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OperationDeadlineTest {
+
+    @AfterEach
+    void unbind() {
+        OperationDeadline.attach(null);
+    }
+
+    @Test
+    void timeoutOptionOverridesTheConfiguredOne() {
+        assertThat(OperationDeadline.timeoutMillis(null, 5_000)).isEqualTo(5_000);
+        assertThat(OperationDeadline.timeoutMillis(new OperationOptionsBuilder().build(), 5_000)).isEqualTo(5_000);
+        assertThat(OperationDeadline.timeoutMillis(options(250), 5_000)).isEqualTo(250);
+        assertThat(OperationDeadline.timeoutMillis(options(" 750 "), 5_000)).isEqualTo(750);
+        assertThat(OperationDeadline.timeoutMillis(options(-1), 5_000)).isZero();
+    }
+
+    @Test
+    void invalidTimeoutOptionIsRejected() {
+        assertThatThrownBy(() -> OperationDeadline.timeoutMillis(options("pronto"), 5_000))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(OperationDeadline.OPTION_TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void expiryAbortsTheRegisteredRequests() throws InterruptedException {
+        CountDownLatch aborted = new CountDownLatch(1);
+        OperationDeadline deadline = OperationDeadline.begin(50);
+        try {
+            deadline.register(() -> {
+                aborted.countDown();
+                return true;
+            });
+
+            assertThat(aborted.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(deadline.isExpired()).isTrue();
+            assertThatThrownBy(deadline::check).isInstanceOf(OperationTimeoutException.class);
+        } finally {
+            deadline.end();
+        }
+    }
+
+    @Test
+    void endAbortsTheRequestsOfWorkerThreadsAndUnbindsTheDeadline() throws Exception {
+        AtomicInteger aborted = new AtomicInteger();
+        OperationDeadline outer = OperationDeadline.begin(0);
+        OperationDeadline deadline = OperationDeadline.begin(0);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Como una rama de búsqueda: la petición se registra desde otro hilo
+            executor.submit(() -> {
+                OperationDeadline previous = OperationDeadline.attach(deadline);
+                try {
+                    OperationDeadline.current().register(counting(aborted));
+                } finally {
+                    OperationDeadline.restore(previous);
+                }
+            }).get(5, TimeUnit.SECONDS);
+
+            deadline.end();
+
+            assertThat(aborted).hasValue(1);
+            assertThat(deadline.isDone()).isTrue();
+            assertThat(deadline.isExpired()).isFalse();
+            assertThat(OperationDeadline.current()).isSameAs(outer);
+            assertThat(outer.isDone()).isFalse();
+        } finally {
+            executor.shutdownNow();
+            outer.end();
+        }
+        assertThat(OperationDeadline.current()).isNull();
+    }
+
+    @Test
+    void requestsRegisteredAfterTheEndAreAbortedAtOnce() {
+        AtomicInteger aborted = new AtomicInteger();
+        OperationDeadline deadline = OperationDeadline.begin(0);
+        deadline.end();
+
+        deadline.register(counting(aborted));
+
+        assertThat(aborted).hasValue(1);
+    }
+
+    @Test
+    void awaitStopsAtTheDeadline() {
+        Future<String> never = new CompletableFuture<>();
+        OperationDeadline deadline = OperationDeadline.begin(50);
+        try {
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> OperationDeadline.await(never)).isInstanceOf(OperationTimeoutException.class);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000);
+        } finally {
+            deadline.end();
+        }
+    }
+
+    @Test
+    void negativeTimeoutIsRejected() {
+        assertThatThrownBy(() -> OperationDeadline.begin(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static OperationOptions options(Object timeout) {
+        return new OperationOptionsBuilder().setOption(OperationDeadline.OPTION_TIMEOUT_MILLIS, timeout).build();
+    }
+
+    private static Cancellable counting(AtomicInteger aborted) {
+        return () -> {
+            aborted.incrementAndGet();
+            return true;
+        };
+    }
+}
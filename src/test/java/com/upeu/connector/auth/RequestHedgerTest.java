@@ -0,0 +1,174 @@
+package com.upeu.connector.auth;
+
+import com.upeu.connector.metrics.ConnectorMetrics;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestHedgerTest {
+
+    private static final String ENDPOINT = "epersons";
+    private static final long DELAY_MILLIS = 20;
+
+    private RequestHedger hedger;
+
+    @AfterEach
+    void close() {
+        if (hedger != null) {
+            hedger.close();
+        }
+    }
+
+    @Test
+    void hedgeWinsWhenTheOriginalStalls() throws Exception {
+        hedger = new RequestHedger(DELAY_MILLIS, 100, 4, ConnectorMetrics.local());
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            String body = hedger.execute(ENDPOINT, this::request, request -> {
+                if (attempts.incrementAndGet() == 1) {
+                    release.await(5, TimeUnit.SECONDS);
+                    return "original";
+                }
+                return "hedge";
+            });
+
+            assertThat(body).isEqualTo("hedge");
+        } finally {
+            release.countDown();
+        }
+        assertThat(attempts).hasValue(2);
+        assertThat(hedger.getHedgeableRequests()).isEqualTo(1);
+        assertThat(hedger.getHedgesSent()).isEqualTo(1);
+        assertThat(awaitHedgesWon(1)).isEqualTo(1);
+        assertThat(hedger.getHedgesDenied()).isZero();
+    }
+
+    @Test
+    void spentBudgetDeniesTheHedge() throws Exception {
+        // Con el 1 % cada petición gana una centésima de réplica: la primera no alcanza para pagarla
+        hedger = new RequestHedger(DELAY_MILLIS, 1, 4, ConnectorMetrics.local());
+        AtomicInteger attempts = new AtomicInteger();
+
+        String body = hedger.execute(ENDPOINT, this::request, request -> {
+            attempts.incrementAndGet();
+            Thread.sleep(DELAY_MILLIS * 5);
+            return "original";
+        });
+
+        assertThat(body).isEqualTo("original");
+        assertThat(attempts).hasValue(1);
+        assertThat(hedger.getHedgesSent()).isZero();
+        assertThat(hedger.getHedgesDenied()).isEqualTo(1);
+    }
+
+    @Test
+    void aFailedAttemptLosesToTheOneThatSucceeds() throws Exception {
+        hedger = new RequestHedger(DELAY_MILLIS, 100, 4, ConnectorMetrics.local());
+        CountDownLatch hedgeStarted = new CountDownLatch(1);
+        CountDownLatch originalFailed = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // El original falla primero; su error no debe completar la petición
+        String body = hedger.execute(ENDPOINT, this::request, request -> {
+            if (attempts.incrementAndGet() == 1) {
+                hedgeStarted.await(5, TimeUnit.SECONDS);
+                originalFailed.countDown();
+                throw new IOException("original");
+            }
+            hedgeStarted.countDown();
+            originalFailed.await(5, TimeUnit.SECONDS);
+            return "hedge";
+        });
+
+        assertThat(body).isEqualTo("hedge");
+        assertThat(awaitHedgesWon(1)).isEqualTo(1);
+    }
+
+    @Test
+    void whenEveryAttemptFailsTheFirstErrorIsThrown() {
+        hedger = new RequestHedger(DELAY_MILLIS, 100, 4, ConnectorMetrics.local());
+        CountDownLatch hedgeStarted = new CountDownLatch(1);
+        CountDownLatch originalFailed = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> hedger.execute(ENDPOINT, this::request, request -> {
+            if (attempts.incrementAndGet() == 1) {
+                hedgeStarted.await(5, TimeUnit.SECONDS);
+                originalFailed.countDown();
+                throw new IOException("original");
+            }
+            hedgeStarted.countDown();
+            originalFailed.await(5, TimeUnit.SECONDS);
+            // Margen para que el error del original quede registrado antes que el de la réplica
+            Thread.sleep(DELAY_MILLIS * 5);
+            throw new IOException("hedge");
+        })).isInstanceOf(IOException.class).hasMessage("original");
+
+        assertThat(attempts).hasValue(2);
+        assertThat(hedger.getHedgesWon()).isZero();
+    }
+
+    @Test
+    void fullPoolRunsTheRequestOnTheCallerThread() throws Exception {
+        hedger = new RequestHedger(DELAY_MILLIS, 100, 1, ConnectorMetrics.local());
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+
+        try {
+            // Una petición lenta ocupa el único hilo de réplicas
+            Future<String> busy = caller.submit(() -> hedger.execute(ENDPOINT, this::request, request -> {
+                running.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return "busy";
+            }));
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+            AtomicReference<Thread> ranOn = new AtomicReference<>();
+            String body = hedger.execute(ENDPOINT, this::request, request -> {
+                ranOn.set(Thread.currentThread());
+                return "direct";
+            });
+
+            assertThat(body).isEqualTo("direct");
+            assertThat(ranOn).hasValue(Thread.currentThread());
+
+            release.countDown();
+            assertThat(busy.get(5, TimeUnit.SECONDS)).isEqualTo("busy");
+            // La réplica de la petición lenta tampoco tuvo hilo: se devuelve su coste al presupuesto
+            assertThat(hedger.getHedgesSent()).isZero();
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+        }
+    }
+
+    /**
+     * El intento ganador cuenta la réplica ganada después de entregar la respuesta al llamante.
+     */
+    private long awaitHedgesWon(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hedger.getHedgesWon() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return hedger.getHedgesWon();
+    }
+
+    private HttpGet request() {
+        return new HttpGet("http://localhost/server/api/eperson/epersons");
+    }
+}
@@ -0,0 +1,89 @@
+package com.upeu.connector.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenCacheTest {
+
+    private static final String BASE_URL = "https://dspace.upeu.edu.pe/server/";
+    private static final long IN_ONE_HOUR = System.currentTimeMillis() + 60 * 60 * 1000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storedTokensRoundTrip() {
+        new TokenCache(directory, BASE_URL, "admin", "secreto").store(new TokenCache.Entry("jwt-1", IN_ONE_HOUR));
+
+        TokenCache.Entry loaded = new TokenCache(directory, BASE_URL, "admin", "secreto").load();
+
+        assertThat(loaded.getToken()).isEqualTo("jwt-1");
+        assertThat(loaded.getExpiresAt()).isEqualTo(IN_ONE_HOUR);
+    }
+
+    @Test
+    void tokensAboutToExpireAreNotReused() {
+        TokenCache cache = new TokenCache(directory, BASE_URL, "admin", "secreto");
+        cache.store(new TokenCache.Entry("jwt-1", System.currentTimeMillis() + 30_000));
+
+        assertThat(cache.load()).isNull();
+    }
+
+    @Test
+    void anotherPasswordCannotReadTheToken() {
+        new TokenCache(directory, BASE_URL, "admin", "secreto").store(new TokenCache.Entry("jwt-1", IN_ONE_HOUR));
+
+        assertThat(new TokenCache(directory, BASE_URL, "admin", "otra").load()).isNull();
+    }
+
+    @Test
+    void aFileCopiedToAnotherUserIsAMiss() throws IOException {
+        TokenCache admin = new TokenCache(directory, BASE_URL, "admin", "secreto");
+        TokenCache other = new TokenCache(directory, BASE_URL, "otro", "secreto");
+        admin.store(new TokenCache.Entry("jwt-1", IN_ONE_HOUR));
+
+        Files.copy(admin.getFile(), other.getFile());
+
+        assertThat(other.load()).isNull();
+    }
+
+    @Test
+    void aTamperedFileIsAMiss() throws IOException {
+        TokenCache cache = new TokenCache(directory, BASE_URL, "admin", "secreto");
+        cache.store(new TokenCache.Entry("jwt-1", IN_ONE_HOUR));
+        byte[] content = Files.readAllBytes(cache.getFile());
+        content[content.length - 1] ^= 1;
+        Files.write(cache.getFile(), content);
+
+        assertThat(cache.load()).isNull();
+        Files.write(cache.getFile(), new byte[]{1, 2, 3});
+        assertThat(cache.load()).isNull();
+    }
+
+    @Test
+    void obtainReusesTheCachedTokenUnlessItWasRejected() {
+        TokenCache cache = new TokenCache(directory, BASE_URL, "admin", "secreto");
+        AtomicInteger logins = new AtomicInteger();
+        cache.store(new TokenCache.Entry("jwt-1", IN_ONE_HOUR));
+
+        TokenCache.Entry reused = cache.obtain(null, () -> login(logins, "jwt-2"));
+        TokenCache.Entry renewed = cache.obtain("jwt-1", () -> login(logins, "jwt-2"));
+
+        assertThat(reused.getToken()).isEqualTo("jwt-1");
+        assertThat(renewed.getToken()).isEqualTo("jwt-2");
+        assertThat(logins).hasValue(1);
+        assertThat(cache.load().getToken()).isEqualTo("jwt-2");
+    }
+
+    private static TokenCache.Entry login(AtomicInteger logins, String token) {
+        logins.incrementAndGet();
+        return new TokenCache.Entry(token, IN_ONE_HOUR);
+    }
+}
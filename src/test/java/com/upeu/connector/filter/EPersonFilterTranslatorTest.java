@@ -0,0 +1,149 @@
+package com.upeu.connector.filter;
+
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.ConnectorObjectBuilder;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EPersonFilterTranslatorTest {
+
+    private static final String UUID_A = "a1a67162-6756-4dcc-98a6-33bcaa4d1be6";
+    private static final String UUID_B = "b2b67162-6756-4dcc-98a6-33bcaa4d1be6";
+
+    private final EPersonFilterTranslator translator = new EPersonFilterTranslator();
+
+    @Test
+    void noFilterMeansNoQuery() {
+        assertThat(translator.translate(null)).isEmpty();
+    }
+
+    @Test
+    void uidEqualityIsADirectReadWithoutResidual() {
+        EPersonQuery query = single(FilterBuilder.equalTo(new Uid(UUID_A)));
+
+        assertThat(query.getType()).isEqualTo(EPersonQuery.Type.BY_UID);
+        assertThat(query.getValue()).isEqualTo(UUID_A);
+        assertThat(query.isExact()).isTrue();
+    }
+
+    @Test
+    void emailAndNameEqualityGoToByEmail() {
+        EPersonQuery byEmail = single(FilterBuilder.equalTo(AttributeBuilder.build("email", "ana@upeu.edu.pe")));
+        EPersonQuery byName = single(FilterBuilder.equalTo(new Name("ana@upeu.edu.pe")));
+
+        assertThat(byEmail.getType()).isEqualTo(EPersonQuery.Type.BY_EMAIL);
+        assertThat(byEmail.getParameters()).containsEntry("email", "ana@upeu.edu.pe");
+        assertThat(byEmail.isExact()).isTrue();
+        assertThat(byName.getType()).isEqualTo(EPersonQuery.Type.BY_EMAIL);
+    }
+
+    @Test
+    void substringMatchesGoToByMetadataAndKeepTheFilter() {
+        Filter filter = FilterBuilder.startsWith(AttributeBuilder.build("lastname", "Quispe"));
+        EPersonQuery query = single(filter);
+
+        assertThat(query.getType()).isEqualTo(EPersonQuery.Type.BY_METADATA);
+        assertThat(query.getParameters()).containsEntry("query", "Quispe");
+        assertThat(query.getResidual()).isSameAs(filter);
+    }
+
+    @Test
+    void andKeepsTheMostSelectiveBranchAndTheWholeFilterAsResidual() {
+        Filter filter = FilterBuilder.and(
+                FilterBuilder.contains(AttributeBuilder.build("lastname", "Quispe")),
+                FilterBuilder.equalTo(AttributeBuilder.build("email", "ana@upeu.edu.pe")));
+        EPersonQuery query = single(filter);
+
+        assertThat(query.getType()).isEqualTo(EPersonQuery.Type.BY_EMAIL);
+        assertThat(query.getResidual()).isSameAs(filter);
+    }
+
+    @Test
+    void andPrefersTheUidOverAnyOtherBranch() {
+        Filter filter = FilterBuilder.and(
+                FilterBuilder.equalTo(AttributeBuilder.build("email", "ana@upeu.edu.pe")),
+                FilterBuilder.equalTo(new Uid(UUID_A)));
+
+        assertThat(single(filter).getType()).isEqualTo(EPersonQuery.Type.BY_UID);
+    }
+
+    @Test
+    void andPrefersASingleRequestOverAFanOut() {
+        Filter filter = FilterBuilder.and(
+                FilterBuilder.or(
+                        FilterBuilder.equalTo(new Uid(UUID_A)),
+                        FilterBuilder.equalTo(new Uid(UUID_B))),
+                FilterBuilder.contains(AttributeBuilder.build("firstname", "Ana")));
+
+        assertThat(single(filter).getType()).isEqualTo(EPersonQuery.Type.BY_METADATA);
+    }
+
+    @Test
+    void orOfPushableBranchesIsAUnion() {
+        EPersonQuery query = single(FilterBuilder.or(
+                FilterBuilder.equalTo(new Uid(UUID_A)),
+                FilterBuilder.equalTo(new Uid(UUID_B))));
+
+        assertThat(query.isUnion()).isTrue();
+        assertThat(query.getBranches())
+                .extracting(EPersonQuery::getValue)
+                .containsExactly(UUID_A, UUID_B);
+    }
+
+    @Test
+    void orMergesBranchesThatSendTheSameRequest() {
+        Filter startsWith = FilterBuilder.startsWith(AttributeBuilder.build("firstname", "Ana"));
+        Filter contains = FilterBuilder.contains(AttributeBuilder.build("lastname", "Ana"));
+        EPersonQuery query = single(FilterBuilder.or(startsWith, contains));
+
+        assertThat(query.isUnion()).isFalse();
+        assertThat(query.getType()).isEqualTo(EPersonQuery.Type.BY_METADATA);
+        assertThat(query.matches(eperson("Ana", "Rojas"))).isTrue();
+        assertThat(query.matches(eperson("Luis", "Vega Ana"))).isTrue();
+        assertThat(query.matches(eperson("Luis", "Rojas"))).isFalse();
+    }
+
+    @Test
+    void orMergeWithAnExactBranchDropsTheResidual() {
+        EPersonQuery query = single(FilterBuilder.or(
+                FilterBuilder.equalTo(AttributeBuilder.build("email", "ana@upeu.edu.pe")),
+                FilterBuilder.equalTo(new Name("ana@upeu.edu.pe"))));
+
+        assertThat(query.getType()).isEqualTo(EPersonQuery.Type.BY_EMAIL);
+        assertThat(query.isExact()).isTrue();
+    }
+
+    @Test
+    void orWithAnUnpushableBranchFallsBackToALocalScan() {
+        Filter filter = FilterBuilder.or(
+                FilterBuilder.equalTo(new Uid(UUID_A)),
+                FilterBuilder.not(FilterBuilder.equalTo(AttributeBuilder.build("canLogIn", true))));
+        EPersonQuery query = single(filter);
+
+        assertThat(query.getType()).isEqualTo(EPersonQuery.Type.ALL);
+        assertThat(query.getResidual()).isSameAs(filter);
+    }
+
+    private EPersonQuery single(Filter filter) {
+        List<EPersonQuery> queries = translator.translate(filter);
+        assertThat(queries).hasSize(1);
+        return queries.get(0);
+    }
+
+    private static ConnectorObject eperson(String firstname, String lastname) {
+        return new ConnectorObjectBuilder()
+                .setUid(UUID_A)
+                .setName("ana@upeu.edu.pe")
+                .addAttribute(AttributeBuilder.build("firstname", firstname))
+                .addAttribute(AttributeBuilder.build("lastname", lastname))
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.upeu.connector.handler;
+
+import com.upeu.connector.DSpaceConfiguration;
+import com.upeu.connector.DSpaceConnector;
+import com.upeu.connector.filter.DSpaceQuery;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+import org.identityconnectors.framework.common.objects.AttributeUtil;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Eliminar un EPerson debe vaciar las relaciones en caché de los grupos de los que era miembro.
+ */
+class EPersonDeleteMembershipTest {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+
+    private MockDSpaceServer server;
+    private DSpaceConnector connector;
+    private List<String> ids;
+    private String groupId;
+
+    @BeforeEach
+    void start() throws Exception {
+        EPersonDataset dataset = EPersonDataset.numbered(4, 1);
+        ids = new ArrayList<>(dataset.size());
+        dataset.epersons().forEach(eperson -> ids.add(eperson.getString("id")));
+        server = new MockDSpaceServer(dataset, USER, PASSWORD).start();
+        groupId = server.addGroup("Docentes", ids);
+
+        DSpaceConfiguration configuration = new DSpaceConfiguration();
+        configuration.setBaseUrl(server.getBaseUrl());
+        configuration.setUsername(USER);
+        configuration.setPassword(PASSWORD);
+        configuration.setMembershipCacheTtlSeconds(300);
+        configuration.setMetricsJmxEnabled(false);
+        configuration.validate();
+        connector = new DSpaceConnector();
+        connector.init(configuration);
+    }
+
+    @AfterEach
+    void stop() {
+        connector.dispose();
+        server.close();
+    }
+
+    @Test
+    void deletedEPersonLeavesTheCachedMemberLists() {
+        assertThat(members()).containsExactlyInAnyOrderElementsOf(ids);
+
+        connector.delete(ObjectClass.ACCOUNT, new Uid(ids.get(0)), null);
+
+        assertThat(members()).containsExactlyInAnyOrderElementsOf(ids.subList(1, ids.size()));
+    }
+
+    private List<Object> members() {
+        OperationOptions options = new OperationOptionsBuilder().setAttributesToGet(Group.ATTR_MEMBERS).build();
+        DSpaceQuery query = connector.createFilterTranslator(Group.OBJECT_CLASS, options)
+                .translate(FilterBuilder.equalTo(new Uid(groupId))).get(0);
+
+        List<Object> members = new ArrayList<>();
+        connector.executeQuery(Group.OBJECT_CLASS, query, object -> {
+            members.addAll(AttributeUtil.find(Group.ATTR_MEMBERS, object.getAttributes()).getValue());
+            return true;
+        }, options);
+        return members;
+    }
+}
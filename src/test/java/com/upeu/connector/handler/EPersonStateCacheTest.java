@@ -0,0 +1,77 @@
+package com.upeu.connector.handler;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EPersonStateCacheTest {
+
+    private static final String ID = "a1a67162-6756-4dcc-98a6-33bcaa4d1be6";
+
+    @Test
+    void returnsTheStoredStateWithinTheTtl() {
+        EPersonStateCache cache = new EPersonStateCache(60_000);
+        JSONObject state = eperson(ID, "ana@upeu.edu.pe");
+
+        cache.put(state);
+
+        assertThat(cache.get(ID)).containsSame(state);
+    }
+
+    @Test
+    void forgetsTheStateAfterTheTtl() throws InterruptedException {
+        EPersonStateCache cache = new EPersonStateCache(50);
+        cache.put(eperson(ID, "ana@upeu.edu.pe"));
+
+        Thread.sleep(80);
+
+        assertThat(cache.get(ID)).isEmpty();
+        assertThat(cache.findIdByEmail("ana@upeu.edu.pe")).isEmpty();
+    }
+
+    @Test
+    void findsIdsByEmailIgnoringCase() {
+        EPersonStateCache cache = new EPersonStateCache(60_000);
+        cache.put(eperson(ID, "Ana@UPeU.edu.pe"));
+
+        assertThat(cache.findIdByEmail("ana@upeu.edu.pe")).contains(ID);
+    }
+
+    @Test
+    void anEmailChangeRetiresTheOldEmail() {
+        EPersonStateCache cache = new EPersonStateCache(60_000);
+        cache.put(eperson(ID, "ana@upeu.edu.pe"));
+
+        cache.put(eperson(ID, "ana.rojas@upeu.edu.pe"));
+
+        assertThat(cache.findIdByEmail("ana@upeu.edu.pe")).isEmpty();
+        assertThat(cache.findIdByEmail("ana.rojas@upeu.edu.pe")).contains(ID);
+    }
+
+    @Test
+    void invalidateRemovesTheStateAndItsEmail() {
+        EPersonStateCache cache = new EPersonStateCache(60_000);
+        cache.put(eperson(ID, "ana@upeu.edu.pe"));
+
+        cache.invalidate(ID);
+
+        assertThat(cache.get(ID)).isEmpty();
+        assertThat(cache.findIdByEmail("ana@upeu.edu.pe")).isEmpty();
+    }
+
+    @Test
+    void zeroTtlOrMissingIdStoresNothing() {
+        EPersonStateCache disabled = new EPersonStateCache(0);
+        disabled.put(eperson(ID, "ana@upeu.edu.pe"));
+        EPersonStateCache cache = new EPersonStateCache(60_000);
+        cache.put(new JSONObject().put("email", "ana@upeu.edu.pe"));
+
+        assertThat(disabled.get(ID)).isEmpty();
+        assertThat(cache.findIdByEmail("ana@upeu.edu.pe")).isEmpty();
+    }
+
+    private static JSONObject eperson(String id, String email) {
+        return new JSONObject().put("id", id).put("email", email);
+    }
+}
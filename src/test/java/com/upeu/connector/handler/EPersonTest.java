@@ -0,0 +1,52 @@
+package com.upeu.connector.handler;
+
+import org.identityconnectors.framework.common.objects.AttributeUtil;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EPersonTest {
+
+    @Test
+    void metadataValuesThatAreJsonNullAreSkipped() {
+        JSONObject metadata = required()
+                .put("dc.identifier", new JSONArray()
+                        .put(new JSONObject().put("value", "70112233"))
+                        .put(new JSONObject().put("value", JSONObject.NULL))
+                        .put(new JSONObject().put("language", "es")));
+
+        ConnectorObject object = new EPerson(eperson(metadata)).toConnectorObject(List.of("dc.identifier"));
+
+        assertThat(AttributeUtil.find("dc.identifier", object.getAttributes()).getValue())
+                .containsExactly("70112233");
+    }
+
+    @Test
+    void fieldWithOnlyNullValuesIsLeftOut() {
+        JSONObject metadata = required()
+                .put("dc.identifier", new JSONArray().put(new JSONObject().put("value", JSONObject.NULL)));
+
+        ConnectorObject object = new EPerson(eperson(metadata)).toConnectorObject(List.of("dc.identifier"));
+
+        assertThat(AttributeUtil.find("dc.identifier", object.getAttributes())).isNull();
+    }
+
+    private static JSONObject required() {
+        return new JSONObject()
+                .put("eperson.firstname", new JSONArray().put(new JSONObject().put("value", "Ana")))
+                .put("eperson.lastname", new JSONArray().put(new JSONObject().put("value", "Quispe")));
+    }
+
+    private static JSONObject eperson(JSONObject metadata) {
+        return new JSONObject()
+                .put("id", "0d4ff6b1-7c43-4a0c-9b8e-0e2f7d6a1f20")
+                .put("email", "ana.quispe@upeu.edu.pe")
+                .put("canLogIn", true)
+                .put("metadata", metadata);
+    }
+}
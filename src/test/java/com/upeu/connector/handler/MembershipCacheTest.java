@@ -0,0 +1,172 @@
+package com.upeu.connector.handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MembershipCacheTest {
+
+    private static final String GROUP = "9f0c1a52-0000-4000-8000-000000000001";
+
+    @Test
+    void loadsEachRelationOnceWithinTheTtl() {
+        MembershipCache cache = new MembershipCache(60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<String> first = cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "a", "b"));
+        List<String> second = cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "c"));
+
+        assertThat(first).containsExactly("a", "b");
+        assertThat(second).isEqualTo(first);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void keepsEachRelationApart() {
+        MembershipCache cache = new MembershipCache(60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "a"));
+        List<String> subgroups = cache.get(GROUP, MembershipCache.Relation.SUBGROUPS, counting(loads, "g"));
+
+        assertThat(subgroups).containsExactly("g");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void reloadsAfterTheTtl() throws InterruptedException {
+        MembershipCache cache = new MembershipCache(50);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "a"));
+        Thread.sleep(80);
+        List<String> reloaded = cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "b"));
+
+        assertThat(reloaded).containsExactly("b");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void zeroTtlAlwaysLoads() {
+        MembershipCache cache = new MembershipCache(0);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "a"));
+        cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "a"));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidateDropsBothRelationsOfTheGroup() {
+        MembershipCache cache = new MembershipCache(60_000);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "a"));
+        cache.get(GROUP, MembershipCache.Relation.SUBGROUPS, counting(loads, "g"));
+
+        cache.invalidate(GROUP);
+        cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "a"));
+        cache.get(GROUP, MembershipCache.Relation.SUBGROUPS, counting(loads, "g"));
+
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void failedLoadsAreNotCached() {
+        MembershipCache cache = new MembershipCache(60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThatThrownBy(() -> cache.get(GROUP, MembershipCache.Relation.MEMBERS, () -> {
+            throw new IllegalStateException("DSpace no responde");
+        })).isInstanceOf(IllegalStateException.class);
+        List<String> members = cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "a"));
+
+        assertThat(members).containsExactly("a");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loaderErrorsReleaseWaitersAndAreNotCached() throws Exception {
+        MembershipCache cache = new MembershipCache(60_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<List<String>> failingLoader = () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new AssertionError("fallo del loader");
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> owner = executor.submit(() -> cache.get(GROUP, MembershipCache.Relation.MEMBERS, failingLoader));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<List<String>> waiter = executor.submit(() -> cache.get(GROUP, MembershipCache.Relation.MEMBERS, failingLoader));
+            Thread.sleep(20);
+            release.countDown();
+
+            assertThatThrownBy(() -> owner.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<String> members = cache.get(GROUP, MembershipCache.Relation.MEMBERS, counting(loads, "a"));
+        assertThat(members).containsExactly("a");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        MembershipCache cache = new MembershipCache(60_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<List<String>> slowLoader = () -> {
+            loads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of("a");
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<List<String>> first = executor.submit(() -> cache.get(GROUP, MembershipCache.Relation.MEMBERS, slowLoader));
+            while (loads.get() == 0) {
+                Thread.sleep(1);
+            }
+            Future<List<String>> second = executor.submit(() -> cache.get(GROUP, MembershipCache.Relation.MEMBERS, slowLoader));
+            Thread.sleep(20);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly("a");
+            assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly("a");
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Supplier<List<String>> counting(AtomicInteger loads, String... ids) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(ids);
+        };
+    }
+}
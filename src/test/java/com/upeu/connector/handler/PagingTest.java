@@ -0,0 +1,135 @@
+package com.upeu.connector.handler;
+
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.ConnectorObjectBuilder;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.ResultsHandler;
+import org.identityconnectors.framework.common.objects.SearchResult;
+import org.identityconnectors.framework.spi.SearchResultsHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PagingTest {
+
+    @Test
+    void startIndexPrefersTheCookieOverTheOffset() {
+        OperationOptions options = new OperationOptionsBuilder()
+                .setPagedResultsCookie("40")
+                .setPagedResultsOffset(11)
+                .build();
+
+        assertThat(BaseHandler.startIndex(options)).isEqualTo(40);
+    }
+
+    @Test
+    void startIndexTurnsTheOneBasedOffsetIntoAPosition() {
+        assertThat(BaseHandler.startIndex(new OperationOptionsBuilder().setPagedResultsOffset(11).build()))
+                .isEqualTo(10);
+        assertThat(BaseHandler.startIndex(new OperationOptionsBuilder().setPagedResultsOffset(0).build()))
+                .isZero();
+        assertThat(BaseHandler.startIndex(new OperationOptionsBuilder().build())).isZero();
+    }
+
+    @Test
+    void startIndexRejectsInvalidCookies() {
+        assertThatThrownBy(() -> BaseHandler.startIndex(new OperationOptionsBuilder().setPagedResultsCookie("abc").build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BaseHandler.startIndex(new OperationOptionsBuilder().setPagedResultsCookie("-1").build()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pagingHandlerDeliversTheWindowAndStopsAfterIt() {
+        List<String> received = new ArrayList<>();
+        BaseHandler.PagingResultsHandler paging = new BaseHandler.PagingResultsHandler(collect(received), 2, 3);
+
+        int offered = offer(paging, 10);
+
+        assertThat(received).containsExactly("2", "3", "4");
+        assertThat(offered).isEqualTo(6);
+        assertThat(paging.getDelivered()).isEqualTo(3);
+        assertThat(paging.getRemaining()).isEqualTo(-1);
+    }
+
+    @Test
+    void pagingHandlerReportsNothingLeftOnTheLastPage() {
+        List<String> received = new ArrayList<>();
+        BaseHandler.PagingResultsHandler paging = new BaseHandler.PagingResultsHandler(collect(received), 8, 3);
+
+        offer(paging, 10);
+
+        assertThat(received).containsExactly("8", "9");
+        assertThat(paging.getRemaining()).isZero();
+    }
+
+    @Test
+    void pagingHandlerReportsUnknownRemainderWhenTheCallerStops() {
+        List<String> received = new ArrayList<>();
+        BaseHandler.PagingResultsHandler paging = new BaseHandler.PagingResultsHandler(object -> {
+            received.add(object.getUid().getUidValue());
+            return received.size() < 2;
+        }, 0, 5);
+
+        offer(paging, 10);
+
+        assertThat(received).containsExactly("0", "1");
+        assertThat(paging.getRemaining()).isEqualTo(-1);
+    }
+
+    @Test
+    void completePageSendsTheNextPositionAsCookie() {
+        List<SearchResult> results = new ArrayList<>();
+
+        BaseHandler.completePage(searchHandler(results), 25, -1);
+        BaseHandler.completePage(searchHandler(results), 30, 0);
+
+        assertThat(results.get(0).getPagedResultsCookie()).isEqualTo("25");
+        assertThat(results.get(0).getRemainingPagedResults()).isEqualTo(-1);
+        assertThat(results.get(0).isAllResultsReturned()).isFalse();
+        assertThat(results.get(1).getPagedResultsCookie()).isNull();
+        assertThat(results.get(1).isAllResultsReturned()).isTrue();
+    }
+
+    private static int offer(ResultsHandler handler, int count) {
+        for (int i = 0; i < count; i++) {
+            if (!handler.handle(object(i))) {
+                return i + 1;
+            }
+        }
+        return count;
+    }
+
+    private static ResultsHandler collect(List<String> received) {
+        return object -> {
+            received.add(object.getUid().getUidValue());
+            return true;
+        };
+    }
+
+    private static SearchResultsHandler searchHandler(List<SearchResult> results) {
+        return new SearchResultsHandler() {
+            @Override
+            public boolean handle(ConnectorObject connectorObject) {
+                return true;
+            }
+
+            @Override
+            public void handleResult(SearchResult result) {
+                results.add(result);
+            }
+        };
+    }
+
+    private static ConnectorObject object(int index) {
+        return new ConnectorObjectBuilder()
+                .setUid(String.valueOf(index))
+                .setName("user" + index + "@upeu.edu.pe")
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.upeu.connector.handler;
+
+import com.upeu.connector.DSpaceConfiguration;
+import com.upeu.connector.DSpaceConnector;
+import com.upeu.connector.mock.EPersonDataset;
+import com.upeu.connector.mock.MockDSpaceServer;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Un recorrido completo con scanId debe poder reanudarse aunque se use un solo worker.
+ */
+class ResumableScanTest {
+
+    private static final String USER = "admin@upeu.edu.pe";
+    private static final String PASSWORD = "admin";
+    private static final ObjectClass EPERSON = new ObjectClass("eperson");
+
+    @TempDir
+    Path checkpoints;
+
+    private MockDSpaceServer server;
+    private DSpaceConnector connector;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new MockDSpaceServer(EPersonDataset.numbered(250, 1), USER, PASSWORD).start();
+
+        DSpaceConfiguration configuration = new DSpaceConfiguration();
+        configuration.setBaseUrl(server.getBaseUrl());
+        configuration.setUsername(USER);
+        configuration.setPassword(PASSWORD);
+        configuration.setFullScanPagesPerShard(1);
+        configuration.setScanCheckpointDirectory(checkpoints.toString());
+        configuration.setMetricsJmxEnabled(false);
+        configuration.validate();
+        connector = new DSpaceConnector();
+        connector.init(configuration);
+    }
+
+    @AfterEach
+    void stop() {
+        connector.dispose();
+        server.close();
+    }
+
+    @Test
+    void singleWorkerScanResumesFromTheCheckpoint() {
+        Set<String> first = scan(withScanId("reconciliacion"), 150);
+
+        assertThat(first).hasSize(150);
+        assertThat(checkpoints.resolve("reconciliacion.scan")).exists();
+
+        // El primer shard se entregó completo: la segunda ejecución empieza en el segundo
+        Set<String> second = scan(withScanId("reconciliacion"), Integer.MAX_VALUE);
+
+        assertThat(second).hasSize(150);
+        Set<String> all = new HashSet<>(first);
+        all.addAll(second);
+        assertThat(all).hasSize(250);
+        assertThat(checkpoints.resolve("reconciliacion.scan")).doesNotExist();
+    }
+
+    @Test
+    void singleWorkerScanWithoutScanIdLeavesNoCheckpoint() {
+        assertThat(scan(new OperationOptionsBuilder().build(), 150)).hasSize(150);
+
+        assertThat(checkpoints).isEmptyDirectory();
+    }
+
+    private Set<String> scan(OperationOptions options, int limit) {
+        Set<String> received = new HashSet<>();
+        connector.executeQuery(EPERSON, null, object -> {
+            received.add(object.getUid().getUidValue());
+            return received.size() < limit;
+        }, options);
+        return received;
+    }
+
+    private static OperationOptions withScanId(String scanId) {
+        return new OperationOptionsBuilder().setOption(ShardedScanner.OPTION_SCAN_ID, scanId).build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.upeu.connector.handler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScanCheckpointTest {
+
+    private static final String ENDPOINT = "epersons";
+    private static final Map<String, String> BY_EMAIL = Map.of("sort", "email,ASC");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void completedShardsSurviveAReopen() {
+        ScanCheckpoint checkpoint = ScanCheckpoint.open(directory, "epersons", ENDPOINT, BY_EMAIL, 100, 5);
+        checkpoint.markCompleted(0);
+        checkpoint.markCompleted(3);
+
+        ScanCheckpoint reopened = ScanCheckpoint.open(directory, "epersons", ENDPOINT, BY_EMAIL, 100, 5);
+
+        assertThat(reopened.getCompletedCount()).isEqualTo(2);
+        assertThat(reopened.isCompleted(0)).isTrue();
+        assertThat(reopened.isCompleted(1)).isFalse();
+        assertThat(reopened.isCompleted(3)).isTrue();
+    }
+
+    @Test
+    void aDifferentShardLayoutStartsOver() {
+        ScanCheckpoint.open(directory, "epersons", ENDPOINT, BY_EMAIL, 100, 5).markCompleted(2);
+
+        assertThat(ScanCheckpoint.open(directory, "epersons", ENDPOINT, BY_EMAIL, 200, 5).getCompletedCount()).isZero();
+        assertThat(ScanCheckpoint.open(directory, "epersons", ENDPOINT, BY_EMAIL, 100, 4).getCompletedCount()).isZero();
+    }
+
+    @Test
+    void aDifferentQueryOrSortStartsOver() {
+        ScanCheckpoint.open(directory, "epersons", ENDPOINT, BY_EMAIL, 100, 5).markCompleted(2);
+
+        assertThat(ScanCheckpoint.open(directory, "epersons", ENDPOINT, Map.of("sort", "id,ASC"), 100, 5)
+                .getCompletedCount()).isZero();
+        assertThat(ScanCheckpoint.open(directory, "epersons", "groups", BY_EMAIL, 100, 5)
+                .getCompletedCount()).isZero();
+    }
+
+    @Test
+    void aCorruptFileStartsOver() throws IOException {
+        ScanCheckpoint checkpoint = ScanCheckpoint.open(directory, "epersons", ENDPOINT, BY_EMAIL, 100, 5);
+        checkpoint.markCompleted(1);
+        Files.writeString(directory.resolve("epersons.scan"),
+                "query=epersons?{sort\\=email,ASC}\npageSize=100\npagesPerShard=5\ncompleted=1,dos,-3\n", StandardCharsets.UTF_8);
+
+        assertThat(ScanCheckpoint.open(directory, "epersons", ENDPOINT, BY_EMAIL, 100, 5).getCompletedCount()).isZero();
+    }
+
+    @Test
+    void deleteRemovesTheFile() {
+        ScanCheckpoint checkpoint = ScanCheckpoint.open(directory, "epersons", ENDPOINT, BY_EMAIL, 100, 5);
+        checkpoint.markCompleted(0);
+        checkpoint.delete();
+
+        assertThat(directory.resolve("epersons.scan")).doesNotExist();
+        assertThat(ScanCheckpoint.open(directory, "epersons", ENDPOINT, BY_EMAIL, 100, 5).getCompletedCount()).isZero();
+    }
+
+    @Test
+    void rejectsScanIdsThatCouldLeaveTheDirectory() {
+        assertThatThrownBy(() -> ScanCheckpoint.open(directory, "../epersons", ENDPOINT, BY_EMAIL, 100, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ScanCheckpoint.open(directory, null, ENDPOINT, BY_EMAIL, 100, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,161 @@
+package com.upeu.connector.handler;
+
+import com.upeu.connector.auth.OperationDeadline;
+import org.identityconnectors.framework.common.exceptions.OperationTimeoutException;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.AttributeUtil;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpdateCoalescerTest {
+
+    private static final String ID = "5eed0000-0000-4000-8000-000000000001";
+    private static final Uid UID = new Uid(ID);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void lastWriterWinsWithinOneBatch() throws Exception {
+        UpdateCoalescer coalescer = new UpdateCoalescer(500);
+        List<Set<Attribute>> written = new CopyOnWriteArrayList<>();
+        Function<Set<Attribute>, Uid> writer = attributes -> {
+            written.add(attributes);
+            return UID;
+        };
+
+        Future<Uid> first = executor.submit(() -> coalescer.submit(ID,
+                Set.of(attribute("phone", "1"), attribute("netid", "a")), writer));
+        Thread.sleep(50);
+        Future<Uid> second = executor.submit(() -> coalescer.submit(ID,
+                Set.of(attribute("phone", "2"), attribute("language", "es")), writer));
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(UID);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(UID);
+        assertThat(coalescer.getWrites()).isEqualTo(1);
+        assertThat(coalescer.getMergedUpdates()).isEqualTo(1);
+        assertThat(written).singleElement().satisfies(attributes -> {
+            assertThat(value(attributes, "phone")).isEqualTo("2");
+            assertThat(value(attributes, "netid")).isEqualTo("a");
+            assertThat(value(attributes, "language")).isEqualTo("es");
+        });
+    }
+
+    @Test
+    void consecutiveBatchesAreWrittenInOrder() throws Exception {
+        UpdateCoalescer coalescer = new UpdateCoalescer(50);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Uid> first = executor.submit(() -> coalescer.submit(ID, Set.of(attribute("phone", "1")), attributes -> {
+            writing.countDown();
+            await(release);
+            order.add(value(attributes, "phone"));
+            return UID;
+        }));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Uid> second = executor.submit(() -> coalescer.submit(ID, Set.of(attribute("phone", "2")), attributes -> {
+            order.add(value(attributes, "phone"));
+            return UID;
+        }));
+
+        // El segundo lote ya cerró su ventana, pero no escribe hasta que termine el primero
+        Thread.sleep(200);
+        assertThat(order).isEmpty();
+        assertThat(coalescer.getWrites()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(UID);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(UID);
+        assertThat(order).containsExactly("1", "2");
+        assertThat(coalescer.getMergedUpdates()).isZero();
+    }
+
+    @Test
+    void writerFailureReachesEveryMergedCaller() throws Exception {
+        UpdateCoalescer coalescer = new UpdateCoalescer(300);
+        AtomicInteger calls = new AtomicInteger();
+        IllegalStateException failure = new IllegalStateException("DSpace rechazó la escritura");
+        Function<Set<Attribute>, Uid> writer = attributes -> {
+            calls.incrementAndGet();
+            throw failure;
+        };
+
+        Future<Uid> first = executor.submit(() -> coalescer.submit(ID, Set.of(attribute("phone", "1")), writer));
+        Thread.sleep(30);
+        Future<Uid> second = executor.submit(() -> coalescer.submit(ID, Set.of(attribute("netid", "a")), writer));
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void followerTimesOutWhileTheBatchCompletes() throws Exception {
+        UpdateCoalescer coalescer = new UpdateCoalescer(300);
+        List<Set<Attribute>> written = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Set<Attribute>, Uid> writer = attributes -> {
+            await(release);
+            written.add(attributes);
+            return UID;
+        };
+
+        Future<Uid> leader = executor.submit(() -> coalescer.submit(ID, Set.of(attribute("phone", "1")), writer));
+        Thread.sleep(30);
+        Future<Uid> follower = executor.submit(() -> {
+            OperationDeadline deadline = OperationDeadline.begin(100);
+            try {
+                return coalescer.submit(ID, Set.of(attribute("netid", "a")), writer);
+            } finally {
+                deadline.end();
+            }
+        });
+
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(OperationTimeoutException.class);
+        assertThat(leader.isDone()).isFalse();
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(UID);
+        assertThat(coalescer.getWrites()).isEqualTo(1);
+        assertThat(written).singleElement()
+                .satisfies(attributes -> assertThat(value(attributes, "netid")).isEqualTo("a"));
+    }
+
+    private static Attribute attribute(String name, String value) {
+        return AttributeBuilder.build(name, value);
+    }
+
+    private static String value(Set<Attribute> attributes, String name) {
+        return AttributeUtil.getStringValue(AttributeUtil.find(name, attributes));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.upeu.connector.mock;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates synthetic epersons from the sample response in {@code test-data/eperson-sample.json}.
+ * Every record is a copy of one of the sample epersons with a fresh UUID, email and names,
+ * so the JSON shape matches what DSpace returns. Generation is deterministic for a given seed.
+ */
+public final class EPersonDataset {
+
+    private static final String SAMPLE_RESOURCE = "/test-data/eperson-sample.json";
+
+    private static final String[] FIRST_NAMES = {
+            "Ana", "Luis", "María", "José", "Carmen", "Jorge", "Lucía", "Pedro", "Rosa", "Miguel"
+    };
+    private static final String[] LAST_NAMES = {
+            "Quispe", "Mamani", "García", "Flores", "Rodríguez", "Huamán", "Torres", "Chávez", "Vargas", "Ramos"
+    };
+
+    private final List<JSONObject> epersons;
+
+    private EPersonDataset(List<JSONObject> epersons) {
+        this.epersons = epersons;
+    }
+
+    /**
+     * Generates a dataset of the given size.
+     *
+     * @param size Number of epersons.
+     * @param seed Seed of the pseudo-random generator.
+     */
+    public static EPersonDataset generate(int size, long seed) {
+        List<JSONObject> templates = loadSample();
+        Random random = new Random(seed);
+        List<JSONObject> epersons = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            JSONObject eperson = new JSONObject(templates.get(i % templates.size()).toString());
+            String uuid = new UUID(random.nextLong(), random.nextLong()).toString();
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String email = (first + "." + last + "." + i + "@upeu.edu.pe").toLowerCase();
+
+            eperson.put("id", uuid);
+            eperson.put("uuid", uuid);
+            eperson.put("name", email);
+            eperson.put("email", email);
+            JSONObject metadata = eperson.getJSONObject("metadata");
+            metadata.put("eperson.firstname", metadataValue(first));
+            metadata.put("eperson.lastname", metadataValue(last));
+            epersons.add(eperson);
+        }
+        return new EPersonDataset(epersons);
+    }
+
+    public static EPersonDataset generate(int size) {
+        return generate(size, 42L);
+    }
+
+    /**
+     * Generates epersons with predictable values: the eperson {@code i} has the email
+     * {@code user<i>@upeu.edu.pe} (five digits) and a lastname ending in {@code grupo<i % groups>},
+     * so substring searches select fixed fractions of the dataset.
+     *
+     * @param size   Number of epersons.
+     * @param groups Number of lastname groups (at most 10, so no group name is a prefix of another).
+     */
+    public static EPersonDataset numbered(int size, int groups) {
+        if (groups < 1 || groups > 10) {
+            throw new IllegalArgumentException("groups must be between 1 and 10");
+        }
+        List<JSONObject> templates = loadSample();
+        List<JSONObject> epersons = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            JSONObject eperson = new JSONObject(templates.get(i % templates.size()).toString());
+            String uuid = new UUID(0x5eedL, i).toString();
+            String email = String.format(Locale.ROOT, "user%05d@upeu.edu.pe", i);
+
+            eperson.put("id", uuid);
+            eperson.put("uuid", uuid);
+            eperson.put("name", email);
+            eperson.put("email", email);
+            JSONObject metadata = eperson.getJSONObject("metadata");
+            metadata.put("eperson.firstname", metadataValue("Nombre " + i));
+            metadata.put("eperson.lastname", metadataValue("Apellido " + i + " grupo" + (i % groups)));
+            epersons.add(eperson);
+        }
+        return new EPersonDataset(epersons);
+    }
+
+    public List<JSONObject> epersons() {
+        return epersons;
+    }
+
+    public int size() {
+        return epersons.size();
+    }
+
+    public JSONObject get(int index) {
+        return epersons.get(index);
+    }
+
+    /**
+     * Builds a HAL page of the dataset as DSpace would return it.
+     *
+     * @param page Zero-based page index.
+     * @param size Page size.
+     * @return The JSON body of the page.
+     */
+    public String halPage(int page, int size) {
+        return halPage(epersons, page, size);
+    }
+
+    /**
+     * Builds a HAL page over an arbitrary list of epersons.
+     */
+    public static String halPage(List<JSONObject> source, int page, int size) {
+        int from = Math.min(page * size, source.size());
+        int to = Math.min(from + size, source.size());
+
+        JSONArray array = new JSONArray();
+        for (int i = from; i < to; i++) {
+            array.put(source.get(i));
+        }
+        JSONObject pageInfo = new JSONObject()
+                .put("size", size)
+                .put("totalElements", source.size())
+                .put("totalPages", size == 0 ? 0 : (source.size() + size - 1) / size)
+                .put("number", page);
+        return new JSONObject()
+                .put("_embedded", new JSONObject().put("epersons", array))
+                .put("page", pageInfo)
+                .toString();
+    }
+
+    private static JSONArray metadataValue(String value) {
+        return new JSONArray().put(new JSONObject().put("value", value));
+    }
+
+    private static List<JSONObject> loadSample() {
+        try (InputStream in = EPersonDataset.class.getResourceAsStream(SAMPLE_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("No se encontró el recurso " + SAMPLE_RESOURCE);
+            }
+            JSONObject sample = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            JSONArray array = sample.getJSONObject("_embedded").getJSONArray("epersons");
+            List<JSONObject> templates = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                templates.add(array.getJSONObject(i));
+            }
+            return templates;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer " + SAMPLE_RESOURCE, e);
+        }
+    }
+}
@@ -0,0 +1,570 @@
+package com.upeu.connector.mock;
+
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.impl.bootstrap.HttpServer;
+import org.apache.hc.core5.http.impl.bootstrap.ServerBootstrap;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the DSpace REST API, used by the connector tests and, through the
+ * connector's test-jar, by the load harness and the benchmarks that need real HTTP round trips.
+ * <p>
+ * Implements {@code authn/status} (issues the CSRF cookie), {@code authn/login}
+ * (checks the CSRF header and returns a JWT), and {@code eperson/epersons} with
+ * CRUD, {@code search/byEmail}, {@code search/byMetadata} and HAL paging over an
+ * in-memory dataset, plus read-only {@code eperson/groups/<id>} and its {@code epersons}
+ * relation for groups added with {@link #addGroup}. Latency, error injection and page sizes can be changed while
+ * the server is running.
+ */
+public class MockDSpaceServer implements Closeable {
+
+    private static final String API = "/server/api/";
+    private static final String EPERSONS = "eperson/epersons";
+    private static final String GROUPS = "eperson/groups";
+    private static final String CSRF_COOKIE = "DSPACE-XSRF-COOKIE";
+    private static final String CSRF_HEADER = "X-XSRF-TOKEN";
+
+    private final Map<String, JSONObject> epersons = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, JSONObject> groups = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> groupMembers = new ConcurrentHashMap<>();
+    private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> csrfTokens = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong loginCount = new AtomicLong();
+
+    private final String username;
+    private final String password;
+    private final HttpServer server;
+
+    // Instantánea ordenada para paginar; se invalida con cada escritura
+    private volatile List<JSONObject> snapshot;
+
+    private volatile long latencyMillis;
+    private volatile long latencyJitterMillis;
+    private volatile double errorRate;
+    private volatile double stallRate;
+    private volatile long stallMillis;
+    private volatile int defaultPageSize = 20;
+    private volatile int maxPageSize = 1000;
+    private volatile long tokenLifetimeMillis = 30 * 60 * 1000L;
+
+    /**
+     * Creates a server on an ephemeral port with the given dataset. Call {@link #start()} to listen.
+     *
+     * @param dataset  Initial epersons.
+     * @param username Accepted login user.
+     * @param password Accepted login password.
+     */
+    public MockDSpaceServer(EPersonDataset dataset, String username, String password) {
+        this.username = username;
+        this.password = password;
+        for (JSONObject eperson : dataset.epersons()) {
+            store(new JSONObject(eperson.toString()));
+        }
+        this.server = ServerBootstrap.bootstrap()
+                .setListenerPort(0)
+                .setSocketConfig(SocketConfig.custom().setSoTimeout(Timeout.ofSeconds(30)).build())
+                .register("*", this::handle)
+                .create();
+    }
+
+    public MockDSpaceServer start() throws IOException {
+        server.start();
+        return this;
+    }
+
+    /**
+     * Base URL to configure in the connector (e.g. {@code http://localhost:12345/}).
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getLocalPort() + "/";
+    }
+
+    @Override
+    public void close() {
+        server.close(CloseMode.GRACEFUL);
+        try {
+            server.awaitTermination(TimeValue.ofSeconds(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==============================
+    // Ajustes en caliente
+    // ==============================
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setLatencyJitterMillis(long latencyJitterMillis) {
+        this.latencyJitterMillis = latencyJitterMillis;
+    }
+
+    /**
+     * Fraction of requests (0..1) answered with 503 instead of being processed.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Fraction of requests (0..1) that stall for {@code stallMillis} on top of the normal latency,
+     * as a DSpace node does during a GC pause or a Solr commit.
+     */
+    public void setStall(double stallRate, long stallMillis) {
+        this.stallRate = stallRate;
+        this.stallMillis = stallMillis;
+    }
+
+    public void setDefaultPageSize(int defaultPageSize) {
+        this.defaultPageSize = defaultPageSize;
+    }
+
+    /**
+     * Largest page size honoured; bigger {@code size} parameters are clamped, as DSpace does.
+     */
+    public void setMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+    public void setTokenLifetimeMillis(long tokenLifetimeMillis) {
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getLoginCount() {
+        return loginCount.get();
+    }
+
+    public int getEPersonCount() {
+        return epersons.size();
+    }
+
+    /**
+     * Adds a group whose members are the given epersons. Deleting an eperson removes it from
+     * every group, as DSpace does.
+     *
+     * @return The UUID of the group.
+     */
+    public String addGroup(String name, Collection<String> memberIds) {
+        String id = UUID.randomUUID().toString();
+        groups.put(id, new JSONObject()
+                .put("id", id)
+                .put("uuid", id)
+                .put("name", name)
+                .put("permanent", false)
+                .put("metadata", new JSONObject())
+                .put("type", "group"));
+        groupMembers.put(id, new CopyOnWriteArrayList<>(memberIds));
+        return id;
+    }
+
+    // ==============================
+    // Despacho de peticiones
+    // ==============================
+
+    private void handle(ClassicHttpRequest request, ClassicHttpResponse response, HttpContext context)
+            throws HttpException, IOException {
+        requestCount.incrementAndGet();
+        simulateLatency();
+
+        URI uri;
+        try {
+            uri = request.getUri();
+        } catch (URISyntaxException e) {
+            reply(response, 400, null);
+            return;
+        }
+        String path = uri.getPath();
+        if (!path.startsWith(API)) {
+            reply(response, 404, null);
+            return;
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            reply(response, 503, error(503, "Injected failure"));
+            return;
+        }
+
+        String resource = path.substring(API.length());
+        Map<String, String> params = parseQuery(uri.getRawQuery());
+        String method = request.getMethod();
+
+        if (resource.equals("authn/status")) {
+            handleStatus(request, response);
+            return;
+        }
+        if (resource.equals("authn/login") && method.equals("POST")) {
+            handleLogin(request, response);
+            return;
+        }
+        if (!isAuthorized(request)) {
+            reply(response, 401, error(401, "Authentication is required"));
+            return;
+        }
+
+        if (resource.equals(EPERSONS)) {
+            if (method.equals("GET")) {
+                replyPage(response, snapshot(), params);
+            } else if (method.equals("POST")) {
+                handleCreate(request, response);
+            } else {
+                reply(response, 405, null);
+            }
+        } else if (resource.equals(EPERSONS + "/search/byEmail")) {
+            String email = params.get("email");
+            String id = email != null ? idsByEmail.get(lower(email)) : null;
+            JSONObject eperson = id != null ? epersons.get(id) : null;
+            reply(response, eperson != null ? 200 : 204, eperson);
+        } else if (resource.equals(EPERSONS + "/search/byMetadata")) {
+            replyPage(response, searchByMetadata(params.get("query")), params);
+        } else if (resource.startsWith(EPERSONS + "/")) {
+            handleItem(request, response, resource.substring(EPERSONS.length() + 1));
+        } else if (resource.startsWith(GROUPS + "/") && method.equals("GET")) {
+            handleGroup(response, resource.substring(GROUPS.length() + 1), params);
+        } else {
+            reply(response, 404, error(404, "Unknown resource " + resource));
+        }
+    }
+
+    private void handleStatus(ClassicHttpRequest request, ClassicHttpResponse response) {
+        String csrf = UUID.randomUUID().toString();
+        csrfTokens.put(csrf, Boolean.TRUE);
+        response.addHeader("Set-Cookie", CSRF_COOKIE + "=" + csrf + "; Path=/server; HttpOnly");
+        response.addHeader("DSPACE-XSRF-TOKEN", csrf);
+        reply(response, 200, new JSONObject()
+                .put("okay", true)
+                .put("authenticated", isAuthorized(request))
+                .put("type", "status"));
+    }
+
+    private void handleLogin(ClassicHttpRequest request, ClassicHttpResponse response) throws IOException, HttpException {
+        Header csrf = request.getFirstHeader(CSRF_HEADER);
+        if (csrf == null || csrfTokens.remove(csrf.getValue()) == null) {
+            reply(response, 403, error(403, "Invalid CSRF token"));
+            return;
+        }
+        Map<String, String> form = parseQuery(EntityUtils.toString(request.getEntity(), StandardCharsets.UTF_8));
+        if (!username.equals(form.get("user")) || !password.equals(form.get("password"))) {
+            reply(response, 401, error(401, "Authentication failed"));
+            return;
+        }
+        loginCount.incrementAndGet();
+        String jwt = issueJwt(form.get("user"));
+        response.addHeader("Authorization", "Bearer " + jwt);
+        reply(response, 200, null);
+    }
+
+    private void handleCreate(ClassicHttpRequest request, ClassicHttpResponse response) throws IOException, HttpException {
+        JSONObject body = new JSONObject(EntityUtils.toString(request.getEntity(), StandardCharsets.UTF_8));
+        String email = body.optString("email", null);
+        if (email == null || email.isEmpty()) {
+            reply(response, 422, error(422, "Email is required"));
+            return;
+        }
+        if (idsByEmail.containsKey(lower(email))) {
+            reply(response, 422, error(422, "Email address is already in use"));
+            return;
+        }
+        String id = UUID.randomUUID().toString();
+        JSONObject eperson = new JSONObject()
+                .put("id", id)
+                .put("uuid", id)
+                .put("name", email)
+                .put("email", email)
+                .put("canLogIn", body.optBoolean("canLogIn", false))
+                .put("requireCertificate", body.optBoolean("requireCertificate", false))
+                .put("netid", body.opt("netid"))
+                .put("metadata", body.optJSONObject("metadata") != null ? body.getJSONObject("metadata") : new JSONObject())
+                .put("type", "eperson");
+        store(eperson);
+        reply(response, 201, eperson);
+    }
+
+    private void handleItem(ClassicHttpRequest request, ClassicHttpResponse response, String id) throws IOException, HttpException {
+        JSONObject eperson = epersons.get(id);
+        if (eperson == null) {
+            reply(response, 404, error(404, "EPerson not found: " + id));
+            return;
+        }
+        switch (request.getMethod()) {
+            case "GET":
+                reply(response, 200, eperson);
+                break;
+            case "PUT":
+                JSONObject updated = new JSONObject(eperson.toString());
+                JSONObject changes = new JSONObject(EntityUtils.toString(request.getEntity(), StandardCharsets.UTF_8));
+                for (String key : changes.keySet()) {
+                    if (!key.equals("id") && !key.equals("uuid")) {
+                        updated.put(key, changes.get(key));
+                    }
+                }
+                replace(eperson, updated);
+                reply(response, 200, updated);
+                break;
+            case "PATCH":
+                JSONObject patched = applyPatch(eperson,
+                        new JSONArray(EntityUtils.toString(request.getEntity(), StandardCharsets.UTF_8)));
+                if (patched == null) {
+                    reply(response, 422, error(422, "Unsupported patch operation"));
+                    return;
+                }
+                replace(eperson, patched);
+                reply(response, 200, patched);
+                break;
+            case "DELETE":
+                remove(eperson);
+                reply(response, 204, null);
+                break;
+            default:
+                reply(response, 405, null);
+        }
+    }
+
+    private void handleGroup(ClassicHttpResponse response, String path, Map<String, String> params) {
+        String[] parts = path.split("/");
+        JSONObject group = groups.get(parts[0]);
+        if (group == null) {
+            reply(response, 404, error(404, "Group not found: " + parts[0]));
+        } else if (parts.length == 1) {
+            reply(response, 200, group);
+        } else if (parts.length == 2 && parts[1].equals("epersons")) {
+            List<JSONObject> members = new ArrayList<>();
+            for (String memberId : groupMembers.get(parts[0])) {
+                JSONObject eperson = epersons.get(memberId);
+                if (eperson != null) {
+                    members.add(eperson);
+                }
+            }
+            replyPage(response, members, params);
+        } else {
+            reply(response, 404, error(404, "Unknown resource " + GROUPS + "/" + path));
+        }
+    }
+
+    /**
+     * Applies the subset of JSON Patch DSpace uses for epersons ({@code replace}/{@code add}
+     * on top-level fields and {@code /metadata/<field>}).
+     */
+    private JSONObject applyPatch(JSONObject eperson, JSONArray operations) {
+        JSONObject patched = new JSONObject(eperson.toString());
+        for (int i = 0; i < operations.length(); i++) {
+            JSONObject operation = operations.getJSONObject(i);
+            String op = operation.optString("op");
+            String path = operation.optString("path");
+            if (!op.equals("replace") && !op.equals("add") && !op.equals("remove")) {
+                return null;
+            }
+            if (path.startsWith("/metadata/")) {
+                String field = path.substring("/metadata/".length()).split("/")[0];
+                if (op.equals("remove")) {
+                    patched.getJSONObject("metadata").remove(field);
+                } else {
+                    Object value = operation.get("value");
+                    patched.getJSONObject("metadata").put(field,
+                            value instanceof JSONArray ? value : new JSONArray().put(value));
+                }
+            } else if (path.length() > 1 && !path.equals("/id") && !path.equals("/uuid")) {
+                if (op.equals("remove")) {
+                    patched.remove(path.substring(1));
+                } else {
+                    patched.put(path.substring(1), operation.get("value"));
+                }
+            } else {
+                return null;
+            }
+        }
+        return patched;
+    }
+
+    // ==============================
+    // Datos
+    // ==============================
+
+    private void store(JSONObject eperson) {
+        epersons.put(eperson.getString("id"), eperson);
+        idsByEmail.put(lower(eperson.getString("email")), eperson.getString("id"));
+        snapshot = null;
+    }
+
+    private synchronized void replace(JSONObject previous, JSONObject updated) {
+        idsByEmail.remove(lower(previous.getString("email")));
+        store(updated);
+    }
+
+    private synchronized void remove(JSONObject eperson) {
+        epersons.remove(eperson.getString("id"));
+        idsByEmail.remove(lower(eperson.getString("email")));
+        groupMembers.values().forEach(members -> members.remove(eperson.getString("id")));
+        snapshot = null;
+    }
+
+    private List<JSONObject> snapshot() {
+        List<JSONObject> current = snapshot;
+        if (current == null) {
+            current = new ArrayList<>(epersons.values());
+            current.sort((a, b) -> a.getString("email").compareTo(b.getString("email")));
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private List<JSONObject> searchByMetadata(String query) {
+        List<JSONObject> matches = new ArrayList<>();
+        if (query == null || query.isEmpty()) {
+            return matches;
+        }
+        JSONObject byId = epersons.get(query);
+        if (byId != null) {
+            matches.add(byId);
+            return matches;
+        }
+        String needle = lower(query);
+        for (JSONObject eperson : snapshot()) {
+            JSONObject metadata = eperson.optJSONObject("metadata");
+            if (lower(eperson.getString("email")).contains(needle)
+                    || contains(metadata, "eperson.firstname", needle)
+                    || contains(metadata, "eperson.lastname", needle)) {
+                matches.add(eperson);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean contains(JSONObject metadata, String field, String needle) {
+        if (metadata == null || !metadata.has(field)) {
+            return false;
+        }
+        JSONArray values = metadata.getJSONArray(field);
+        return values.length() > 0 && lower(values.getJSONObject(0).optString("value", "")).contains(needle);
+    }
+
+    // ==============================
+    // Autenticación
+    // ==============================
+
+    private String issueJwt(String user) {
+        long expiresAt = System.currentTimeMillis() + tokenLifetimeMillis;
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(new JSONObject()
+                .put("eid", user)
+                .put("exp", expiresAt / 1000)
+                .put("sg", UUID.randomUUID().toString())
+                .toString().getBytes(StandardCharsets.UTF_8));
+        String signature = encoder.encodeToString(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        String jwt = header + "." + payload + "." + signature;
+        tokens.put(jwt, expiresAt);
+        return jwt;
+    }
+
+    private boolean isAuthorized(ClassicHttpRequest request) {
+        Header authorization = request.getFirstHeader("Authorization");
+        if (authorization == null || !authorization.getValue().startsWith("Bearer ")) {
+            return false;
+        }
+        Long expiresAt = tokens.get(authorization.getValue().substring("Bearer ".length()));
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    // ==============================
+    // Utilidades HTTP
+    // ==============================
+
+    private void replyPage(ClassicHttpResponse response, List<JSONObject> source, Map<String, String> params) {
+        int size = Math.min(parseInt(params.get("size"), defaultPageSize), maxPageSize);
+        int page = parseInt(params.get("page"), 0);
+        response.setCode(200);
+        response.setEntity(new StringEntity(EPersonDataset.halPage(source, page, size), ContentType.APPLICATION_JSON));
+    }
+
+    private static void reply(ClassicHttpResponse response, int status, JSONObject body) {
+        response.setCode(status);
+        if (body != null) {
+            response.setEntity(new StringEntity(body.toString(), ContentType.APPLICATION_JSON));
+        }
+    }
+
+    private static JSONObject error(int status, String message) {
+        return new JSONObject().put("status", status).put("message", message);
+    }
+
+    private void simulateLatency() {
+        long delay = latencyMillis;
+        if (latencyJitterMillis > 0) {
+            delay += ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1);
+        }
+        if (stallRate > 0 && ThreadLocalRandom.current().nextDouble() < stallRate) {
+            delay += stallMillis;
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
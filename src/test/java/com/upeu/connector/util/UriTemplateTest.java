@@ -0,0 +1,89 @@
+package com.upeu.connector.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UriTemplateTest {
+
+    private static final String BASE = "https://dspace.upeu.edu.pe/server/api/";
+
+    @Test
+    void expandsPathSegmentsAndExplodedQueries() {
+        UriTemplate template = UriTemplate.compile(BASE + "eperson/epersons{/id}{?params*}");
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("page", 2);
+        params.put("size", 50);
+
+        assertThat(template.expand(Map.of("id", "a1a6", "params", params)))
+                .hasToString(BASE + "eperson/epersons/a1a6?page=2&size=50");
+    }
+
+    @Test
+    void omitsUndefinedVariables() {
+        UriTemplate template = UriTemplate.compile(BASE + "eperson/epersons{/id}{?page,size}");
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("id", null);
+        variables.put("size", 20);
+
+        assertThat(template.expand(variables)).hasToString(BASE + "eperson/epersons?size=20");
+    }
+
+    @Test
+    void percentEncodesReservedAndNonAsciiCharactersInValues() {
+        UriTemplate template = UriTemplate.compile(BASE + "search{?query}");
+
+        assertThat(template.expand(Map.of("query", "Núñez & Co/a+b")))
+                .hasToString(BASE + "search?query=N%C3%BA%C3%B1ez%20%26%20Co%2Fa%2Bb");
+    }
+
+    @Test
+    void encodesSurrogatePairsAsOneCodePoint() {
+        UriTemplate template = UriTemplate.compile(BASE + "search{?query}");
+
+        assertThat(template.expand(Map.of("query", "😀")))
+                .hasToString(BASE + "search?query=%F0%9F%98%80");
+    }
+
+    @Test
+    void encodesKeysAndValuesOfExplodedMaps() {
+        UriTemplate template = UriTemplate.compile(BASE + "search{?params*}");
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("sort", "email,ASC");
+        params.put("skipped", null);
+
+        assertThat(template.expand(Map.of("params", params)))
+                .hasToString(BASE + "search?sort=email%2CASC");
+    }
+
+    @Test
+    void reservedExpansionKeepsReservedCharactersAndEncodedSequences() {
+        UriTemplate template = UriTemplate.compile("{+base}eperson/epersons");
+
+        assertThat(template.expand(Map.of("base", BASE + "a%20b/")))
+                .hasToString(BASE + "a%20b/eperson/epersons");
+    }
+
+    @Test
+    void rejectsMalformedTemplates() {
+        assertThatThrownBy(() -> UriTemplate.compile(BASE + "{id"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> UriTemplate.compile(BASE + "{}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> UriTemplate.compile(BASE + "{#id}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsMapsOutsideExplodedQueries() {
+        UriTemplate template = UriTemplate.compile(BASE + "epersons{/id}");
+
+        assertThatThrownBy(() -> template.expand(Map.of("id", Map.of("a", "b"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,67 @@
+package com.upeu.connector.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UuidSetTest {
+
+    @Test
+    void addReportsWhetherTheUuidIsNew() {
+        UuidSet set = new UuidSet();
+        UUID uuid = UUID.randomUUID();
+
+        assertThat(set.add(uuid)).isTrue();
+        assertThat(set.add(uuid)).isFalse();
+        assertThat(set.add(uuid.toString())).isFalse();
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsEveryUuidAcrossResizes() {
+        UuidSet set = new UuidSet(4);
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID uuid = UUID.randomUUID();
+            uuids.add(uuid);
+            assertThat(set.add(uuid)).isTrue();
+        }
+
+        for (UUID uuid : uuids) {
+            assertThat(set.add(uuid)).isFalse();
+        }
+        assertThat(set.size()).isEqualTo(uuids.size());
+    }
+
+    @Test
+    void tellsApartUuidsThatShareOneHalf() {
+        UuidSet set = new UuidSet();
+
+        assertThat(set.add(new UUID(1L, 2L))).isTrue();
+        assertThat(set.add(new UUID(1L, 3L))).isTrue();
+        assertThat(set.add(new UUID(2L, 2L))).isTrue();
+        assertThat(set.size()).isEqualTo(3);
+    }
+
+    @Test
+    void storesTheNilUuid() {
+        UuidSet set = new UuidSet();
+        UUID nil = new UUID(0L, 0L);
+
+        assertThat(set.add(nil)).isTrue();
+        assertThat(set.add(nil)).isFalse();
+        assertThat(set.add(new UUID(0L, 1L))).isTrue();
+        assertThat(set.size()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsMalformedStrings() {
+        assertThatThrownBy(() -> new UuidSet().add("no-es-un-uuid"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}